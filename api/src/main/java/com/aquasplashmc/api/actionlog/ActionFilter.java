@@ -0,0 +1,193 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.aquasplashmc.api.actionlog;
+
+import com.aquasplashmc.api.AquaPermsProvider;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A filter for {@link Action}s, used to query the action log.
+ *
+ * <p>Filters are evaluated by the storage implementation wherever possible, so
+ * only the matching actions are ever loaded.</p>
+ *
+ * @since 5.5
+ */
+public interface ActionFilter {
+
+    /**
+     * Gets a {@link ActionFilter.Builder}
+     *
+     * @return a new builder
+     */
+    static @NonNull Builder builder() {
+        return AquaPermsProvider.get().getActionLogger().actionFilterBuilder();
+    }
+
+    /**
+     * Gets a filter which matches all actions.
+     *
+     * @return the filter
+     */
+    static @NonNull ActionFilter any() {
+        return builder().build();
+    }
+
+    /**
+     * Gets a filter which matches actions performed by the given source.
+     *
+     * @param uniqueId the uuid of the source
+     * @return the filter
+     */
+    static @NonNull ActionFilter source(@NonNull UUID uniqueId) {
+        return builder().source(uniqueId).build();
+    }
+
+    /**
+     * Gets a filter which matches actions which targeted the given user.
+     *
+     * @param uniqueId the uuid of the user
+     * @return the filter
+     */
+    static @NonNull ActionFilter user(@NonNull UUID uniqueId) {
+        return builder().targetType(Action.Target.Type.USER).target(uniqueId).build();
+    }
+
+    /**
+     * Gets a filter which matches actions which targeted the given group.
+     *
+     * @param name the name of the group
+     * @return the filter
+     */
+    static @NonNull ActionFilter group(@NonNull String name) {
+        return builder().targetType(Action.Target.Type.GROUP).targetName(name).build();
+    }
+
+    /**
+     * Gets a filter which matches actions which targeted the given track.
+     *
+     * @param name the name of the track
+     * @return the filter
+     */
+    static @NonNull ActionFilter track(@NonNull String name) {
+        return builder().targetType(Action.Target.Type.TRACK).targetName(name).build();
+    }
+
+    /**
+     * Gets a filter which matches actions where the source name, target name
+     * or description contains the given query, ignoring case.
+     *
+     * @param query the search query
+     * @return the filter
+     */
+    static @NonNull ActionFilter search(@NonNull String query) {
+        return builder().search(query).build();
+    }
+
+    /**
+     * Tests if the given action matches this filter.
+     *
+     * @param action the action
+     * @return true if the action matches
+     */
+    boolean test(@NonNull Action action);
+
+    /**
+     * Builds an {@link ActionFilter} instance.
+     *
+     * <p>Each property which is set further restricts the matched actions.</p>
+     */
+    interface Builder {
+
+        /**
+         * Only match actions performed by the given source.
+         *
+         * @param uniqueId the uuid of the source
+         * @return the builder
+         */
+        @NonNull Builder source(@NonNull UUID uniqueId);
+
+        /**
+         * Only match actions which targeted the given type of object.
+         *
+         * @param type the target type
+         * @return the builder
+         */
+        @NonNull Builder targetType(Action.Target.@NonNull Type type);
+
+        /**
+         * Only match actions which targeted the object with the given uuid.
+         *
+         * @param uniqueId the uuid of the target
+         * @return the builder
+         */
+        @NonNull Builder target(@NonNull UUID uniqueId);
+
+        /**
+         * Only match actions which targeted the object with the given name.
+         *
+         * @param name the name of the target
+         * @return the builder
+         */
+        @NonNull Builder targetName(@NonNull String name);
+
+        /**
+         * Only match actions which occurred at or after the given time.
+         *
+         * @param time the time
+         * @return the builder
+         */
+        @NonNull Builder after(@NonNull Instant time);
+
+        /**
+         * Only match actions which occurred before the given time.
+         *
+         * @param time the time
+         * @return the builder
+         */
+        @NonNull Builder before(@NonNull Instant time);
+
+        /**
+         * Only match actions where the source name, target name or description
+         * contains the given query, ignoring case.
+         *
+         * @param query the search query
+         * @return the builder
+         */
+        @NonNull Builder search(@NonNull String query);
+
+        /**
+         * Creates a {@link ActionFilter} instance from the builder.
+         *
+         * @return a new filter
+         */
+        @NonNull ActionFilter build();
+    }
+
+}
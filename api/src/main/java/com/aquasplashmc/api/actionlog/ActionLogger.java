@@ -28,6 +28,7 @@ package com.aquasplashmc.api.actionlog;
 import com.aquasplashmc.api.messaging.MessagingService;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -42,13 +43,49 @@ public interface ActionLogger {
      */
     Action.@NonNull Builder actionBuilder();
 
+    /**
+     * Returns a new {@link ActionFilter.Builder} instance
+     *
+     * @return a new builder
+     * @since 5.5
+     */
+    ActionFilter.@NonNull Builder actionFilterBuilder();
+
     /**
      * Gets a {@link ActionLog} instance from the plugin storage.
      *
+     * <p>This loads the entire log into memory. Where possible,
+     * {@link #queryActions(ActionFilter)} should be used instead.</p>
+     *
      * @return a log instance
      */
     @NonNull CompletableFuture<ActionLog> getLog();
 
+    /**
+     * Gets the actions in the plugin storage which match the given filter,
+     * ordered from oldest to newest.
+     *
+     * @param filter the filter
+     * @return the matching actions
+     * @since 5.5
+     */
+    @NonNull CompletableFuture<List<Action>> queryActions(@NonNull ActionFilter filter);
+
+    /**
+     * Gets a page of the actions in the plugin storage which match the given
+     * filter, ordered from oldest to newest.
+     *
+     * <p>Page numbers start at 1. If the page is beyond the last page, an empty
+     * list is returned.</p>
+     *
+     * @param filter the filter
+     * @param pageSize the number of actions per page
+     * @param pageNumber the page number
+     * @return the matching actions on the given page
+     * @since 5.5
+     */
+    @NonNull CompletableFuture<List<Action>> queryActions(@NonNull ActionFilter filter, int pageSize, int pageNumber);
+
     /**
      * Submits a log entry to the plugin to be handled.
      *
@@ -40,6 +40,13 @@ public enum SyncType {
     /**
      * Only a specific user will be synced
      */
-    SPECIFIC_USER
+    SPECIFIC_USER,
+
+    /**
+     * Only a specific group will be synced
+     *
+     * @since 5.5
+     */
+    SPECIFIC_GROUP
 
 }
@@ -0,0 +1,350 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.benchmarks;
+
+import com.xthesilent.aquaperms.common.cacheddata.CacheMetadata;
+import com.xthesilent.aquaperms.common.calculator.CalculatorFactory;
+import com.xthesilent.aquaperms.common.calculator.PermissionCalculator;
+import com.xthesilent.aquaperms.common.calculator.PermissionLookupCacheProvider;
+import com.xthesilent.aquaperms.common.calculator.processor.DirectProcessor;
+import com.xthesilent.aquaperms.common.calculator.processor.PermissionProcessor;
+import com.xthesilent.aquaperms.common.calculator.processor.RegexProcessor;
+import com.xthesilent.aquaperms.common.calculator.processor.WildcardProcessor;
+import com.xthesilent.aquaperms.common.config.AquaPermsConfiguration;
+import com.xthesilent.aquaperms.common.config.generic.adapter.ConfigurationAdapter;
+import com.xthesilent.aquaperms.common.context.manager.ContextManager;
+import com.xthesilent.aquaperms.common.context.manager.QueryOptionsSupplier;
+import com.xthesilent.aquaperms.common.event.AbstractEventBus;
+import com.xthesilent.aquaperms.common.event.EventDispatcher;
+import com.xthesilent.aquaperms.common.inheritance.InheritanceDependencyIndex;
+import com.xthesilent.aquaperms.common.inheritance.InheritanceGraphFactory;
+import com.xthesilent.aquaperms.common.model.Group;
+import com.xthesilent.aquaperms.common.model.manager.group.StandardGroupManager;
+import com.xthesilent.aquaperms.common.model.nodemap.TemporaryNodeExpiryIndex;
+import com.xthesilent.aquaperms.common.node.types.Inheritance;
+import com.xthesilent.aquaperms.common.node.types.Permission;
+import com.xthesilent.aquaperms.common.node.types.RegexPermission;
+import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
+import com.xthesilent.aquaperms.common.plugin.bootstrap.AquaPermsBootstrap;
+import com.xthesilent.aquaperms.common.plugin.logging.PluginLogger;
+import com.xthesilent.aquaperms.common.plugin.scheduler.AbstractJavaScheduler;
+import com.xthesilent.aquaperms.common.plugin.scheduler.SchedulerAdapter;
+import com.xthesilent.aquaperms.common.treeview.PermissionRegistry;
+import com.xthesilent.aquaperms.common.verbose.VerboseHandler;
+import com.aquasplashmc.api.context.ImmutableContextSet;
+import com.aquasplashmc.api.platform.Platform;
+import com.aquasplashmc.api.query.QueryOptions;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * A minimal, in-memory plugin environment for running benchmarks against.
+ *
+ * <p>Only the services used by the permission check and cache build paths are
+ * available - everything else throws {@link UnsupportedOperationException}.</p>
+ */
+public final class BenchmarkEnvironment implements AutoCloseable {
+
+    private final Path dataDirectory;
+    private final SchedulerAdapter scheduler;
+    private final AquaPermsPlugin plugin;
+    private final StandardGroupManager groupManager;
+
+    public BenchmarkEnvironment() {
+        try {
+            this.dataDirectory = Files.createTempDirectory("aquaperms-benchmarks");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        Map<String, Object> bootstrapServices = new HashMap<>();
+        Map<String, Object> pluginServices = new HashMap<>();
+
+        PluginLogger logger = new StdOutLogger();
+        AquaPermsBootstrap bootstrap = proxy(AquaPermsBootstrap.class, bootstrapServices);
+        this.scheduler = new AbstractJavaScheduler(bootstrap) {
+            @Override
+            public Executor sync() {
+                return async();
+            }
+        };
+        bootstrapServices.put("getDataDirectory", this.dataDirectory);
+        bootstrapServices.put("getType", Platform.Type.STANDALONE);
+        bootstrapServices.put("getScheduler", this.scheduler);
+        bootstrapServices.put("getPluginLogger", logger);
+
+        this.plugin = proxy(AquaPermsPlugin.class, pluginServices);
+        this.groupManager = new StandardGroupManager(this.plugin);
+
+        pluginServices.put("getBootstrap", bootstrap);
+        pluginServices.put("getLogger", logger);
+        pluginServices.put("getVerboseHandler", new VerboseHandler(this.scheduler));
+        pluginServices.put("getPermissionRegistry", new PermissionRegistry(this.scheduler));
+        pluginServices.put("getEventDispatcher", new EventDispatcher(new NoopEventBus(this.plugin)));
+        pluginServices.put("getGroupManager", this.groupManager);
+        pluginServices.put("getInheritanceGraphFactory", new InheritanceGraphFactory(this.plugin));
+        pluginServices.put("getInheritanceDependencyIndex", new InheritanceDependencyIndex(this.plugin));
+        pluginServices.put("getTemporaryNodeExpiryIndex", new TemporaryNodeExpiryIndex());
+        pluginServices.put("getContextManager", new StaticContextManager(this.plugin));
+        pluginServices.put("getCalculatorFactory", new StandardCalculatorFactory(this.plugin));
+        pluginServices.put("getConfiguration", new AquaPermsConfiguration(this.plugin, new DefaultsConfigurationAdapter(this.plugin)));
+        pluginServices.put("getPermissionLookupCacheProvider", PermissionLookupCacheProvider.fromConfiguration(this.plugin.getConfiguration()));
+    }
+
+    public AquaPermsPlugin getPlugin() {
+        return this.plugin;
+    }
+
+    public StandardGroupManager getGroupManager() {
+        return this.groupManager;
+    }
+
+    /**
+     * Creates a synthetic inheritance tree below a new group called "root".
+     *
+     * <p>The tree has {@code depth} levels of {@code width} groups each. Every group
+     * inherits all of the groups on the level below it, and holds
+     * {@code permissionsPerGroup} plain permissions, one wildcard and one regex
+     * permission.</p>
+     *
+     * @param depth the number of levels below the root
+     * @param width the number of groups in each level
+     * @param permissionsPerGroup the number of plain permissions held by each group
+     * @return the root group
+     */
+    public Group createGroupTree(int depth, int width, int permissionsPerGroup) {
+        List<Group> below = new ArrayList<>();
+        for (int level = depth; level >= 0; level--) {
+            List<Group> current = new ArrayList<>();
+            int count = level == 0 ? 1 : width;
+
+            for (int i = 0; i < count; i++) {
+                String name = level == 0 ? "root" : "level" + level + "-" + i;
+                Group group = this.groupManager.getOrMake(name);
+
+                for (Group parent : below) {
+                    group.normalData().add(Inheritance.builder(parent.getName()).build());
+                }
+                for (int j = 0; j < permissionsPerGroup; j++) {
+                    group.normalData().add(Permission.builder().permission(permission(level, i, j)).build());
+                }
+                group.normalData().add(Permission.builder().permission("wildcard." + name + ".*").build());
+                group.normalData().add(RegexPermission.builder().pattern("regex\\." + name + "\\.[a-z]+\\d*").build());
+
+                current.add(group);
+            }
+
+            below = current;
+        }
+        return below.get(0);
+    }
+
+    /**
+     * Gets the name of a plain permission held by a group in a tree created by
+     * {@link #createGroupTree(int, int, int)}.
+     *
+     * @param level the level of the group
+     * @param index the index of the group within the level
+     * @param permission the index of the permission
+     * @return the permission
+     */
+    public static String permission(int level, int index, int permission) {
+        return "bench.level" + level + ".group" + index + ".perm" + permission;
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdownScheduler();
+        this.scheduler.shutdownExecutor();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Map<String, Object> services) {
+        return (T) Proxy.newProxyInstance(BenchmarkEnvironment.class.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            String name = method.getName();
+            if (services.containsKey(name)) {
+                return services.get(name);
+            }
+            switch (name) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + "(benchmark)";
+            }
+            if (method.getReturnType() == void.class) {
+                return null;
+            }
+            throw new UnsupportedOperationException(type.getSimpleName() + "#" + name + " is not available in benchmarks");
+        });
+    }
+
+    /**
+     * A calculator factory using the standard (platform independent) processors.
+     */
+    private static final class StandardCalculatorFactory implements CalculatorFactory {
+        private final AquaPermsPlugin plugin;
+
+        StandardCalculatorFactory(AquaPermsPlugin plugin) {
+            this.plugin = plugin;
+        }
+
+        @Override
+        public PermissionCalculator build(QueryOptions queryOptions, CacheMetadata metadata) {
+            List<PermissionProcessor> processors = new ArrayList<>(3);
+            processors.add(new DirectProcessor());
+            processors.add(new RegexProcessor());
+            processors.add(new WildcardProcessor());
+            return new PermissionCalculator(this.plugin, metadata, processors);
+        }
+    }
+
+    /**
+     * A context manager with no subjects, which only supplies the (empty) static context.
+     */
+    private static final class StaticContextManager extends ContextManager<Object, Object> {
+        StaticContextManager(AquaPermsPlugin plugin) {
+            super(plugin, Object.class, Object.class);
+        }
+
+        @Override
+        public UUID getUniqueId(Object player) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public QueryOptionsSupplier getCacheFor(Object subject) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public QueryOptions formQueryOptions(Object subject, ImmutableContextSet contextSet) {
+            return formQueryOptions(contextSet);
+        }
+
+        @Override
+        protected void invalidateCache(Object subject) {
+
+        }
+    }
+
+    /**
+     * A configuration adapter which returns the default value for every option.
+     */
+    private static final class DefaultsConfigurationAdapter implements ConfigurationAdapter {
+        private final AquaPermsPlugin plugin;
+
+        DefaultsConfigurationAdapter(AquaPermsPlugin plugin) {
+            this.plugin = plugin;
+        }
+
+        @Override
+        public AquaPermsPlugin getPlugin() {
+            return this.plugin;
+        }
+
+        @Override
+        public void reload() {
+
+        }
+
+        @Override
+        public String getString(String path, String def) {
+            return def;
+        }
+
+        @Override
+        public int getInteger(String path, int def) {
+            return def;
+        }
+
+        @Override
+        public boolean getBoolean(String path, boolean def) {
+            return def;
+        }
+
+        @Override
+        public List<String> getStringList(String path, List<String> def) {
+            return def;
+        }
+
+        @Override
+        public Map<String, String> getStringMap(String path, Map<String, String> def) {
+            return def;
+        }
+    }
+
+    private static final class NoopEventBus extends AbstractEventBus<Object> {
+        NoopEventBus(AquaPermsPlugin plugin) {
+            super(plugin, null);
+        }
+
+        @Override
+        protected Object checkPlugin(Object plugin) throws IllegalArgumentException {
+            return plugin;
+        }
+    }
+
+    private static final class StdOutLogger implements PluginLogger {
+        @Override
+        public void info(String s) {
+            System.out.println("[INFO] " + s);
+        }
+
+        @Override
+        public void warn(String s) {
+            System.out.println("[WARN] " + s);
+        }
+
+        @Override
+        public void warn(String s, Throwable t) {
+            System.out.println("[WARN] " + s);
+            t.printStackTrace(System.out);
+        }
+
+        @Override
+        public void severe(String s) {
+            System.out.println("[SEVERE] " + s);
+        }
+
+        @Override
+        public void severe(String s, Throwable t) {
+            System.out.println("[SEVERE] " + s);
+            t.printStackTrace(System.out);
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.benchmarks;
+
+import com.xthesilent.aquaperms.common.context.ImmutableContextSetImpl;
+import com.aquasplashmc.api.context.ImmutableContextSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the context set operations performed when building query options and
+ * filtering nodes by context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ContextSetBenchmark {
+
+    @Param({"2", "8"})
+    public int size;
+
+    private ImmutableContextSet contexts;
+    private ImmutableContextSet copy;
+    private ImmutableContextSet subset;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.contexts = build(this.size);
+        this.copy = build(this.size);
+        this.subset = build(this.size / 2);
+    }
+
+    private static ImmutableContextSet build(int size) {
+        ImmutableContextSetImpl.BuilderImpl builder = new ImmutableContextSetImpl.BuilderImpl();
+        for (int i = 0; i < size; i++) {
+            builder.add("key" + i, "value" + i);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public ImmutableContextSet build() {
+        return build(this.size);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return this.contexts.contains("key0", "value0");
+    }
+
+    @Benchmark
+    public boolean isSatisfiedBy() {
+        return this.subset.isSatisfiedBy(this.contexts);
+    }
+
+    @Benchmark
+    public boolean equalsCopy() {
+        return this.contexts.equals(this.copy);
+    }
+
+    @Benchmark
+    public int hashCodeCopy() {
+        return this.copy.hashCode();
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.benchmarks;
+
+import com.xthesilent.aquaperms.common.cacheddata.type.MetaAccumulator;
+import com.xthesilent.aquaperms.common.model.Group;
+import com.xthesilent.aquaperms.common.query.QueryOptionsImpl;
+import com.aquasplashmc.api.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures resolving inherited nodes and accumulating meta through a synthetic
+ * group tree - the work done when a holder's cached data is (re)built.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InheritanceBenchmark {
+
+    @Param({"2", "5"})
+    public int depth;
+
+    @Param({"2", "8"})
+    public int width;
+
+    @Param({"50"})
+    public int permissionsPerGroup;
+
+    private BenchmarkEnvironment environment;
+    private Group root;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.environment = new BenchmarkEnvironment();
+        this.root = this.environment.createGroupTree(this.depth, this.width, this.permissionsPerGroup);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.environment.close();
+    }
+
+    @Benchmark
+    public List<Node> resolveInheritedNodes() {
+        return this.root.resolveInheritedNodes(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+    }
+
+    @Benchmark
+    public MetaAccumulator accumulateMeta() {
+        return this.root.accumulateMeta(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+    }
+
+}
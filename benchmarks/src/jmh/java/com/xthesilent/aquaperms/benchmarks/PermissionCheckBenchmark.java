@@ -0,0 +1,129 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.benchmarks;
+
+import com.xthesilent.aquaperms.common.cacheddata.result.TristateResult;
+import com.xthesilent.aquaperms.common.cacheddata.type.PermissionCache;
+import com.xthesilent.aquaperms.common.model.Group;
+import com.xthesilent.aquaperms.common.query.QueryOptionsImpl;
+import com.xthesilent.aquaperms.common.verbose.event.CheckOrigin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures permission checks against the cached permission data of a holder
+ * inheriting from a synthetic group tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PermissionCheckBenchmark {
+
+    @Param({"2", "5"})
+    public int depth;
+
+    @Param({"2", "8"})
+    public int width;
+
+    @Param({"50"})
+    public int permissionsPerGroup;
+
+    private BenchmarkEnvironment environment;
+    private Group root;
+    private PermissionCache permissionCache;
+
+    // permissions granted directly, by a wildcard and by a regex at the deepest level
+    private String directPermission;
+    private String wildcardPermission;
+    private String regexPermission;
+    private int missCounter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.environment = new BenchmarkEnvironment();
+        this.root = this.environment.createGroupTree(this.depth, this.width, this.permissionsPerGroup);
+        this.permissionCache = this.root.getCachedData().getPermissionData(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+
+        String deepest = "level" + this.depth + "-" + (this.width - 1);
+        this.directPermission = BenchmarkEnvironment.permission(this.depth, this.width - 1, this.permissionsPerGroup - 1);
+        this.wildcardPermission = "wildcard." + deepest + ".some.node";
+        this.regexPermission = "regex." + deepest + ".node42";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.environment.close();
+    }
+
+    @Benchmark
+    public TristateResult cachedDirectHit() {
+        return this.permissionCache.checkPermission(this.directPermission, CheckOrigin.INTERNAL);
+    }
+
+    @Benchmark
+    public TristateResult cachedWildcardHit() {
+        return this.permissionCache.checkPermission(this.wildcardPermission, CheckOrigin.INTERNAL);
+    }
+
+    @Benchmark
+    public TristateResult cachedRegexHit() {
+        return this.permissionCache.checkPermission(this.regexPermission, CheckOrigin.INTERNAL);
+    }
+
+    /**
+     * Checks a permission which has never been checked before, so the lookup cache
+     * always misses and the result is calculated by the processors.
+     *
+     * @return the result
+     */
+    @Benchmark
+    public TristateResult uncachedMiss() {
+        return this.permissionCache.checkPermission("unknown.permission.n" + (this.missCounter++), CheckOrigin.INTERNAL);
+    }
+
+    /**
+     * Rebuilds the permission cache for the holder, which includes resolving
+     * inherited nodes and building the processors.
+     *
+     * @return the rebuilt cache
+     */
+    @Benchmark
+    public PermissionCache rebuildCache() {
+        this.root.getCachedData().invalidate();
+        return this.root.getCachedData().getPermissionData(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.benchmarks;
+
+import com.xthesilent.aquaperms.common.cacheddata.result.TristateResult;
+import com.xthesilent.aquaperms.common.calculator.processor.DirectProcessor;
+import com.xthesilent.aquaperms.common.calculator.processor.PermissionProcessor;
+import com.xthesilent.aquaperms.common.calculator.processor.RegexProcessor;
+import com.xthesilent.aquaperms.common.calculator.processor.WildcardProcessor;
+import com.xthesilent.aquaperms.common.node.types.Permission;
+import com.xthesilent.aquaperms.common.node.types.RegexPermission;
+import com.aquasplashmc.api.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the individual permission processors, without any lookup caching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PermissionProcessorBenchmark {
+
+    @Param({"100", "1000"})
+    public int permissions;
+
+    @Param({"10", "100"})
+    public int regexPermissions;
+
+    private DirectProcessor directProcessor;
+    private WildcardProcessor wildcardProcessor;
+    private RegexProcessor regexProcessor;
+
+    // the same patterns as held by the regex processor, matched one by one
+    private List<Pattern> linearPatterns;
+
+    private String matchingPermission;
+    private String wildcardPermission;
+    private String regexPermission;
+    private String missingPermission;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Map<String, Node> source = new HashMap<>();
+        for (int i = 0; i < this.permissions; i++) {
+            add(source, Permission.builder().permission("bench.plugin" + (i % 10) + ".command" + i).build());
+            if (i % 10 == 0) {
+                add(source, Permission.builder().permission("bench.wildcard" + i + ".*").build());
+            }
+        }
+
+        this.linearPatterns = new ArrayList<>(this.regexPermissions);
+        for (int i = 0; i < this.regexPermissions; i++) {
+            String pattern = "regex\\.plugin" + i + "\\.[a-z]+\\d*";
+            add(source, RegexPermission.builder().pattern(pattern).build());
+            this.linearPatterns.add(Pattern.compile(pattern));
+        }
+
+        this.directProcessor = init(new DirectProcessor(), source);
+        this.wildcardProcessor = init(new WildcardProcessor(), source);
+        this.regexProcessor = init(new RegexProcessor(), source);
+
+        this.matchingPermission = "bench.plugin" + ((this.permissions - 1) % 10) + ".command" + (this.permissions - 1);
+        this.wildcardPermission = "bench.wildcard" + ((this.permissions - 1) / 10 * 10) + ".some.node";
+        this.regexPermission = "regex.plugin" + (this.regexPermissions - 1) + ".node42";
+        this.missingPermission = "bench.unknown.some.node";
+    }
+
+    private static void add(Map<String, Node> source, Node node) {
+        source.put(node.getKey(), node);
+    }
+
+    private static <T extends PermissionProcessor> T init(T processor, Map<String, Node> source) {
+        processor.setSource(source);
+        processor.refresh();
+        return processor;
+    }
+
+    @Benchmark
+    public TristateResult directHit() {
+        return this.directProcessor.hasPermission(TristateResult.UNDEFINED, this.matchingPermission);
+    }
+
+    @Benchmark
+    public TristateResult wildcardHit() {
+        return this.wildcardProcessor.hasPermission(TristateResult.UNDEFINED, this.wildcardPermission);
+    }
+
+    @Benchmark
+    public TristateResult wildcardMiss() {
+        return this.wildcardProcessor.hasPermission(TristateResult.UNDEFINED, this.missingPermission);
+    }
+
+    @Benchmark
+    public TristateResult regexCombinedHit() {
+        return this.regexProcessor.hasPermission(TristateResult.UNDEFINED, this.regexPermission);
+    }
+
+    @Benchmark
+    public TristateResult regexCombinedMiss() {
+        return this.regexProcessor.hasPermission(TristateResult.UNDEFINED, this.missingPermission);
+    }
+
+    @Benchmark
+    public int regexLinearHit() {
+        return linearMatch(this.regexPermission);
+    }
+
+    @Benchmark
+    public int regexLinearMiss() {
+        return linearMatch(this.missingPermission);
+    }
+
+    private int linearMatch(String permission) {
+        for (int i = 0; i < this.linearPatterns.size(); i++) {
+            if (this.linearPatterns.get(i).matcher(permission).matches()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Measures rebuilding the regex processor, including compiling the combined pattern.
+     *
+     * @return the processor
+     */
+    @Benchmark
+    public RegexProcessor regexRefresh() {
+        this.regexProcessor.refresh();
+        return this.regexProcessor;
+    }
+
+}
@@ -29,9 +29,9 @@ import com.google.common.collect.ImmutableMap;
 import com.xthesilent.aquaperms.bukkit.LPBukkitPlugin;
 import com.xthesilent.aquaperms.common.config.ConfigKeys;
 import com.xthesilent.aquaperms.common.context.ImmutableContextSetImpl;
+import com.xthesilent.aquaperms.common.context.calculator.SignalledContextCalculator;
 import com.xthesilent.aquaperms.common.util.EnumNamer;
 import com.aquasplashmc.api.context.Context;
-import com.aquasplashmc.api.context.ContextCalculator;
 import com.aquasplashmc.api.context.ContextConsumer;
 import com.aquasplashmc.api.context.ContextSet;
 import com.aquasplashmc.api.context.DefaultContextKeys;
@@ -50,7 +50,7 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.Set;
 
-public class BukkitPlayerCalculator implements ContextCalculator<Player>, Listener {
+public class BukkitPlayerCalculator implements SignalledContextCalculator<Player>, Listener {
     private static final EnumNamer<GameMode> GAMEMODE_NAMER = new EnumNamer<>(
             GameMode.class,
             EnumNamer.LOWER_CASE_NAME
@@ -142,7 +142,16 @@ public class BukkitPlayerCalculator implements ContextCalculator<Player>, Listen
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onGameModeChange(PlayerGameModeChangeEvent e) {
         if (this.gamemode) {
-            this.plugin.getContextManager().signalContextUpdate(e.getPlayer());
+            Player player = e.getPlayer();
+            this.plugin.getContextManager().signalContextUpdate(player);
+
+            // the event is called before the gamemode is actually changed, so signal
+            // again once it has been, as the contexts are cached until the next signal
+            this.plugin.getBootstrap().getScheduler().sync().execute(() -> {
+                if (player.isOnline()) {
+                    this.plugin.getContextManager().signalContextUpdate(player);
+                }
+            });
         }
     }
 }
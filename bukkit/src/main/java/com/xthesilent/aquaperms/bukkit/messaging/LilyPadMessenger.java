@@ -31,12 +31,12 @@ import lilypad.client.connect.api.event.MessageEvent;
 import lilypad.client.connect.api.request.RequestException;
 import lilypad.client.connect.api.request.impl.MessageRequest;
 import com.xthesilent.aquaperms.bukkit.LPBukkitPlugin;
+import com.xthesilent.aquaperms.common.messaging.BinaryMessageCodec;
 import com.aquasplashmc.api.messenger.IncomingMessageConsumer;
 import com.aquasplashmc.api.messenger.Messenger;
 import com.aquasplashmc.api.messenger.message.OutgoingMessage;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
-import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 
 /**
@@ -67,7 +67,7 @@ public class LilyPadMessenger implements Messenger {
 
     @Override
     public void sendOutgoingMessage(@NonNull OutgoingMessage outgoingMessage) {
-        MessageRequest request = new MessageRequest(Collections.emptyList(), CHANNEL, outgoingMessage.asEncodedString().getBytes(StandardCharsets.UTF_8));
+        MessageRequest request = new MessageRequest(Collections.emptyList(), CHANNEL, BinaryMessageCodec.encodePlainOrBinary(this.consumer, outgoingMessage));
         try {
             this.connect.request(request);
         } catch (RequestException e) {
@@ -82,8 +82,7 @@ public class LilyPadMessenger implements Messenger {
             if (!channel.equals(CHANNEL)) {
                 return;
             }
-            String message = new String(event.getMessage(), StandardCharsets.UTF_8);
-            this.consumer.consumeIncomingMessageAsString(message);
+            BinaryMessageCodec.consumePlainOrBinary(this.consumer, event.getMessage());
         });
     }
 }
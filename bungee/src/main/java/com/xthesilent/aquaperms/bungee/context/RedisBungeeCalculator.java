@@ -28,13 +28,14 @@ package com.xthesilent.aquaperms.bungee.context;
 import com.imaginarycode.minecraft.redisbungee.RedisBungee;
 import com.imaginarycode.minecraft.redisbungee.RedisBungeeAPI;
 import com.xthesilent.aquaperms.common.context.ImmutableContextSetImpl;
+import com.xthesilent.aquaperms.common.context.calculator.SignalledContextCalculator;
 import com.aquasplashmc.api.context.ContextConsumer;
 import com.aquasplashmc.api.context.ContextSet;
 import com.aquasplashmc.api.context.ImmutableContextSet;
 import com.aquasplashmc.api.context.StaticContextCalculator;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
-public class RedisBungeeCalculator implements StaticContextCalculator {
+public class RedisBungeeCalculator implements StaticContextCalculator, SignalledContextCalculator<Object> {
     private static final String PROXY_KEY = "proxy";
 
     @Override
@@ -0,0 +1,368 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.event.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates an implementation of each event interface listed in a {@link GenerateEvents}
+ * annotation.
+ *
+ * <p>Each generated class extends {@code AbstractEvent}, holds a final field for every
+ * method annotated with {@code @Param}, and has a constructor accepting the API instance
+ * followed by the values of those fields, in {@code @Param} order. An index class,
+ * {@code EventImplementations}, is also generated, mapping each event type to its
+ * {@code GeneratedEventClass}.</p>
+ */
+public class EventImplementationProcessor extends AbstractProcessor {
+    private static final String GENERATE_EVENTS = GenerateEvents.class.getName();
+    private static final String PARAM = "com.aquasplashmc.api.event.util.Param";
+    private static final String AQUAPERMS = "com.aquasplashmc.api.AquaPerms";
+    private static final String EVENT = "com.aquasplashmc.api.event.AquaPermsEvent";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(GENERATE_EVENTS);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement annotation = this.processingEnv.getElementUtils().getTypeElement(GENERATE_EVENTS);
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            try {
+                generate(element);
+            } catch (IOException e) {
+                error("Unable to write generated event: " + e, element);
+            }
+        }
+        return true;
+    }
+
+    private void generate(Element annotated) throws IOException {
+        PackageElement pkg = this.processingEnv.getElementUtils().getPackageOf(annotated);
+        String genPackage = pkg.getQualifiedName() + ".gen";
+
+        List<TypeElement> eventTypes = new ArrayList<>();
+        for (AnnotationMirror mirror : annotated.getAnnotationMirrors()) {
+            if (!((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(GENERATE_EVENTS)) {
+                continue;
+            }
+            for (AnnotationValue value : getValues(mirror)) {
+                TypeMirror type = (TypeMirror) value.getValue();
+                eventTypes.add((TypeElement) this.processingEnv.getTypeUtils().asElement(type));
+            }
+        }
+
+        List<EventModel> models = new ArrayList<>();
+        for (TypeElement eventType : eventTypes) {
+            EventModel model = createModel(eventType, annotated);
+            if (model != null) {
+                writeImplementation(genPackage, model, annotated);
+                models.add(model);
+            }
+        }
+        writeIndex(genPackage, models, annotated);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<? extends AnnotationValue> getValues(AnnotationMirror mirror) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : mirror.getElementValues().entrySet()) {
+            if (e.getKey().getSimpleName().contentEquals("value")) {
+                return (List<? extends AnnotationValue>) e.getValue().getValue();
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private EventModel createModel(TypeElement eventType, Element annotated) {
+        if (eventType.getKind() != ElementKind.INTERFACE) {
+            error(eventType.getQualifiedName() + " is not an interface", annotated);
+            return null;
+        }
+
+        DeclaredType declaredType = (DeclaredType) eventType.asType();
+        List<Property> properties = new ArrayList<>();
+
+        for (Element member : this.processingEnv.getElementUtils().getAllMembers(eventType)) {
+            if (member.getKind() != ElementKind.METHOD || !member.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+
+            ExecutableElement method = (ExecutableElement) member;
+            String owner = ((TypeElement) method.getEnclosingElement()).getQualifiedName().toString();
+            if (owner.equals(EVENT)) {
+                // getAquaPerms & getEventType are implemented separately
+                continue;
+            }
+
+            Integer index = getParamIndex(method);
+            if (index == null || !method.getParameters().isEmpty()) {
+                error("Unable to implement " + eventType.getSimpleName() + "#" + method.getSimpleName() + ", it is not a @Param accessor", annotated);
+                return null;
+            }
+
+            ExecutableType methodType = (ExecutableType) this.processingEnv.getTypeUtils().asMemberOf(declaredType, method);
+            properties.add(new Property(method.getSimpleName().toString(), index, methodType.getReturnType()));
+        }
+
+        properties.sort(Comparator.comparingInt(p -> p.index));
+        return new EventModel(eventType, properties);
+    }
+
+    private static Integer getParamIndex(ExecutableElement method) {
+        for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(PARAM)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : mirror.getElementValues().entrySet()) {
+                    if (e.getKey().getSimpleName().contentEquals("value")) {
+                        return (Integer) e.getValue().getValue();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void writeImplementation(String genPackage, EventModel model, Element annotated) throws IOException {
+        String eventName = model.type.getQualifiedName().toString();
+        String simpleName = model.type.getSimpleName().toString();
+        String className = model.implementationName();
+
+        try (Writer writer = this.processingEnv.getFiler().createSourceFile(genPackage + "." + className, annotated).openWriter();
+             PrintWriter out = new PrintWriter(writer)) {
+
+            out.println("package " + genPackage + ";");
+            out.println();
+            out.println("/**");
+            out.println(" * Implementation of {@link " + eventName + "}.");
+            out.println(" *");
+            out.println(" * <p>Generated by " + EventImplementationProcessor.class.getSimpleName() + ".</p>");
+            out.println(" */");
+            out.println("public final class " + className + " extends AbstractEvent implements " + eventName + " {");
+
+            // fields
+            for (Property property : model.properties) {
+                out.println("    private final " + typeName(property.type) + " " + property.name + ";");
+            }
+            if (!model.properties.isEmpty()) {
+                out.println();
+            }
+
+            // constructor
+            StringBuilder params = new StringBuilder(AQUAPERMS + " api");
+            for (Property property : model.properties) {
+                params.append(", ").append(typeName(property.type)).append(' ').append(property.name);
+            }
+            out.println("    public " + className + "(" + params + ") {");
+            out.println("        super(api);");
+            for (Property property : model.properties) {
+                out.println("        this." + property.name + " = " + property.name + ";");
+            }
+            out.println("    }");
+            out.println();
+
+            // untyped factory, used by GeneratedEventClass#newInstance
+            StringBuilder args = new StringBuilder("api");
+            for (int i = 0; i < model.properties.size(); i++) {
+                args.append(", (").append(typeName(model.properties.get(i).type)).append(") params[").append(i).append(']');
+            }
+            out.println("    @SuppressWarnings(\"unchecked\")");
+            out.println("    static " + className + " create(" + AQUAPERMS + " api, Object[] params) {");
+            out.println("        return new " + className + "(" + args + ");");
+            out.println("    }");
+            out.println();
+
+            out.println("    @Override");
+            out.println("    public Class<? extends " + EVENT + "> getEventType() {");
+            out.println("        return " + eventName + ".class;");
+            out.println("    }");
+
+            for (Property property : model.properties) {
+                out.println();
+                out.println("    @Override");
+                out.println("    public " + typeName(property.type) + " " + property.name + "() {");
+                out.println("        return this." + property.name + ";");
+                out.println("    }");
+            }
+
+            StringBuilder toString = new StringBuilder("\"" + simpleName + "{");
+            for (int i = 0; i < model.properties.size(); i++) {
+                String name = model.properties.get(i).name;
+                toString.append(i == 0 ? "" : ", ").append(name).append("=\" + this.").append(name).append(" + \"");
+            }
+            toString.append("}\"");
+
+            out.println();
+            out.println("    @Override");
+            out.println("    public String toString() {");
+            out.println("        return " + toString + ";");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private void writeIndex(String genPackage, List<EventModel> models, Element annotated) throws IOException {
+        String mapType = "java.util.Map<Class<? extends " + EVENT + ">, GeneratedEventClass>";
+
+        try (Writer writer = this.processingEnv.getFiler().createSourceFile(genPackage + ".EventImplementations", annotated).openWriter();
+             PrintWriter out = new PrintWriter(writer)) {
+
+            out.println("package " + genPackage + ";");
+            out.println();
+            out.println("/**");
+            out.println(" * Index of the generated event implementations.");
+            out.println(" *");
+            out.println(" * <p>Generated by " + EventImplementationProcessor.class.getSimpleName() + ".</p>");
+            out.println(" */");
+            out.println("final class EventImplementations {");
+            out.println("    private EventImplementations() {}");
+            out.println();
+            out.println("    static final " + mapType + " CLASSES;");
+            out.println();
+            out.println("    static {");
+            out.println("        " + mapType + " map = new java.util.LinkedHashMap<>();");
+            for (EventModel model : models) {
+                String eventName = model.type.getQualifiedName().toString();
+                out.println("        map.put(" + eventName + ".class, new GeneratedEventClass(" + eventName + ".class, "
+                        + model.properties.size() + ", " + model.implementationName() + "::create));");
+            }
+            out.println("        CLASSES = java.util.Collections.unmodifiableMap(map);");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    /**
+     * Gets the source representation of a type, excluding any type annotations.
+     *
+     * @param type the type
+     * @return the source representation
+     */
+    private static String typeName(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case CHAR:
+            case FLOAT:
+            case DOUBLE:
+                return type.getKind().name().toLowerCase(Locale.ROOT);
+            case ARRAY:
+                return typeName(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED: {
+                DeclaredType declared = (DeclaredType) type;
+                StringBuilder sb = new StringBuilder(((TypeElement) declared.asElement()).getQualifiedName());
+                List<? extends TypeMirror> args = declared.getTypeArguments();
+                if (!args.isEmpty()) {
+                    sb.append('<');
+                    for (int i = 0; i < args.size(); i++) {
+                        if (i != 0) {
+                            sb.append(", ");
+                        }
+                        sb.append(typeName(args.get(i)));
+                    }
+                    sb.append('>');
+                }
+                return sb.toString();
+            }
+            case WILDCARD: {
+                WildcardType wildcard = (WildcardType) type;
+                if (wildcard.getExtendsBound() != null) {
+                    return "? extends " + typeName(wildcard.getExtendsBound());
+                } else if (wildcard.getSuperBound() != null) {
+                    return "? super " + typeName(wildcard.getSuperBound());
+                }
+                return "?";
+            }
+            default:
+                return type.toString();
+        }
+    }
+
+    private void error(String message, Element element) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class EventModel {
+        private final TypeElement type;
+        private final List<Property> properties;
+
+        EventModel(TypeElement type, List<Property> properties) {
+            this.type = type;
+            this.properties = properties;
+        }
+
+        String implementationName() {
+            return this.type.getSimpleName() + "Impl";
+        }
+    }
+
+    private static final class Property {
+        private final String name;
+        private final int index;
+        private final TypeMirror type;
+
+        Property(String name, int index, TypeMirror type) {
+            this.name = name;
+            this.index = index;
+            this.type = type;
+        }
+    }
+
+}
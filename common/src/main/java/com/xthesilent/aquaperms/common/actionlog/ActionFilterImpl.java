@@ -0,0 +1,234 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.actionlog;
+
+import com.aquasplashmc.api.actionlog.Action;
+import com.aquasplashmc.api.actionlog.ActionFilter;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Implementation of {@link ActionFilter}.
+ *
+ * <p>Storage implementations read the individual properties in order to push the
+ * filter down into their own query language. {@link #test(Action)} is used where
+ * that isn't possible.</p>
+ */
+public final class ActionFilterImpl implements ActionFilter {
+    private static final ActionFilterImpl ANY = new Builder().build();
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static ActionFilterImpl any() {
+        return ANY;
+    }
+
+    public static ActionFilterImpl source(UUID uniqueId) {
+        return builder().source(uniqueId).build();
+    }
+
+    public static ActionFilterImpl user(UUID uniqueId) {
+        return builder().targetType(Action.Target.Type.USER).target(uniqueId).build();
+    }
+
+    public static ActionFilterImpl group(String name) {
+        return builder().targetType(Action.Target.Type.GROUP).targetName(name).build();
+    }
+
+    public static ActionFilterImpl track(String name) {
+        return builder().targetType(Action.Target.Type.TRACK).targetName(name).build();
+    }
+
+    public static ActionFilterImpl search(String query) {
+        return builder().search(query).build();
+    }
+
+    private final @Nullable UUID source;
+    private final Action.Target.@Nullable Type targetType;
+    private final @Nullable UUID target;
+    private final @Nullable String targetName;
+    private final long after;
+    private final long before;
+    private final @Nullable String search;
+
+    private ActionFilterImpl(Builder builder) {
+        this.source = builder.source;
+        this.targetType = builder.targetType;
+        this.target = builder.target;
+        this.targetName = builder.targetName;
+        this.after = builder.after;
+        this.before = builder.before;
+        this.search = builder.search;
+    }
+
+    public @Nullable UUID getSource() {
+        return this.source;
+    }
+
+    public Action.Target.@Nullable Type getTargetType() {
+        return this.targetType;
+    }
+
+    public @Nullable UUID getTarget() {
+        return this.target;
+    }
+
+    public @Nullable String getTargetName() {
+        return this.targetName;
+    }
+
+    /**
+     * Gets the (inclusive) lower bound of the timestamp of matched actions, in epoch seconds.
+     *
+     * @return the lower bound, or {@link Long#MIN_VALUE} if unbounded
+     */
+    public long getAfter() {
+        return this.after;
+    }
+
+    /**
+     * Gets the (exclusive) upper bound of the timestamp of matched actions, in epoch seconds.
+     *
+     * @return the upper bound, or {@link Long#MAX_VALUE} if unbounded
+     */
+    public long getBefore() {
+        return this.before;
+    }
+
+    /**
+     * Gets the search query, always in lower case.
+     *
+     * @return the search query
+     */
+    public @Nullable String getSearch() {
+        return this.search;
+    }
+
+    @Override
+    public boolean test(@NonNull Action action) {
+        if (this.source != null && !this.source.equals(action.getSource().getUniqueId())) {
+            return false;
+        }
+
+        Action.Target target = action.getTarget();
+        if (this.targetType != null && this.targetType != target.getType()) {
+            return false;
+        }
+        if (this.target != null && !target.getUniqueId().filter(this.target::equals).isPresent()) {
+            return false;
+        }
+        if (this.targetName != null && !this.targetName.equals(target.getName())) {
+            return false;
+        }
+
+        long timestamp = action.getTimestamp().getEpochSecond();
+        if (timestamp < this.after || timestamp >= this.before) {
+            return false;
+        }
+
+        return this.search == null ||
+                action.getSource().getName().toLowerCase(Locale.ROOT).contains(this.search) ||
+                target.getName().toLowerCase(Locale.ROOT).contains(this.search) ||
+                action.getDescription().toLowerCase(Locale.ROOT).contains(this.search);
+    }
+
+    @Override
+    public String toString() {
+        return "ActionFilter(" +
+                "source=" + this.source + ", " +
+                "targetType=" + this.targetType + ", " +
+                "target=" + this.target + ", " +
+                "targetName=" + this.targetName + ", " +
+                "after=" + this.after + ", " +
+                "before=" + this.before + ", " +
+                "search=" + this.search + ")";
+    }
+
+    public static final class Builder implements ActionFilter.Builder {
+        private UUID source = null;
+        private Action.Target.Type targetType = null;
+        private UUID target = null;
+        private String targetName = null;
+        private long after = Long.MIN_VALUE;
+        private long before = Long.MAX_VALUE;
+        private String search = null;
+
+        @Override
+        public @NonNull Builder source(@NonNull UUID uniqueId) {
+            this.source = Objects.requireNonNull(uniqueId, "uniqueId");
+            return this;
+        }
+
+        @Override
+        public @NonNull Builder targetType(Action.Target.@NonNull Type type) {
+            this.targetType = Objects.requireNonNull(type, "type");
+            return this;
+        }
+
+        @Override
+        public @NonNull Builder target(@NonNull UUID uniqueId) {
+            this.target = Objects.requireNonNull(uniqueId, "uniqueId");
+            return this;
+        }
+
+        @Override
+        public @NonNull Builder targetName(@NonNull String name) {
+            this.targetName = Objects.requireNonNull(name, "name");
+            return this;
+        }
+
+        @Override
+        public @NonNull Builder after(@NonNull Instant time) {
+            this.after = Objects.requireNonNull(time, "time").getEpochSecond();
+            return this;
+        }
+
+        @Override
+        public @NonNull Builder before(@NonNull Instant time) {
+            this.before = Objects.requireNonNull(time, "time").getEpochSecond();
+            return this;
+        }
+
+        @Override
+        public @NonNull Builder search(@NonNull String query) {
+            this.search = Objects.requireNonNull(query, "query").toLowerCase(Locale.ROOT);
+            return this;
+        }
+
+        @Override
+        public @NonNull ActionFilterImpl build() {
+            return new ActionFilterImpl(this);
+        }
+    }
+
+}
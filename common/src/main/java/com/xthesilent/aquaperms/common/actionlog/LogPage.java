@@ -0,0 +1,109 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.actionlog;
+
+import com.google.common.collect.ImmutableList;
+import com.xthesilent.aquaperms.common.util.Paginated;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of an action log query - a page of matching actions, ordered from
+ * oldest to newest, along with the total number of matching actions.
+ */
+public final class LogPage {
+
+    /**
+     * Creates a page from the complete list of matching actions.
+     *
+     * <p>Used by storage implementations which aren't able to page results themselves.</p>
+     *
+     * @param matching all of the matching actions, in order
+     * @param page the page to take, or null for all of them
+     * @return the page
+     */
+    public static LogPage of(List<LoggedAction> matching, @Nullable PageParameters page) {
+        int total = matching.size();
+        if (page == null) {
+            return new LogPage(matching, 1, Math.max(1, total), total);
+        }
+
+        int offset = page.getOffset(total);
+        List<LoggedAction> content = offset >= total
+                ? ImmutableList.of()
+                : matching.subList(offset, Math.min(total, offset + page.getPageSize()));
+        return new LogPage(content, page.getPageNumber(total), page.getPageSize(), total);
+    }
+
+    public static int getMaxPages(int totalEntries, int pageSize) {
+        return (int) Math.ceil((double) totalEntries / (double) pageSize);
+    }
+
+    private final List<LoggedAction> content;
+    private final int pageNumber;
+    private final int pageSize;
+    private final int totalEntries;
+
+    public LogPage(List<LoggedAction> content, int pageNumber, int pageSize, int totalEntries) {
+        this.content = ImmutableList.copyOf(content);
+        this.pageNumber = pageNumber;
+        this.pageSize = pageSize;
+        this.totalEntries = totalEntries;
+    }
+
+    public List<LoggedAction> getContent() {
+        return this.content;
+    }
+
+    /**
+     * Gets the content of the page, along with the position of each entry in the
+     * complete list of matching actions.
+     *
+     * @return the entries
+     */
+    public List<Paginated.Entry<LoggedAction>> getEntries() {
+        int offset = (this.pageNumber - 1) * this.pageSize;
+        List<Paginated.Entry<LoggedAction>> entries = new ArrayList<>(this.content.size());
+        for (int i = 0; i < this.content.size(); i++) {
+            entries.add(new Paginated.Entry<>(offset + i + 1, this.content.get(i)));
+        }
+        return entries;
+    }
+
+    public int getPageNumber() {
+        return this.pageNumber;
+    }
+
+    public int getTotalEntries() {
+        return this.totalEntries;
+    }
+
+    public int getMaxPages() {
+        return getMaxPages(this.totalEntries, this.pageSize);
+    }
+}
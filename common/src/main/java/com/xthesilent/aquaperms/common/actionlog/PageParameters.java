@@ -0,0 +1,90 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.actionlog;
+
+/**
+ * The page of results requested from an action log query.
+ */
+public final class PageParameters {
+    private static final int LAST_PAGE = -1;
+
+    /**
+     * Requests the last page of results, whichever page number that turns out to be.
+     *
+     * @param pageSize the page size
+     * @return the page parameters
+     */
+    public static PageParameters lastPage(int pageSize) {
+        return new PageParameters(pageSize, LAST_PAGE);
+    }
+
+    private final int pageSize;
+    private final int pageNumber;
+
+    public PageParameters(int pageSize, int pageNumber) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize cannot be less than 1: " + pageSize);
+        }
+        if (pageNumber < 1 && pageNumber != LAST_PAGE) {
+            throw new IllegalArgumentException("pageNumber cannot be less than 1: " + pageNumber);
+        }
+        this.pageSize = pageSize;
+        this.pageNumber = pageNumber;
+    }
+
+    public int getPageSize() {
+        return this.pageSize;
+    }
+
+    /**
+     * Gets the page number, resolving a request for the last page given the total
+     * number of matching entries.
+     *
+     * @param totalEntries the total number of matching entries
+     * @return the page number, starting at 1
+     */
+    public int getPageNumber(int totalEntries) {
+        if (this.pageNumber == LAST_PAGE) {
+            return Math.max(1, LogPage.getMaxPages(totalEntries, this.pageSize));
+        }
+        return this.pageNumber;
+    }
+
+    /**
+     * Gets the index of the first entry on the page.
+     *
+     * @param totalEntries the total number of matching entries
+     * @return the offset
+     */
+    public int getOffset(int totalEntries) {
+        return (getPageNumber(totalEntries) - 1) * this.pageSize;
+    }
+
+    @Override
+    public String toString() {
+        return "PageParameters(pageSize=" + this.pageSize + ", pageNumber=" + (this.pageNumber == LAST_PAGE ? "last" : this.pageNumber) + ")";
+    }
+}
@@ -25,13 +25,20 @@
 
 package com.xthesilent.aquaperms.common.api.implementation;
 
+import com.google.common.collect.ImmutableList;
+import com.xthesilent.aquaperms.common.actionlog.ActionFilterImpl;
+import com.xthesilent.aquaperms.common.actionlog.LogPage;
 import com.xthesilent.aquaperms.common.actionlog.LoggedAction;
+import com.xthesilent.aquaperms.common.actionlog.PageParameters;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.aquasplashmc.api.actionlog.Action;
+import com.aquasplashmc.api.actionlog.ActionFilter;
 import com.aquasplashmc.api.actionlog.ActionLog;
 import com.aquasplashmc.api.actionlog.ActionLogger;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
 public class ApiActionLogger implements ActionLogger {
@@ -46,11 +53,33 @@ public class ApiActionLogger implements ActionLogger {
         return LoggedAction.build();
     }
 
+    @Override
+    public ActionFilter.@NonNull Builder actionFilterBuilder() {
+        return ActionFilterImpl.builder();
+    }
+
     @Override
     public @NonNull CompletableFuture<ActionLog> getLog() {
         return this.plugin.getStorage().getLog().thenApply(ApiActionLog::new);
     }
 
+    @Override
+    public @NonNull CompletableFuture<List<Action>> queryActions(@NonNull ActionFilter filter) {
+        Objects.requireNonNull(filter, "filter");
+        return this.plugin.getStorage().queryActions((ActionFilterImpl) filter, null).thenApply(ApiActionLogger::getContent);
+    }
+
+    @Override
+    public @NonNull CompletableFuture<List<Action>> queryActions(@NonNull ActionFilter filter, int pageSize, int pageNumber) {
+        Objects.requireNonNull(filter, "filter");
+        PageParameters page = new PageParameters(pageSize, pageNumber);
+        return this.plugin.getStorage().queryActions((ActionFilterImpl) filter, page).thenApply(ApiActionLogger::getContent);
+    }
+
+    private static List<Action> getContent(LogPage page) {
+        return ImmutableList.<Action>copyOf(page.getContent());
+    }
+
     @Override
     public @NonNull CompletableFuture<Void> submit(@NonNull Action entry) {
         return CompletableFuture.runAsync(() -> this.plugin.getLogDispatcher().dispatchFromApi((LoggedAction) entry), this.plugin.getBootstrap().getScheduler().async());
@@ -83,8 +83,7 @@ public class ApiGroup extends ApiPermissionHolder implements com.aquasplashmc.ap
     protected void onNodeChange() {
         // invalidate caches - they have potentially been affected by
         // this change.
-        this.handle.getPlugin().getGroupManager().invalidateAllGroupCaches();
-        this.handle.getPlugin().getUserManager().invalidateAllUserCaches();
+        this.handle.getPlugin().getInheritanceDependencyIndex().invalidateDependentCaches(this.handle);
     }
 
     @Override
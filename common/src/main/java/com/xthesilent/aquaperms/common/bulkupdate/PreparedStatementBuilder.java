@@ -34,7 +34,7 @@ import java.util.function.Function;
 
 public class PreparedStatementBuilder {
     private final StringBuilder sb = new StringBuilder();
-    private final List<String> variables = new ArrayList<>();
+    private final List<Object> variables = new ArrayList<>();
 
     public PreparedStatementBuilder() {
 
@@ -56,19 +56,29 @@ public class PreparedStatementBuilder {
         return this;
     }
 
+    public PreparedStatementBuilder variable(long variable) {
+        this.sb.append('?');
+        this.variables.add(variable);
+        return this;
+    }
+
     public PreparedStatement build(Connection connection, Function<String, String> mapping) throws SQLException {
         PreparedStatement statement = connection.prepareStatement(mapping.apply(this.sb.toString()));
         for (int i = 0; i < this.variables.size(); i++) {
-            String var = this.variables.get(i);
-            statement.setString(i + 1, var);
+            Object var = this.variables.get(i);
+            if (var instanceof Long) {
+                statement.setLong(i + 1, (Long) var);
+            } else {
+                statement.setString(i + 1, (String) var);
+            }
         }
         return statement;
     }
 
     public String toReadableString() {
         String s = this.sb.toString();
-        for (String var : this.variables) {
-            s = s.replaceFirst("\\?", var);
+        for (Object var : this.variables) {
+            s = s.replaceFirst("\\?", String.valueOf(var));
         }
         return s;
     }
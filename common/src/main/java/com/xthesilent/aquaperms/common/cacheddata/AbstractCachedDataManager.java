@@ -31,6 +31,7 @@ import com.xthesilent.aquaperms.common.cacheddata.type.MonitoredMetaCache;
 import com.xthesilent.aquaperms.common.cacheddata.type.PermissionCache;
 import com.xthesilent.aquaperms.common.calculator.CalculatorFactory;
 import com.xthesilent.aquaperms.common.calculator.PermissionCalculator;
+import com.xthesilent.aquaperms.common.config.ConfigKeys;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.xthesilent.aquaperms.common.util.CaffeineFactory;
 import com.xthesilent.aquaperms.common.util.CompletableFutures;
@@ -49,7 +50,11 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 
@@ -63,8 +68,8 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
 
     protected AbstractCachedDataManager(AquaPermsPlugin plugin) {
         this.plugin = plugin;
-        this.permission = new AbstractContainer<>(this::calculatePermissions);
-        this.meta = new AbstractContainer<>(this::calculateMeta);
+        this.permission = new AbstractContainer<>(plugin, this::calculatePermissions);
+        this.meta = new AbstractContainer<>(plugin, this::calculateMeta);
     }
 
     public AquaPermsPlugin getPlugin() {
@@ -141,6 +146,26 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
      */
     protected abstract <M extends Map<String, Node>> M resolvePermissions(IntFunction<M> mapFactory, QueryOptions queryOptions);
 
+    /**
+     * Resolves the owners permissions data for the given {@link QueryOptions}, for use
+     * as the source map of a {@link PermissionCache}.
+     *
+     * <p>The returned map must support concurrent reads, and in place modification.</p>
+     *
+     * @param queryOptions the query options
+     * @return the resolved permissions
+     */
+    protected Map<String, Node> resolveSourcePermissions(QueryOptions queryOptions) {
+        return resolvePermissions(ConcurrentHashMap::new, queryOptions);
+    }
+
+    /**
+     * Called after the owners permission data has been invalidated, or changed in place.
+     */
+    protected void onPermissionDataChange() {
+
+    }
+
     /**
      * Resolves the owners meta data for the given {@link QueryOptions}.
      *
@@ -153,7 +178,7 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         Objects.requireNonNull(queryOptions, "queryOptions");
         CacheMetadata metadata = getMetadataForQueryOptions(queryOptions);
 
-        ConcurrentHashMap<String, Node> sourcePermissions = resolvePermissions(ConcurrentHashMap::new, queryOptions);
+        Map<String, Node> sourcePermissions = resolveSourcePermissions(queryOptions);
         return new PermissionCache(queryOptions, metadata, getCalculatorFactory(), sourcePermissions);
     }
     
@@ -171,6 +196,32 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
     public final void invalidate() {
         this.permission.invalidate();
         this.meta.invalidate();
+        onPermissionDataChange();
+    }
+
+    /**
+     * Updates the given permissions in the existing permission caches in place,
+     * instead of invalidating and recalculating the caches.
+     *
+     * <p>If a permission cache is being calculated concurrently, it may have been
+     * based on data from before the change, so all permission caches are invalidated
+     * instead.</p>
+     *
+     * @param permissions the permissions which have changed, in lowercase
+     * @param resolver a function to resolve the node which should now be held for a
+     *                 permission in the given query options, or null if there is none
+     */
+    protected final void applyPermissionChanges(Set<String> permissions, BiFunction<String, QueryOptions, Node> resolver) {
+        onPermissionDataChange();
+
+        if (this.permission.hasPendingLoads()) {
+            this.permission.invalidate();
+            return;
+        }
+
+        for (PermissionCache cache : this.permission.cache.values()) {
+            cache.applyChanges(permissions, p -> resolver.apply(p, cache.getQueryOptions()));
+        }
     }
 
     @Override
@@ -184,12 +235,20 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
     }
 
     private static final class AbstractContainer<C extends I, I extends CachedData> implements Container<I> {
+        private final AquaPermsPlugin plugin;
         private final Function<QueryOptions, C> cacheLoader;
+        private final ConcurrentHashMap<QueryOptions, C> values = new ConcurrentHashMap<>();
         private final LoadingMap<QueryOptions, C> cache;
+        private final AtomicInteger pendingLoads = new AtomicInteger();
+
+        /** Incremented each time the container is invalidated whilst serving stale values */
+        private final AtomicInteger staleGeneration = new AtomicInteger();
+        private final AtomicBoolean rebuildScheduled = new AtomicBoolean(false);
 
-        public AbstractContainer(Function<QueryOptions, C> cacheLoader) {
+        public AbstractContainer(AquaPermsPlugin plugin, Function<QueryOptions, C> cacheLoader) {
+            this.plugin = plugin;
             this.cacheLoader = cacheLoader;
-            this.cache = LoadingMap.of(this.cacheLoader);
+            this.cache = LoadingMap.of(this.values, this.cacheLoader);
         }
 
         public void cleanup() {
@@ -200,11 +259,24 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         public @NonNull C get(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
 
-            C data = this.cache.get(queryOptions);
+            C data = this.cache.getIfPresent(queryOptions);
+            if (data == null) {
+                data = load(queryOptions);
+            }
             ((UsageTracked) data).recordUsage();
             return data;
         }
 
+        private C load(QueryOptions queryOptions) {
+            // track loads in progress, so in-place updates know they may be racing with one
+            this.pendingLoads.incrementAndGet();
+            try {
+                return this.cache.get(queryOptions);
+            } finally {
+                this.pendingLoads.decrementAndGet();
+            }
+        }
+
         @Override
         public @NonNull C calculate(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
@@ -214,9 +286,14 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         @Override
         public void recalculate(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
+            this.pendingLoads.incrementAndGet();
             CompletableFuture.runAsync(() -> {
-                final C value = this.cacheLoader.apply(queryOptions);
-                this.cache.put(queryOptions, value);
+                try {
+                    final C value = this.cacheLoader.apply(queryOptions);
+                    this.cache.put(queryOptions, value);
+                } finally {
+                    this.pendingLoads.decrementAndGet();
+                }
             }, CaffeineFactory.executor());
         }
 
@@ -228,7 +305,7 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
             this.cache.remove(queryOptions);
 
             // request recalculation from the cache
-            return CompletableFuture.supplyAsync(() -> this.cache.get(queryOptions), CaffeineFactory.executor());
+            return CompletableFuture.supplyAsync(() -> load(queryOptions), CaffeineFactory.executor());
         }
 
         @Override
@@ -243,6 +320,15 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
             return CompletableFutures.allOf(keys.stream().map(this::reload));
         }
 
+        /**
+         * Gets if any values are currently being calculated.
+         *
+         * @return if there are pending loads
+         */
+        boolean hasPendingLoads() {
+            return this.pendingLoads.get() != 0;
+        }
+
         @Override
         public void invalidate(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
@@ -251,8 +337,62 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
 
         @Override
         public void invalidate() {
+            if (!this.values.isEmpty() && this.plugin.getConfiguration().get(ConfigKeys.ASYNC_CACHE_REBUILD)) {
+                // keep serving the existing values until the rebuilt ones are ready
+                this.staleGeneration.incrementAndGet();
+                scheduleRebuild();
+                return;
+            }
             this.cache.clear();
         }
+
+        private void scheduleRebuild() {
+            if (!this.rebuildScheduled.compareAndSet(false, true)) {
+                // a rebuild is already scheduled or running, it will pick up this invalidation
+                return;
+            }
+
+            this.pendingLoads.incrementAndGet();
+            try {
+                this.plugin.getBootstrap().getScheduler().async().execute(this::rebuild);
+            } catch (RejectedExecutionException e) {
+                // shutting down - fall back to recalculating on the next lookup
+                this.pendingLoads.decrementAndGet();
+                this.rebuildScheduled.set(false);
+                this.cache.clear();
+            }
+        }
+
+        private void rebuild() {
+            int generation = this.staleGeneration.get();
+            try {
+                for (Map.Entry<QueryOptions, C> entry : this.values.entrySet()) {
+                    QueryOptions queryOptions = entry.getKey();
+                    C previous = entry.getValue();
+
+                    C value;
+                    try {
+                        value = this.cacheLoader.apply(queryOptions);
+                    } catch (Exception e) {
+                        this.plugin.getLogger().warn("Exception occurred whilst rebuilding cached data for " + queryOptions, e);
+                        this.values.remove(queryOptions, previous);
+                        continue;
+                    }
+
+                    // only swap if the value hasn't been replaced or removed since we started
+                    this.values.replace(queryOptions, previous, value);
+                }
+            } finally {
+                this.pendingLoads.decrementAndGet();
+                this.rebuildScheduled.set(false);
+            }
+
+            // invalidated again whilst rebuilding, so some values may already be stale.
+            // all of those invalidations are handled by a single further pass
+            if (this.staleGeneration.get() != generation) {
+                scheduleRebuild();
+            }
+        }
     }
     
     private MetaAccumulator newAccumulator(QueryOptions queryOptions) {
@@ -25,21 +25,71 @@
 
 package com.xthesilent.aquaperms.common.cacheddata;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.xthesilent.aquaperms.common.cacheddata.type.PermissionLayer;
 import com.xthesilent.aquaperms.common.model.Group;
 import com.xthesilent.aquaperms.common.model.HolderType;
+import com.xthesilent.aquaperms.common.util.CaffeineFactory;
 import com.xthesilent.aquaperms.common.verbose.VerboseCheckTarget;
 import com.aquasplashmc.api.cacheddata.CachedDataManager;
 import com.aquasplashmc.api.query.QueryOptions;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Holds an easily accessible cache of a groups's data in a number of contexts
  */
 public class GroupCachedDataManager extends HolderCachedDataManager<Group> implements CachedDataManager {
 
+    /**
+     * The resolved permissions of the groups inheritance tree, shared by the
+     * permission caches of holders which inherit from the group
+     */
+    private final Cache<QueryOptions, PermissionLayer> permissionLayers = CaffeineFactory.newBuilder()
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * Incremented when the permission layers are invalidated
+     */
+    private final AtomicInteger permissionLayerGeneration = new AtomicInteger();
+
     public GroupCachedDataManager(Group holder) {
         super(holder);
     }
 
+    /**
+     * Gets the {@link PermissionLayer} for the groups inheritance tree in the given
+     * query options, resolving it if necessary.
+     *
+     * @param queryOptions the query options
+     * @param resolveShorthand if shorthand should be resolved
+     * @return the layer
+     */
+    public PermissionLayer getPermissionLayer(QueryOptions queryOptions, boolean resolveShorthand) {
+        PermissionLayer layer = this.permissionLayers.getIfPresent(queryOptions);
+        if (layer != null && layer.resolvesShorthand() == resolveShorthand) {
+            return layer;
+        }
+
+        int generation = this.permissionLayerGeneration.get();
+        layer = this.holder.resolvePermissionLayer(queryOptions, resolveShorthand);
+        this.permissionLayers.put(queryOptions, layer);
+
+        // if the group changed whilst resolving, don't keep the result around
+        if (this.permissionLayerGeneration.get() != generation) {
+            this.permissionLayers.asMap().remove(queryOptions, layer);
+        }
+        return layer;
+    }
+
+    @Override
+    protected void onPermissionDataChange() {
+        this.permissionLayerGeneration.incrementAndGet();
+        this.permissionLayers.invalidateAll();
+    }
+
     @Override
     protected CacheMetadata getMetadataForQueryOptions(QueryOptions queryOptions) {
         return new CacheMetadata(HolderType.GROUP, VerboseCheckTarget.group(this.holder), queryOptions);
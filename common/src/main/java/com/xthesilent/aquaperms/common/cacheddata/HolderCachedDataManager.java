@@ -35,6 +35,7 @@ import com.aquasplashmc.api.node.Node;
 import com.aquasplashmc.api.query.QueryOptions;
 
 import java.util.Map;
+import java.util.Set;
 import java.util.function.IntFunction;
 
 /**
@@ -79,6 +80,23 @@ public abstract class HolderCachedDataManager<T extends PermissionHolder> extend
         return this.holder.exportPermissions(mapFactory, queryOptions, true, getPlugin().getConfiguration().get(ConfigKeys.APPLYING_SHORTHAND));
     }
 
+    @Override
+    protected Map<String, Node> resolveSourcePermissions(QueryOptions queryOptions) {
+        return this.holder.exportSourcePermissions(queryOptions, getPlugin().getConfiguration().get(ConfigKeys.APPLYING_SHORTHAND));
+    }
+
+    /**
+     * Updates the holders permission caches in place following a change to some
+     * of its permission nodes.
+     *
+     * <p>Meta caches are unaffected by permission nodes, so are left as they are.</p>
+     *
+     * @param permissions the permissions which have changed, in lowercase
+     */
+    public void applyPermissionChanges(Set<String> permissions) {
+        applyPermissionChanges(permissions, (permission, queryOptions) -> this.holder.resolveExportedPermission(permission, queryOptions, getPlugin().getConfiguration().get(ConfigKeys.APPLYING_SHORTHAND)));
+    }
+
     @Override
     protected void resolveMeta(MetaAccumulator accumulator, QueryOptions queryOptions) {
         this.holder.accumulateMeta(accumulator, queryOptions);
@@ -0,0 +1,155 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package com.xthesilent.aquaperms.common.cacheddata.type;
+
+import com.google.common.collect.Iterators;
+import com.aquasplashmc.api.node.Node;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A permission map made up of a holders own permissions, overlaid on top of a
+ * {@link PermissionLayer} shared with other holders.
+ *
+ * <p>Has the same contents as a map returned by
+ * {@link com.xthesilent.aquaperms.common.model.PermissionHolder#exportPermissions}
+ * for the full inheritance tree, but only the holders own permissions are copied.
+ * The map can be modified (by {@link PermissionCache#applyChanges}), in which case
+ * the changes are recorded in the overlay and the shared layer is left as it is.</p>
+ */
+public final class LayeredPermissionMap extends AbstractMap<String, Node> {
+
+    /** The shared layer */
+    private final PermissionLayer layer;
+
+    /** Entries which take priority over the shared layer */
+    private final Map<String, Node> overlay = new ConcurrentHashMap<>();
+
+    /** Entries which have been removed from the shared layer */
+    private final Set<String> removed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new map.
+     *
+     * @param layer the shared layer
+     * @param ownNodes the holders own nodes, which come before the layer in traversal order
+     */
+    public LayeredPermissionMap(PermissionLayer layer, List<Node> ownNodes) {
+        this.layer = layer;
+
+        for (Node node : ownNodes) {
+            this.overlay.putIfAbsent(node.getKey().toLowerCase(Locale.ROOT), node);
+        }
+
+        if (layer.resolvesShorthand()) {
+            // shorthand only takes priority over entries in the layer which are also from shorthand
+            for (Node node : ownNodes) {
+                for (String s : node.resolveShorthand()) {
+                    String permission = s.toLowerCase(Locale.ROOT);
+                    if (!this.overlay.containsKey(permission) && !layer.holdsKey(permission)) {
+                        this.overlay.put(permission, node);
+                    }
+                }
+            }
+        }
+    }
+
+    public PermissionLayer getLayer() {
+        return this.layer;
+    }
+
+    @Override
+    public Node get(Object key) {
+        Node node = this.overlay.get(key);
+        if (node != null) {
+            return node;
+        }
+        if (!this.removed.isEmpty() && this.removed.contains(key)) {
+            return null;
+        }
+        return key instanceof String ? this.layer.get((String) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Node put(String key, Node value) {
+        Node previous = get(key);
+        this.overlay.put(key, value);
+        this.removed.remove(key);
+        return previous;
+    }
+
+    @Override
+    public Node remove(Object key) {
+        Node previous = get(key);
+        this.overlay.remove(key);
+        if (key instanceof String && this.layer.get((String) key) != null) {
+            this.removed.add((String) key);
+        }
+        return previous;
+    }
+
+    @Override
+    public @NonNull Set<Entry<String, Node>> entrySet() {
+        return new EntrySet();
+    }
+
+    private boolean isShadowed(String key) {
+        return this.overlay.containsKey(key) || this.removed.contains(key);
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, Node>> {
+        @Override
+        public @NonNull Iterator<Entry<String, Node>> iterator() {
+            return Iterators.unmodifiableIterator(Iterators.concat(
+                    LayeredPermissionMap.this.overlay.entrySet().iterator(),
+                    Iterators.filter(LayeredPermissionMap.this.layer.asMap().entrySet().iterator(), e -> !isShadowed(e.getKey()))
+            ));
+        }
+
+        @Override
+        public int size() {
+            return Iterators.size(iterator());
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return !iterator().hasNext();
+        }
+    }
+
+}
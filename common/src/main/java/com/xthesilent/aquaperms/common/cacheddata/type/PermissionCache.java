@@ -40,8 +40,10 @@ import com.aquasplashmc.api.util.Tristate;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Holds cached permissions data for a given context
@@ -55,6 +57,8 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
 
     /**
      * The raw set of permission strings.
+     *
+     * <p>Either a concurrent hash map, or a {@link LayeredPermissionMap}.</p>
      */
     private final Map<String, Node> permissions;
 
@@ -70,7 +74,7 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
      */
     private final PermissionCalculator calculator;
 
-    public PermissionCache(QueryOptions queryOptions, CacheMetadata metadata, CalculatorFactory calculatorFactory, ConcurrentHashMap<String, Node> sourcePermissions) {
+    public PermissionCache(QueryOptions queryOptions, CacheMetadata metadata, CalculatorFactory calculatorFactory, Map<String, Node> sourcePermissions) {
         this.queryOptions = queryOptions;
         this.permissions = sourcePermissions;
         this.permissionsView = Collections.unmodifiableMap(Maps.transformValues(this.permissions, Node::getValue));
@@ -84,6 +88,28 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
         this.calculator.invalidateCache();
     }
 
+    /**
+     * Updates the given permissions in place.
+     *
+     * @param permissions the permissions which may have changed, in lowercase
+     * @param resolver a function to resolve the node which should now be held for
+     *                 a permission, or null if there is none
+     */
+    public synchronized void applyChanges(Set<String> permissions, Function<String, Node> resolver) {
+        Set<String> changed = new HashSet<>();
+        for (String permission : permissions) {
+            Node node = resolver.apply(permission);
+            Node previous = node == null ? this.permissions.remove(permission) : this.permissions.put(permission, node);
+            if (previous != node) {
+                changed.add(permission);
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            this.calculator.sourcePermissionsChanged(changed);
+        }
+    }
+
     public PermissionCalculator getCalculator() {
         return this.calculator;
     }
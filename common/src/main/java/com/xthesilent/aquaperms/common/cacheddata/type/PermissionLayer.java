@@ -0,0 +1,136 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package com.xthesilent.aquaperms.common.cacheddata.type;
+
+import com.xthesilent.aquaperms.common.model.PermissionHolder;
+import com.aquasplashmc.api.node.Node;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The resolved permissions of an inheritance tree, in a given set of query options.
+ *
+ * <p>Layers are immutable, and are shared between all of the holders which inherit
+ * the same tree (see {@link LayeredPermissionMap}).</p>
+ */
+public final class PermissionLayer {
+
+    /**
+     * Resolves a layer from the given inheritance tree and its nodes.
+     *
+     * @param holders the holders in the inheritance tree, in traversal order
+     * @param nodes the nodes held by the holders, in traversal order
+     * @param resolveShorthand if shorthand should be resolved
+     * @return the layer
+     */
+    public static PermissionLayer resolve(List<PermissionHolder> holders, List<Node> nodes, boolean resolveShorthand) {
+        Map<String, Node> permissions = new HashMap<>(nodes.size());
+        Set<String> shorthand = new HashSet<>();
+
+        for (Node node : nodes) {
+            permissions.putIfAbsent(node.getKey().toLowerCase(Locale.ROOT), node);
+        }
+
+        if (resolveShorthand) {
+            for (Node node : nodes) {
+                for (String s : node.resolveShorthand()) {
+                    String permission = s.toLowerCase(Locale.ROOT);
+                    if (permissions.putIfAbsent(permission, node) == null) {
+                        shorthand.add(permission);
+                    }
+                }
+            }
+        }
+
+        return new PermissionLayer(holders, permissions, shorthand, resolveShorthand);
+    }
+
+    /** The holders in the inheritance tree, in traversal order */
+    private final List<PermissionHolder> holders;
+
+    /** The resolved permissions */
+    private final Map<String, Node> permissions;
+
+    /** The permissions which are only present in the layer as a result of shorthand */
+    private final Set<String> shorthand;
+
+    private final boolean resolveShorthand;
+
+    private PermissionLayer(List<PermissionHolder> holders, Map<String, Node> permissions, Set<String> shorthand, boolean resolveShorthand) {
+        this.holders = holders;
+        this.permissions = Collections.unmodifiableMap(permissions);
+        this.shorthand = shorthand;
+        this.resolveShorthand = resolveShorthand;
+    }
+
+    /**
+     * Gets if this layer was resolved from exactly the given inheritance tree.
+     *
+     * @param holders the holders in the inheritance tree, in traversal order
+     * @return true if the trees match
+     */
+    public boolean isTree(List<PermissionHolder> holders) {
+        if (this.holders.size() != holders.size()) {
+            return false;
+        }
+        for (int i = 0; i < holders.size(); i++) {
+            if (this.holders.get(i) != holders.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean resolvesShorthand() {
+        return this.resolveShorthand;
+    }
+
+    public @Nullable Node get(String permission) {
+        return this.permissions.get(permission);
+    }
+
+    /**
+     * Gets if the given permission is held in this layer by a node with a matching key,
+     * as opposed to only by a node with matching shorthand.
+     *
+     * @param permission the permission
+     * @return true if held by key
+     */
+    public boolean holdsKey(String permission) {
+        return this.permissions.containsKey(permission) && !this.shorthand.contains(permission);
+    }
+
+    public Map<String, Node> asMap() {
+        return this.permissions;
+    }
+
+}
@@ -25,7 +25,6 @@
 
 package com.xthesilent.aquaperms.common.calculator;
 
-import com.xthesilent.aquaperms.common.cache.LoadingMap;
 import com.xthesilent.aquaperms.common.cacheddata.CacheMetadata;
 import com.xthesilent.aquaperms.common.cacheddata.result.TristateResult;
 import com.xthesilent.aquaperms.common.calculator.processor.PermissionProcessor;
@@ -54,12 +53,13 @@ public class PermissionCalculator implements Function<String, TristateResult> {
     private final PermissionProcessor[] processors;
 
     /** Loading cache for permission checks */
-    private final LoadingMap<String, TristateResult> lookupCache = LoadingMap.of(this);
+    private final PermissionLookupCache lookupCache;
 
     public PermissionCalculator(AquaPermsPlugin plugin, CacheMetadata metadata, Collection<PermissionProcessor> processors) {
         this.plugin = plugin;
         this.metadata = metadata;
         this.processors = processors.toArray(new PermissionProcessor[0]);
+        this.lookupCache = plugin.getPermissionLookupCacheProvider().create(this);
     }
 
     /**
@@ -113,10 +113,23 @@ public class PermissionCalculator implements Function<String, TristateResult> {
         }
     }
 
+    /**
+     * Called after some entries in the source permissions map have been
+     * changed in place.
+     *
+     * @param changedPermissions the permissions which have changed
+     */
+    public synchronized void sourcePermissionsChanged(Collection<String> changedPermissions) {
+        for (PermissionProcessor processor : this.processors) {
+            processor.refresh(changedPermissions);
+        }
+        this.lookupCache.invalidate();
+    }
+
     public void invalidateCache() {
         for (PermissionProcessor processor : this.processors) {
             processor.invalidate();
         }
-        this.lookupCache.clear();
+        this.lookupCache.invalidate();
     }
 }
@@ -0,0 +1,319 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.calculator;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.xthesilent.aquaperms.common.cache.LoadingMap;
+import com.xthesilent.aquaperms.common.cacheddata.result.TristateResult;
+import com.xthesilent.aquaperms.common.config.ConfigKeys;
+import com.xthesilent.aquaperms.common.config.AquaPermsConfiguration;
+import com.xthesilent.aquaperms.common.util.CaffeineFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Creates the {@link PermissionLookupCache}s used by {@link PermissionCalculator}s.
+ *
+ * <p>By default, each calculator gets its own unbounded map. Otherwise:</p>
+ * <ul>
+ *     <li>If only a per-calculator entry limit is configured, each calculator gets its
+ *     own Caffeine cache (W-TinyLFU), bounded to that many entries.</li>
+ *     <li>If a global memory budget is configured, all calculators share a single Caffeine
+ *     cache bounded by the budget, partitioned into one segment per calculator. If an entry
+ *     limit is configured too, each segment tracks its keys in a small cache of that size,
+ *     and entries evicted from it are removed from the shared cache.</li>
+ * </ul>
+ *
+ * <p>Invalidating a calculator using the shared cache simply moves it onto a fresh
+ * segment - entries belonging to the old segment are never read again, and are aged out
+ * by the eviction policy. This means discarded calculators never need to be explicitly
+ * cleaned up, and the global budget accounts for every entry still held in memory.</p>
+ */
+public class PermissionLookupCacheProvider {
+
+    /**
+     * Creates a provider using the settings in the given configuration.
+     *
+     * @param configuration the configuration
+     * @return the provider
+     */
+    public static PermissionLookupCacheProvider fromConfiguration(AquaPermsConfiguration configuration) {
+        return new PermissionLookupCacheProvider(
+                configuration.get(ConfigKeys.PERMISSION_LOOKUP_CACHE_MAX_ENTRIES),
+                configuration.get(ConfigKeys.PERMISSION_LOOKUP_CACHE_MEMORY_BUDGET) * 1024L * 1024L
+        );
+    }
+
+    /**
+     * Creates a provider which returns unbounded caches.
+     *
+     * @return the provider
+     */
+    public static PermissionLookupCacheProvider unbounded() {
+        return new PermissionLookupCacheProvider(-1, -1);
+    }
+
+    /** The approximate fixed cost (in bytes) of a cache entry, excluding the permission characters */
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    /** The maximum number of entries per calculator, or -1 for no limit */
+    private final int maxEntriesPerCalculator;
+
+    /** The shared cache, or null if there is no global memory budget */
+    private final Cache<LookupKey, TristateResult> sharedCache;
+
+    /** The statistics recorded by the per-calculator caches, used when there is no shared cache */
+    private final ConcurrentStatsCounter calculatorStats = new ConcurrentStatsCounter();
+
+    /** Entries removed from the shared cache because their calculator was full */
+    private final LongAdder calculatorEvictions = new LongAdder();
+
+    public PermissionLookupCacheProvider(int maxEntriesPerCalculator, long memoryBudgetBytes) {
+        this.maxEntriesPerCalculator = maxEntriesPerCalculator > 0 ? maxEntriesPerCalculator : -1;
+
+        if (memoryBudgetBytes <= 0) {
+            this.sharedCache = null;
+            return;
+        }
+
+        this.sharedCache = CaffeineFactory.newBuilder()
+                .executor(Runnable::run)
+                .recordStats()
+                .maximumWeight(memoryBudgetBytes)
+                .weigher((LookupKey key, TristateResult value) -> estimateSize(key.permission))
+                .removalListener((LookupKey key, TristateResult value, RemovalCause cause) -> {
+                    // keep the segment's key tracker in step with the shared cache
+                    if (key != null && cause.wasEvicted() && key.segment.keys != null) {
+                        key.segment.keys.invalidate(key.permission);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Gets if the caches returned by this provider are bounded.
+     *
+     * @return true if bounded
+     */
+    public boolean isBounded() {
+        return this.sharedCache != null || this.maxEntriesPerCalculator != -1;
+    }
+
+    /**
+     * Creates a new lookup cache.
+     *
+     * @param loader the function used to calculate results
+     * @return the cache
+     */
+    public PermissionLookupCache create(Function<String, TristateResult> loader) {
+        if (this.sharedCache != null) {
+            return new Shared(loader);
+        }
+        if (this.maxEntriesPerCalculator != -1) {
+            return new Bounded(loader);
+        }
+        return new Unbounded(loader);
+    }
+
+    /**
+     * Performs any pending maintenance on the shared cache.
+     */
+    public void cleanup() {
+        if (this.sharedCache != null) {
+            this.sharedCache.cleanUp();
+        }
+    }
+
+    /**
+     * Gets statistics about the lookup caches, for use in health checks.
+     *
+     * @return the statistics
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("bounded", isBounded());
+        if (this.sharedCache != null) {
+            CacheStats stats = this.sharedCache.stats();
+            map.put("entries", this.sharedCache.estimatedSize());
+            this.sharedCache.policy().eviction().ifPresent(eviction -> eviction.weightedSize().ifPresent(size -> map.put("estimatedBytes", size)));
+            map.put("hits", stats.hitCount());
+            map.put("misses", stats.missCount());
+            map.put("evictions", stats.evictionCount() + this.calculatorEvictions.sum());
+        } else if (this.maxEntriesPerCalculator != -1) {
+            CacheStats stats = this.calculatorStats.snapshot();
+            map.put("hits", stats.hitCount());
+            map.put("misses", stats.missCount());
+            map.put("evictions", stats.evictionCount());
+        }
+        return map;
+    }
+
+    private static int estimateSize(String permission) {
+        return ENTRY_OVERHEAD_BYTES + permission.length() * 2;
+    }
+
+    /**
+     * The original, unbounded cache implementation.
+     */
+    private static final class Unbounded implements PermissionLookupCache {
+        private final LoadingMap<String, TristateResult> map;
+
+        Unbounded(Function<String, TristateResult> loader) {
+            this.map = LoadingMap.of(loader);
+        }
+
+        @Override
+        public TristateResult get(String permission) {
+            return this.map.get(permission);
+        }
+
+        @Override
+        public void invalidate() {
+            this.map.clear();
+        }
+    }
+
+    /**
+     * A cache owned by a single calculator, bounded to the per-calculator entry limit.
+     */
+    private final class Bounded implements PermissionLookupCache {
+        private final Function<String, TristateResult> loader;
+        private final Cache<String, TristateResult> cache;
+
+        Bounded(Function<String, TristateResult> loader) {
+            this.loader = loader;
+            this.cache = CaffeineFactory.newBuilder()
+                    .executor(Runnable::run)
+                    .recordStats(() -> PermissionLookupCacheProvider.this.calculatorStats)
+                    .maximumSize(PermissionLookupCacheProvider.this.maxEntriesPerCalculator)
+                    .build();
+        }
+
+        @Override
+        public TristateResult get(String permission) {
+            return this.cache.get(permission, this.loader);
+        }
+
+        @Override
+        public void invalidate() {
+            this.cache.invalidateAll();
+        }
+    }
+
+    /**
+     * A view of a calculator's segment in the shared cache.
+     */
+    private final class Shared implements PermissionLookupCache {
+        private final Function<String, TristateResult> loader;
+        private final Function<LookupKey, TristateResult> mappingFunction;
+        private volatile Segment segment = new Segment();
+
+        Shared(Function<String, TristateResult> loader) {
+            this.loader = loader;
+            this.mappingFunction = key -> loader.apply(key.permission);
+        }
+
+        @Override
+        public TristateResult get(String permission) {
+            Segment segment = this.segment;
+            TristateResult result = PermissionLookupCacheProvider.this.sharedCache.get(new LookupKey(segment, permission), this.mappingFunction);
+
+            // record the access in the segment's key tracker, outside of the shared cache's
+            // mapping function - it may evict other entries from the shared cache
+            if (segment.keys != null) {
+                segment.keys.get(permission, p -> Boolean.TRUE);
+            }
+            return result;
+        }
+
+        @Override
+        public void invalidate() {
+            this.segment = new Segment();
+        }
+    }
+
+    /**
+     * A partition of the shared cache, owned by one calculator until it is next invalidated.
+     *
+     * <p>Deliberately holds no reference to the calculator, so that stale entries left
+     * in the cache don't keep old source maps reachable.</p>
+     */
+    private final class Segment {
+        /** The keys of the segment, bounded to the per-calculator limit, or null if there is no limit */
+        private final Cache<String, Boolean> keys;
+
+        Segment() {
+            if (PermissionLookupCacheProvider.this.maxEntriesPerCalculator == -1) {
+                this.keys = null;
+                return;
+            }
+
+            this.keys = CaffeineFactory.newBuilder()
+                    .executor(Runnable::run)
+                    .maximumSize(PermissionLookupCacheProvider.this.maxEntriesPerCalculator)
+                    .removalListener((String permission, Boolean value, RemovalCause cause) -> {
+                        // the segment is full - evict the entry from the shared cache too
+                        if (permission != null && cause.wasEvicted()) {
+                            PermissionLookupCacheProvider.this.calculatorEvictions.increment();
+                            PermissionLookupCacheProvider.this.sharedCache.invalidate(new LookupKey(this, permission));
+                        }
+                    })
+                    .build();
+        }
+    }
+
+    private static final class LookupKey {
+        private final Segment segment;
+        private final String permission;
+        private final int hashCode;
+
+        LookupKey(Segment segment, String permission) {
+            this.segment = segment;
+            this.permission = permission;
+            this.hashCode = 31 * System.identityHashCode(segment) + permission.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof LookupKey)) return false;
+            LookupKey other = (LookupKey) o;
+            return this.segment == other.segment && this.permission.equals(other.permission);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
@@ -27,6 +27,8 @@ package com.xthesilent.aquaperms.common.calculator.processor;
 
 import com.xthesilent.aquaperms.common.cacheddata.result.TristateResult;
 
+import java.util.Collection;
+
 public class DirectProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
     private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(DirectProcessor.class);
 
@@ -35,4 +37,9 @@ public class DirectProcessor extends AbstractSourceBasedProcessor implements Per
         return RESULT_FACTORY.result(this.sourceMap.get(permission));
     }
 
+    @Override
+    public void refresh(Collection<String> changedPermissions) {
+        // the source map is read directly, nothing to refresh
+    }
+
 }
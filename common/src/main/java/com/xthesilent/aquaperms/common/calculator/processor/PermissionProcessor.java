@@ -29,6 +29,7 @@ import com.xthesilent.aquaperms.common.cacheddata.result.TristateResult;
 import com.xthesilent.aquaperms.common.calculator.PermissionCalculator;
 import com.aquasplashmc.api.node.Node;
 
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -64,6 +65,18 @@ public interface PermissionProcessor {
 
     }
 
+    /**
+     * Called after some entries in the source map have been changed in place.
+     *
+     * <p>Processors which only index some of the entries in the source map can
+     * override this to skip refreshing when none of those entries have changed.</p>
+     *
+     * @param changedPermissions the permissions which have changed
+     */
+    default void refresh(Collection<String> changedPermissions) {
+        refresh();
+    }
+
     /**
      * Called after the parent calculator has been invalidated
      */
@@ -30,20 +30,31 @@ import com.google.common.collect.Maps;
 import com.xthesilent.aquaperms.common.cacheddata.result.TristateResult;
 import com.xthesilent.aquaperms.common.node.types.RegexPermission;
 import com.aquasplashmc.api.node.Node;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 public class RegexProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
     private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(RegexProcessor.class);
 
-    private List<Map.Entry<Pattern, TristateResult>> regexPermissions = Collections.emptyList();
+    /** The regex permissions, and the pattern they are combined into - always replaced together */
+    private volatile Patterns patterns = new Patterns(Collections.emptyList(), null);
 
     @Override
     public TristateResult hasPermission(String permission) {
-        for (Map.Entry<Pattern, TristateResult> e : this.regexPermissions) {
+        Patterns patterns = this.patterns;
+        if (patterns.combined != null) {
+            int index = patterns.combined.firstMatch(permission);
+            return index == -1 ? TristateResult.UNDEFINED : patterns.regexPermissions.get(index).getValue();
+        }
+
+        for (Map.Entry<Pattern, TristateResult> e : patterns.regexPermissions) {
             if (e.getKey().matcher(permission).matches()) {
                 return e.getValue();
             }
@@ -68,6 +79,141 @@ public class RegexProcessor extends AbstractSourceBasedProcessor implements Perm
             TristateResult value = RESULT_FACTORY.result(e.getValue());
             builder.add(Maps.immutableEntry(pattern, value));
         }
-        this.regexPermissions = builder.build();
+        List<Map.Entry<Pattern, TristateResult>> regexPermissions = builder.build();
+        this.patterns = new Patterns(regexPermissions, CombinedPattern.compile(regexPermissions));
+    }
+
+    @Override
+    public void refresh(Collection<String> changedPermissions) {
+        for (String permission : changedPermissions) {
+            if (RegexPermission.parse(permission) != null) {
+                refresh();
+                return;
+            }
+        }
+    }
+
+    private static final class Patterns {
+        private final List<Map.Entry<Pattern, TristateResult>> regexPermissions;
+        private final @Nullable CombinedPattern combined;
+
+        Patterns(List<Map.Entry<Pattern, TristateResult>> regexPermissions, @Nullable CombinedPattern combined) {
+            this.regexPermissions = regexPermissions;
+            this.combined = combined;
+        }
+    }
+
+    /**
+     * A union of several patterns, which finds the first pattern to match an input
+     * using a single {@link Matcher}.
+     *
+     * <p>Each pattern is wrapped in a capturing group and joined by alternation. Java
+     * tries alternatives in order, so the first group to participate in a match is the
+     * first pattern (in iteration order) which matches the whole input - the same result
+     * as testing each pattern in turn.</p>
+     *
+     * <p>The alternatives are still attempted one after another (with backtracking), so
+     * this saves the overhead of creating and running a matcher per pattern, rather than
+     * changing how much matching work is done.</p>
+     */
+    static final class CombinedPattern {
+
+        /**
+         * Attempts to combine the given patterns.
+         *
+         * @param patterns the patterns
+         * @return the combined pattern, or null if the patterns can't (or needn't) be combined
+         */
+        static @Nullable CombinedPattern compile(List<? extends Map.Entry<Pattern, ?>> patterns) {
+            if (patterns.size() < 2) {
+                return null;
+            }
+
+            StringBuilder regex = new StringBuilder();
+            int[] groups = new int[patterns.size()];
+            int group = 1;
+
+            for (int i = 0; i < patterns.size(); i++) {
+                Pattern pattern = patterns.get(i).getKey();
+                if (!canCombine(pattern)) {
+                    return null;
+                }
+
+                if (i != 0) {
+                    regex.append('|');
+                }
+                regex.append('(').append(pattern.pattern()).append(')');
+
+                groups[i] = group;
+                group += 1 + pattern.matcher("").groupCount();
+            }
+
+            // not cached in the PatternCache - the combined pattern is only used by this processor
+            try {
+                return new CombinedPattern(Pattern.compile(regex.toString()), groups);
+            } catch (PatternSyntaxException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Gets if the pattern can safely be embedded within a larger pattern.
+         *
+         * <p>Flags and quotations/comments which run to the end of the pattern can't be
+         * scoped to a single group, and numbered backreferences would point to the
+         * wrong group once combined.</p>
+         *
+         * @param pattern the pattern
+         * @return true if the pattern can be combined
+         */
+        private static boolean canCombine(Pattern pattern) {
+            if (pattern.flags() != 0) {
+                return false;
+            }
+
+            String regex = pattern.pattern();
+            if (regex.contains("\\Q") || regex.contains("#")) {
+                return false;
+            }
+
+            for (int i = 0; i < regex.length() - 1; i++) {
+                if (regex.charAt(i) == '\\') {
+                    char next = regex.charAt(i + 1);
+                    if ((next >= '1' && next <= '9') || next == 'k') {
+                        return false;
+                    }
+                    i++; // skip the escaped character
+                }
+            }
+            return true;
+        }
+
+        private final Pattern pattern;
+        private final int[] groups;
+
+        private CombinedPattern(Pattern pattern, int[] groups) {
+            this.pattern = pattern;
+            this.groups = groups;
+        }
+
+        /**
+         * Finds the index of the first pattern which matches the input.
+         *
+         * @param input the input
+         * @return the index, or -1 if no patterns match
+         */
+        int firstMatch(String input) {
+            Matcher matcher = this.pattern.matcher(input);
+            if (!matcher.matches()) {
+                return -1;
+            }
+
+            for (int i = 0; i < this.groups.length; i++) {
+                if (matcher.start(this.groups[i]) != -1) {
+                    return i;
+                }
+            }
+            return -1;
+        }
     }
 }
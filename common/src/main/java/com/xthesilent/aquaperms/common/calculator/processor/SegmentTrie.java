@@ -0,0 +1,232 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.calculator.processor;
+
+import com.xthesilent.aquaperms.common.node.AbstractNode;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable trie of permission strings, keyed by their dot separated segments.
+ *
+ * <p>Used by the wildcard processors to find the deepest key which is a parent of a
+ * given permission in a single walk, without allocating substrings for each prefix.</p>
+ *
+ * @param <V> the value type
+ */
+public final class SegmentTrie<V> {
+
+    @SuppressWarnings("unchecked")
+    private static final SegmentTrie<?> EMPTY = new SegmentTrie<>(new TrieNode<>(null, new String[0], new int[0], new TrieNode[0]));
+
+    /**
+     * Gets an empty trie.
+     *
+     * @param <V> the value type
+     * @return an empty trie
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> SegmentTrie<V> empty() {
+        return (SegmentTrie<V>) EMPTY;
+    }
+
+    /**
+     * Creates a new builder.
+     *
+     * @param <V> the value type
+     * @return a new builder
+     */
+    public static <V> Builder<V> builder() {
+        return new Builder<>();
+    }
+
+    private final TrieNode<V> root;
+
+    private SegmentTrie(TrieNode<V> root) {
+        this.root = root;
+    }
+
+    /**
+     * Finds the value of the deepest key which is a parent of the given permission.
+     *
+     * <p>A key is a parent of a permission if the permission starts with the key, followed
+     * by a {@link AbstractNode#NODE_SEPARATOR separator}. For example, {@code a.b} is a parent
+     * of {@code a.b.c}, but not of {@code a.b} or {@code a.bc}.</p>
+     *
+     * @param permission the permission
+     * @return the value of the deepest matching key, or null
+     */
+    public @Nullable V findDeepestParent(String permission) {
+        TrieNode<V> node = this.root;
+        V deepest = null;
+
+        int start = 0;
+        while (true) {
+            int end = permission.indexOf(AbstractNode.NODE_SEPARATOR, start);
+            if (end == -1) {
+                break;
+            }
+
+            node = node.child(permission, start, end);
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                deepest = node.value;
+            }
+
+            start = end + 1;
+        }
+
+        return deepest;
+    }
+
+    private static int hash(String string, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + string.charAt(i);
+        }
+        return h;
+    }
+
+    private static final class TrieNode<V> {
+        private final V value;
+
+        // open addressed hash table of child nodes, capacity is always a power of two
+        private final String[] segments;
+        private final int[] hashes;
+        private final TrieNode<V>[] children;
+
+        TrieNode(V value, String[] segments, int[] hashes, TrieNode<V>[] children) {
+            this.value = value;
+            this.segments = segments;
+            this.hashes = hashes;
+            this.children = children;
+        }
+
+        @Nullable TrieNode<V> child(String permission, int start, int end) {
+            int capacity = this.segments.length;
+            if (capacity == 0) {
+                return null;
+            }
+
+            int length = end - start;
+            int hash = hash(permission, start, end);
+            int mask = capacity - 1;
+
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                String segment = this.segments[i];
+                if (segment == null) {
+                    return null;
+                }
+                if (this.hashes[i] == hash && segment.length() == length && permission.regionMatches(start, segment, 0, length)) {
+                    return this.children[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * A builder for {@link SegmentTrie}s.
+     *
+     * @param <V> the value type
+     */
+    public static final class Builder<V> {
+        private final BuilderNode<V> root = new BuilderNode<>();
+
+        private Builder() {
+
+        }
+
+        /**
+         * Adds a key to the trie. If the key has already been added, the value is replaced.
+         *
+         * @param key the key
+         * @param value the value
+         * @return this builder
+         */
+        public Builder<V> put(String key, V value) {
+            BuilderNode<V> node = this.root;
+
+            int start = 0;
+            while (true) {
+                int end = key.indexOf(AbstractNode.NODE_SEPARATOR, start);
+                String segment = end == -1 ? key.substring(start) : key.substring(start, end);
+                node = node.children.computeIfAbsent(segment, s -> new BuilderNode<>());
+
+                if (end == -1) {
+                    break;
+                }
+                start = end + 1;
+            }
+
+            node.value = value;
+            return this;
+        }
+
+        public SegmentTrie<V> build() {
+            if (this.root.children.isEmpty()) {
+                return empty();
+            }
+            return new SegmentTrie<>(this.root.build());
+        }
+    }
+
+    private static final class BuilderNode<V> {
+        private final Map<String, BuilderNode<V>> children = new HashMap<>();
+        private V value;
+
+        @SuppressWarnings("unchecked")
+        TrieNode<V> build() {
+            int size = this.children.size();
+            int capacity = size == 0 ? 0 : Integer.highestOneBit(size * 2 - 1) << 1;
+
+            String[] segments = new String[capacity];
+            int[] hashes = new int[capacity];
+            TrieNode<V>[] children = new TrieNode[capacity];
+
+            int mask = capacity - 1;
+            for (Map.Entry<String, BuilderNode<V>> e : this.children.entrySet()) {
+                String segment = e.getKey();
+                int hash = hash(segment, 0, segment.length());
+
+                int i = hash & mask;
+                while (segments[i] != null) {
+                    i = (i + 1) & mask;
+                }
+
+                segments[i] = segment;
+                hashes[i] = hash;
+                children[i] = e.getValue().build();
+            }
+
+            return new TrieNode<>(this.value, segments, hashes, children);
+        }
+    }
+
+}
@@ -26,32 +26,29 @@
 package com.xthesilent.aquaperms.common.calculator.processor;
 
 import com.xthesilent.aquaperms.common.cacheddata.result.TristateResult;
-import com.xthesilent.aquaperms.common.node.AbstractNode;
 import com.aquasplashmc.api.node.Node;
 
+import java.util.Map;
+
 public class SpongeWildcardProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
     private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(SpongeWildcardProcessor.class);
 
+    private SegmentTrie<Node> parentPermissions = SegmentTrie.empty();
+
     @Override
     public TristateResult hasPermission(String permission) {
-        String node = permission;
-
-        while (true) {
-            int endIndex = node.lastIndexOf(AbstractNode.NODE_SEPARATOR);
-            if (endIndex == -1) {
-                break;
-            }
+        return RESULT_FACTORY.result(this.parentPermissions.findDeepestParent(permission));
+    }
 
-            node = node.substring(0, endIndex);
-            if (!node.isEmpty()) {
-                Node n = this.sourceMap.get(node);
-                if (n != null) {
-                    return RESULT_FACTORY.result(n);
-                }
+    @Override
+    public void refresh() {
+        SegmentTrie.Builder<Node> builder = SegmentTrie.builder();
+        for (Map.Entry<String, Node> e : this.sourceMap.entrySet()) {
+            if (!e.getKey().isEmpty()) {
+                builder.put(e.getKey(), e.getValue());
             }
         }
-
-        return TristateResult.UNDEFINED;
+        this.parentPermissions = builder.build();
     }
 
 }
@@ -25,13 +25,11 @@
 
 package com.xthesilent.aquaperms.common.calculator.processor;
 
-import com.google.common.collect.ImmutableMap;
 import com.xthesilent.aquaperms.common.cacheddata.result.TristateResult;
-import com.xthesilent.aquaperms.common.node.AbstractNode;
 import com.aquasplashmc.api.node.Node;
 import com.aquasplashmc.api.util.Tristate;
 
-import java.util.Collections;
+import java.util.Collection;
 import java.util.Map;
 
 public class WildcardProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
@@ -49,26 +47,14 @@ public class WildcardProcessor extends AbstractSourceBasedProcessor implements P
         return isRootWildcard(permission) || permission.endsWith(WILDCARD_SUFFIX) && permission.length() > 2;
     }
 
-    private Map<String, TristateResult> wildcardPermissions = Collections.emptyMap();
+    private SegmentTrie<TristateResult> wildcardPermissions = SegmentTrie.empty();
     private TristateResult rootWildcardState = TristateResult.UNDEFINED;
 
     @Override
     public TristateResult hasPermission(String permission) {
-        String node = permission;
-
-        while (true) {
-            int endIndex = node.lastIndexOf(AbstractNode.NODE_SEPARATOR);
-            if (endIndex == -1) {
-                break;
-            }
-
-            node = node.substring(0, endIndex);
-            if (!node.isEmpty()) {
-                TristateResult match = this.wildcardPermissions.get(node);
-                if (match != null && match.result() != Tristate.UNDEFINED) {
-                    return match;
-                }
-            }
+        TristateResult match = this.wildcardPermissions.findDeepestParent(permission);
+        if (match != null && match.result() != Tristate.UNDEFINED) {
+            return match;
         }
 
         return this.rootWildcardState;
@@ -76,7 +62,7 @@ public class WildcardProcessor extends AbstractSourceBasedProcessor implements P
 
     @Override
     public void refresh() {
-        ImmutableMap.Builder<String, TristateResult> builder = ImmutableMap.builder();
+        SegmentTrie.Builder<TristateResult> builder = SegmentTrie.builder();
         for (Map.Entry<String, Node> e : this.sourceMap.entrySet()) {
             String key = e.getKey();
             if (!key.endsWith(WILDCARD_SUFFIX) || key.length() <= 2) {
@@ -95,4 +81,14 @@ public class WildcardProcessor extends AbstractSourceBasedProcessor implements P
         }
         this.rootWildcardState = rootWildcard == null ? TristateResult.UNDEFINED : RESULT_FACTORY.result(rootWildcard);
     }
+
+    @Override
+    public void refresh(Collection<String> changedPermissions) {
+        for (String permission : changedPermissions) {
+            if (isWildcardPermission(permission)) {
+                refresh();
+                return;
+            }
+        }
+    }
 }
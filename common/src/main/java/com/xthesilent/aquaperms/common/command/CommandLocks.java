@@ -0,0 +1,115 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.command;
+
+import com.xthesilent.aquaperms.common.command.abstraction.ParentCommand;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Determines the lock a command needs to hold whilst it executes.
+ *
+ * <p>Most commands share the lock, and so can run at the same time. Commands against a
+ * single user, group or track are kept apart by the per-target locks held by
+ * {@link ParentCommand}s. Commands which could affect any data (e.g. import, bulk update,
+ * sync, or anything which updates the parent lists of other holders) hold the lock
+ * exclusively, and so always run on their own.</p>
+ */
+public class CommandLocks {
+
+    /** Main commands which are always run on their own */
+    private static final Set<String> EXCLUSIVE_COMMANDS = setOf(
+            "import", "bulkupdate", "applyedits", "sync", "networksync", "reloadconfig", "translations",
+            "creategroup", "deletegroup", "createtrack", "deletetrack"
+    );
+
+    /** Main commands which are safe to run alongside others, as long as no exclusive command is running */
+    private static final Set<String> SHARED_COMMANDS = setOf(
+            "info", "editor", "verbose", "tree", "search", "export", "log", "trusteditor", "listgroups", "listtracks"
+    );
+
+    /** Main commands which delegate to a {@link ParentCommand}, and lock their target themselves */
+    private static final Set<String> TARGET_COMMANDS = setOf(
+            "user", "group", "track"
+    );
+
+    private static Set<String> setOf(String... values) {
+        Set<String> set = new TreeSet<>();
+        Collections.addAll(set, values);
+        return Collections.unmodifiableSet(set);
+    }
+
+    /** The lock held by all commands - shared by most, held exclusively by some */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
+
+    /**
+     * Gets the lock required to execute the command with the given arguments.
+     *
+     * @param arguments the command arguments, with the convenience aliases already applied
+     * @return the lock
+     */
+    public Lock getLock(List<String> arguments) {
+        return isExclusive(arguments) ? this.lock.writeLock() : this.lock.readLock();
+    }
+
+    private static boolean isExclusive(List<String> arguments) {
+        if (arguments.isEmpty()) {
+            return false;
+        }
+
+        // '--update-parent-lists' (on group rename and deletegroup) edits every user and group
+        for (String argument : arguments) {
+            if (argument.equalsIgnoreCase("--update-parent-lists")) {
+                return true;
+            }
+        }
+
+        String main = arguments.get(0).toLowerCase(Locale.ROOT);
+        if (SHARED_COMMANDS.contains(main)) {
+            return false;
+        }
+        if (TARGET_COMMANDS.contains(main)) {
+            // '/lp group <from> clone|rename <to>' also affects the target being copied to,
+            // which isn't covered by the lock held for the target
+            if (arguments.size() >= 3) {
+                String action = arguments.get(2).toLowerCase(Locale.ROOT);
+                return action.equals("clone") || action.equals("rename");
+            }
+            return false;
+        }
+
+        // exclusive commands, and unknown (e.g. platform specific) commands, to be safe
+        return true;
+    }
+
+}
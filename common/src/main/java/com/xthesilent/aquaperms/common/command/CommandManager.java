@@ -30,6 +30,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.xthesilent.aquaperms.common.command.abstraction.Command;
 import com.xthesilent.aquaperms.common.command.abstraction.CommandException;
+import com.xthesilent.aquaperms.common.command.abstraction.ParentCommand;
 import com.xthesilent.aquaperms.common.command.tabcomplete.CompletionSupplier;
 import com.xthesilent.aquaperms.common.command.tabcomplete.TabCompleter;
 import com.xthesilent.aquaperms.common.command.tabcomplete.TabCompletions;
@@ -63,7 +64,6 @@ import com.xthesilent.aquaperms.common.locale.Message;
 import com.xthesilent.aquaperms.common.model.Group;
 import com.xthesilent.aquaperms.common.plugin.AbstractAquaPermsPlugin;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
-import com.xthesilent.aquaperms.common.plugin.scheduler.SchedulerAdapter;
 import com.xthesilent.aquaperms.common.plugin.scheduler.SchedulerTask;
 import com.xthesilent.aquaperms.common.sender.Sender;
 import com.xthesilent.aquaperms.common.util.ExpiringSet;
@@ -76,37 +76,50 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Root command manager for the '/aquaperms' command.
+ *
+ * <p>Commands are executed on a small pool of threads. Commands from the same sender are
+ * always executed in the order they were received. {@link CommandLocks} ensures that
+ * commands which could affect any data run on their own, and commands against a single
+ * user, group or track hold the lock for that target (see {@link ParentCommand}).</p>
  */
 public class CommandManager {
 
     private final AquaPermsPlugin plugin;
-    private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
-            .setDaemon(true)
-            .setNameFormat("aquaperms-command-executor")
-            .build()
-    );
-    private final AtomicBoolean executingCommand = new AtomicBoolean(false);
+    private final ExecutorService executor;
+    private final CommandLocks locks = new CommandLocks();
+    private final Map<UUID, CompletableFuture<Void>> senderQueues = new ConcurrentHashMap<>();
+    private final Map<String, CommandTimings> timings = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCommands = new AtomicInteger();
     private final ExpiringSet<UUID> playerRateLimit = new ExpiringSet<>(500, TimeUnit.MILLISECONDS);
     private final TabCompletions tabCompletions;
     private final Map<String, Command<?>> mainCommands;
 
     public CommandManager(AquaPermsPlugin plugin) {
         this.plugin = plugin;
+        this.executor = Executors.newFixedThreadPool(plugin.getConfiguration().get(ConfigKeys.COMMAND_EXECUTOR_THREADS), new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("aquaperms-command-executor-%d")
+                .build()
+        );
         this.tabCompletions = new TabCompletions(plugin);
         this.mainCommands = ImmutableList.<Command<?>>builder()
                 .add(new UserParentCommand())
@@ -159,64 +172,87 @@ public class CommandManager {
             return CompletableFuture.completedFuture(null);
         }
 
-        SchedulerAdapter scheduler = this.plugin.getBootstrap().getScheduler();
         List<String> argsCopy = new ArrayList<>(args);
+        long queuedTime = System.nanoTime();
 
-        // if the executingCommand flag is set, there is another command executing at the moment
-        if (this.executingCommand.get()) {
-            Message.ALREADY_EXECUTING_COMMAND.send(sender);
-        }
-
-        // a reference to the thread being used to execute the command
-        AtomicReference<Thread> executorThread = new AtomicReference<>();
-        // a reference to the timeout task scheduled to catch if this command takes too long to execute
-        AtomicReference<SchedulerTask> timeoutTask = new AtomicReference<>();
-
-        // schedule the actual execution of the command using the command executor service
-        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-            // set flags
-            executorThread.set(Thread.currentThread());
-            this.executingCommand.set(true);
-
+        Runnable task = () -> {
             // actually try to execute the command
             try {
-                execute(sender, label, args);
+                executeWithLocks(sender, label, args, argsCopy, queuedTime);
             } catch (Throwable e) {
                 // catch any exception
                 this.plugin.getLogger().severe("Exception whilst executing command: " + args, e);
             } finally {
-                // unset flags
-                this.executingCommand.set(false);
-                executorThread.set(null);
-
-                // cancel the timeout task
-                SchedulerTask timeout;
-                if ((timeout = timeoutTask.get()) != null) {
-                    timeout.cancel();
-                }
+                this.pendingCommands.decrementAndGet();
             }
-        }, this.executor);
+        };
 
-        // schedule another task to catch if the command doesn't complete after 10 seconds
-        timeoutTask.set(scheduler.asyncLater(() -> {
-            if (!future.isDone()) {
-                handleCommandTimeout(executorThread, argsCopy);
-            }
-        }, 10, TimeUnit.SECONDS));
+        // schedule the actual execution of the command using the command executor service,
+        // after any commands previously sent by the same sender have completed
+        this.pendingCommands.incrementAndGet();
+        CompletableFuture<Void> future = this.senderQueues.compute(uniqueId, (id, previous) -> previous == null
+                ? CompletableFuture.runAsync(task, this.executor)
+                : previous.thenRunAsync(task, this.executor)
+        );
+        future.whenComplete((result, ex) -> this.senderQueues.remove(uniqueId, future));
 
         return future;
     }
 
-    private void handleCommandTimeout(AtomicReference<Thread> thread, List<String> args) {
-        Thread executorThread = thread.get();
-        if (executorThread == null) {
-            this.plugin.getLogger().warn("Command execution " + args + " has not completed - is another command execution blocking it?");
-        } else {
-            String stackTrace = Arrays.stream(executorThread.getStackTrace())
-                    .map(el -> "  " + el.toString())
-                    .collect(Collectors.joining("\n"));
-            this.plugin.getLogger().warn("Command execution " + args + " has not completed. Trace: \n" + stackTrace);
+    private void handleCommandTimeout(Thread executorThread, List<String> args) {
+        String stackTrace = Arrays.stream(executorThread.getStackTrace())
+                .map(el -> "  " + el.toString())
+                .collect(Collectors.joining("\n"));
+        this.plugin.getLogger().warn("Command execution " + args + " has not completed. Trace: \n" + stackTrace);
+    }
+
+    private void executeWithLocks(Sender sender, String label, List<String> arguments, List<String> originalArguments, long queuedTime) {
+        applyConvenienceAliases(arguments, true);
+
+        Lock lock = this.locks.getLock(arguments);
+        if (!lock.tryLock()) {
+            // another command which can't run alongside this one is executing at the moment
+            Message.ALREADY_EXECUTING_COMMAND.send(sender);
+            lock.lock();
         }
+
+        // schedule a task to catch if the command doesn't complete after 10 seconds,
+        // only counting from when it starts executing
+        Thread executorThread = Thread.currentThread();
+        SchedulerTask timeout = this.plugin.getBootstrap().getScheduler().asyncLater(
+                () -> handleCommandTimeout(executorThread, originalArguments),
+                10, TimeUnit.SECONDS
+        );
+
+        long startTime = System.nanoTime();
+        try {
+            execute(sender, label, arguments);
+        } finally {
+            long endTime = System.nanoTime();
+            timeout.cancel();
+            lock.unlock();
+
+            // record timings for commands which threw too
+            String name = arguments.isEmpty() ? "" : arguments.get(0).toLowerCase(Locale.ROOT);
+            if (!this.mainCommands.containsKey(name)) {
+                name = "unknown";
+            }
+            this.timings.computeIfAbsent(name, n -> new CommandTimings()).record(startTime - queuedTime, endTime - startTime);
+        }
+    }
+
+    /**
+     * Gets statistics about command executions, for use in health checks.
+     *
+     * @return the statistics
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("pending", this.pendingCommands.get());
+        Map<String, Object> commands = new LinkedHashMap<>();
+        this.timings.forEach((name, timings) -> commands.put(name, timings.toMap()));
+        map.put("commands", commands);
+        return map;
     }
 
     public boolean hasPermissionForAny(Sender sender) {
@@ -224,8 +260,6 @@ public class CommandManager {
     }
 
     private void execute(Sender sender, String label, List<String> arguments) {
-        applyConvenienceAliases(arguments, true);
-
         // Handle no arguments
         if (arguments.isEmpty() || arguments.size() == 1 && arguments.get(0).trim().isEmpty()) {
             sender.sendMessage(Message.prefixed(Component.text()
@@ -388,4 +422,31 @@ public class CommandManager {
         }
     }
 
+    /**
+     * Records how long executions of a main command spent queued and executing.
+     */
+    private static final class CommandTimings {
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder totalQueueNanos = new LongAdder();
+        private final AtomicLong maxQueueNanos = new AtomicLong();
+        private final LongAdder totalExecutionNanos = new LongAdder();
+
+        void record(long queueNanos, long executionNanos) {
+            this.executions.increment();
+            this.totalQueueNanos.add(queueNanos);
+            this.maxQueueNanos.accumulateAndGet(queueNanos, Math::max);
+            this.totalExecutionNanos.add(executionNanos);
+        }
+
+        Map<String, Object> toMap() {
+            long executions = Math.max(1, this.executions.sum());
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("executions", this.executions.sum());
+            map.put("averageQueueMillis", TimeUnit.NANOSECONDS.toMillis(this.totalQueueNanos.sum() / executions));
+            map.put("maxQueueMillis", TimeUnit.NANOSECONDS.toMillis(this.maxQueueNanos.get()));
+            map.put("averageExecutionMillis", TimeUnit.NANOSECONDS.toMillis(this.totalExecutionNanos.sum() / executions));
+            return map;
+        }
+    }
+
 }
@@ -35,6 +35,8 @@ import com.xthesilent.aquaperms.common.model.Track;
 import com.xthesilent.aquaperms.common.model.User;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.xthesilent.aquaperms.common.sender.Sender;
+import com.xthesilent.aquaperms.common.util.Difference;
+import com.aquasplashmc.api.node.Node;
 
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -90,6 +92,9 @@ public final class StorageAssistant {
     }
 
     public static CompletableFuture<Void> save(Group group, Sender sender, AquaPermsPlugin plugin) {
+        // the changes are consumed by the save, so take a copy to push to other servers
+        Difference<Node> changes = group.normalData().copyChanges();
+
         try {
             plugin.getStorage().saveGroup(group).get();
         } catch (Exception e) {
@@ -98,7 +103,14 @@ public final class StorageAssistant {
             return failedFuture(e);
         }
 
-        return invalidateCachesAndPushUpdates(plugin);
+        plugin.getInheritanceDependencyIndex().invalidateDependentCaches(group);
+
+        Optional<InternalMessagingService> messagingService = plugin.getMessagingService();
+        if (!changes.isEmpty() && messagingService.isPresent() && plugin.getConfiguration().get(ConfigKeys.AUTO_PUSH_UPDATES) && plugin.getConfiguration().get(ConfigKeys.PUSH_GROUP_DELTAS)) {
+            messagingService.get().pushGroupDelta(group, changes);
+            return CompletableFuture.completedFuture(null);
+        }
+        return pushUpdates(plugin);
     }
 
     public static CompletableFuture<Void> save(Track track, Sender sender, AquaPermsPlugin plugin) {
@@ -128,7 +140,10 @@ public final class StorageAssistant {
     public static CompletableFuture<Void> invalidateCachesAndPushUpdates(AquaPermsPlugin plugin) {
         plugin.getGroupManager().invalidateAllGroupCaches();
         plugin.getUserManager().invalidateAllUserCaches();
+        return pushUpdates(plugin);
+    }
 
+    private static CompletableFuture<Void> pushUpdates(AquaPermsPlugin plugin) {
         Optional<InternalMessagingService> messagingService = plugin.getMessagingService();
         if (messagingService.isPresent() && plugin.getConfiguration().get(ConfigKeys.AUTO_PUSH_UPDATES)) {
             return messagingService.get().getUpdateBuffer().request();
@@ -25,7 +25,8 @@
 
 package com.xthesilent.aquaperms.common.commands.log;
 
-import com.xthesilent.aquaperms.common.actionlog.Log;
+import com.xthesilent.aquaperms.common.actionlog.ActionFilterImpl;
+import com.xthesilent.aquaperms.common.actionlog.LogPage;
 import com.xthesilent.aquaperms.common.actionlog.LoggedAction;
 import com.xthesilent.aquaperms.common.command.abstraction.ChildCommand;
 import com.xthesilent.aquaperms.common.command.access.CommandPermission;
@@ -37,46 +38,44 @@ import com.xthesilent.aquaperms.common.locale.Message;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.xthesilent.aquaperms.common.sender.Sender;
 import com.xthesilent.aquaperms.common.storage.misc.DataConstraints;
+import com.xthesilent.aquaperms.common.storage.Storage;
 import com.xthesilent.aquaperms.common.util.Paginated;
 import com.xthesilent.aquaperms.common.util.Predicates;
 
 import java.util.List;
 import java.util.Locale;
 
-public class LogGroupHistory extends ChildCommand<Log> {
-    private static final int ENTRIES_PER_PAGE = 10;
+public class LogGroupHistory extends ChildCommand<Storage> {
 
     public LogGroupHistory() {
         super(CommandSpec.LOG_GROUP_HISTORY, "grouphistory", CommandPermission.LOG_GROUP_HISTORY, Predicates.notInRange(1, 2));
     }
 
     @Override
-    public void execute(AquaPermsPlugin plugin, Sender sender, Log log, ArgumentList args, String label) {
+    public void execute(AquaPermsPlugin plugin, Sender sender, Storage storage, ArgumentList args, String label) {
         String group = args.get(0).toLowerCase(Locale.ROOT);
         if (!DataConstraints.GROUP_NAME_TEST.test(group)) {
             Message.GROUP_INVALID_ENTRY.send(sender, group);
             return;
         }
 
-        Paginated<LoggedAction> content = new Paginated<>(log.getGroupHistory(group));
-
         int page = args.getIntOrDefault(1, Integer.MIN_VALUE);
-        if (page != Integer.MIN_VALUE) {
-            showLog(page, sender, content);
-        } else {
-            showLog(content.getMaxPages(ENTRIES_PER_PAGE), sender, content);
-        }
+        showLog(page, sender, LogParentCommand.queryActions(plugin, sender, storage, ActionFilterImpl.group(group), page));
     }
 
-    private static void showLog(int page, Sender sender, Paginated<LoggedAction> log) {
-        int maxPage = log.getMaxPages(ENTRIES_PER_PAGE);
+    private static void showLog(int page, Sender sender, LogPage log) {
+        if (log == null) {
+            return;
+        }
+
+        int maxPage = log.getMaxPages();
         if (maxPage == 0) {
             Message.LOG_NO_ENTRIES.send(sender);
             return;
         }
 
         if (page == Integer.MIN_VALUE) {
-            page = maxPage;
+            page = log.getPageNumber();
         }
 
         if (page < 1 || page > maxPage) {
@@ -84,7 +83,7 @@ public class LogGroupHistory extends ChildCommand<Log> {
             return;
         }
 
-        List<Paginated.Entry<LoggedAction>> entries = log.getPage(page, ENTRIES_PER_PAGE);
+        List<Paginated.Entry<LoggedAction>> entries = log.getEntries();
         String name = entries.stream().findAny().get().value().getTarget().getName();
         Message.LOG_HISTORY_GROUP_HEADER.send(sender, name, page, maxPage);
 
@@ -25,7 +25,6 @@
 
 package com.xthesilent.aquaperms.common.commands.log;
 
-import com.xthesilent.aquaperms.common.actionlog.Log;
 import com.xthesilent.aquaperms.common.command.abstraction.ChildCommand;
 import com.xthesilent.aquaperms.common.command.access.CommandPermission;
 import com.xthesilent.aquaperms.common.command.spec.CommandSpec;
@@ -36,6 +35,7 @@ import com.xthesilent.aquaperms.common.model.User;
 import com.xthesilent.aquaperms.common.node.types.Permission;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.xthesilent.aquaperms.common.sender.Sender;
+import com.xthesilent.aquaperms.common.storage.Storage;
 import com.xthesilent.aquaperms.common.util.Predicates;
 import com.aquasplashmc.api.model.data.DataType;
 import com.aquasplashmc.api.node.Node;
@@ -43,7 +43,7 @@ import com.aquasplashmc.api.node.Node;
 import java.util.Optional;
 import java.util.UUID;
 
-public class LogNotify extends ChildCommand<Log> {
+public class LogNotify extends ChildCommand<Storage> {
     private static final String IGNORE_NODE = "aquaperms.log.notify.ignoring";
 
     public LogNotify() {
@@ -83,7 +83,7 @@ public class LogNotify extends ChildCommand<Log> {
     }
 
     @Override
-    public void execute(AquaPermsPlugin plugin, Sender sender, Log log, ArgumentList args, String label) {
+    public void execute(AquaPermsPlugin plugin, Sender sender, Storage storage, ArgumentList args, String label) {
         if (sender.isConsole()) {
             Message.LOG_NOTIFY_CONSOLE.send(sender);
             return;
@@ -26,22 +26,28 @@
 package com.xthesilent.aquaperms.common.commands.log;
 
 import com.google.common.collect.ImmutableList;
-import com.xthesilent.aquaperms.common.actionlog.Log;
+import com.xthesilent.aquaperms.common.actionlog.ActionFilterImpl;
+import com.xthesilent.aquaperms.common.actionlog.LogPage;
+import com.xthesilent.aquaperms.common.actionlog.PageParameters;
 import com.xthesilent.aquaperms.common.command.abstraction.Command;
 import com.xthesilent.aquaperms.common.command.abstraction.ParentCommand;
 import com.xthesilent.aquaperms.common.command.spec.CommandSpec;
 import com.xthesilent.aquaperms.common.locale.Message;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.xthesilent.aquaperms.common.sender.Sender;
+import com.xthesilent.aquaperms.common.storage.Storage;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
-public class LogParentCommand extends ParentCommand<Log, Void> {
+public class LogParentCommand extends ParentCommand<Storage, Void> {
+    static final int ENTRIES_PER_PAGE = 10;
+
     private final ReentrantLock lock = new ReentrantLock();
 
     public LogParentCommand() {
-        super(CommandSpec.LOG, "Log", Type.NO_TARGET_ARGUMENT, ImmutableList.<Command<Log>>builder()
+        super(CommandSpec.LOG, "Log", Type.NO_TARGET_ARGUMENT, ImmutableList.<Command<Storage>>builder()
                 .add(new LogRecent())
                 .add(new LogSearch())
                 .add(new LogNotify())
@@ -58,18 +64,13 @@ public class LogParentCommand extends ParentCommand<Log, Void> {
     }
 
     @Override
-    protected Log getTarget(Void target, AquaPermsPlugin plugin, Sender sender) {
-        Log log = plugin.getStorage().getLog().join();
-
-        if (log == null) {
-            Message.LOG_LOAD_ERROR.send(sender);
-        }
-
-        return log;
+    protected Storage getTarget(Void target, AquaPermsPlugin plugin, Sender sender) {
+        // the sub commands query the storage for only the entries they need
+        return plugin.getStorage();
     }
 
     @Override
-    protected void cleanup(Log log, AquaPermsPlugin plugin) {
+    protected void cleanup(Storage storage, AquaPermsPlugin plugin) {
 
     }
 
@@ -79,6 +80,26 @@ public class LogParentCommand extends ParentCommand<Log, Void> {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Queries a page of the actions which match the given filter.
+     *
+     * @param page the requested page number, or {@link Integer#MIN_VALUE} for the last page
+     * @return the page, or null if the query failed
+     */
+    static @Nullable LogPage queryActions(AquaPermsPlugin plugin, Sender sender, Storage storage, ActionFilterImpl filter, int page) {
+        PageParameters parameters = page == Integer.MIN_VALUE
+                ? PageParameters.lastPage(ENTRIES_PER_PAGE)
+                : new PageParameters(ENTRIES_PER_PAGE, Math.max(1, page));
+
+        try {
+            return storage.queryActions(filter, parameters).join();
+        } catch (Exception e) {
+            plugin.getLogger().warn("Error whilst querying the action log", e);
+            Message.LOG_LOAD_ERROR.send(sender);
+            return null;
+        }
+    }
+
     @Override
     protected Void parseTarget(String target, AquaPermsPlugin plugin, Sender sender) {
         // should never be called if we specify Type.NO_TARGET_ARGUMENT in the constructor
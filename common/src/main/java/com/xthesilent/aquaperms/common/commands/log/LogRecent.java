@@ -25,7 +25,8 @@
 
 package com.xthesilent.aquaperms.common.commands.log;
 
-import com.xthesilent.aquaperms.common.actionlog.Log;
+import com.xthesilent.aquaperms.common.actionlog.ActionFilterImpl;
+import com.xthesilent.aquaperms.common.actionlog.LogPage;
 import com.xthesilent.aquaperms.common.actionlog.LoggedAction;
 import com.xthesilent.aquaperms.common.command.abstraction.ChildCommand;
 import com.xthesilent.aquaperms.common.command.access.CommandPermission;
@@ -34,32 +35,29 @@ import com.xthesilent.aquaperms.common.command.utils.ArgumentList;
 import com.xthesilent.aquaperms.common.locale.Message;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.xthesilent.aquaperms.common.sender.Sender;
+import com.xthesilent.aquaperms.common.storage.Storage;
 import com.xthesilent.aquaperms.common.util.Paginated;
 import com.xthesilent.aquaperms.common.util.Predicates;
 
 import java.util.List;
 import java.util.UUID;
 
-public class LogRecent extends ChildCommand<Log> {
-    private static final int ENTRIES_PER_PAGE = 10;
-    
+public class LogRecent extends ChildCommand<Storage> {
     public LogRecent() {
         super(CommandSpec.LOG_RECENT, "recent", CommandPermission.LOG_RECENT, Predicates.notInRange(0, 2));
     }
 
     @Override
-    public void execute(AquaPermsPlugin plugin, Sender sender, Log log, ArgumentList args, String label) {
+    public void execute(AquaPermsPlugin plugin, Sender sender, Storage storage, ArgumentList args, String label) {
         if (args.isEmpty()) {
             // No page or user
-            Paginated<LoggedAction> content = new Paginated<>(log.getContent());
-            showLog(content.getMaxPages(ENTRIES_PER_PAGE), false, sender, content);
+            showLog(Integer.MIN_VALUE, false, sender, LogParentCommand.queryActions(plugin, sender, storage, ActionFilterImpl.any(), Integer.MIN_VALUE));
             return;
         }
 
         int page = args.getIntOrDefault(0, Integer.MIN_VALUE);
         if (page != Integer.MIN_VALUE) {
-            Paginated<LoggedAction> content = new Paginated<>(log.getContent());
-            showLog(page, false, sender, content);
+            showLog(page, false, sender, LogParentCommand.queryActions(plugin, sender, storage, ActionFilterImpl.any(), page));
             return;
         }
 
@@ -69,28 +67,31 @@ public class LogRecent extends ChildCommand<Log> {
             return;
         }
 
-        Paginated<LoggedAction> content = new Paginated<>(log.getContent(uuid));
         page = args.getIntOrDefault(1, Integer.MIN_VALUE);
-        if (page != Integer.MIN_VALUE) {
-            showLog(page, true, sender, content);
-        } else {
-            showLog(content.getMaxPages(ENTRIES_PER_PAGE), true, sender, content);
-        }
+        showLog(page, true, sender, LogParentCommand.queryActions(plugin, sender, storage, ActionFilterImpl.source(uuid), page));
     }
 
-    private static void showLog(int page, boolean specificUser, Sender sender, Paginated<LoggedAction> log) {
-        int maxPage = log.getMaxPages(ENTRIES_PER_PAGE);
+    private static void showLog(int page, boolean specificUser, Sender sender, LogPage log) {
+        if (log == null) {
+            return;
+        }
+
+        int maxPage = log.getMaxPages();
         if (maxPage == 0) {
             Message.LOG_NO_ENTRIES.send(sender);
             return;
         }
 
+        if (page == Integer.MIN_VALUE) {
+            page = log.getPageNumber();
+        }
+
         if (page < 1 || page > maxPage) {
             Message.LOG_INVALID_PAGE_RANGE.send(sender, maxPage);
             return;
         }
 
-        List<Paginated.Entry<LoggedAction>> entries = log.getPage(page, ENTRIES_PER_PAGE);
+        List<Paginated.Entry<LoggedAction>> entries = log.getEntries();
         if (specificUser) {
             String name = entries.stream().findAny().get().value().getSource().getName();
             if (name.contains("@")) {
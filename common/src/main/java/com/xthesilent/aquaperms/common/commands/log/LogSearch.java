@@ -25,7 +25,8 @@
 
 package com.xthesilent.aquaperms.common.commands.log;
 
-import com.xthesilent.aquaperms.common.actionlog.Log;
+import com.xthesilent.aquaperms.common.actionlog.ActionFilterImpl;
+import com.xthesilent.aquaperms.common.actionlog.LogPage;
 import com.xthesilent.aquaperms.common.actionlog.LoggedAction;
 import com.xthesilent.aquaperms.common.command.abstraction.ChildCommand;
 import com.xthesilent.aquaperms.common.command.access.CommandPermission;
@@ -34,20 +35,20 @@ import com.xthesilent.aquaperms.common.command.utils.ArgumentList;
 import com.xthesilent.aquaperms.common.locale.Message;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.xthesilent.aquaperms.common.sender.Sender;
+import com.xthesilent.aquaperms.common.storage.Storage;
 import com.xthesilent.aquaperms.common.util.Paginated;
 import com.xthesilent.aquaperms.common.util.Predicates;
 
 import java.util.List;
 
-public class LogSearch extends ChildCommand<Log> {
-    private static final int ENTRIES_PER_PAGE = 10;
+public class LogSearch extends ChildCommand<Storage> {
 
     public LogSearch() {
         super(CommandSpec.LOG_SEARCH, "search", CommandPermission.LOG_SEARCH, Predicates.is(0));
     }
 
     @Override
-    public void execute(AquaPermsPlugin plugin, Sender sender, Log log, ArgumentList args, String label) {
+    public void execute(AquaPermsPlugin plugin, Sender sender, Storage storage, ArgumentList args, String label) {
         int page = Integer.MIN_VALUE;
         if (args.size() > 1) {
             try {
@@ -59,24 +60,22 @@ public class LogSearch extends ChildCommand<Log> {
         }
 
         final String query = String.join(" ", args);
-        Paginated<LoggedAction> content = new Paginated<>(log.getSearch(query));
+        showLog(page, query, sender, LogParentCommand.queryActions(plugin, sender, storage, ActionFilterImpl.search(query), page));
+    }
 
-        if (page != Integer.MIN_VALUE) {
-            showLog(page, query, sender, content);
-        } else {
-            showLog(content.getMaxPages(ENTRIES_PER_PAGE), query, sender, content);
+    private static void showLog(int page, String query, Sender sender, LogPage log) {
+        if (log == null) {
+            return;
         }
-    }
 
-    private static void showLog(int page, String query, Sender sender, Paginated<LoggedAction> log) {
-        int maxPage = log.getMaxPages(ENTRIES_PER_PAGE);
+        int maxPage = log.getMaxPages();
         if (maxPage == 0) {
             Message.LOG_NO_ENTRIES.send(sender);
             return;
         }
 
         if (page == Integer.MIN_VALUE) {
-            page = maxPage;
+            page = log.getPageNumber();
         }
 
         if (page < 1 || page > maxPage) {
@@ -84,7 +83,7 @@ public class LogSearch extends ChildCommand<Log> {
             return;
         }
 
-        List<Paginated.Entry<LoggedAction>> entries = log.getPage(page, ENTRIES_PER_PAGE);
+        List<Paginated.Entry<LoggedAction>> entries = log.getEntries();
         Message.LOG_SEARCH_HEADER.send(sender, query, page, maxPage);
 
         for (Paginated.Entry<LoggedAction> e : entries) {
@@ -45,11 +45,14 @@ public class AquaPermsConfiguration extends KeyedConfiguration {
     protected void load(boolean initial) {
         super.load(initial);
         this.contextsFile.load();
+        this.plugin.getVerboseHandler().applySettings(this);
     }
 
     @Override
     public void reload() {
         super.reload();
+        getPlugin().getInheritanceGraphFactory().invalidate();
+        getPlugin().getContextManager().invalidateCaches();
         getPlugin().getEventDispatcher().dispatchConfigReload();
     }
 
@@ -100,6 +100,18 @@ public final class ConfigKeys {
         return val;
     }));
 
+    /**
+     * The maximum number of users to load from storage in a single batch when
+     * reloading all online users
+     */
+    public static final ConfigKey<Integer> USER_LOAD_BATCH_SIZE = key(c -> Math.max(1, c.getInteger("user-load-batch-size", 100)));
+
+    /**
+     * If the nodes of offline users loaded from storage should be held in a compact form,
+     * until they are modified or used to calculate cached data
+     */
+    public static final ConfigKey<Boolean> COMPACT_OFFLINE_USER_NODES = booleanKey("compact-offline-user-nodes", true);
+
     /**
      * The default global contexts instance
      */
@@ -314,6 +326,24 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> APPLY_SPONGE_DEFAULT_SUBJECTS = notReloadable(booleanKey("apply-sponge-default-subjects", true));
 
+    /**
+     * The maximum number of permission lookup results each permission calculator should cache,
+     * or -1 for no limit
+     */
+    public static final ConfigKey<Integer> PERMISSION_LOOKUP_CACHE_MAX_ENTRIES = notReloadable(key(c -> c.getInteger("permission-lookup-cache.max-entries-per-calculator", -1)));
+
+    /**
+     * The approximate amount of memory (in megabytes) that all permission lookup caches
+     * can use combined, or -1 for no limit
+     */
+    public static final ConfigKey<Integer> PERMISSION_LOOKUP_CACHE_MEMORY_BUDGET = notReloadable(key(c -> c.getInteger("permission-lookup-cache.memory-budget-mb", -1)));
+
+    /**
+     * If invalidated cached data should continue to be served whilst it is rebuilt in the
+     * background, instead of being recalculated on the next (blocking) lookup
+     */
+    public static final ConfigKey<Boolean> ASYNC_CACHE_REBUILD = booleanKey("async-cache-rebuild", false);
+
     /**
      * The algorithm AquaPerms should use when traversing the "inheritance tree"
      */
@@ -443,6 +473,16 @@ public final class ConfigKeys {
                 .collect(ImmutableCollectors.toList());
     });
 
+    /**
+     * The maximum number of action log entries to save to storage in a single batch
+     */
+    public static final ConfigKey<Integer> ACTION_LOG_BATCH_SIZE = notReloadable(key(c -> Math.max(1, c.getInteger("action-log-batch-size", 100))));
+
+    /**
+     * How often (in milliseconds) queued action log entries are saved to storage
+     */
+    public static final ConfigKey<Integer> ACTION_LOG_FLUSH_INTERVAL = notReloadable(key(c -> Math.max(50, c.getInteger("action-log-flush-interval-millis", 1000))));
+
     /**
      * If AquaPerms should automatically install translation bundles and periodically update them.
      */
@@ -468,6 +508,14 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> COMMANDS_RATE_LIMIT = booleanKey("commands-rate-limit", true);
 
+    /**
+     * The number of threads used to execute commands. Commands affecting different users,
+     * groups and tracks are able to run at the same time.
+     */
+    public static final ConfigKey<Integer> COMMAND_EXECUTOR_THREADS = notReloadable(key(c -> {
+        return Math.max(1, c.getInteger("command-executor-threads", 4));
+    }));
+
     /**
      * If Vault lookups for offline players on the main server thread should be enabled
      */
@@ -559,6 +607,18 @@ public final class ConfigKeys {
         );
     }));
 
+    /**
+     * The maximum number of users and groups which can be saved to storage at the same time.
+     * Defaults to half of the connection pool, so that loads aren't starved of connections.
+     */
+    public static final ConfigKey<Integer> HOLDER_SAVE_PARALLELISM = notReloadable(key(c -> {
+        int parallelism = c.getInteger("holder-save-parallelism", -1);
+        if (parallelism > 0) {
+            return parallelism;
+        }
+        return Math.max(1, DATABASE_VALUES.get(c).getMaxPoolSize() / 2);
+    }));
+
     /**
      * The prefix for any SQL tables
      */
@@ -620,6 +680,27 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> AUTO_PUSH_UPDATES = notReloadable(booleanKey("auto-push-updates", true));
 
+    /**
+     * If changes to groups should be pushed as deltas, which receiving servers can apply
+     * without a full sync. Disabled by default, as servers running older versions ignore
+     * delta messages - only enable once every server on the network has been updated.
+     */
+    public static final ConfigKey<Boolean> PUSH_GROUP_DELTAS = notReloadable(booleanKey("push-group-deltas", false));
+
+    /**
+     * If messages should be sent in the compact binary format by messengers which support it.
+     * Disabled by default, as servers running older versions only understand the JSON format -
+     * only enable once every server on the network has been updated.
+     */
+    public static final ConfigKey<Boolean> BINARY_MESSAGE_FORMAT = notReloadable(booleanKey("binary-message-format", false));
+
+    /**
+     * The maximum interval in milliseconds between polls of the sql messenger's table while
+     * no messages are being sent or received. This is also the worst-case delay before an
+     * idle server receives a message.
+     */
+    public static final ConfigKey<Long> SQL_MESSENGER_MAX_POLL_INTERVAL = notReloadable(key(c -> (long) Math.max(250, c.getInteger("sql-messenger-max-poll-interval", 3000))));
+
     /**
      * If AquaPerms should push logging entries to connected servers via the messaging service
      */
@@ -740,6 +821,21 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<String> VERBOSE_VIEWER_URL_PATTERN = stringKey("verbose-viewer-url", "https://aquasplashmc.ddns.net/aquaperms/verbose/");
 
+    /**
+     * Only every nth check which passes a verbose filter is recorded
+     */
+    public static final ConfigKey<Integer> VERBOSE_SAMPLE_INTERVAL = key(c -> Math.max(1, c.getInteger("verbose-sample-interval", 1)));
+
+    /**
+     * If stack traces should be captured for recorded verbose checks
+     */
+    public static final ConfigKey<Boolean> VERBOSE_CAPTURE_STACK_TRACES = booleanKey("verbose-capture-stack-traces", true);
+
+    /**
+     * The maximum number of stack frames kept for each recorded verbose check
+     */
+    public static final ConfigKey<Integer> VERBOSE_MAX_STACK_DEPTH = key(c -> Math.max(1, c.getInteger("verbose-max-stack-depth", 64)));
+
     /**
      * The URL of the tree viewer
      */
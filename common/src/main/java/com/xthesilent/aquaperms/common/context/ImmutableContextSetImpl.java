@@ -28,6 +28,8 @@ package com.xthesilent.aquaperms.common.context;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Multimaps;
 import com.xthesilent.aquaperms.common.context.comparator.ContextComparator;
@@ -49,6 +51,40 @@ import java.util.Spliterator;
 public final class ImmutableContextSetImpl extends AbstractContextSet implements ImmutableContextSet, ContextSet {
     public static final ImmutableContextSetImpl EMPTY = new ImmutableContextSetImpl(new Context[0]);
 
+    /**
+     * Pool of canonical instances. Entries are weakly referenced, and are removed once
+     * nothing else is using them.
+     */
+    private static final Interner<ImmutableContextSetImpl> INTERNER = Interners.newWeakInterner();
+
+    static {
+        intern(EMPTY);
+    }
+
+    /**
+     * Returns a canonical instance equal to the given context set.
+     *
+     * <p>Interned sets are only ever equal to each other if they are the same instance,
+     * so comparisons between them are cheap.</p>
+     *
+     * @param contextSet the context set
+     * @return the canonical instance
+     */
+    public static ImmutableContextSet intern(ImmutableContextSet contextSet) {
+        if (!(contextSet instanceof ImmutableContextSetImpl)) {
+            return contextSet;
+        }
+
+        ImmutableContextSetImpl impl = (ImmutableContextSetImpl) contextSet;
+        if (impl.interned) {
+            return impl;
+        }
+
+        ImmutableContextSetImpl canonical = INTERNER.intern(impl);
+        canonical.interned = true;
+        return canonical;
+    }
+
     public static ImmutableContextSet of(String key, String value) {
         key = sanitizeKey(key);
         value = sanitizeValue(value);
@@ -65,6 +101,9 @@ public final class ImmutableContextSetImpl extends AbstractContextSet implements
     private final int size;
     private final int hashCode;
 
+    /** If this instance is the canonical instance in the intern pool */
+    private volatile boolean interned = false;
+
     private ImmutableSetMultimap<String, String> cachedMap;
 
     ImmutableContextSetImpl(Context[] contexts) {
@@ -175,6 +214,7 @@ public final class ImmutableContextSetImpl extends AbstractContextSet implements
         // fast(er) path for ImmutableContextSet comparisons
         if (that instanceof ImmutableContextSetImpl) {
             ImmutableContextSetImpl immutableThat = (ImmutableContextSetImpl) that;
+            if (this.interned && immutableThat.interned) return false;
             if (this.hashCode != immutableThat.hashCode) return false;
             return Arrays.equals(this.array, immutableThat.array);
         }
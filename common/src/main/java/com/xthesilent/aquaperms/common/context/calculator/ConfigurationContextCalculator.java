@@ -35,7 +35,7 @@ import com.aquasplashmc.api.context.ImmutableContextSet;
 import com.aquasplashmc.api.context.StaticContextCalculator;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
-public class ConfigurationContextCalculator implements StaticContextCalculator {
+public class ConfigurationContextCalculator implements StaticContextCalculator, SignalledContextCalculator<Object> {
     private final AquaPermsConfiguration config;
 
     public ConfigurationContextCalculator(AquaPermsConfiguration config) {
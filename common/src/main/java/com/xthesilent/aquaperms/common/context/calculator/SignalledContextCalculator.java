@@ -0,0 +1,44 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.context.calculator;
+
+import com.xthesilent.aquaperms.common.context.manager.ContextManager;
+import com.aquasplashmc.api.context.ContextCalculator;
+
+/**
+ * Represents a {@link ContextCalculator} whose results only change when
+ * {@link ContextManager#signalContextUpdate(Object)} is called for the subject, or
+ * when the configuration is reloaded.
+ *
+ * <p>The contexts supplied by signalled calculators are cached until one of those
+ * happens, instead of being recalculated roughly every tick. Implementations must
+ * only signal an update once the new state is visible to {@link #calculate}.</p>
+ *
+ * @param <T> the subject type
+ */
+public interface SignalledContextCalculator<T> extends ContextCalculator<T> {
+
+}
@@ -0,0 +1,163 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.context.manager;
+
+import com.xthesilent.aquaperms.common.context.ImmutableContextSetImpl;
+import com.xthesilent.aquaperms.common.context.calculator.SignalledContextCalculator;
+import com.xthesilent.aquaperms.common.query.QueryOptionsImpl;
+import com.aquasplashmc.api.context.ImmutableContextSet;
+import com.aquasplashmc.api.query.QueryOptions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base implementation of a cache of {@link QueryOptions}.
+ *
+ * <p>Contexts supplied by {@link SignalledContextCalculator}s are cached until the
+ * cache is {@link #invalidate() invalidated}, or the context manager's calculators
+ * change. If there are any other calculators, the result expires roughly every tick,
+ * and only those calculators are called again.</p>
+ *
+ * <p>Results are {@link QueryOptionsImpl#intern(QueryOptions) interned}, so subjects in
+ * the same contexts share a single instance.</p>
+ */
+public abstract class AbstractQueryOptionsCache implements QueryOptionsSupplier {
+    private static final long UNSIGNALLED_EXPIRY_NANOS = TimeUnit.MILLISECONDS.toNanos(50L);
+
+    private final ContextManager<?, ?> contextManager;
+
+    /** Incremented each time the cache is invalidated */
+    private final AtomicInteger signal = new AtomicInteger();
+
+    /** The current entry, or null if nothing has been calculated yet */
+    private volatile Entry entry = null;
+
+    protected AbstractQueryOptionsCache(ContextManager<?, ?> contextManager) {
+        this.contextManager = contextManager;
+    }
+
+    /**
+     * Calculates the contexts supplied by signalled calculators.
+     *
+     * @return the signalled contexts
+     */
+    protected abstract ImmutableContextSet calculateSignalled();
+
+    /**
+     * Calculates the query options, using the given signalled contexts.
+     *
+     * @param signalledContext the contexts supplied by signalled calculators
+     * @return the query options
+     */
+    protected abstract QueryOptions calculate(ImmutableContextSet signalledContext);
+
+    /**
+     * Gets if the result depends on any calculators which aren't signalled.
+     *
+     * @return if the result should expire
+     */
+    protected abstract boolean hasUnsignalledCalculators();
+
+    @Override
+    public QueryOptions getQueryOptions() {
+        Entry entry = this.entry;
+        if (entry == null || !isValid(entry, System.nanoTime())) {
+            entry = recalculate();
+        }
+        return entry.queryOptions;
+    }
+
+    @Override
+    public ImmutableContextSet getContextSet() {
+        return getQueryOptions().context();
+    }
+
+    public void invalidate() {
+        this.signal.incrementAndGet();
+    }
+
+    private boolean isSignalledContextValid(Entry entry) {
+        return entry.generation == this.contextManager.getCalculatorGeneration() && entry.signal == this.signal.get();
+    }
+
+    private boolean isValid(Entry entry, long now) {
+        return isSignalledContextValid(entry) && (entry.expiresAt == 0 || now - entry.expiresAt < 0);
+    }
+
+    private synchronized Entry recalculate() {
+        long now = System.nanoTime();
+
+        Entry previous = this.entry;
+        if (previous != null && isValid(previous, now)) { // recheck for lost race
+            return previous;
+        }
+
+        // read before calculating, so changes made whilst calculating invalidate the result
+        int generation = this.contextManager.getCalculatorGeneration();
+        int signal = this.signal.get();
+        boolean expires = hasUnsignalledCalculators();
+
+        ImmutableContextSet signalledContext;
+        if (previous != null && previous.generation == generation && previous.signal == signal) {
+            // only expired, so the signalled contexts are still valid
+            signalledContext = previous.signalledContext;
+        } else {
+            signalledContext = ImmutableContextSetImpl.intern(calculateSignalled());
+        }
+
+        QueryOptions queryOptions = QueryOptionsImpl.intern(calculate(signalledContext));
+
+        long expiresAt = 0;
+        if (expires) {
+            expiresAt = now + UNSIGNALLED_EXPIRY_NANOS;
+            // 0 means "never expires", no one will notice 1 ns of tardiness.
+            if (expiresAt == 0) {
+                expiresAt = 1;
+            }
+        }
+
+        Entry entry = new Entry(generation, signal, signalledContext, queryOptions, expiresAt);
+        this.entry = entry;
+        return entry;
+    }
+
+    private static final class Entry {
+        private final int generation;
+        private final int signal;
+        private final ImmutableContextSet signalledContext;
+        private final QueryOptions queryOptions;
+        private final long expiresAt;
+
+        Entry(int generation, int signal, ImmutableContextSet signalledContext, QueryOptions queryOptions, long expiresAt) {
+            this.generation = generation;
+            this.signal = signal;
+            this.signalledContext = signalledContext;
+            this.queryOptions = queryOptions;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -25,10 +25,10 @@
 
 package com.xthesilent.aquaperms.common.context.manager;
 
-import com.xthesilent.aquaperms.common.cache.ExpiringCache;
 import com.xthesilent.aquaperms.common.config.ConfigKeys;
 import com.xthesilent.aquaperms.common.context.ImmutableContextSetImpl;
 import com.xthesilent.aquaperms.common.context.calculator.ForwardingContextCalculator;
+import com.xthesilent.aquaperms.common.context.calculator.SignalledContextCalculator;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.aquasplashmc.api.context.ContextCalculator;
 import com.aquasplashmc.api.context.ContextConsumer;
@@ -36,13 +36,12 @@ import com.aquasplashmc.api.context.ContextSet;
 import com.aquasplashmc.api.context.ImmutableContextSet;
 import com.aquasplashmc.api.context.StaticContextCalculator;
 import com.aquasplashmc.api.query.QueryOptions;
-import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 /**
@@ -56,6 +55,9 @@ public abstract class ContextManager<S, P extends S> {
     private final Class<S> subjectClass;
     private final Class<P> playerClass;
 
+    // incremented whenever cached signalled contexts may no longer be valid
+    private final AtomicInteger calculatorGeneration = new AtomicInteger();
+
     private final CalculatorList calculators = new CalculatorList();
 
     // caches static context lookups
@@ -88,7 +90,7 @@ public abstract class ContextManager<S, P extends S> {
     }
 
     public QueryOptions getStaticQueryOptions() {
-        return this.staticLookupCache.get();
+        return this.staticLookupCache.getQueryOptions();
     }
 
     public ImmutableContextSet getStaticContext() {
@@ -115,6 +117,26 @@ public abstract class ContextManager<S, P extends S> {
 
     protected abstract void invalidateCache(S subject);
 
+    /**
+     * Invalidates all cached contexts, including those supplied by
+     * {@link SignalledContextCalculator}s.
+     *
+     * <p>Called when the configuration is reloaded, as calculators may depend on it.</p>
+     */
+    public void invalidateCaches() {
+        this.calculatorGeneration.incrementAndGet();
+    }
+
+    /**
+     * Gets the current calculator generation. Cached signalled contexts are only valid
+     * if they were calculated in the current generation.
+     *
+     * @return the generation
+     */
+    int getCalculatorGeneration() {
+        return this.calculatorGeneration.get();
+    }
+
     public void registerCalculator(ContextCalculator<? super S> calculator) {
         String calculatorClass = calculator.getClass().getName();
 
@@ -150,21 +172,61 @@ public abstract class ContextManager<S, P extends S> {
     }
 
     protected QueryOptions calculate(S subject) {
+        return calculate(subject, calculateSignalled(subject));
+    }
+
+    ImmutableContextSet calculateSignalled(S subject) {
         ImmutableContextSet.Builder accumulator = new ImmutableContextSetImpl.BuilderImpl();
         ContextConsumer consumer = accumulator::add;
 
-        for (ContextCalculator<? super S> calculator : this.calculators.calculators()) {
+        for (ContextCalculator<? super S> calculator : this.calculators.signalledCalculators()) {
+            callContextCalculator(calculator, subject, consumer);
+        }
+
+        return accumulator.build();
+    }
+
+    QueryOptions calculate(S subject, ImmutableContextSet signalledContext) {
+        ContextCalculator<? super S>[] unsignalledCalculators = this.calculators.unsignalledCalculators();
+        if (unsignalledCalculators.length == 0) {
+            return formQueryOptions(subject, signalledContext);
+        }
+
+        ImmutableContextSet.Builder accumulator = new ImmutableContextSetImpl.BuilderImpl().addAll(signalledContext);
+        ContextConsumer consumer = accumulator::add;
+
+        for (ContextCalculator<? super S> calculator : unsignalledCalculators) {
             callContextCalculator(calculator, subject, consumer);
         }
 
         return formQueryOptions(subject, accumulator.build());
     }
 
-    private QueryOptions calculateStatic() {
+    boolean hasUnsignalledCalculators() {
+        return this.calculators.unsignalledCalculators().length != 0;
+    }
+
+    private ImmutableContextSet calculateStaticSignalled() {
         ImmutableContextSet.Builder accumulator = new ImmutableContextSetImpl.BuilderImpl();
         ContextConsumer consumer = accumulator::add;
 
-        for (StaticContextCalculator calculator : this.calculators.staticCalculators()) {
+        for (StaticContextCalculator calculator : this.calculators.signalledStaticCalculators()) {
+            callStaticContextCalculator(calculator, consumer);
+        }
+
+        return accumulator.build();
+    }
+
+    private QueryOptions calculateStatic(ImmutableContextSet signalledContext) {
+        StaticContextCalculator[] unsignalledCalculators = this.calculators.unsignalledStaticCalculators();
+        if (unsignalledCalculators.length == 0) {
+            return formQueryOptions(signalledContext);
+        }
+
+        ImmutableContextSet.Builder accumulator = new ImmutableContextSetImpl.BuilderImpl().addAll(signalledContext);
+        ContextConsumer consumer = accumulator::add;
+
+        for (StaticContextCalculator calculator : unsignalledCalculators) {
             callStaticContextCalculator(calculator, consumer);
         }
 
@@ -188,14 +250,24 @@ public abstract class ContextManager<S, P extends S> {
         return builder.build();
     }
 
-    private final class StaticLookupCache extends ExpiringCache<QueryOptions> {
+    private final class StaticLookupCache extends AbstractQueryOptionsCache {
         StaticLookupCache() {
-            super(50L, TimeUnit.MILLISECONDS);
+            super(ContextManager.this);
+        }
+
+        @Override
+        protected ImmutableContextSet calculateSignalled() {
+            return calculateStaticSignalled();
+        }
+
+        @Override
+        protected QueryOptions calculate(ImmutableContextSet signalledContext) {
+            return calculateStatic(signalledContext);
         }
 
         @Override
-        public @NonNull QueryOptions supply() {
-            return calculateStatic();
+        protected boolean hasUnsignalledCalculators() {
+            return ContextManager.this.calculators.unsignalledStaticCalculators().length != 0;
         }
     }
 
@@ -214,7 +286,11 @@ public abstract class ContextManager<S, P extends S> {
         private final List<StaticContextCalculator> staticCalculators;
 
         private volatile ContextCalculator<? super S>[] calculatorsArray;
+        private volatile ContextCalculator<? super S>[] signalledCalculatorsArray;
+        private volatile ContextCalculator<? super S>[] unsignalledCalculatorsArray;
         private volatile StaticContextCalculator[] staticCalculatorsArray;
+        private volatile StaticContextCalculator[] signalledStaticCalculatorsArray;
+        private volatile StaticContextCalculator[] unsignalledStaticCalculatorsArray;
 
         CalculatorList() {
             this.calculators = new ArrayList<>();
@@ -224,8 +300,27 @@ public abstract class ContextManager<S, P extends S> {
 
         @SuppressWarnings("unchecked")
         private void bake() {
+            List<ContextCalculator<? super S>> signalled = new ArrayList<>();
+            List<ContextCalculator<? super S>> unsignalled = new ArrayList<>();
+            for (ContextCalculator<? super S> calculator : this.calculators) {
+                (calculator instanceof SignalledContextCalculator ? signalled : unsignalled).add(calculator);
+            }
+
+            List<StaticContextCalculator> signalledStatic = new ArrayList<>();
+            List<StaticContextCalculator> unsignalledStatic = new ArrayList<>();
+            for (StaticContextCalculator calculator : this.staticCalculators) {
+                (calculator instanceof SignalledContextCalculator ? signalledStatic : unsignalledStatic).add(calculator);
+            }
+
             this.calculatorsArray = this.calculators.toArray(new ContextCalculator[0]);
+            this.signalledCalculatorsArray = signalled.toArray(new ContextCalculator[0]);
+            this.unsignalledCalculatorsArray = unsignalled.toArray(new ContextCalculator[0]);
             this.staticCalculatorsArray = this.staticCalculators.toArray(new StaticContextCalculator[0]);
+            this.signalledStaticCalculatorsArray = signalledStatic.toArray(new StaticContextCalculator[0]);
+            this.unsignalledStaticCalculatorsArray = unsignalledStatic.toArray(new StaticContextCalculator[0]);
+
+            // cached signalled contexts were calculated using the previous calculators
+            ContextManager.this.calculatorGeneration.incrementAndGet();
         }
 
         public void add(ContextCalculator<? super S> calculator) {
@@ -257,9 +352,25 @@ public abstract class ContextManager<S, P extends S> {
             return this.calculatorsArray;
         }
 
+        public ContextCalculator<? super S>[] signalledCalculators() {
+            return this.signalledCalculatorsArray;
+        }
+
+        public ContextCalculator<? super S>[] unsignalledCalculators() {
+            return this.unsignalledCalculatorsArray;
+        }
+
         public StaticContextCalculator[] staticCalculators() {
             return this.staticCalculatorsArray;
         }
+
+        public StaticContextCalculator[] signalledStaticCalculators() {
+            return this.signalledStaticCalculatorsArray;
+        }
+
+        public StaticContextCalculator[] unsignalledStaticCalculators() {
+            return this.unsignalledStaticCalculatorsArray;
+        }
     }
 
 }
@@ -25,40 +25,36 @@
 
 package com.xthesilent.aquaperms.common.context.manager;
 
-import com.xthesilent.aquaperms.common.cache.ExpiringCache;
 import com.aquasplashmc.api.context.ImmutableContextSet;
 import com.aquasplashmc.api.query.QueryOptions;
-import org.checkerframework.checker.nullness.qual.NonNull;
-
-import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of {@link QueryOptionsSupplier} that caches results.
  *
  * @param <T> the player type
  */
-public final class QueryOptionsCache<T> extends ExpiringCache<QueryOptions> implements QueryOptionsSupplier {
+public final class QueryOptionsCache<T> extends AbstractQueryOptionsCache {
     private final T subject;
     private final ContextManager<T, ?> contextManager;
 
     public QueryOptionsCache(T subject, ContextManager<T, ?> contextManager) {
-        super(50L, TimeUnit.MILLISECONDS); // expire roughly every tick
+        super(contextManager);
         this.subject = subject;
         this.contextManager = contextManager;
     }
 
     @Override
-    protected @NonNull QueryOptions supply() {
-        return this.contextManager.calculate(this.subject);
+    protected ImmutableContextSet calculateSignalled() {
+        return this.contextManager.calculateSignalled(this.subject);
     }
 
     @Override
-    public QueryOptions getQueryOptions() {
-        return get();
+    protected QueryOptions calculate(ImmutableContextSet signalledContext) {
+        return this.contextManager.calculate(this.subject, signalledContext);
     }
 
     @Override
-    public ImmutableContextSet getContextSet() {
-        return get().context();
+    protected boolean hasUnsignalledCalculators() {
+        return this.contextManager.hasUnsignalledCalculators();
     }
 }
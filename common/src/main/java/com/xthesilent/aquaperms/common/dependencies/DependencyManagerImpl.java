@@ -42,8 +42,10 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -65,8 +67,11 @@ public class DependencyManagerImpl implements DependencyManager {
     /** The executor to use when loading dependencies */
     private final Executor loadingExecutor;
 
+    /** The manifest of files in the cache directory */
+    private final DependencyManifest manifest;
+
     /** A map of dependencies which have already been loaded. */
-    private final EnumMap<Dependency, Path> loaded = new EnumMap<>(Dependency.class);
+    private final Map<Dependency, Path> loaded = Collections.synchronizedMap(new EnumMap<>(Dependency.class));
     /** A map of isolated classloaders which have been created. */
     private final Map<ImmutableSet<Dependency>, IsolatedClassLoader> loaders = new HashMap<>();
     /** Cached relocation handler instance. */
@@ -77,6 +82,7 @@ public class DependencyManagerImpl implements DependencyManager {
         this.cacheDirectory = setupCacheDirectory(plugin);
         this.classPathAppender = plugin.getBootstrap().getClassPathAppender();
         this.loadingExecutor = plugin.getBootstrap().getScheduler().async();
+        this.manifest = setupManifest(this.cacheDirectory);
     }
 
     public DependencyManagerImpl(Path cacheDirectory, Executor executor) { // standalone pre-loader
@@ -84,6 +90,7 @@ public class DependencyManagerImpl implements DependencyManager {
         this.cacheDirectory = cacheDirectory;
         this.classPathAppender = null;
         this.loadingExecutor = executor;
+        this.manifest = setupManifest(this.cacheDirectory);
     }
 
     private synchronized RelocationHandler getRelocationHandler() {
@@ -133,6 +140,15 @@ public class DependencyManagerImpl implements DependencyManager {
 
     @Override
     public void loadDependencies(Set<Dependency> dependencies) {
+        // if anything needs to be remapped, create the relocation handler up front,
+        // so the loading threads can remap their dependencies in parallel
+        for (Dependency dependency : dependencies) {
+            if (!this.loaded.containsKey(dependency) && needsRemap(dependency)) {
+                getRelocationHandler();
+                break;
+            }
+        }
+
         CountDownLatch latch = new CountDownLatch(dependencies.size());
 
         for (Dependency dependency : dependencies) {
@@ -157,6 +173,8 @@ public class DependencyManagerImpl implements DependencyManager {
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
+
+        this.manifest.save();
     }
 
     private void loadDependency(Dependency dependency) throws Exception {
@@ -176,8 +194,8 @@ public class DependencyManagerImpl implements DependencyManager {
     private Path downloadDependency(Dependency dependency) throws DependencyDownloadException {
         Path file = this.cacheDirectory.resolve(dependency.getFileName(null));
 
-        // if the file already exists, don't attempt to re-download it.
-        if (Files.exists(file)) {
+        // if the file already exists and is intact, don't attempt to re-download it.
+        if (this.manifest.verifyDownload(dependency, file)) {
             return file;
         }
 
@@ -187,34 +205,71 @@ public class DependencyManagerImpl implements DependencyManager {
         for (DependencyRepository repo : DependencyRepository.values()) {
             try {
                 repo.download(dependency, file);
+                this.manifest.recordDownload(dependency, file);
                 return file;
             } catch (DependencyDownloadException e) {
                 lastError = e;
+            } catch (IOException e) {
+                throw new DependencyDownloadException(e);
             }
         }
 
         throw Objects.requireNonNull(lastError);
     }
 
-    private Path remapDependency(Dependency dependency, Path normalFile) throws Exception {
+    private List<Relocation> getRelocationRules(Dependency dependency) {
         List<Relocation> rules = new ArrayList<>(dependency.getRelocations());
         this.registry.applyRelocationSettings(dependency, rules);
+        return rules;
+    }
+
+    private Path getRemappedFile(Dependency dependency) {
+        return this.cacheDirectory.resolve(dependency.getFileName(DependencyRegistry.isGsonRelocated() ? "remapped-legacy" : "remapped"));
+    }
+
+    private boolean needsRemap(Dependency dependency) {
+        List<Relocation> rules = getRelocationRules(dependency);
+        return !rules.isEmpty() && !this.manifest.hasEntry(getRemappedFile(dependency), DependencyManifest.hashRelocations(dependency, rules));
+    }
+
+    private Path remapDependency(Dependency dependency, Path normalFile) throws Exception {
+        List<Relocation> rules = getRelocationRules(dependency);
 
         if (rules.isEmpty()) {
             return normalFile;
         }
 
-        Path remappedFile = this.cacheDirectory.resolve(dependency.getFileName(DependencyRegistry.isGsonRelocated() ? "remapped-legacy" : "remapped"));
+        Path remappedFile = getRemappedFile(dependency);
+        String relocations = DependencyManifest.hashRelocations(dependency, rules);
 
-        // if the remapped source exists already, just use that.
-        if (Files.exists(remappedFile)) {
+        // if the remapped source exists already and was remapped with the same rules, just use that.
+        if (this.manifest.verifyRemap(remappedFile, relocations)) {
             return remappedFile;
         }
 
+        Files.deleteIfExists(remappedFile);
         getRelocationHandler().remap(normalFile, remappedFile, rules);
+        this.manifest.recordRemap(remappedFile, relocations);
         return remappedFile;
     }
 
+    private static DependencyManifest setupManifest(Path cacheDirectory) {
+        DependencyManifest manifest = new DependencyManifest(cacheDirectory);
+        manifest.load();
+
+        // remove jars left behind by old versions of dependencies
+        Set<String> fileNames = new HashSet<>();
+        for (Dependency dependency : Dependency.values()) {
+            fileNames.add(dependency.getFileName(null));
+            fileNames.add(dependency.getFileName("remapped"));
+            fileNames.add(dependency.getFileName("remapped-legacy"));
+        }
+        manifest.prune(fileNames);
+        manifest.save();
+
+        return manifest;
+    }
+
     private static Path setupCacheDirectory(AquaPermsPlugin plugin) {
         Path cacheDirectory = plugin.getBootstrap().getDataDirectory().resolve("libs");
         try {
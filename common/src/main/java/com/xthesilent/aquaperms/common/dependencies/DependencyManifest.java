@@ -0,0 +1,363 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.dependencies;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.xthesilent.aquaperms.common.dependencies.relocation.Relocation;
+import com.xthesilent.aquaperms.common.util.gson.GsonProvider;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A record of the jars in the dependency cache directory, stored in 'manifest.json'.
+ *
+ * <p>For each jar the manifest holds its size, last modified time and SHA-256 checksum,
+ * plus (for remapped jars) a hash of the relocation rules it was remapped with. On startup,
+ * a jar whose size and modified time match the manifest is trusted without being read,
+ * so the whole cache can be verified by reading the manifest once. Jars which don't match
+ * are hashed again, and are downloaded or remapped again if the checksum is wrong.</p>
+ */
+public class DependencyManifest {
+    private static final String FILE_NAME = "manifest.json";
+
+    /** The cache directory */
+    private final Path directory;
+
+    /** The known entries, keyed by file name */
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /** If the manifest has changed since it was last saved */
+    private boolean dirty = false;
+
+    public DependencyManifest(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the manifest from disk.
+     */
+    public synchronized void load() {
+        Path file = this.directory.resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonObject data = GsonProvider.normal().fromJson(reader, JsonObject.class);
+            if (data == null || !data.has("entries")) {
+                return;
+            }
+
+            for (Map.Entry<String, JsonElement> e : data.getAsJsonObject("entries").entrySet()) {
+                JsonObject entry = e.getValue().getAsJsonObject();
+                this.entries.put(e.getKey(), new Entry(
+                        entry.get("size").getAsLong(),
+                        entry.get("modified").getAsLong(),
+                        Base64.getDecoder().decode(entry.get("sha256").getAsString()),
+                        entry.has("relocations") ? entry.get("relocations").getAsString() : null
+                ));
+            }
+        } catch (Exception e) {
+            // the manifest will just be rebuilt
+            this.entries.clear();
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Saves the manifest to disk, if it has changed.
+     */
+    public synchronized void save() {
+        if (!this.dirty) {
+            return;
+        }
+
+        JsonObject entries = new JsonObject();
+        for (Map.Entry<String, Entry> e : this.entries.entrySet()) {
+            Entry entry = e.getValue();
+            JsonObject object = new JsonObject();
+            object.addProperty("size", entry.size);
+            object.addProperty("modified", entry.modified);
+            object.addProperty("sha256", Base64.getEncoder().encodeToString(entry.checksum));
+            if (entry.relocations != null) {
+                object.addProperty("relocations", entry.relocations);
+            }
+            entries.add(e.getKey(), object);
+        }
+
+        JsonObject data = new JsonObject();
+        data.add("entries", entries);
+
+        Path file = this.directory.resolve(FILE_NAME);
+        Path tmpFile = this.directory.resolve(FILE_NAME + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+                GsonProvider.prettyPrinting().toJson(data, writer);
+            }
+            try {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            this.dirty = false;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Gets if the manifest has an entry for the given file, created with the given
+     * relocation rules. Doesn't check the file itself.
+     *
+     * @param file the file
+     * @param relocations the relocation hash, or null if the file isn't remapped
+     * @return if an entry exists
+     */
+    public synchronized boolean hasEntry(Path file, @Nullable String relocations) {
+        Entry entry = this.entries.get(file.getFileName().toString());
+        return entry != null && Objects.equals(entry.relocations, relocations);
+    }
+
+    /**
+     * Checks that a downloaded dependency jar is present and has the expected checksum.
+     *
+     * @param dependency the dependency
+     * @param file the downloaded file
+     * @return true if the file is valid
+     */
+    public boolean verifyDownload(Dependency dependency, Path file) {
+        return verify(file, dependency.getChecksum(), null);
+    }
+
+    /**
+     * Checks that a remapped dependency jar is present, was remapped with the given
+     * relocation rules, and hasn't changed since.
+     *
+     * @param file the remapped file
+     * @param relocations the relocation hash
+     * @return true if the file is valid
+     */
+    public boolean verifyRemap(Path file, String relocations) {
+        Entry entry;
+        synchronized (this) {
+            entry = this.entries.get(file.getFileName().toString());
+        }
+        if (entry == null || !relocations.equals(entry.relocations)) {
+            return false;
+        }
+        return verify(file, entry.checksum, relocations);
+    }
+
+    private boolean verify(Path file, byte[] expectedChecksum, @Nullable String relocations) {
+        String fileName = file.getFileName().toString();
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            remove(fileName);
+            return false;
+        }
+
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+
+        synchronized (this) {
+            Entry entry = this.entries.get(fileName);
+            if (entry != null && entry.matches(size, modified, expectedChecksum, relocations)) {
+                return true;
+            }
+        }
+
+        // the file has changed, or isn't known - check its contents
+        byte[] checksum;
+        try {
+            checksum = checksum(file);
+        } catch (IOException e) {
+            remove(fileName);
+            return false;
+        }
+
+        if (!Arrays.equals(checksum, expectedChecksum)) {
+            remove(fileName);
+            return false;
+        }
+
+        put(fileName, new Entry(size, modified, checksum, relocations));
+        return true;
+    }
+
+    /**
+     * Records a downloaded dependency jar.
+     *
+     * @param dependency the dependency
+     * @param file the downloaded file
+     * @throws IOException if unable to read the file attributes
+     */
+    public void recordDownload(Dependency dependency, Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        put(file.getFileName().toString(), new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), dependency.getChecksum(), null));
+    }
+
+    /**
+     * Records a remapped dependency jar.
+     *
+     * @param file the remapped file
+     * @param relocations the relocation hash
+     * @throws IOException if unable to read the file
+     */
+    public void recordRemap(Path file, String relocations) throws IOException {
+        byte[] checksum = checksum(file);
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        put(file.getFileName().toString(), new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), checksum, relocations));
+    }
+
+    /**
+     * Deletes any jars in the cache directory which aren't in the given set of file names,
+     * and removes them from the manifest.
+     *
+     * @param validFileNames the names of the files to keep
+     * @return the number of files deleted
+     */
+    public int prune(Set<String> validFileNames) {
+        List<Path> stale = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "*.jar")) {
+            for (Path file : stream) {
+                if (!validFileNames.contains(file.getFileName().toString())) {
+                    stale.add(file);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+
+        int deleted = 0;
+        for (Path file : stale) {
+            try {
+                Files.deleteIfExists(file);
+                deleted++;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        synchronized (this) {
+            if (this.entries.keySet().retainAll(validFileNames)) {
+                this.dirty = true;
+            }
+        }
+        return deleted;
+    }
+
+    private synchronized void put(String fileName, Entry entry) {
+        this.entries.put(fileName, entry);
+        this.dirty = true;
+    }
+
+    private synchronized void remove(String fileName) {
+        if (this.entries.remove(fileName) != null) {
+            this.dirty = true;
+        }
+    }
+
+    private static byte[] checksum(Path file) throws IOException {
+        MessageDigest digest = Dependency.createDigest();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Computes a hash identifying the relocation rules applied to a dependency.
+     *
+     * @param dependency the dependency being remapped
+     * @param relocations the relocation rules
+     * @return the hash
+     */
+    public static String hashRelocations(Dependency dependency, List<Relocation> relocations) {
+        List<String> rules = new ArrayList<>(relocations.size());
+        for (Relocation relocation : relocations) {
+            rules.add(relocation.getPattern() + '=' + relocation.getRelocatedPattern());
+        }
+        rules.sort(null);
+
+        MessageDigest digest = Dependency.createDigest();
+        digest.update(dependency.getChecksum());
+        for (String rule : rules) {
+            digest.update(rule.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final byte[] checksum;
+        private final @Nullable String relocations;
+
+        Entry(long size, long modified, byte[] checksum, @Nullable String relocations) {
+            this.size = size;
+            this.modified = modified;
+            this.checksum = checksum;
+            this.relocations = relocations;
+        }
+
+        boolean matches(long size, long modified, byte[] checksum, @Nullable String relocations) {
+            return this.size == size && this.modified == modified &&
+                    Arrays.equals(this.checksum, checksum) &&
+                    Objects.equals(this.relocations, relocations);
+        }
+    }
+
+}
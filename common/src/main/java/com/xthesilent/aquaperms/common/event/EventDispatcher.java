@@ -30,10 +30,53 @@ import com.google.common.collect.ImmutableSet;
 import com.xthesilent.aquaperms.common.api.implementation.ApiPermissionHolder;
 import com.xthesilent.aquaperms.common.cacheddata.GroupCachedDataManager;
 import com.xthesilent.aquaperms.common.cacheddata.UserCachedDataManager;
+import com.xthesilent.aquaperms.common.event.gen.ConfigReloadEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.ContextUpdateEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.CustomMessageReceiveEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.ExtensionLoadEventImpl;
 import com.xthesilent.aquaperms.common.event.gen.GeneratedEventClass;
+import com.xthesilent.aquaperms.common.event.gen.GroupCacheLoadEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.GroupCreateEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.GroupDataRecalculateEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.GroupDeleteEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.GroupLoadAllEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.GroupLoadEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.LogBroadcastEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.LogNetworkPublishEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.LogNotifyEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.LogPublishEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.LogReceiveEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.NodeAddEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.NodeClearEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.NodeRemoveEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.PlayerDataSaveEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.PlayerLoginProcessEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.PostNetworkSyncEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.PostSyncEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.PreNetworkSyncEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.PreSyncEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.TrackAddGroupEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.TrackClearEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.TrackCreateEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.TrackDeleteEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.TrackLoadAllEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.TrackLoadEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.TrackRemoveGroupEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.UniqueIdDetermineTypeEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.UniqueIdLookupEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.UserCacheLoadEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.UserDataRecalculateEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.UserDemoteEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.UserFirstLoginEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.UserLoadEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.UserPromoteEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.UserUnloadEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.UsernameLookupEventImpl;
+import com.xthesilent.aquaperms.common.event.gen.UsernameValidityCheckEventImpl;
 import com.xthesilent.aquaperms.common.event.model.EntitySourceImpl;
 import com.xthesilent.aquaperms.common.event.model.SenderPlatformEntity;
 import com.xthesilent.aquaperms.common.event.model.UnknownSource;
+import com.xthesilent.aquaperms.common.event.processor.GenerateEvents;
 import com.xthesilent.aquaperms.common.model.Group;
 import com.xthesilent.aquaperms.common.model.HolderType;
 import com.xthesilent.aquaperms.common.model.PermissionHolder;
@@ -41,6 +84,7 @@ import com.xthesilent.aquaperms.common.model.Track;
 import com.xthesilent.aquaperms.common.model.User;
 import com.xthesilent.aquaperms.common.sender.Sender;
 import com.xthesilent.aquaperms.common.util.Difference;
+import com.aquasplashmc.api.AquaPerms;
 import com.aquasplashmc.api.actionlog.Action;
 import com.aquasplashmc.api.event.AquaPermsEvent;
 import com.aquasplashmc.api.event.cause.CreationCause;
@@ -103,7 +147,59 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+/**
+ * Posts events to the {@link AbstractEventBus}.
+ *
+ * <p>Implementations of the events listed below are generated at compile time, and
+ * are constructed directly.</p>
+ */
+@GenerateEvents({
+        ContextUpdateEvent.class,
+        ExtensionLoadEvent.class,
+        GroupCacheLoadEvent.class,
+        GroupCreateEvent.class,
+        GroupDataRecalculateEvent.class,
+        GroupDeleteEvent.class,
+        GroupLoadAllEvent.class,
+        GroupLoadEvent.class,
+        LogBroadcastEvent.class,
+        LogNetworkPublishEvent.class,
+        LogNotifyEvent.class,
+        LogPublishEvent.class,
+        LogReceiveEvent.class,
+        CustomMessageReceiveEvent.class,
+        NodeAddEvent.class,
+        NodeClearEvent.class,
+        NodeRemoveEvent.class,
+        PlayerDataSaveEvent.class,
+        PlayerLoginProcessEvent.class,
+        UniqueIdDetermineTypeEvent.class,
+        UniqueIdLookupEvent.class,
+        UsernameLookupEvent.class,
+        UsernameValidityCheckEvent.class,
+        ConfigReloadEvent.class,
+        PostNetworkSyncEvent.class,
+        PostSyncEvent.class,
+        PreNetworkSyncEvent.class,
+        PreSyncEvent.class,
+        TrackCreateEvent.class,
+        TrackDeleteEvent.class,
+        TrackLoadAllEvent.class,
+        TrackLoadEvent.class,
+        TrackAddGroupEvent.class,
+        TrackClearEvent.class,
+        TrackRemoveGroupEvent.class,
+        UserCacheLoadEvent.class,
+        UserDataRecalculateEvent.class,
+        UserFirstLoginEvent.class,
+        UserLoadEvent.class,
+        UserUnloadEvent.class,
+        UserDemoteEvent.class,
+        UserPromoteEvent.class
+})
 public final class EventDispatcher {
     private final AbstractEventBus<?> eventBus;
 
@@ -115,20 +211,11 @@ public final class EventDispatcher {
         return this.eventBus;
     }
 
-    private AquaPermsEvent generate(Class<? extends AquaPermsEvent> eventClass, Object... params) {
-        try {
-            return GeneratedEventClass.generate(eventClass).newInstance(this.eventBus.getApiProvider(), params);
-        } catch (Throwable e) {
-            throw new RuntimeException("Exception occurred whilst generating event instance", e);
-        }
+    private AquaPerms api() {
+        return this.eventBus.getApiProvider();
     }
 
-    private void post(Class<? extends AquaPermsEvent> eventClass, Object... params) {
-        AquaPermsEvent event = generate(eventClass, params);
-        this.eventBus.post(event);
-    }
-
-    private void postAsync(Class<? extends AquaPermsEvent> eventClass, Object... params) {
+    private void postAsync(Class<? extends AquaPermsEvent> eventClass, Supplier<? extends AquaPermsEvent> event) {
         // check against common mistakes - events with any sort of result shouldn't be posted async
         if (Cancellable.class.isAssignableFrom(eventClass) || ResultEvent.class.isAssignableFrom(eventClass)) {
             throw new RuntimeException("Event cannot be posted async (" + eventClass.getName() + ")");
@@ -139,28 +226,26 @@ public final class EventDispatcher {
             return;
         }
 
-        // async: generate an event class and post it
-        this.eventBus.getPlugin().getBootstrap().getScheduler().executeAsync(() -> post(eventClass, params));
+        // async: create the event now (so it captures the current state) and post it
+        AquaPermsEvent instance = event.get();
+        this.eventBus.getPlugin().getBootstrap().getScheduler().executeAsync(() -> this.eventBus.post(instance));
     }
 
-    private void postSync(Class<? extends AquaPermsEvent> eventClass, Object... params) {
+    private void postSync(Class<? extends AquaPermsEvent> eventClass, Supplier<? extends AquaPermsEvent> event) {
         // if there aren't any handlers registered for our event, don't bother trying to post it
         if (!this.eventBus.shouldPost(eventClass)) {
             return;
         }
 
-        // generate an event class and post it
-        post(eventClass, params);
+        // create the event and post it
+        this.eventBus.post(event.get());
     }
 
-    private boolean postCancellable(Class<? extends AquaPermsEvent> eventClass, Object... params) {
+    private boolean postCancellable(Class<? extends AquaPermsEvent> eventClass, boolean initialState, Function<AtomicBoolean, ? extends AquaPermsEvent> event) {
         if (!Cancellable.class.isAssignableFrom(eventClass)) {
             throw new RuntimeException("Event is not cancellable: " + eventClass.getName());
         }
 
-        // extract the initial state from the first parameter
-        boolean initialState = (boolean) params[0];
-
         // if there aren't any handlers registered for the event, just return the initial state
         if (!this.eventBus.shouldPost(eventClass)) {
             return initialState;
@@ -168,66 +253,64 @@ public final class EventDispatcher {
 
         // otherwise:
         // - initialise an AtomicBoolean for the result with the initial state
-        // - replace the boolean with the AtomicBoolean in the params array
-        // - generate an event class and post it
+        // - create the event with the AtomicBoolean as its cancellation state and post it
         AtomicBoolean cancel = new AtomicBoolean(initialState);
-        params[0] = cancel;
-        post(eventClass, params);
+        this.eventBus.post(event.apply(cancel));
 
         // return the final status
         return cancel.get();
     }
 
     public void dispatchContextUpdate(Object subject) {
-        postSync(ContextUpdateEvent.class, subject);
+        postSync(ContextUpdateEvent.class, () -> new ContextUpdateEventImpl(api(), subject));
     }
 
     public void dispatchExtensionLoad(Extension extension) {
-        postAsync(ExtensionLoadEvent.class, extension);
+        postAsync(ExtensionLoadEvent.class, () -> new ExtensionLoadEventImpl(api(), extension));
     }
 
     public void dispatchGroupCacheLoad(Group group, GroupCachedDataManager data) {
-        postAsync(GroupCacheLoadEvent.class, group.getApiProxy(), data);
+        postAsync(GroupCacheLoadEvent.class, () -> new GroupCacheLoadEventImpl(api(), group.getApiProxy(), data));
     }
 
     public void dispatchGroupCreate(Group group, CreationCause cause) {
-        postAsync(GroupCreateEvent.class, group.getApiProxy(), cause);
+        postAsync(GroupCreateEvent.class, () -> new GroupCreateEventImpl(api(), group.getApiProxy(), cause));
     }
 
     public void dispatchGroupDelete(Group group, DeletionCause cause) {
-        postAsync(GroupDeleteEvent.class, group.getName(), ImmutableSet.copyOf(group.normalData().asSet()), cause);
+        postAsync(GroupDeleteEvent.class, () -> new GroupDeleteEventImpl(api(), group.getName(), ImmutableSet.copyOf(group.normalData().asSet()), cause));
     }
 
     public void dispatchGroupLoadAll() {
-        postAsync(GroupLoadAllEvent.class);
+        postAsync(GroupLoadAllEvent.class, () -> new GroupLoadAllEventImpl(api()));
     }
 
     public void dispatchGroupLoad(Group group) {
-        postAsync(GroupLoadEvent.class, group.getApiProxy());
+        postAsync(GroupLoadEvent.class, () -> new GroupLoadEventImpl(api(), group.getApiProxy()));
     }
 
     public boolean dispatchLogBroadcast(boolean initialState, Action entry, LogBroadcastEvent.Origin origin) {
-        return postCancellable(LogBroadcastEvent.class, initialState, entry, origin);
+        return postCancellable(LogBroadcastEvent.class, initialState, cancel -> new LogBroadcastEventImpl(api(), cancel, entry, origin));
     }
 
     public boolean dispatchLogPublish(boolean initialState, Action entry) {
-        return postCancellable(LogPublishEvent.class, initialState, entry);
+        return postCancellable(LogPublishEvent.class, initialState, cancel -> new LogPublishEventImpl(api(), cancel, entry));
     }
 
     public boolean dispatchLogNetworkPublish(boolean initialState, UUID id, Action entry) {
-        return postCancellable(LogNetworkPublishEvent.class, initialState, id, entry);
+        return postCancellable(LogNetworkPublishEvent.class, initialState, cancel -> new LogNetworkPublishEventImpl(api(), cancel, id, entry));
     }
 
     public boolean dispatchLogNotify(boolean initialState, Action entry, LogNotifyEvent.Origin origin, Sender sender) {
-        return postCancellable(LogNotifyEvent.class, initialState, entry, origin, new SenderPlatformEntity(sender));
+        return postCancellable(LogNotifyEvent.class, initialState, cancel -> new LogNotifyEventImpl(api(), cancel, entry, origin, new SenderPlatformEntity(sender)));
     }
 
     public void dispatchLogReceive(UUID id, Action entry) {
-        postAsync(LogReceiveEvent.class, id, entry);
+        postAsync(LogReceiveEvent.class, () -> new LogReceiveEventImpl(api(), id, entry));
     }
 
     public void dispatchCustomMessageReceive(String channelId, String payload) {
-        postAsync(CustomMessageReceiveEvent.class, channelId, payload);
+        postAsync(CustomMessageReceiveEvent.class, () -> new CustomMessageReceiveEventImpl(api(), channelId, payload));
     }
 
     public void dispatchNodeChanges(PermissionHolder target, DataType dataType, Difference<Node> changes) {
@@ -244,10 +327,11 @@ public final class EventDispatcher {
 
         // call an event for each recorded change
         for (Difference.Change<Node> change : changes.getChanges()) {
-            Class<? extends NodeMutateEvent> type = change.type() == Difference.ChangeType.ADD ?
-                    NodeAddEvent.class : NodeRemoveEvent.class;
-
-            postAsync(type, proxy, dataType, state, change.value());
+            if (change.type() == Difference.ChangeType.ADD) {
+                postAsync(NodeAddEvent.class, () -> new NodeAddEventImpl(api(), proxy, dataType, state, change.value()));
+            } else {
+                postAsync(NodeRemoveEvent.class, () -> new NodeRemoveEventImpl(api(), proxy, dataType, state, change.value()));
+            }
         }
     }
 
@@ -265,128 +349,128 @@ public final class EventDispatcher {
 
         // call clear event
         ImmutableSet<Node> nodes = ImmutableSet.copyOf(changes.getRemoved());
-        postAsync(NodeClearEvent.class, proxy, dataType, state, nodes);
+        postAsync(NodeClearEvent.class, () -> new NodeClearEventImpl(api(), proxy, dataType, state, nodes));
 
         // call add event if needed for any nodes that were added
         for (Node added : changes.getAdded()) {
-            postAsync(NodeAddEvent.class, proxy, dataType, state, added);
+            postAsync(NodeAddEvent.class, () -> new NodeAddEventImpl(api(), proxy, dataType, state, added));
         }
     }
 
     public void dispatchConfigReload() {
-        postAsync(ConfigReloadEvent.class);
+        postAsync(ConfigReloadEvent.class, () -> new ConfigReloadEventImpl(api()));
     }
 
     public void dispatchNetworkPostSync(UUID id, SyncType type, boolean didOccur, UUID specificUserUniqueId) {
-        postAsync(PostNetworkSyncEvent.class, id, type, didOccur, specificUserUniqueId);
+        postAsync(PostNetworkSyncEvent.class, () -> new PostNetworkSyncEventImpl(api(), id, type, didOccur, specificUserUniqueId));
     }
 
     public void dispatchPostSync() {
-        postAsync(PostSyncEvent.class);
+        postAsync(PostSyncEvent.class, () -> new PostSyncEventImpl(api()));
     }
 
     public boolean dispatchNetworkPreSync(boolean initialState, UUID id, SyncType type, UUID specificUserUniqueId) {
-        return postCancellable(PreNetworkSyncEvent.class, initialState, id, type, specificUserUniqueId);
+        return postCancellable(PreNetworkSyncEvent.class, initialState, cancel -> new PreNetworkSyncEventImpl(api(), cancel, id, type, specificUserUniqueId));
     }
 
     public boolean dispatchPreSync(boolean initialState) {
-        return postCancellable(PreSyncEvent.class, initialState);
+        return postCancellable(PreSyncEvent.class, initialState, cancel -> new PreSyncEventImpl(api(), cancel));
     }
 
     public void dispatchTrackCreate(Track track, CreationCause cause) {
-        postAsync(TrackCreateEvent.class, track.getApiProxy(), cause);
+        postAsync(TrackCreateEvent.class, () -> new TrackCreateEventImpl(api(), track.getApiProxy(), cause));
     }
 
     public void dispatchTrackDelete(Track track, DeletionCause cause) {
-        postAsync(TrackDeleteEvent.class, track.getName(), ImmutableList.copyOf(track.getGroups()), cause);
+        postAsync(TrackDeleteEvent.class, () -> new TrackDeleteEventImpl(api(), track.getName(), ImmutableList.copyOf(track.getGroups()), cause));
     }
 
     public void dispatchTrackLoadAll() {
-        postAsync(TrackLoadAllEvent.class);
+        postAsync(TrackLoadAllEvent.class, () -> new TrackLoadAllEventImpl(api()));
     }
 
     public void dispatchTrackLoad(Track track) {
-        postAsync(TrackLoadEvent.class, track.getApiProxy());
+        postAsync(TrackLoadEvent.class, () -> new TrackLoadEventImpl(api(), track.getApiProxy()));
     }
 
     public void dispatchTrackAddGroup(Track track, String group, List<String> before, List<String> after) {
-        postAsync(TrackAddGroupEvent.class, track.getApiProxy(), ImmutableList.copyOf(before), ImmutableList.copyOf(after), group);
+        postAsync(TrackAddGroupEvent.class, () -> new TrackAddGroupEventImpl(api(), track.getApiProxy(), ImmutableList.copyOf(before), ImmutableList.copyOf(after), group));
     }
 
     public void dispatchTrackClear(Track track, List<String> before) {
-        postAsync(TrackClearEvent.class, track.getApiProxy(), ImmutableList.copyOf(before), ImmutableList.of());
+        postAsync(TrackClearEvent.class, () -> new TrackClearEventImpl(api(), track.getApiProxy(), ImmutableList.copyOf(before), ImmutableList.of()));
     }
 
     public void dispatchTrackRemoveGroup(Track track, String group, List<String> before, List<String> after) {
-        postAsync(TrackRemoveGroupEvent.class, track.getApiProxy(), ImmutableList.copyOf(before), ImmutableList.copyOf(after), group);
+        postAsync(TrackRemoveGroupEvent.class, () -> new TrackRemoveGroupEventImpl(api(), track.getApiProxy(), ImmutableList.copyOf(before), ImmutableList.copyOf(after), group));
     }
 
     public void dispatchUserCacheLoad(User user, UserCachedDataManager data) {
-        postAsync(UserCacheLoadEvent.class, user.getApiProxy(), data);
+        postAsync(UserCacheLoadEvent.class, () -> new UserCacheLoadEventImpl(api(), user.getApiProxy(), data));
     }
 
     public void dispatchDataRecalculate(PermissionHolder holder) {
         if (holder.getType() == HolderType.USER) {
             User user = (User) holder;
-            postAsync(UserDataRecalculateEvent.class, user.getApiProxy(), user.getCachedData());
+            postAsync(UserDataRecalculateEvent.class, () -> new UserDataRecalculateEventImpl(api(), user.getApiProxy(), user.getCachedData()));
         } else {
             Group group = (Group) holder;
-            postAsync(GroupDataRecalculateEvent.class, group.getApiProxy(), group.getCachedData());
+            postAsync(GroupDataRecalculateEvent.class, () -> new GroupDataRecalculateEventImpl(api(), group.getApiProxy(), group.getCachedData()));
         }
     }
 
     public void dispatchUserFirstLogin(UUID uniqueId, String username) {
-        postAsync(UserFirstLoginEvent.class, uniqueId, username);
+        postAsync(UserFirstLoginEvent.class, () -> new UserFirstLoginEventImpl(api(), uniqueId, username));
     }
 
     public void dispatchPlayerLoginProcess(UUID uniqueId, String username, @Nullable User user) {
-        postSync(PlayerLoginProcessEvent.class, uniqueId, username, user == null ? null : user.getApiProxy());
+        postSync(PlayerLoginProcessEvent.class, () -> new PlayerLoginProcessEventImpl(api(), uniqueId, username, user == null ? null : user.getApiProxy()));
     }
 
     public void dispatchPlayerDataSave(UUID uniqueId, String username, PlayerSaveResult result) {
-        postAsync(PlayerDataSaveEvent.class, uniqueId, username, result);
+        postAsync(PlayerDataSaveEvent.class, () -> new PlayerDataSaveEventImpl(api(), uniqueId, username, result));
     }
 
     public String dispatchUniqueIdDetermineType(UUID uniqueId, String initialType) {
         AtomicReference<String> result = new AtomicReference<>(initialType);
-        postSync(UniqueIdDetermineTypeEvent.class, result, uniqueId);
+        postSync(UniqueIdDetermineTypeEvent.class, () -> new UniqueIdDetermineTypeEventImpl(api(), result, uniqueId));
         return result.get();
     }
 
     public UUID dispatchUniqueIdLookup(String username, UUID initial) {
         AtomicReference<UUID> result = new AtomicReference<>(initial);
-        postSync(UniqueIdLookupEvent.class, result, username);
+        postSync(UniqueIdLookupEvent.class, () -> new UniqueIdLookupEventImpl(api(), result, username));
         return result.get();
     }
 
     public String dispatchUsernameLookup(UUID uniqueId, String initial) {
         AtomicReference<String> result = new AtomicReference<>(initial);
-        postSync(UsernameLookupEvent.class, result, uniqueId);
+        postSync(UsernameLookupEvent.class, () -> new UsernameLookupEventImpl(api(), result, uniqueId));
         return result.get();
     }
 
     public boolean dispatchUsernameValidityCheck(String username, boolean initialState) {
         AtomicBoolean result = new AtomicBoolean(initialState);
-        postSync(UsernameValidityCheckEvent.class, username, result);
+        postSync(UsernameValidityCheckEvent.class, () -> new UsernameValidityCheckEventImpl(api(), username, result));
         return result.get();
     }
 
     public void dispatchUserLoad(User user) {
-        postAsync(UserLoadEvent.class, user.getApiProxy());
+        postAsync(UserLoadEvent.class, () -> new UserLoadEventImpl(api(), user.getApiProxy()));
     }
 
     public boolean dispatchUserUnload(User user) {
-        return postCancellable(UserUnloadEvent.class, false, user.getApiProxy());
+        return postCancellable(UserUnloadEvent.class, false, cancel -> new UserUnloadEventImpl(api(), cancel, user.getApiProxy()));
     }
 
     public void dispatchUserDemote(User user, Track track, String from, String to, @Nullable Sender sender) {
         Source source = sender == null ? UnknownSource.INSTANCE : new EntitySourceImpl(new SenderPlatformEntity(sender));
-        postAsync(UserDemoteEvent.class, source, track.getApiProxy(), user.getApiProxy(), Optional.ofNullable(from), Optional.ofNullable(to));
+        postAsync(UserDemoteEvent.class, () -> new UserDemoteEventImpl(api(), source, track.getApiProxy(), user.getApiProxy(), Optional.ofNullable(from), Optional.ofNullable(to)));
     }
 
     public void dispatchUserPromote(User user, Track track, String from, String to, @Nullable Sender sender) {
         Source source = sender == null ? UnknownSource.INSTANCE : new EntitySourceImpl(new SenderPlatformEntity(sender));
-        postAsync(UserPromoteEvent.class, source, track.getApiProxy(), user.getApiProxy(), Optional.ofNullable(from), Optional.ofNullable(to));
+        postAsync(UserPromoteEvent.class, () -> new UserPromoteEventImpl(api(), source, track.getApiProxy(), user.getApiProxy(), Optional.ofNullable(from), Optional.ofNullable(to)));
     }
 
     private static ApiPermissionHolder proxy(PermissionHolder holder) {
@@ -401,50 +485,7 @@ public final class EventDispatcher {
 
     @SuppressWarnings("unchecked")
     public static Class<? extends AquaPermsEvent>[] getKnownEventTypes() {
-        return new Class[]{
-                ContextUpdateEvent.class,
-                ExtensionLoadEvent.class,
-                GroupCacheLoadEvent.class,
-                GroupCreateEvent.class,
-                GroupDataRecalculateEvent.class,
-                GroupDeleteEvent.class,
-                GroupLoadAllEvent.class,
-                GroupLoadEvent.class,
-                LogBroadcastEvent.class,
-                LogNetworkPublishEvent.class,
-                LogNotifyEvent.class,
-                LogPublishEvent.class,
-                LogReceiveEvent.class,
-                CustomMessageReceiveEvent.class,
-                NodeAddEvent.class,
-                NodeClearEvent.class,
-                NodeRemoveEvent.class,
-                PlayerDataSaveEvent.class,
-                PlayerLoginProcessEvent.class,
-                UniqueIdDetermineTypeEvent.class,
-                UniqueIdLookupEvent.class,
-                UsernameLookupEvent.class,
-                UsernameValidityCheckEvent.class,
-                ConfigReloadEvent.class,
-                PostNetworkSyncEvent.class,
-                PostSyncEvent.class,
-                PreNetworkSyncEvent.class,
-                PreSyncEvent.class,
-                TrackCreateEvent.class,
-                TrackDeleteEvent.class,
-                TrackLoadAllEvent.class,
-                TrackLoadEvent.class,
-                TrackAddGroupEvent.class,
-                TrackClearEvent.class,
-                TrackRemoveGroupEvent.class,
-                UserCacheLoadEvent.class,
-                UserDataRecalculateEvent.class,
-                UserFirstLoginEvent.class,
-                UserLoadEvent.class,
-                UserUnloadEvent.class,
-                UserDemoteEvent.class,
-                UserPromoteEvent.class
-        };
+        return GeneratedEventClass.getEventTypes().toArray(new Class[0]);
     }
 
 }
@@ -29,8 +29,6 @@ import com.aquasplashmc.api.AquaPerms;
 import com.aquasplashmc.api.event.AquaPermsEvent;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
-import java.lang.invoke.MethodHandles;
-
 /**
  * Abstract implementation of {@link AquaPermsEvent}.
  */
@@ -45,9 +43,4 @@ public abstract class AbstractEvent implements AquaPermsEvent {
     public @NonNull AquaPerms getAquaPerms() {
         return this.api;
     }
-
-    // Overridden by the subclass. Used by GeneratedEventClass to get setter method handles.
-    public MethodHandles.Lookup mhl() {
-        throw new UnsupportedOperationException();
-    }
 }
@@ -0,0 +1,283 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.inheritance;
+
+import com.google.common.collect.ImmutableSet;
+import com.xthesilent.aquaperms.common.model.Group;
+import com.xthesilent.aquaperms.common.model.PermissionHolder;
+import com.xthesilent.aquaperms.common.model.PermissionHolderIdentifier;
+import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
+import com.aquasplashmc.api.model.PermissionHolder.Identifier;
+import com.aquasplashmc.api.model.data.DataType;
+import com.aquasplashmc.api.node.types.InheritanceNode;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A reverse index of the inheritance relationships between loaded holders.
+ *
+ * <p>Used to invalidate the cached data of only those holders whose inheritance
+ * tree contains a group which has changed, instead of every loaded holder.</p>
+ *
+ * <p>Holders report changes to their inheritance via {@link #markChanged(PermissionHolder)},
+ * and are removed via {@link #remove(PermissionHolder)} when they are unloaded. The
+ * edges of changed holders are updated incrementally before the index is next queried.
+ * Parents are indexed across all contexts, as cached data is always invalidated for the
+ * holder as a whole.</p>
+ */
+public class InheritanceDependencyIndex {
+    private final AquaPermsPlugin plugin;
+
+    /**
+     * The direct parents of each indexed holder
+     */
+    private final Map<PermissionHolderIdentifier, Set<String>> directParents = new ConcurrentHashMap<>();
+
+    /**
+     * The reverse of {@link #directParents}: group name -> holders which directly inherit it
+     *
+     * <p>Guarded by this index.</p>
+     */
+    private final Map<String, Set<PermissionHolderIdentifier>> children = new HashMap<>();
+
+    /**
+     * Holders whose inheritance has changed since the index was last updated
+     */
+    private final Map<PermissionHolderIdentifier, PermissionHolder> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder holdersInvalidated = new LongAdder();
+    private final LongAdder holdersSpared = new LongAdder();
+
+    public InheritanceDependencyIndex(AquaPermsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Marks that the inheritance nodes of the given holder may have changed.
+     *
+     * <p>The holders parents are re-read the next time the index is queried.</p>
+     *
+     * @param holder the holder
+     */
+    public void markChanged(PermissionHolder holder) {
+        this.pending.put(holder.getIdentifier(), holder);
+    }
+
+    /**
+     * Removes a holder which has been unloaded from the index.
+     *
+     * @param holder the holder
+     */
+    public synchronized void remove(PermissionHolder holder) {
+        PermissionHolderIdentifier identifier = holder.getIdentifier();
+        this.pending.remove(identifier, holder);
+
+        // the holder may have already been loaded again
+        if (getIfLoaded(identifier) == null) {
+            unlink(identifier, this.directParents.remove(identifier));
+        }
+    }
+
+    /**
+     * Invalidates the cached data of the given group, and of all loaded holders which
+     * inherit from it (directly or indirectly).
+     *
+     * @param group the group which has changed
+     */
+    public void invalidateDependentCaches(Group group) {
+        invalidateDependentCaches(Collections.singleton(group.getName()));
+    }
+
+    /**
+     * Invalidates the cached data of the given groups, and of all loaded holders which
+     * inherit from any of them (directly or indirectly).
+     *
+     * <p>The groups do not need to be loaded - holders which inherit from a group
+     * which has been deleted are also invalidated.</p>
+     *
+     * @param groupNames the names of the groups which have changed
+     */
+    public void invalidateDependentCaches(Collection<String> groupNames) {
+        if (groupNames.isEmpty()) {
+            return;
+        }
+
+        Set<PermissionHolder> dependents = findDependents(groupNames);
+        for (String name : groupNames) {
+            Group group = this.plugin.getGroupManager().getIfLoaded(name);
+            if (group != null) {
+                dependents.add(group);
+            }
+        }
+
+        for (PermissionHolder holder : dependents) {
+            holder.getCachedData().invalidate();
+        }
+
+        this.invalidations.increment();
+        this.holdersInvalidated.add(dependents.size());
+        this.holdersSpared.add(Math.max(0, this.directParents.size() - dependents.size()));
+    }
+
+    /**
+     * Finds all loaded holders which inherit from any of the given groups,
+     * directly or indirectly.
+     *
+     * @param groupNames the group names
+     * @return the dependent holders
+     */
+    public synchronized Set<PermissionHolder> findDependents(Collection<String> groupNames) {
+        applyPendingChanges();
+
+        Set<PermissionHolder> dependents = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<String> visited = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        for (String name : groupNames) {
+            String key = name.toLowerCase(Locale.ROOT);
+            if (visited.add(key)) {
+                queue.add(key);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            Set<PermissionHolderIdentifier> inheritors = this.children.get(queue.poll());
+            if (inheritors == null) {
+                continue;
+            }
+
+            for (PermissionHolderIdentifier identifier : inheritors) {
+                PermissionHolder holder = getIfLoaded(identifier);
+                if (holder != null && dependents.add(holder) && holder instanceof Group) {
+                    String name = ((Group) holder).getName();
+                    if (visited.add(name)) {
+                        queue.add(name);
+                    }
+                }
+            }
+        }
+
+        return dependents;
+    }
+
+    // re-reads the parents of holders which have changed, and updates the edges in both directions
+    private void applyPendingChanges() {
+        Iterator<Map.Entry<PermissionHolderIdentifier, PermissionHolder>> it = this.pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<PermissionHolderIdentifier, PermissionHolder> entry = it.next();
+            PermissionHolderIdentifier identifier = entry.getKey();
+            PermissionHolder holder = entry.getValue();
+
+            // remove before reading, so a concurrent change is picked up next time
+            if (!this.pending.remove(identifier, holder)) {
+                continue;
+            }
+            if (getIfLoaded(identifier) != holder) {
+                // unloaded (or replaced) since it was marked - remove() has dealt with it
+                continue;
+            }
+
+            Set<String> parents = readDirectParents(holder);
+            Set<String> previous = this.directParents.put(identifier, parents);
+            if (previous == null) {
+                previous = Collections.emptySet();
+            }
+
+            for (String parent : previous) {
+                if (!parents.contains(parent)) {
+                    unlink(identifier, parent);
+                }
+            }
+            for (String parent : parents) {
+                if (!previous.contains(parent)) {
+                    this.children.computeIfAbsent(parent, p -> new HashSet<>()).add(identifier);
+                }
+            }
+        }
+    }
+
+    private void unlink(PermissionHolderIdentifier identifier, Set<String> parents) {
+        if (parents != null) {
+            for (String parent : parents) {
+                unlink(identifier, parent);
+            }
+        }
+    }
+
+    private void unlink(PermissionHolderIdentifier identifier, String parent) {
+        Set<PermissionHolderIdentifier> inheritors = this.children.get(parent);
+        if (inheritors != null && inheritors.remove(identifier) && inheritors.isEmpty()) {
+            this.children.remove(parent);
+        }
+    }
+
+    private static Set<String> readDirectParents(PermissionHolder holder) {
+        ImmutableSet.Builder<String> parents = ImmutableSet.builder();
+        for (DataType dataType : DataType.values()) {
+            for (InheritanceNode node : holder.getData(dataType).inheritanceAsList()) {
+                parents.add(node.getGroupName().toLowerCase(Locale.ROOT));
+            }
+        }
+        return parents.build();
+    }
+
+    private PermissionHolder getIfLoaded(PermissionHolderIdentifier identifier) {
+        if (identifier.getType().equals(Identifier.GROUP_TYPE)) {
+            return this.plugin.getGroupManager().getIfLoaded(identifier.getName());
+        }
+        return this.plugin.getUserManager().getIfLoaded(UUID.fromString(identifier.getName()));
+    }
+
+    /**
+     * Gets statistics about the invalidations performed using this index, for use in health checks.
+     *
+     * @return the statistics
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("indexedHolders", this.directParents.size());
+        map.put("pendingHolders", this.pending.size());
+        map.put("invalidations", this.invalidations.sum());
+        map.put("holdersInvalidated", this.holdersInvalidated.sum());
+        map.put("holdersSpared", this.holdersSpared.sum());
+        return map;
+    }
+
+}
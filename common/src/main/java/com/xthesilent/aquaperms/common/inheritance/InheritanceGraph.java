@@ -25,6 +25,7 @@
 
 package com.xthesilent.aquaperms.common.inheritance;
 
+import com.google.common.collect.ImmutableList;
 import com.xthesilent.aquaperms.common.config.ConfigKeys;
 import com.xthesilent.aquaperms.common.graph.Graph;
 import com.xthesilent.aquaperms.common.graph.TraversalAlgorithm;
@@ -33,14 +34,22 @@ import com.xthesilent.aquaperms.common.model.PermissionHolder;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.aquasplashmc.api.node.types.InheritanceNode;
 import com.aquasplashmc.api.query.QueryOptions;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A {@link Graph} which represents an "inheritance tree".
+ *
+ * <p>The sorted successors of {@link Group}s are cached, and reused until the group,
+ * one of its successors, the set of loaded groups or the owning
+ * {@link InheritanceGraphFactory} changes.</p>
  */
 public class InheritanceGraph implements Graph<PermissionHolder> {
     private final AquaPermsPlugin plugin;
@@ -50,18 +59,73 @@ public class InheritanceGraph implements Graph<PermissionHolder> {
      */
     private final QueryOptions queryOptions;
 
+    /**
+     * The factory which created this graph, or null if the graph is not owned by a factory
+     */
+    private final @Nullable InheritanceGraphFactory factory;
+
+    /**
+     * Cached successors for groups
+     */
+    private final Map<Group, CachedSuccessors> groupSuccessors = new ConcurrentHashMap<>();
+
+    /**
+     * The group manager version when the cached successors were last checked
+     */
+    private volatile int lastManagerVersion;
+
     public InheritanceGraph(AquaPermsPlugin plugin, QueryOptions queryOptions) {
+        this(plugin, queryOptions, null);
+    }
+
+    InheritanceGraph(AquaPermsPlugin plugin, QueryOptions queryOptions, @Nullable InheritanceGraphFactory factory) {
         this.plugin = plugin;
         this.queryOptions = queryOptions;
+        this.factory = factory;
+    }
+
+    @Nullable InheritanceGraphFactory getFactory() {
+        return this.factory;
     }
 
     @Override
     public Iterable<? extends PermissionHolder> successors(PermissionHolder holder) {
+        if (!(holder instanceof Group)) {
+            return resolveSuccessors(holder, null);
+        }
+
+        Group group = (Group) holder;
+        int managerVersion = this.plugin.getGroupManager().getVersion();
+        int factoryGeneration = this.factory == null ? 0 : this.factory.getGeneration();
+
+        if (this.lastManagerVersion != managerVersion) {
+            // groups have been loaded or unloaded - drop everything so we don't keep old instances around
+            this.groupSuccessors.clear();
+            this.lastManagerVersion = managerVersion;
+        }
+
+        CachedSuccessors cached = this.groupSuccessors.get(group);
+        if (cached != null && cached.isValid(group, managerVersion, factoryGeneration)) {
+            return cached.successors;
+        }
+
+        // record the versions before resolving, so a concurrent change will be
+        // picked up by the next call rather than being hidden by this entry
+        int holderVersion = group.getInheritanceVersion();
+        Map<Group, Integer> successorVersions = new IdentityHashMap<>();
+        List<Group> successors = resolveSuccessors(group, successorVersions);
+
+        cached = new CachedSuccessors(successors, successorVersions, holderVersion, managerVersion, factoryGeneration);
+        this.groupSuccessors.put(group, cached);
+        return cached.successors;
+    }
+
+    private List<Group> resolveSuccessors(PermissionHolder holder, @Nullable Map<Group, Integer> successorVersions) {
         Set<Group> successors = new LinkedHashSet<>();
         for (InheritanceNode n : holder.getOwnInheritanceNodes(this.queryOptions)) {
             Group g = this.plugin.getGroupManager().getIfLoaded(n.getGroupName());
-            if (g != null) {
-                successors.add(g);
+            if (g != null && successors.add(g) && successorVersions != null) {
+                successorVersions.put(g, g.getInheritanceVersion());
             }
         }
 
@@ -70,6 +134,13 @@ public class InheritanceGraph implements Graph<PermissionHolder> {
         return successorsSorted;
     }
 
+    /**
+     * Clears the cached successors held by this graph.
+     */
+    void invalidate() {
+        this.groupSuccessors.clear();
+    }
+
     /**
      * Returns an iterable which will traverse this inheritance graph using the specified
      * algorithm starting at the given permission holder start node.
@@ -111,4 +182,35 @@ public class InheritanceGraph implements Graph<PermissionHolder> {
         );
     }
 
+    private static final class CachedSuccessors {
+        private final List<Group> successors;
+        private final int[] successorVersions;
+        private final int holderVersion;
+        private final int managerVersion;
+        private final int factoryGeneration;
+
+        CachedSuccessors(List<Group> successors, Map<Group, Integer> successorVersions, int holderVersion, int managerVersion, int factoryGeneration) {
+            this.successors = ImmutableList.copyOf(successors);
+            this.successorVersions = new int[successors.size()];
+            for (int i = 0; i < this.successorVersions.length; i++) {
+                this.successorVersions[i] = successorVersions.get(successors.get(i));
+            }
+            this.holderVersion = holderVersion;
+            this.managerVersion = managerVersion;
+            this.factoryGeneration = factoryGeneration;
+        }
+
+        boolean isValid(Group holder, int managerVersion, int factoryGeneration) {
+            if (this.holderVersion != holder.getInheritanceVersion() || this.managerVersion != managerVersion || this.factoryGeneration != factoryGeneration) {
+                return false;
+            }
+            for (int i = 0; i < this.successorVersions.length; i++) {
+                if (this.successorVersions[i] != this.successors.get(i).getInheritanceVersion()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
 }
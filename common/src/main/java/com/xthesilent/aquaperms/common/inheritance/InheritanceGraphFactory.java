@@ -25,12 +25,22 @@
 
 package com.xthesilent.aquaperms.common.inheritance;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.xthesilent.aquaperms.common.query.QueryOptionsImpl;
+import com.xthesilent.aquaperms.common.util.CaffeineFactory;
 import com.aquasplashmc.api.query.QueryOptions;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Provides {@link InheritanceGraph}s.
+ *
+ * <p>Graphs are cached per {@link QueryOptions}, so that the successors they have
+ * resolved can be reused by later lookups in the same contexts. Graphs for
+ * {@link QueryOptionsImpl#intern(QueryOptions) interned} options are attached to the
+ * options instance itself, and live for as long as it does.</p>
  */
 public class InheritanceGraphFactory {
     private final AquaPermsPlugin plugin;
@@ -38,10 +48,23 @@ public class InheritanceGraphFactory {
     private final InheritanceGraph nonContextualGraph;
     private final InheritanceGraph defaultContextualGraph;
 
+    /**
+     * Graphs for all other query options
+     */
+    private final Cache<QueryOptions, InheritanceGraph> graphs = CaffeineFactory.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * Incremented to invalidate the successors cached by all graphs
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+
     public InheritanceGraphFactory(AquaPermsPlugin plugin) {
         this.plugin = plugin;
-        this.nonContextualGraph = new InheritanceGraph(plugin, QueryOptionsImpl.DEFAULT_NON_CONTEXTUAL);
-        this.defaultContextualGraph = new InheritanceGraph(plugin, QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        this.nonContextualGraph = new InheritanceGraph(plugin, QueryOptionsImpl.DEFAULT_NON_CONTEXTUAL, this);
+        this.defaultContextualGraph = new InheritanceGraph(plugin, QueryOptionsImpl.DEFAULT_CONTEXTUAL, this);
     }
 
     public InheritanceGraph getGraph(QueryOptions queryOptions) {
@@ -49,9 +72,41 @@ public class InheritanceGraphFactory {
             return this.nonContextualGraph;
         } else if (queryOptions == QueryOptionsImpl.DEFAULT_CONTEXTUAL) {
             return this.defaultContextualGraph;
+        } else if (queryOptions instanceof QueryOptionsImpl && ((QueryOptionsImpl) queryOptions).isInterned()) {
+            return getAttachedGraph((QueryOptionsImpl) queryOptions);
         } else {
-            return new InheritanceGraph(this.plugin, queryOptions);
+            return this.graphs.get(queryOptions, q -> new InheritanceGraph(this.plugin, q, this));
+        }
+    }
+
+    private InheritanceGraph getAttachedGraph(QueryOptionsImpl queryOptions) {
+        InheritanceGraph graph = queryOptions.getInheritanceGraph();
+        if (graph != null && graph.getFactory() == this) {
+            return graph;
         }
+
+        // a lost race just means one of the graphs is discarded
+        graph = new InheritanceGraph(this.plugin, queryOptions, this);
+        queryOptions.setInheritanceGraph(graph);
+        return graph;
+    }
+
+    /**
+     * Invalidates the successors cached by all graphs.
+     *
+     * <p>Changes to holders and to the set of loaded groups are detected automatically,
+     * this only needs to be called when something else affecting inheritance order
+     * (e.g. the configuration) changes.</p>
+     */
+    public void invalidate() {
+        this.generation.incrementAndGet();
+        this.nonContextualGraph.invalidate();
+        this.defaultContextualGraph.invalidate();
+        this.graphs.invalidateAll();
+    }
+
+    int getGeneration() {
+        return this.generation.get();
     }
 
 }
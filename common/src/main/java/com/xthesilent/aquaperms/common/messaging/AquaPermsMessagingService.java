@@ -25,6 +25,7 @@
 
 package com.xthesilent.aquaperms.common.messaging;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.xthesilent.aquaperms.common.actionlog.LoggedAction;
@@ -32,10 +33,14 @@ import com.xthesilent.aquaperms.common.cache.BufferedRequest;
 import com.xthesilent.aquaperms.common.config.ConfigKeys;
 import com.xthesilent.aquaperms.common.messaging.message.ActionLogMessageImpl;
 import com.xthesilent.aquaperms.common.messaging.message.CustomMessageImpl;
+import com.xthesilent.aquaperms.common.messaging.message.GroupDeltaMessageImpl;
 import com.xthesilent.aquaperms.common.messaging.message.UpdateMessageImpl;
 import com.xthesilent.aquaperms.common.messaging.message.UserUpdateMessageImpl;
+import com.xthesilent.aquaperms.common.model.Group;
 import com.xthesilent.aquaperms.common.model.User;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
+import com.xthesilent.aquaperms.common.util.CaffeineFactory;
+import com.xthesilent.aquaperms.common.util.Difference;
 import com.xthesilent.aquaperms.common.util.ExpiringSet;
 import com.xthesilent.aquaperms.common.util.gson.GsonProvider;
 import com.xthesilent.aquaperms.common.util.gson.JObject;
@@ -49,17 +54,32 @@ import com.aquasplashmc.api.messenger.message.type.ActionLogMessage;
 import com.aquasplashmc.api.messenger.message.type.CustomMessage;
 import com.aquasplashmc.api.messenger.message.type.UpdateMessage;
 import com.aquasplashmc.api.messenger.message.type.UserUpdateMessage;
+import com.aquasplashmc.api.node.Node;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class AquaPermsMessagingService implements InternalMessagingService, IncomingMessageConsumer {
     private final AquaPermsPlugin plugin;
     private final ExpiringSet<UUID> receivedMessages;
     private final PushUpdateBuffer updateBuffer;
+    private final boolean binaryFormat;
+
+    /** The id of this instance, used to identify the source of group deltas */
+    private final UUID instanceId = UUID.randomUUID();
+    /** The sequence number of the last group delta sent by this instance */
+    private final AtomicLong deltaSequence = new AtomicLong();
+    /**
+     * The sequence number of the last group delta received from each instance.
+     * Not expired by time - a long idle period says nothing about whether deltas were missed.
+     */
+    private final Cache<UUID, AtomicLong> receivedDeltaSequences = CaffeineFactory.newBuilder()
+            .maximumSize(1000)
+            .build();
 
     private final MessengerProvider messengerProvider;
     private final Messenger messenger;
@@ -73,6 +93,7 @@ public class AquaPermsMessagingService implements InternalMessagingService, Inco
 
         this.receivedMessages = new ExpiringSet<>(5, TimeUnit.MINUTES);
         this.updateBuffer = new PushUpdateBuffer(plugin);
+        this.binaryFormat = plugin.getConfiguration().get(ConfigKeys.BINARY_MESSAGE_FORMAT);
     }
 
     @Override
@@ -100,6 +121,16 @@ public class AquaPermsMessagingService implements InternalMessagingService, Inco
         return this.updateBuffer;
     }
 
+    /**
+     * Gets if messengers which are able to transmit raw bytes should send messages
+     * in the {@link BinaryMessageCodec binary format}.
+     *
+     * @return true if the binary format should be used
+     */
+    public boolean isBinaryFormatEnabled() {
+        return this.binaryFormat;
+    }
+
     private UUID generatePingId() {
         UUID uuid = UUID.randomUUID();
         this.receivedMessages.add(uuid);
@@ -124,6 +155,23 @@ public class AquaPermsMessagingService implements InternalMessagingService, Inco
         });
     }
 
+    @Override
+    public void pushGroupDelta(Group group, Difference<Node> changes) {
+        int hashAfter = GroupDeltaMessageImpl.hashNodes(group.normalData());
+        int hashBefore = GroupDeltaMessageImpl.hashBefore(hashAfter, changes);
+
+        this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
+            UUID requestId = generatePingId();
+            this.plugin.getLogger().info("[Messaging] Sending group delta for '" + group.getName() + "' with id: " + requestId);
+
+            // sequence numbers must be sent in order, so receivers can detect gaps
+            synchronized (this.deltaSequence) {
+                long sequence = this.deltaSequence.incrementAndGet();
+                this.messenger.sendOutgoingMessage(new GroupDeltaMessageImpl(requestId, this.instanceId, sequence, group.getName(), changes, hashBefore, hashAfter));
+            }
+        });
+    }
+
     @Override
     public void pushLog(Action logEntry) {
         this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
@@ -158,7 +206,8 @@ public class AquaPermsMessagingService implements InternalMessagingService, Inco
         boolean valid = message instanceof UpdateMessage ||
                 message instanceof UserUpdateMessage ||
                 message instanceof ActionLogMessage ||
-                message instanceof CustomMessage;
+                message instanceof CustomMessage ||
+                message instanceof GroupDeltaMessageImpl;
 
         // instead of throwing an exception here, just return false
         // it means an instance of LP can gracefully handle messages it doesn't
@@ -223,6 +272,64 @@ public class AquaPermsMessagingService implements InternalMessagingService, Inco
             case CustomMessageImpl.TYPE:
                 decoded = CustomMessageImpl.decode(content, id);
                 break;
+            case GroupDeltaMessageImpl.TYPE:
+                decoded = GroupDeltaMessageImpl.decode(content, id);
+                break;
+            default:
+                // gracefully return if we just don't recognise the type
+                return false;
+        }
+
+        // consume the message
+        processIncomingMessage(decoded);
+        return true;
+    }
+
+    /**
+     * Consumes a message encoded in the {@link BinaryMessageCodec binary format}.
+     *
+     * @param buf the encoded message
+     * @return true if the message was accepted
+     */
+    public boolean consumeIncomingMessageAsBytes(byte[] buf) {
+        try {
+            return consumeIncomingMessageAsBytes0(buf);
+        } catch (Exception e) {
+            this.plugin.getLogger().warn("Unable to decode incoming binary messaging service message", e);
+            return false;
+        }
+    }
+
+    private boolean consumeIncomingMessageAsBytes0(byte[] buf) {
+        BinaryMessageCodec.Reader reader = BinaryMessageCodec.readFrame(buf);
+        if (reader == null) {
+            // sent using a newer version of the format
+            return false;
+        }
+
+        // ensure the message hasn't been received already, before decoding the body
+        if (!this.receivedMessages.add(reader.getId())) {
+            return false;
+        }
+
+        // decode message
+        Message decoded;
+        switch (reader.getType()) {
+            case UpdateMessageImpl.BINARY_TYPE:
+                decoded = UpdateMessageImpl.decode(reader);
+                break;
+            case UserUpdateMessageImpl.BINARY_TYPE:
+                decoded = UserUpdateMessageImpl.decode(reader);
+                break;
+            case ActionLogMessageImpl.BINARY_TYPE:
+                decoded = ActionLogMessageImpl.decode(reader);
+                break;
+            case CustomMessageImpl.BINARY_TYPE:
+                decoded = CustomMessageImpl.decode(reader);
+                break;
+            case GroupDeltaMessageImpl.BINARY_TYPE:
+                decoded = GroupDeltaMessageImpl.decode(reader);
+                break;
             default:
                 // gracefully return if we just don't recognise the type
                 return false;
@@ -252,13 +359,8 @@ public class AquaPermsMessagingService implements InternalMessagingService, Inco
             UpdateMessage msg = (UpdateMessage) message;
             UUID msgId = msg.getId();
 
-            if (this.plugin.getEventDispatcher().dispatchNetworkPreSync(false, msgId, SyncType.FULL, null)) {
-                return;
-            }
-
             this.plugin.getLogger().info("[Messaging] Received update ping with id: " + msgId);
-            this.plugin.getSyncTaskBuffer().request()
-                    .thenRunAsync(() -> this.plugin.getEventDispatcher().dispatchNetworkPostSync(msgId, SyncType.FULL, true, null));
+            requestFullSync(msgId);
 
         } else if (message instanceof UserUpdateMessage) {
             UserUpdateMessage msg = (UserUpdateMessage) message;
@@ -290,11 +392,74 @@ public class AquaPermsMessagingService implements InternalMessagingService, Inco
 
             this.plugin.getEventDispatcher().dispatchCustomMessageReceive(msg.getChannelId(), msg.getPayload());
 
+        } else if (message instanceof GroupDeltaMessageImpl) {
+            processGroupDelta((GroupDeltaMessageImpl) message);
+
         } else {
             throw new IllegalArgumentException("Unknown message type: " + message.getClass().getName());
         }
     }
 
+    private void requestFullSync(UUID msgId) {
+        if (this.plugin.getEventDispatcher().dispatchNetworkPreSync(false, msgId, SyncType.FULL, null)) {
+            return;
+        }
+
+        this.plugin.getSyncTaskBuffer().request()
+                .thenRunAsync(() -> this.plugin.getEventDispatcher().dispatchNetworkPostSync(msgId, SyncType.FULL, true, null));
+    }
+
+    private void processGroupDelta(GroupDeltaMessageImpl msg) {
+        UUID msgId = msg.getId();
+
+        // if we've missed a delta from the sender, or can't read this one, the only
+        // way to get back in step is a full sync
+        boolean inSequence = checkDeltaSequence(msg.getSource(), msg.getSequence());
+        if (!inSequence || !msg.isReadable()) {
+            this.plugin.getLogger().info("[Messaging] Received group delta with id: " + msgId + " which can't be applied (" + (inSequence ? "unknown format" : "missed sequence") + "), performing full sync");
+            requestFullSync(msgId);
+            return;
+        }
+
+        String groupName = msg.getGroupName();
+        if (this.plugin.getEventDispatcher().dispatchNetworkPreSync(false, msgId, SyncType.SPECIFIC_GROUP, null)) {
+            return;
+        }
+
+        // if our copy of the group doesn't match the senders copy before the change, reload it instead
+        Group group = this.plugin.getGroupManager().getIfLoaded(groupName);
+        if (group == null || GroupDeltaMessageImpl.hashNodes(group.normalData()) != msg.getHashBefore()) {
+            this.plugin.getLogger().info("[Messaging] Received group delta for '" + groupName + "' with id: " + msgId + ", reloading group");
+            reloadGroup(msgId, groupName);
+            return;
+        }
+
+        this.plugin.getLogger().info("[Messaging] Received group delta for '" + groupName + "' with id: " + msgId);
+        group.applyStoredChanges(msg.getChanges());
+
+        if (GroupDeltaMessageImpl.hashNodes(group.normalData()) != msg.getHashAfter()) {
+            reloadGroup(msgId, groupName);
+            return;
+        }
+
+        this.plugin.getInheritanceDependencyIndex().invalidateDependentCaches(group);
+        this.plugin.getEventDispatcher().dispatchNetworkPostSync(msgId, SyncType.SPECIFIC_GROUP, true, null);
+    }
+
+    private void reloadGroup(UUID msgId, String groupName) {
+        this.plugin.getStorage().loadGroup(groupName).thenAcceptAsync(group -> {
+            group.ifPresent(g -> this.plugin.getInheritanceDependencyIndex().invalidateDependentCaches(g));
+            this.plugin.getEventDispatcher().dispatchNetworkPostSync(msgId, SyncType.SPECIFIC_GROUP, true, null);
+        });
+    }
+
+    private boolean checkDeltaSequence(UUID source, long sequence) {
+        // if we have no record of the sender, only its very first delta can be known to be
+        // in sequence - anything else (e.g. the sender was evicted from the cache) is a gap
+        AtomicLong last = this.receivedDeltaSequences.get(source, s -> new AtomicLong(sequence == 1 ? 0 : -1));
+        return last.getAndAccumulate(sequence, Math::max) == sequence - 1;
+    }
+
     private final class PushUpdateBuffer extends BufferedRequest<Void> {
         PushUpdateBuffer(AquaPermsPlugin plugin) {
             super(2, TimeUnit.SECONDS, plugin.getBootstrap().getScheduler());
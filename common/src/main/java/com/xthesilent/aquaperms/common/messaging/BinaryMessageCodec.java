@@ -0,0 +1,392 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.messaging;
+
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import com.xthesilent.aquaperms.common.actionlog.LoggedAction;
+import com.xthesilent.aquaperms.common.context.ImmutableContextSetImpl;
+import com.xthesilent.aquaperms.common.messaging.message.AbstractMessage;
+import com.xthesilent.aquaperms.common.node.factory.NodeBuilders;
+import com.aquasplashmc.api.actionlog.Action;
+import com.aquasplashmc.api.context.Context;
+import com.aquasplashmc.api.context.ImmutableContextSet;
+import com.aquasplashmc.api.messenger.IncomingMessageConsumer;
+import com.aquasplashmc.api.messenger.message.OutgoingMessage;
+import com.aquasplashmc.api.node.Node;
+import com.aquasplashmc.api.node.NodeBuilder;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Encodes and decodes messages in a compact binary format, as an alternative
+ * to the JSON {@link com.aquasplashmc.api.messenger.message.OutgoingMessage#asEncodedString() encoded string}
+ * format for messengers which are able to transmit raw bytes.
+ *
+ * <p>A frame consists of:</p>
+ * <ul>
+ *     <li>two zero bytes, to distinguish the frame from the legacy formats - a string written
+ *     using {@link java.io.DataOutput#writeUTF(String)} is never empty, and a JSON string
+ *     never starts with a null character</li>
+ *     <li>the format version, as a single byte</li>
+ *     <li>the message type, as a single byte</li>
+ *     <li>the message id, as two longs</li>
+ *     <li>the body of the message, encoded by the message type</li>
+ * </ul>
+ *
+ * <p>Variable length integers are used for lengths and timestamps, and strings are
+ * written as a length prefixed sequence of UTF-8 bytes.</p>
+ */
+public final class BinaryMessageCodec {
+    private BinaryMessageCodec() {}
+
+    /** The version of the binary format, incremented when it changes incompatibly */
+    public static final int FORMAT_VERSION = 1;
+
+    /**
+     * Gets if the given buffer contains a binary frame.
+     *
+     * @param buf the buffer
+     * @return true if the buffer is a binary frame
+     */
+    public static boolean isBinaryFrame(byte[] buf) {
+        return buf.length >= 2 && buf[0] == 0 && buf[1] == 0;
+    }
+
+    /**
+     * Creates a writer for a new frame, with the header already written.
+     *
+     * @param type the message type
+     * @param id the message id
+     * @return the writer
+     */
+    public static Writer newFrame(int type, UUID id) {
+        Writer writer = new Writer();
+        writer.out.writeShort(0);
+        writer.out.writeByte(FORMAT_VERSION);
+        writer.out.writeByte(type);
+        writer.writeUuid(id);
+        return writer;
+    }
+
+    /**
+     * Reads the header of a frame, leaving the reader positioned at the start of the body.
+     *
+     * @param buf the buffer
+     * @return the reader, or null if the frame is from an unknown version of the format
+     */
+    public static @Nullable Reader readFrame(byte[] buf) {
+        if (!isBinaryFrame(buf)) {
+            throw new IllegalArgumentException("Not a binary frame");
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(buf, 2, buf.length - 2);
+        int version = in.get() & 0xFF;
+        if (version != FORMAT_VERSION) {
+            return null;
+        }
+
+        int type = in.get() & 0xFF;
+        UUID id = new UUID(in.getLong(), in.getLong());
+        return new Reader(in, type, id);
+    }
+
+    private static byte[] tryEncodeBinary(IncomingMessageConsumer consumer, OutgoingMessage message) {
+        if (message instanceof AbstractMessage && consumer instanceof AquaPermsMessagingService && ((AquaPermsMessagingService) consumer).isBinaryFormatEnabled()) {
+            return ((AbstractMessage) message).asEncodedBytes();
+        }
+        return null;
+    }
+
+    /**
+     * Encodes a message to be sent as raw bytes.
+     *
+     * <p>The binary format is used if it is enabled by the consumer, otherwise the
+     * {@link OutgoingMessage#asEncodedString() encoded string} is written using
+     * {@link java.io.DataOutput#writeUTF(String)}.</p>
+     *
+     * @param consumer the consumer of incoming messages for the messenger
+     * @param message the message
+     * @return the encoded message
+     */
+    public static byte[] encodeUtfOrBinary(IncomingMessageConsumer consumer, OutgoingMessage message) {
+        byte[] buf = tryEncodeBinary(consumer, message);
+        if (buf != null) {
+            return buf;
+        }
+
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeUTF(message.asEncodedString());
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes a message to be sent as raw bytes.
+     *
+     * <p>The binary format is used if it is enabled by the consumer, otherwise the
+     * {@link OutgoingMessage#asEncodedString() encoded string} is encoded as plain UTF-8.</p>
+     *
+     * @param consumer the consumer of incoming messages for the messenger
+     * @param message the message
+     * @return the encoded message
+     */
+    public static byte[] encodePlainOrBinary(IncomingMessageConsumer consumer, OutgoingMessage message) {
+        byte[] buf = tryEncodeBinary(consumer, message);
+        if (buf != null) {
+            return buf;
+        }
+        return message.asEncodedString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Passes a message received as raw bytes to a consumer.
+     *
+     * <p>Binary frames are consumed directly if possible, otherwise the buffer is
+     * decoded as a {@link java.io.DataOutput#writeUTF(String) UTF} string.</p>
+     *
+     * @param consumer the consumer
+     * @param buf the buffer
+     * @return true if the message was accepted
+     */
+    public static boolean consumeUtfOrBinary(IncomingMessageConsumer consumer, byte[] buf) {
+        if (isBinaryFrame(buf) && consumer instanceof AquaPermsMessagingService) {
+            return ((AquaPermsMessagingService) consumer).consumeIncomingMessageAsBytes(buf);
+        }
+        return consumer.consumeIncomingMessageAsString(ByteStreams.newDataInput(buf).readUTF());
+    }
+
+    /**
+     * Passes a message received as raw bytes to a consumer.
+     *
+     * <p>Binary frames are consumed directly if possible, otherwise the buffer is
+     * decoded as a plain UTF-8 string.</p>
+     *
+     * @param consumer the consumer
+     * @param buf the buffer
+     * @return true if the message was accepted
+     */
+    public static boolean consumePlainOrBinary(IncomingMessageConsumer consumer, byte[] buf) {
+        if (isBinaryFrame(buf) && consumer instanceof AquaPermsMessagingService) {
+            return ((AquaPermsMessagingService) consumer).consumeIncomingMessageAsBytes(buf);
+        }
+        return consumer.consumeIncomingMessageAsString(new String(buf, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the body of a binary frame.
+     */
+    public static final class Writer {
+        private final ByteArrayDataOutput out = ByteStreams.newDataOutput(64);
+
+        private Writer() {
+
+        }
+
+        public Writer writeBoolean(boolean value) {
+            this.out.writeBoolean(value);
+            return this;
+        }
+
+        public Writer writeInt(int value) {
+            this.out.writeInt(value);
+            return this;
+        }
+
+        public Writer writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                this.out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.out.writeByte(value);
+            return this;
+        }
+
+        public Writer writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                this.out.writeByte(((int) value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.out.writeByte((int) value);
+            return this;
+        }
+
+        public Writer writeUuid(UUID value) {
+            this.out.writeLong(value.getMostSignificantBits());
+            this.out.writeLong(value.getLeastSignificantBits());
+            return this;
+        }
+
+        public Writer writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            this.out.write(bytes);
+            return this;
+        }
+
+        public Writer writeNode(Node node) {
+            writeString(node.getKey());
+            writeBoolean(node.getValue());
+
+            Instant expiry = node.getExpiry();
+            writeVarLong(expiry == null ? 0 : expiry.getEpochSecond());
+
+            ImmutableContextSet contexts = node.getContexts();
+            writeVarInt(contexts.size());
+            for (Context context : contexts) {
+                writeString(context.getKey());
+                writeString(context.getValue());
+            }
+            return this;
+        }
+
+        public Writer writeAction(Action action) {
+            writeVarLong(action.getTimestamp().getEpochSecond());
+            writeUuid(action.getSource().getUniqueId());
+            writeString(action.getSource().getName());
+
+            Action.Target target = action.getTarget();
+            this.out.writeByte(LoggedAction.getTypeCharacter(target.getType()));
+            writeBoolean(target.getUniqueId().isPresent());
+            target.getUniqueId().ifPresent(this::writeUuid);
+            writeString(target.getName());
+
+            writeString(action.getDescription());
+            return this;
+        }
+
+        public byte[] toByteArray() {
+            return this.out.toByteArray();
+        }
+    }
+
+    /**
+     * Reads the body of a binary frame.
+     */
+    public static final class Reader {
+        private final ByteBuffer in;
+        private final int type;
+        private final UUID id;
+
+        private Reader(ByteBuffer in, int type, UUID id) {
+            this.in = in;
+            this.type = type;
+            this.id = id;
+        }
+
+        public int getType() {
+            return this.type;
+        }
+
+        public UUID getId() {
+            return this.id;
+        }
+
+        public boolean readBoolean() {
+            return this.in.get() != 0;
+        }
+
+        public int readInt() {
+            return this.in.getInt();
+        }
+
+        public int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = this.in.get();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("VarInt too long");
+        }
+
+        public long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                byte b = this.in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("VarLong too long");
+        }
+
+        public UUID readUuid() {
+            return new UUID(this.in.getLong(), this.in.getLong());
+        }
+
+        public String readString() {
+            int length = readVarInt();
+            // check the length against what's left before allocating, so a corrupt frame can't claim a huge string
+            if (length < 0 || length > this.in.remaining()) {
+                throw new IllegalStateException("Invalid string length " + length + ", " + this.in.remaining() + " bytes remaining");
+            }
+            byte[] bytes = new byte[length];
+            this.in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public Node readNode() {
+            String key = readString();
+            boolean value = readBoolean();
+            long expiry = readVarLong();
+
+            int contextCount = readVarInt();
+            ImmutableContextSet.Builder contexts = new ImmutableContextSetImpl.BuilderImpl();
+            for (int i = 0; i < contextCount; i++) {
+                contexts.add(readString(), readString());
+            }
+
+            NodeBuilder<?, ?> builder = NodeBuilders.determineMostApplicable(key).value(value).context(contexts.build());
+            if (expiry != 0) {
+                builder.expiry(expiry);
+            }
+            return builder.build();
+        }
+
+        public LoggedAction readAction() {
+            LoggedAction.Builder builder = LoggedAction.build()
+                    .timestamp(Instant.ofEpochSecond(readVarLong()))
+                    .source(readUuid())
+                    .sourceName(readString())
+                    .targetType(LoggedAction.parseTypeCharacter((char) (this.in.get() & 0xFF)));
+
+            if (readBoolean()) {
+                builder.target(readUuid());
+            }
+
+            return builder.targetName(readString())
+                    .description(readString())
+                    .build();
+        }
+    }
+}
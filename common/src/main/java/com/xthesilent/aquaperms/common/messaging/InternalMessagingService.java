@@ -26,10 +26,13 @@
 package com.xthesilent.aquaperms.common.messaging;
 
 import com.xthesilent.aquaperms.common.cache.BufferedRequest;
+import com.xthesilent.aquaperms.common.model.Group;
 import com.xthesilent.aquaperms.common.model.User;
+import com.xthesilent.aquaperms.common.util.Difference;
 import com.aquasplashmc.api.actionlog.Action;
 import com.aquasplashmc.api.messenger.Messenger;
 import com.aquasplashmc.api.messenger.MessengerProvider;
+import com.aquasplashmc.api.node.Node;
 
 public interface InternalMessagingService {
 
@@ -69,6 +72,15 @@ public interface InternalMessagingService {
      */
     void pushUserUpdate(User user);
 
+    /**
+     * Pushes the node changes which have just been saved for a group, so that
+     * connected servers can apply them without performing a full sync.
+     *
+     * @param group the group
+     * @param changes the changes
+     */
+    void pushGroupDelta(Group group, Difference<Node> changes);
+
     /**
      * Pushes a log entry to connected servers.
      *
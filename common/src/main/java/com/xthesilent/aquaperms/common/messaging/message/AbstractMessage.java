@@ -43,4 +43,11 @@ public abstract class AbstractMessage implements Message, OutgoingMessage {
         return this.id;
     }
 
+    /**
+     * Encodes the message in the {@link com.xthesilent.aquaperms.common.messaging.BinaryMessageCodec binary format}.
+     *
+     * @return the encoded message
+     */
+    public abstract byte[] asEncodedBytes();
+
 }
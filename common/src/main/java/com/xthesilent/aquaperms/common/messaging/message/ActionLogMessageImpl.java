@@ -28,6 +28,7 @@ package com.xthesilent.aquaperms.common.messaging.message;
 import com.google.gson.JsonElement;
 import com.xthesilent.aquaperms.common.actionlog.ActionJsonSerializer;
 import com.xthesilent.aquaperms.common.messaging.AquaPermsMessagingService;
+import com.xthesilent.aquaperms.common.messaging.BinaryMessageCodec;
 import com.aquasplashmc.api.actionlog.Action;
 import com.aquasplashmc.api.messenger.message.type.ActionLogMessage;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -37,6 +38,7 @@ import java.util.UUID;
 
 public class ActionLogMessageImpl extends AbstractMessage implements ActionLogMessage {
     public static final String TYPE = "log";
+    public static final int BINARY_TYPE = 2;
 
     public static ActionLogMessageImpl decode(@Nullable JsonElement content, UUID id) {
         if (content == null) {
@@ -46,6 +48,10 @@ public class ActionLogMessageImpl extends AbstractMessage implements ActionLogMe
         return new ActionLogMessageImpl(id, ActionJsonSerializer.deserialize(content));
     }
 
+    public static ActionLogMessageImpl decode(BinaryMessageCodec.Reader reader) {
+        return new ActionLogMessageImpl(reader.getId(), reader.readAction());
+    }
+
     private final Action logEntry;
 
     public ActionLogMessageImpl(UUID id, Action logEntry) {
@@ -65,4 +71,11 @@ public class ActionLogMessageImpl extends AbstractMessage implements ActionLogMe
         );
     }
 
+    @Override
+    public byte[] asEncodedBytes() {
+        return BinaryMessageCodec.newFrame(BINARY_TYPE, getId())
+                .writeAction(this.logEntry)
+                .toByteArray();
+    }
+
 }
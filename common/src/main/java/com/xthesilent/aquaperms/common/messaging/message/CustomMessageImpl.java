@@ -28,6 +28,7 @@ package com.xthesilent.aquaperms.common.messaging.message;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.xthesilent.aquaperms.common.messaging.AquaPermsMessagingService;
+import com.xthesilent.aquaperms.common.messaging.BinaryMessageCodec;
 import com.xthesilent.aquaperms.common.util.gson.JObject;
 import com.aquasplashmc.api.messenger.message.type.CustomMessage;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -37,6 +38,7 @@ import java.util.UUID;
 
 public class CustomMessageImpl extends AbstractMessage implements CustomMessage {
     public static final String TYPE = "custom";
+    public static final int BINARY_TYPE = 3;
 
     public static CustomMessageImpl decode(@Nullable JsonElement content, UUID id) {
         if (content == null) {
@@ -57,6 +59,10 @@ public class CustomMessageImpl extends AbstractMessage implements CustomMessage
         return new CustomMessageImpl(id, channelId, payload);
     }
 
+    public static CustomMessageImpl decode(BinaryMessageCodec.Reader reader) {
+        return new CustomMessageImpl(reader.getId(), reader.readString(), reader.readString());
+    }
+
     private final String channelId;
     private final String payload;
 
@@ -82,4 +88,12 @@ public class CustomMessageImpl extends AbstractMessage implements CustomMessage
                 TYPE, getId(), new JObject().add("channelId", this.channelId).add("payload", this.payload).toJson()
         );
     }
+
+    @Override
+    public byte[] asEncodedBytes() {
+        return BinaryMessageCodec.newFrame(BINARY_TYPE, getId())
+                .writeString(this.channelId)
+                .writeString(this.payload)
+                .toByteArray();
+    }
 }
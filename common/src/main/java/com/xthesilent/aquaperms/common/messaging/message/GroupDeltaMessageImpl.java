@@ -0,0 +1,232 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.messaging.message;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.xthesilent.aquaperms.common.messaging.AquaPermsMessagingService;
+import com.xthesilent.aquaperms.common.messaging.BinaryMessageCodec;
+import com.xthesilent.aquaperms.common.model.nodemap.NodeMap;
+import com.xthesilent.aquaperms.common.node.utils.NodeJsonSerializer;
+import com.xthesilent.aquaperms.common.util.Difference;
+import com.xthesilent.aquaperms.common.util.gson.JObject;
+import com.aquasplashmc.api.node.Node;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A message carrying the node changes that were just saved for a group, so that
+ * receiving servers can apply them in memory instead of running a full sync.
+ *
+ * <p>Each message is stamped with the id of the sending instance and a sequence number,
+ * allowing receivers to detect missed messages. It also contains a hash of the groups
+ * nodes before and after the change, allowing receivers to detect that their copy of
+ * the group has drifted from the senders.</p>
+ */
+public class GroupDeltaMessageImpl extends AbstractMessage {
+    public static final String TYPE = "groupdelta";
+    public static final int BINARY_TYPE = 4;
+
+    /** The version of the content format, incremented when it changes incompatibly */
+    public static final int FORMAT_VERSION = 1;
+
+    public static GroupDeltaMessageImpl decode(@Nullable JsonElement content, UUID id) {
+        if (content == null) {
+            throw new IllegalStateException("Missing content");
+        }
+        JsonObject obj = content.getAsJsonObject();
+
+        int version = obj.get("version").getAsInt();
+        UUID source = UUID.fromString(obj.get("source").getAsString());
+        long sequence = obj.get("sequence").getAsLong();
+
+        // content from a newer format can't be read, only its header
+        if (version != FORMAT_VERSION) {
+            return new GroupDeltaMessageImpl(id, version, source, sequence, null, null, 0, 0);
+        }
+
+        String groupName = obj.get("group").getAsString();
+        int hashBefore = obj.get("hashBefore").getAsInt();
+        int hashAfter = obj.get("hashAfter").getAsInt();
+
+        Difference<Node> changes = new Difference<>();
+        changes.recordChanges(Difference.ChangeType.REMOVE, NodeJsonSerializer.deserializeNodes(obj.getAsJsonArray("removed")));
+        changes.recordChanges(Difference.ChangeType.ADD, NodeJsonSerializer.deserializeNodes(obj.getAsJsonArray("added")));
+
+        return new GroupDeltaMessageImpl(id, version, source, sequence, groupName, changes, hashBefore, hashAfter);
+    }
+
+    public static GroupDeltaMessageImpl decode(BinaryMessageCodec.Reader reader) {
+        int version = reader.readVarInt();
+        UUID source = reader.readUuid();
+        long sequence = reader.readVarLong();
+
+        if (version != FORMAT_VERSION) {
+            return new GroupDeltaMessageImpl(reader.getId(), version, source, sequence, null, null, 0, 0);
+        }
+
+        String groupName = reader.readString();
+        int hashBefore = reader.readInt();
+        int hashAfter = reader.readInt();
+
+        Difference<Node> changes = new Difference<>();
+        for (int i = reader.readVarInt(); i > 0; i--) {
+            changes.recordChange(Difference.ChangeType.REMOVE, reader.readNode());
+        }
+        for (int i = reader.readVarInt(); i > 0; i--) {
+            changes.recordChange(Difference.ChangeType.ADD, reader.readNode());
+        }
+
+        return new GroupDeltaMessageImpl(reader.getId(), version, source, sequence, groupName, changes, hashBefore, hashAfter);
+    }
+
+    /**
+     * Calculates an order independent hash of the nodes in the given map.
+     *
+     * @param nodes the nodes
+     * @return the hash
+     */
+    public static int hashNodes(NodeMap nodes) {
+        int[] hash = new int[1];
+        nodes.forEach(node -> hash[0] += node.hashCode());
+        return hash[0];
+    }
+
+    /**
+     * Calculates the hash of a node map before the given changes were applied to it,
+     * given its hash afterwards.
+     *
+     * @param hashAfter the hash after the changes were applied
+     * @param changes the changes
+     * @return the hash before the changes were applied
+     */
+    public static int hashBefore(int hashAfter, Difference<Node> changes) {
+        int hash = hashAfter;
+        for (Difference.Change<Node> change : changes.getChanges()) {
+            if (change.type() == Difference.ChangeType.ADD) {
+                hash -= change.value().hashCode();
+            } else {
+                hash += change.value().hashCode();
+            }
+        }
+        return hash;
+    }
+
+    private final int version;
+    private final UUID source;
+    private final long sequence;
+    private final String groupName;
+    private final Difference<Node> changes;
+    private final int hashBefore;
+    private final int hashAfter;
+
+    public GroupDeltaMessageImpl(UUID id, UUID source, long sequence, String groupName, Difference<Node> changes, int hashBefore, int hashAfter) {
+        this(id, FORMAT_VERSION, source, sequence, groupName, changes, hashBefore, hashAfter);
+    }
+
+    private GroupDeltaMessageImpl(UUID id, int version, UUID source, long sequence, String groupName, Difference<Node> changes, int hashBefore, int hashAfter) {
+        super(id);
+        this.version = version;
+        this.source = source;
+        this.sequence = sequence;
+        this.groupName = groupName;
+        this.changes = changes;
+        this.hashBefore = hashBefore;
+        this.hashAfter = hashAfter;
+    }
+
+    /**
+     * Gets if the content of this message was in a format understood by this instance.
+     *
+     * @return true if the group, changes and hashes are available
+     */
+    public boolean isReadable() {
+        return this.version == FORMAT_VERSION;
+    }
+
+    public UUID getSource() {
+        return this.source;
+    }
+
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    public String getGroupName() {
+        return this.groupName;
+    }
+
+    public Difference<Node> getChanges() {
+        return this.changes;
+    }
+
+    public int getHashBefore() {
+        return this.hashBefore;
+    }
+
+    public int getHashAfter() {
+        return this.hashAfter;
+    }
+
+    @Override
+    public @NonNull String asEncodedString() {
+        return AquaPermsMessagingService.encodeMessageAsString(TYPE, getId(), new JObject()
+                .add("version", this.version)
+                .add("source", this.source.toString())
+                .add("sequence", this.sequence)
+                .add("group", this.groupName)
+                .add("hashBefore", this.hashBefore)
+                .add("hashAfter", this.hashAfter)
+                .add("removed", NodeJsonSerializer.serializeNodes(this.changes.getRemoved()))
+                .add("added", NodeJsonSerializer.serializeNodes(this.changes.getAdded()))
+                .toJson()
+        );
+    }
+
+    @Override
+    public byte[] asEncodedBytes() {
+        BinaryMessageCodec.Writer writer = BinaryMessageCodec.newFrame(BINARY_TYPE, getId())
+                .writeVarInt(this.version)
+                .writeUuid(this.source)
+                .writeVarLong(this.sequence)
+                .writeString(this.groupName)
+                .writeInt(this.hashBefore)
+                .writeInt(this.hashAfter);
+
+        Set<Node> removed = this.changes.getRemoved();
+        writer.writeVarInt(removed.size());
+        removed.forEach(writer::writeNode);
+
+        Set<Node> added = this.changes.getAdded();
+        writer.writeVarInt(added.size());
+        added.forEach(writer::writeNode);
+
+        return writer.toByteArray();
+    }
+}
@@ -27,6 +27,7 @@ package com.xthesilent.aquaperms.common.messaging.message;
 
 import com.google.gson.JsonElement;
 import com.xthesilent.aquaperms.common.messaging.AquaPermsMessagingService;
+import com.xthesilent.aquaperms.common.messaging.BinaryMessageCodec;
 import com.aquasplashmc.api.messenger.message.type.UpdateMessage;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -35,11 +36,16 @@ import java.util.UUID;
 
 public class UpdateMessageImpl extends AbstractMessage implements UpdateMessage {
     public static final String TYPE = "update";
+    public static final int BINARY_TYPE = 0;
 
     public static UpdateMessageImpl decode(@Nullable JsonElement content, UUID id) {
         return new UpdateMessageImpl(id);
     }
 
+    public static UpdateMessageImpl decode(BinaryMessageCodec.Reader reader) {
+        return new UpdateMessageImpl(reader.getId());
+    }
+
     public UpdateMessageImpl(UUID id) {
         super(id);
     }
@@ -48,4 +54,9 @@ public class UpdateMessageImpl extends AbstractMessage implements UpdateMessage
     public @NonNull String asEncodedString() {
         return AquaPermsMessagingService.encodeMessageAsString(TYPE, getId(), null);
     }
+
+    @Override
+    public byte[] asEncodedBytes() {
+        return BinaryMessageCodec.newFrame(BINARY_TYPE, getId()).toByteArray();
+    }
 }
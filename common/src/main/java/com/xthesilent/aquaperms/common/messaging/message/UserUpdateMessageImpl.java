@@ -27,6 +27,7 @@ package com.xthesilent.aquaperms.common.messaging.message;
 
 import com.google.gson.JsonElement;
 import com.xthesilent.aquaperms.common.messaging.AquaPermsMessagingService;
+import com.xthesilent.aquaperms.common.messaging.BinaryMessageCodec;
 import com.xthesilent.aquaperms.common.util.gson.JObject;
 import com.aquasplashmc.api.messenger.message.type.UserUpdateMessage;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -36,6 +37,7 @@ import java.util.UUID;
 
 public class UserUpdateMessageImpl extends AbstractMessage implements UserUpdateMessage {
     public static final String TYPE = "userupdate";
+    public static final int BINARY_TYPE = 1;
 
     public static UserUpdateMessageImpl decode(@Nullable JsonElement content, UUID id) {
         if (content == null) {
@@ -52,6 +54,10 @@ public class UserUpdateMessageImpl extends AbstractMessage implements UserUpdate
         return new UserUpdateMessageImpl(id, userUuid);
     }
 
+    public static UserUpdateMessageImpl decode(BinaryMessageCodec.Reader reader) {
+        return new UserUpdateMessageImpl(reader.getId(), reader.readUuid());
+    }
+
     private final UUID userUuid;
 
     public UserUpdateMessageImpl(UUID id, UUID userUuid) {
@@ -70,4 +76,11 @@ public class UserUpdateMessageImpl extends AbstractMessage implements UserUpdate
                 TYPE, getId(), new JObject().add("userUuid", this.userUuid.toString()).toJson()
         );
     }
+
+    @Override
+    public byte[] asEncodedBytes() {
+        return BinaryMessageCodec.newFrame(BINARY_TYPE, getId())
+                .writeUuid(this.userUuid)
+                .toByteArray();
+    }
 }
@@ -25,9 +25,6 @@
 
 package com.xthesilent.aquaperms.common.messaging.nats;
 
-import com.google.common.io.ByteArrayDataInput;
-import com.google.common.io.ByteArrayDataOutput;
-import com.google.common.io.ByteStreams;
 import io.nats.client.Connection;
 import io.nats.client.Dispatcher;
 import io.nats.client.Message;
@@ -35,6 +32,7 @@ import io.nats.client.MessageHandler;
 import io.nats.client.Nats;
 import io.nats.client.Options;
 import io.nats.client.Options.Builder;
+import com.xthesilent.aquaperms.common.messaging.BinaryMessageCodec;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.xthesilent.aquaperms.common.util.Throwing;
 import com.aquasplashmc.api.messenger.IncomingMessageConsumer;
@@ -63,9 +61,7 @@ public class NatsMessenger implements Messenger {
 
     @Override
     public void sendOutgoingMessage(@NonNull OutgoingMessage outgoingMessage) {
-        ByteArrayDataOutput output = ByteStreams.newDataOutput();
-        output.writeUTF(outgoingMessage.asEncodedString());
-        this.connection.publish(CHANNEL, output.toByteArray());
+        this.connection.publish(CHANNEL, BinaryMessageCodec.encodeUtfOrBinary(this.consumer, outgoingMessage));
     }
 
     public void init(String address, String username, String password, boolean ssl) {
@@ -114,11 +110,7 @@ public class NatsMessenger implements Messenger {
 
         @Override
         public void onMessage(Message message) {
-            byte[] data = message.getData();
-            ByteArrayDataInput input = ByteStreams.newDataInput(data);
-            String messageAsString = input.readUTF();
-
-            NatsMessenger.this.consumer.consumeIncomingMessageAsString(messageAsString);
+            BinaryMessageCodec.consumeUtfOrBinary(NatsMessenger.this.consumer, message.getData());
         }
     }
 }
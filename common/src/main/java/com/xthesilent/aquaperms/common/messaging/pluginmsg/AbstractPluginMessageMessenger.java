@@ -25,9 +25,7 @@
 
 package com.xthesilent.aquaperms.common.messaging.pluginmsg;
 
-import com.google.common.io.ByteArrayDataInput;
-import com.google.common.io.ByteArrayDataOutput;
-import com.google.common.io.ByteStreams;
+import com.xthesilent.aquaperms.common.messaging.BinaryMessageCodec;
 import com.aquasplashmc.api.messenger.IncomingMessageConsumer;
 import com.aquasplashmc.api.messenger.Messenger;
 import com.aquasplashmc.api.messenger.message.OutgoingMessage;
@@ -37,9 +35,10 @@ import org.checkerframework.checker.nullness.qual.NonNull;
  * Abstract implementation of {@link Messenger} using Minecraft's
  * 'plugin messaging channels' packet.
  *
- * <p>The {@link OutgoingMessage#asEncodedString() encoded string} format
- * is used to transmit messages. {@link java.io.DataOutput#writeUTF(String)} is
- * used to encode the string into raw bytes.</p>
+ * <p>Messages are transmitted in the {@link BinaryMessageCodec binary format} if it
+ * is enabled, otherwise the {@link OutgoingMessage#asEncodedString() encoded string}
+ * format is used, and {@link java.io.DataOutput#writeUTF(String)} is used to encode
+ * the string into raw bytes.</p>
  */
 public abstract class AbstractPluginMessageMessenger implements Messenger {
 
@@ -59,20 +58,14 @@ public abstract class AbstractPluginMessageMessenger implements Messenger {
 
     @Override
     public final void sendOutgoingMessage(@NonNull OutgoingMessage outgoingMessage) {
-        ByteArrayDataOutput dataOutput = ByteStreams.newDataOutput();
-        dataOutput.writeUTF(outgoingMessage.asEncodedString());
-
-        byte[] buf = dataOutput.toByteArray();
-
+        byte[] buf = BinaryMessageCodec.encodeUtfOrBinary(this.consumer, outgoingMessage);
         sendOutgoingMessage(buf);
     }
 
     protected abstract void sendOutgoingMessage(byte[] buf);
 
     protected boolean handleIncomingMessage(byte[] buf) {
-        ByteArrayDataInput dataInput = ByteStreams.newDataInput(buf);
-        String decodedString = dataInput.readUTF();
-        return this.consumer.consumeIncomingMessageAsString(decodedString);
+        return BinaryMessageCodec.consumeUtfOrBinary(this.consumer, buf);
     }
 
 }
@@ -25,9 +25,6 @@
 
 package com.xthesilent.aquaperms.common.messaging.rabbitmq;
 
-import com.google.common.io.ByteArrayDataInput;
-import com.google.common.io.ByteArrayDataOutput;
-import com.google.common.io.ByteStreams;
 import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.BuiltinExchangeType;
 import com.rabbitmq.client.Channel;
@@ -35,6 +32,7 @@ import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
 import com.rabbitmq.client.DeliverCallback;
 import com.rabbitmq.client.Delivery;
+import com.xthesilent.aquaperms.common.messaging.BinaryMessageCodec;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.xthesilent.aquaperms.common.plugin.scheduler.SchedulerTask;
 import com.aquasplashmc.api.messenger.IncomingMessageConsumer;
@@ -89,9 +87,8 @@ public class RabbitMQMessenger implements Messenger {
     @Override
     public void sendOutgoingMessage(@NonNull OutgoingMessage outgoingMessage) {
         try {
-            ByteArrayDataOutput output = ByteStreams.newDataOutput();
-            output.writeUTF(outgoingMessage.asEncodedString());
-            this.channel.basicPublish(EXCHANGE, ROUTING_KEY, new AMQP.BasicProperties.Builder().build(), output.toByteArray());
+            byte[] buf = BinaryMessageCodec.encodeUtfOrBinary(this.consumer, outgoingMessage);
+            this.channel.basicPublish(EXCHANGE, ROUTING_KEY, new AMQP.BasicProperties.Builder().build(), buf);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -176,10 +173,7 @@ public class RabbitMQMessenger implements Messenger {
         @Override
         public void handle(String consumerTag, Delivery message) {
             try {
-                byte[] data = message.getBody();
-                ByteArrayDataInput input = ByteStreams.newDataInput(data);
-                String msg = input.readUTF();
-                RabbitMQMessenger.this.consumer.consumeIncomingMessageAsString(msg);
+                BinaryMessageCodec.consumeUtfOrBinary(RabbitMQMessenger.this.consumer, message.getBody());
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -25,20 +25,23 @@
 
 package com.xthesilent.aquaperms.common.messaging.redis;
 
+import com.xthesilent.aquaperms.common.messaging.BinaryMessageCodec;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.aquasplashmc.api.messenger.IncomingMessageConsumer;
 import com.aquasplashmc.api.messenger.Messenger;
 import com.aquasplashmc.api.messenger.message.OutgoingMessage;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import redis.clients.jedis.BinaryJedisPubSub;
 import redis.clients.jedis.DefaultJedisClientConfig;
 import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.JedisClientConfig;
 import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisPooled;
-import redis.clients.jedis.JedisPubSub;
 import redis.clients.jedis.Protocol;
 import redis.clients.jedis.UnifiedJedis;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -47,7 +50,7 @@ import java.util.stream.Collectors;
  * An implementation of {@link Messenger} using Redis.
  */
 public class RedisMessenger implements Messenger {
-    private static final String CHANNEL = "aquaperms:update";
+    private static final byte[] CHANNEL = "aquaperms:update".getBytes(StandardCharsets.UTF_8);
 
     private final AquaPermsPlugin plugin;
     private final IncomingMessageConsumer consumer;
@@ -94,7 +97,7 @@ public class RedisMessenger implements Messenger {
 
     @Override
     public void sendOutgoingMessage(@NonNull OutgoingMessage outgoingMessage) {
-        this.jedis.publish(CHANNEL, outgoingMessage.asEncodedString());
+        this.jedis.publish(CHANNEL, BinaryMessageCodec.encodePlainOrBinary(this.consumer, outgoingMessage));
     }
 
     @Override
@@ -104,7 +107,7 @@ public class RedisMessenger implements Messenger {
         this.jedis.close();
     }
 
-    private static class Subscription extends JedisPubSub implements Runnable {
+    private static class Subscription extends BinaryJedisPubSub implements Runnable {
         private final RedisMessenger messenger;
 
         private Subscription(RedisMessenger messenger) {
@@ -146,11 +149,11 @@ public class RedisMessenger implements Messenger {
         }
 
         @Override
-        public void onMessage(String channel, String msg) {
-            if (!channel.equals(CHANNEL)) {
+        public void onMessage(byte[] channel, byte[] msg) {
+            if (!Arrays.equals(channel, CHANNEL)) {
                 return;
             }
-            this.messenger.consumer.consumeIncomingMessageAsString(msg);
+            BinaryMessageCodec.consumePlainOrBinary(this.messenger.consumer, msg);
         }
 
         private boolean isRedisAlive() {
@@ -35,22 +35,61 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * An implementation of {@link Messenger} using SQL.
+ *
+ * <p>The messages table is polled adaptively: right after a message is sent or
+ * received, polls are frequent; while the channel is idle, the interval backs off
+ * towards the maximum poll interval. The maximum is also the worst-case delay before
+ * a message sent to an idle channel is received, so it defaults to a few seconds
+ * ({@link #DEFAULT_MAX_POLL_INTERVAL_MILLIS}) - a third of the queries made by the
+ * fixed one second interval used before polling was adaptive.</p>
  */
 public abstract class AbstractSqlMessenger implements Messenger {
 
+    /** The interval between polls right after a message has been sent or received */
+    protected static final long MIN_POLL_INTERVAL_MILLIS = 250;
+
+    /** The default interval between polls once the channel has been idle for a while */
+    protected static final long DEFAULT_MAX_POLL_INTERVAL_MILLIS = 3000;
+
+    /** The maximum number of messages inserted by a single statement */
+    private static final int MAX_INSERT_BATCH_SIZE = 100;
+
+    /** The number of stale rows deleted by each housekeeping statement */
+    private static final int HOUSEKEEPING_BATCH_SIZE = 500;
+
+    /** The maximum number of housekeeping statements executed per run */
+    private static final int HOUSEKEEPING_MAX_BATCHES = 20;
+
     private final IncomingMessageConsumer consumer;
+    private final long maxPollInterval;
     private long lastId = -1;
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
     private boolean closed = false;
 
+    private final Queue<String> outgoingQueue = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock sendLock = new ReentrantLock();
+
+    private volatile long pollInterval = MIN_POLL_INTERVAL_MILLIS;
+    private volatile long nextPollTime = 0;
+
     protected AbstractSqlMessenger(IncomingMessageConsumer consumer) {
+        this(consumer, DEFAULT_MAX_POLL_INTERVAL_MILLIS);
+    }
+
+    protected AbstractSqlMessenger(IncomingMessageConsumer consumer, long maxPollInterval) {
         this.consumer = consumer;
+        this.maxPollInterval = Math.max(MIN_POLL_INTERVAL_MILLIS, maxPollInterval);
     }
 
     protected abstract Connection getConnection() throws SQLException;
@@ -86,15 +125,58 @@ public abstract class AbstractSqlMessenger implements Messenger {
 
     @Override
     public void sendOutgoingMessage(@NonNull OutgoingMessage outgoingMessage) {
+        this.outgoingQueue.add(outgoingMessage.asEncodedString());
+        flushOutgoingMessages();
+
+        // other servers are likely to respond, so start polling frequently again
+        resetPollInterval();
+    }
+
+    /**
+     * Inserts all queued outgoing messages.
+     *
+     * <p>If another thread is already inserting, messages queued in the meantime are
+     * left for it to insert as part of its next batch.</p>
+     */
+    private void flushOutgoingMessages() {
+        // re-check the queue after releasing the lock, in case a message was queued
+        // just as the previous holder was finishing up
+        while (!this.outgoingQueue.isEmpty() && this.sendLock.tryLock()) {
+            try {
+                List<String> batch = new ArrayList<>();
+                for (String msg; (msg = this.outgoingQueue.poll()) != null; ) {
+                    batch.add(msg);
+                    if (batch.size() == MAX_INSERT_BATCH_SIZE) {
+                        insertMessages(batch);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    insertMessages(batch);
+                }
+            } finally {
+                this.sendLock.unlock();
+            }
+        }
+    }
+
+    private void insertMessages(List<String> messages) {
         this.lock.readLock().lock();
         if (this.closed) {
             this.lock.readLock().unlock();
             return;
         }
 
+        StringBuilder sql = new StringBuilder("INSERT INTO `").append(getTableName()).append("` (`time`, `msg`) VALUES ");
+        for (int i = 0; i < messages.size(); i++) {
+            sql.append(i == 0 ? "(NOW(), ?)" : ", (NOW(), ?)");
+        }
+
         try (Connection c = getConnection()) {
-            try (PreparedStatement ps = c.prepareStatement("INSERT INTO `" + getTableName() + "` (`time`, `msg`) VALUES(NOW(), ?)")) {
-                ps.setString(1, outgoingMessage.asEncodedString());
+            try (PreparedStatement ps = c.prepareStatement(sql.toString())) {
+                for (int i = 0; i < messages.size(); i++) {
+                    ps.setString(i + 1, messages.get(i));
+                }
                 ps.execute();
             }
         } catch (SQLException e) {
@@ -104,6 +186,17 @@ public abstract class AbstractSqlMessenger implements Messenger {
         }
     }
 
+    /**
+     * Polls for new messages, if the current poll interval has elapsed since the last poll.
+     *
+     * <p>Intended to be called every {@link #MIN_POLL_INTERVAL_MILLIS}.</p>
+     */
+    public void pollMessagesIfDue() {
+        if (System.currentTimeMillis() >= this.nextPollTime) {
+            pollMessages();
+        }
+    }
+
     public void pollMessages() {
         this.lock.readLock().lock();
         if (this.closed) {
@@ -111,6 +204,7 @@ public abstract class AbstractSqlMessenger implements Messenger {
             return;
         }
 
+        boolean received = false;
         try (Connection c = getConnection()) {
             try (PreparedStatement ps = c.prepareStatement("SELECT `id`, `msg` FROM `" + getTableName() + "` WHERE `id` > ? AND (NOW() - `time` < 30)")) {
                 ps.setLong(1, this.lastId);
@@ -121,6 +215,7 @@ public abstract class AbstractSqlMessenger implements Messenger {
 
                         String message = rs.getString("msg");
                         this.consumer.consumeIncomingMessageAsString(message);
+                        received = true;
                     }
                 }
             }
@@ -129,6 +224,20 @@ public abstract class AbstractSqlMessenger implements Messenger {
         } finally {
             this.lock.readLock().unlock();
         }
+
+        if (received) {
+            resetPollInterval();
+        } else {
+            // back off while idle
+            long interval = Math.min(this.maxPollInterval, this.pollInterval * 2);
+            this.pollInterval = interval;
+            this.nextPollTime = System.currentTimeMillis() + interval;
+        }
+    }
+
+    private void resetPollInterval() {
+        this.pollInterval = MIN_POLL_INTERVAL_MILLIS;
+        this.nextPollTime = System.currentTimeMillis() + MIN_POLL_INTERVAL_MILLIS;
     }
 
     public void runHousekeeping() {
@@ -138,9 +247,15 @@ public abstract class AbstractSqlMessenger implements Messenger {
             return;
         }
 
+        // delete stale rows in small batches, so each statement only holds its locks briefly.
+        // anything left over is picked up by the next run
         try (Connection c = getConnection()) {
-            try (PreparedStatement ps = c.prepareStatement("DELETE FROM `" + getTableName() + "` WHERE (NOW() - `time` > 60)")) {
-                ps.execute();
+            try (PreparedStatement ps = c.prepareStatement("DELETE FROM `" + getTableName() + "` WHERE (NOW() - `time` > 60) ORDER BY `id` LIMIT " + HOUSEKEEPING_BATCH_SIZE)) {
+                for (int i = 0; i < HOUSEKEEPING_MAX_BATCHES; i++) {
+                    if (ps.executeUpdate() < HOUSEKEEPING_BATCH_SIZE) {
+                        break;
+                    }
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -25,6 +25,7 @@
 
 package com.xthesilent.aquaperms.common.messaging.sql;
 
+import com.xthesilent.aquaperms.common.config.ConfigKeys;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.xthesilent.aquaperms.common.plugin.scheduler.SchedulerAdapter;
 import com.xthesilent.aquaperms.common.plugin.scheduler.SchedulerTask;
@@ -43,7 +44,7 @@ public class SqlMessenger extends AbstractSqlMessenger {
     private SchedulerTask housekeepingTask;
 
     public SqlMessenger(AquaPermsPlugin plugin, SqlStorage sqlStorage, IncomingMessageConsumer consumer) {
-        super(consumer);
+        super(consumer, plugin.getConfiguration().get(ConfigKeys.SQL_MESSENGER_MAX_POLL_INTERVAL));
         this.plugin = plugin;
         this.sqlStorage = sqlStorage;
     }
@@ -58,7 +59,7 @@ public class SqlMessenger extends AbstractSqlMessenger {
 
         // schedule poll tasks
         SchedulerAdapter scheduler = this.plugin.getBootstrap().getScheduler();
-        this.pollTask = scheduler.asyncRepeating(this::pollMessages, 1, TimeUnit.SECONDS);
+        this.pollTask = scheduler.asyncRepeating(this::pollMessagesIfDue, MIN_POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
         this.housekeepingTask = scheduler.asyncRepeating(this::runHousekeeping, 30, TimeUnit.SECONDS);
     }
 
@@ -81,6 +81,10 @@ public class Group extends PermissionHolder {
         // invalidate our caches
         this.weightCache.invalidate();
         this.displayNameCache.invalidate();
+
+        // the weight may have changed, so make sure any successor lists sorted
+        // using the old cached value are recalculated
+        incrementInheritanceVersion();
     }
 
     // name getters
@@ -28,8 +28,11 @@ package com.xthesilent.aquaperms.common.model;
 import com.google.common.collect.Iterables;
 import com.xthesilent.aquaperms.common.cacheddata.HolderCachedDataManager;
 import com.xthesilent.aquaperms.common.cacheddata.result.IntegerResult;
+import com.xthesilent.aquaperms.common.cacheddata.type.LayeredPermissionMap;
 import com.xthesilent.aquaperms.common.cacheddata.type.MetaAccumulator;
+import com.xthesilent.aquaperms.common.cacheddata.type.PermissionLayer;
 import com.xthesilent.aquaperms.common.inheritance.InheritanceComparator;
+import com.xthesilent.aquaperms.common.inheritance.InheritanceDependencyIndex;
 import com.xthesilent.aquaperms.common.inheritance.InheritanceGraph;
 import com.xthesilent.aquaperms.common.model.nodemap.NodeMap;
 import com.xthesilent.aquaperms.common.model.nodemap.NodeMapMutable;
@@ -48,6 +51,8 @@ import com.aquasplashmc.api.node.Node;
 import com.aquasplashmc.api.node.NodeEqualityPredicate;
 import com.aquasplashmc.api.node.NodeType;
 import com.aquasplashmc.api.node.types.InheritanceNode;
+import com.aquasplashmc.api.node.types.PermissionNode;
+import com.aquasplashmc.api.node.types.RegexPermissionNode;
 import com.aquasplashmc.api.node.types.WeightNode;
 import com.aquasplashmc.api.query.Flag;
 import com.aquasplashmc.api.query.QueryOptions;
@@ -59,13 +64,18 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.OptionalInt;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntFunction;
 import java.util.function.Predicate;
 
@@ -128,6 +138,13 @@ public abstract class PermissionHolder {
      */
     private final Comparator<? super PermissionHolder> inheritanceComparator;
 
+    /**
+     * Incremented whenever the holders inheritance or weight nodes change
+     *
+     * @see #getInheritanceVersion()
+     */
+    private final AtomicInteger inheritanceVersion = new AtomicInteger();
+
     /**
      * Creates a new instance
      *
@@ -174,6 +191,31 @@ public abstract class PermissionHolder {
         return this.identifier;
     }
 
+    /**
+     * Gets a counter which changes whenever the holders inheritance or weight
+     * nodes are modified.
+     *
+     * <p>Used by {@link InheritanceGraph} to determine whether cached successors
+     * are still valid.</p>
+     *
+     * @return the current inheritance version
+     */
+    public int getInheritanceVersion() {
+        return this.inheritanceVersion.get();
+    }
+
+    /**
+     * Marks that the holders inheritance or weight nodes have been modified.
+     */
+    public void incrementInheritanceVersion() {
+        this.inheritanceVersion.incrementAndGet();
+
+        InheritanceDependencyIndex index = this.plugin == null ? null : this.plugin.getInheritanceDependencyIndex();
+        if (index != null) {
+            index.markChanged(this);
+        }
+    }
+
     /**
      * Gets the formatted display name of this permission holder
      * (for use in commands, etc)
@@ -215,11 +257,59 @@ public abstract class PermissionHolder {
         getPlugin().getEventDispatcher().dispatchDataRecalculate(this);
     }
 
+    /**
+     * Invalidates the holders caches following the given changes to its nodes.
+     *
+     * <p>If only permission nodes have changed, the holders existing permission caches
+     * are updated in place instead of being recalculated.</p>
+     *
+     * @param changes the changes
+     */
+    protected void invalidateCache(Difference<Node> changes) {
+        Set<String> changedPermissions = new HashSet<>();
+        for (Difference.Change<Node> change : changes.getChanges()) {
+            Node node = change.value();
+            if (!(node instanceof PermissionNode) && !(node instanceof RegexPermissionNode)) {
+                invalidateCache();
+                return;
+            }
+
+            changedPermissions.add(node.getKey().toLowerCase(Locale.ROOT));
+            for (String shorthand : node.resolveShorthand()) {
+                changedPermissions.add(shorthand.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        if (changedPermissions.isEmpty()) {
+            return;
+        }
+
+        getCachedData().applyPermissionChanges(changedPermissions);
+        getPlugin().getEventDispatcher().dispatchDataRecalculate(this);
+    }
+
+    /**
+     * Gets if nodes loaded from storage should be held in compact form, until they are
+     * next modified or used to calculate cached data.
+     *
+     * @return true to hold loaded nodes in compact form
+     */
+    protected boolean shouldCompactLoadedNodes() {
+        return false;
+    }
+
     public void loadNodesFromStorage(Iterable<? extends Node> set) {
         // TODO: should we attempt to "replay" existing changes on top of the new data?
         normalData().discardChanges();
-        normalData().bypass().setContent(set);
-        invalidateCache();
+        NodeMap data = normalData().bypass();
+        Difference<Node> changes = data instanceof NodeMapMutable && shouldCompactLoadedNodes()
+                ? ((NodeMapMutable) data).setContentCompact(set)
+                : data.setContent(set);
+
+        // avoid recalculating cached data if nothing has actually changed
+        if (!changes.isEmpty()) {
+            invalidateCache();
+        }
     }
 
     public Difference<Node> setNodes(DataType type, Iterable<? extends Node> set, boolean callEvent) {
@@ -240,6 +330,21 @@ public abstract class PermissionHolder {
         return res;
     }
 
+    /**
+     * Applies changes to the holders normal data which have already been saved to
+     * storage elsewhere (e.g. by another server), without recording them to be saved again.
+     *
+     * @param changes the changes
+     * @return the changes that were actually made
+     */
+    public Difference<Node> applyStoredChanges(Difference<Node> changes) {
+        Difference<Node> res = normalData().bypass().applyChanges(changes);
+        if (!res.isEmpty()) {
+            invalidateCache(res);
+        }
+        return res;
+    }
+
     public void mergeNodes(DataType type, Iterable<? extends Node> set) {
         getData(type).addAll(set);
         invalidateCache();
@@ -359,6 +464,58 @@ public abstract class PermissionHolder {
         return map;
     }
 
+    /**
+     * Exports the holders permissions for use as the source map of a permission cache.
+     *
+     * <p>The result has the same contents as
+     * {@link #exportPermissions(IntFunction, QueryOptions, boolean, boolean)} (with lowercase
+     * conversion). If the rest of the holders inheritance tree is exactly the tree of its first
+     * parent group, the {@link PermissionLayer} of that group is shared, and only the holders
+     * own permissions are copied.</p>
+     *
+     * @param queryOptions the query options
+     * @param resolveShorthand if shorthand should be resolved
+     * @return the permissions
+     */
+    public Map<String, Node> exportSourcePermissions(QueryOptions queryOptions, boolean resolveShorthand) {
+        if (queryOptions.flag(Flag.RESOLVE_INHERITANCE)) {
+            InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions);
+            List<PermissionHolder> tree = new ArrayList<>();
+            Iterables.addAll(tree, graph.traverse(this));
+
+            if (tree.size() > 1 && tree.get(0) == this && tree.get(1) instanceof Group) {
+                Group parent = (Group) tree.get(1);
+                PermissionLayer layer = parent.getCachedData().getPermissionLayer(queryOptions, resolveShorthand);
+                if (layer.isTree(tree.subList(1, tree.size()))) {
+                    return new LayeredPermissionMap(layer, getOwnNodes(queryOptions));
+                }
+            }
+        }
+
+        return exportPermissions(ConcurrentHashMap::new, queryOptions, true, resolveShorthand);
+    }
+
+    /**
+     * Resolves the {@link PermissionLayer} for the holders full inheritance tree.
+     *
+     * @param queryOptions the query options
+     * @param resolveShorthand if shorthand should be resolved
+     * @return the layer
+     */
+    public PermissionLayer resolvePermissionLayer(QueryOptions queryOptions, boolean resolveShorthand) {
+        InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions);
+
+        List<PermissionHolder> tree = new ArrayList<>();
+        List<Node> nodes = new ArrayList<>();
+        for (PermissionHolder holder : graph.traverse(this)) {
+            tree.add(holder);
+            for (DataType dataType : holder.queryOrder(queryOptions)) {
+                holder.getData(dataType).copyTo(nodes, queryOptions);
+            }
+        }
+        return PermissionLayer.resolve(tree, nodes, resolveShorthand);
+    }
+
     private static void processExportedPermissions(Map<String, Node> accumulator, List<Node> entries, boolean convertToLowercase, boolean resolveShorthand) {
         for (Node node : entries) {
             if (convertToLowercase) {
@@ -382,6 +539,50 @@ public abstract class PermissionHolder {
         }
     }
 
+    /**
+     * Resolves the node which would be held for the given permission in the map returned by
+     * {@link #exportPermissions(IntFunction, QueryOptions, boolean, boolean)} (with lowercase
+     * conversion), without exporting all of the holders permissions.
+     *
+     * @param permission the permission, in lowercase
+     * @param queryOptions the query options
+     * @param resolveShorthand if shorthand should be resolved
+     * @return the node, or null if the permission would not be present
+     */
+    public @Nullable Node resolveExportedPermission(String permission, QueryOptions queryOptions, boolean resolveShorthand) {
+        Iterable<PermissionHolder> holders = queryOptions.flag(Flag.RESOLVE_INHERITANCE)
+                ? this.plugin.getInheritanceGraphFactory().getGraph(queryOptions).traverse(this)
+                : Collections.singleton(this);
+
+        // the first node with a matching key wins, otherwise the first with matching shorthand
+        Node[] match = new Node[2];
+        for (PermissionHolder holder : holders) {
+            for (DataType dataType : holder.queryOrder(queryOptions)) {
+                holder.getData(dataType).forEach(queryOptions, node -> {
+                    if (match[0] == null && matchesLowercase(node.getKey(), permission)) {
+                        match[0] = node;
+                    }
+                    if (resolveShorthand && match[1] == null) {
+                        for (String shorthand : node.resolveShorthand()) {
+                            if (matchesLowercase(shorthand, permission)) {
+                                match[1] = node;
+                                break;
+                            }
+                        }
+                    }
+                });
+                if (match[0] != null) {
+                    return match[0];
+                }
+            }
+        }
+        return match[1];
+    }
+
+    private static boolean matchesLowercase(String key, String lowercase) {
+        return key.equalsIgnoreCase(lowercase) && key.toLowerCase(Locale.ROOT).equals(lowercase);
+    }
+
     public MetaAccumulator accumulateMeta(QueryOptions queryOptions) {
         return accumulateMeta(MetaAccumulator.makeFromConfig(this.plugin), queryOptions);
     }
@@ -428,9 +629,9 @@ public abstract class PermissionHolder {
     }
 
     private boolean auditTemporaryNodes(DataType dataType) {
-        Difference<Node> result = getData(dataType).removeIf(Node::hasExpired);
+        Difference<Node> result = getData(dataType).removeExpired();
         if (!result.isEmpty()) {
-            invalidateCache();
+            invalidateCache(result);
         }
         this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, result);
         return !result.isEmpty();
@@ -463,7 +664,7 @@ public abstract class PermissionHolder {
         }
 
         Difference<Node> changes = getData(dataType).add(node);
-        invalidateCache();
+        invalidateCache(changes);
         if (callEvent) {
             this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
         }
@@ -500,7 +701,7 @@ public abstract class PermissionHolder {
                 if (newNode != null) {
                     // Remove the old Node & add the new one.
                     Difference<Node> changes = data.removeThenAdd(otherMatch, newNode);
-                    invalidateCache();
+                    invalidateCache(changes);
                     this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
                     return new MergedNodeResult(DataMutateResult.SUCCESS, newNode);
@@ -518,7 +719,7 @@ public abstract class PermissionHolder {
         }
 
         Difference<Node> changes = getData(dataType).remove(node);
-        invalidateCache();
+        invalidateCache(changes);
         this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
         return DataMutateResult.SUCCESS;
@@ -540,7 +741,7 @@ public abstract class PermissionHolder {
 
                     // Remove the old Node & add the new one.
                     Difference<Node> changes = data.removeThenAdd(otherMatch, newNode);
-                    invalidateCache();
+                    invalidateCache(changes);
                     this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
                     return new MergedNodeResult(DataMutateResult.SUCCESS, newNode);
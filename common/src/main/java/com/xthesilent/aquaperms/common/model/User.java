@@ -95,6 +95,18 @@ public class User extends PermissionHolder {
         return getPlugin().getContextManager().getStaticQueryOptions();
     }
 
+    @Override
+    protected boolean shouldCompactLoadedNodes() {
+        if (!getPlugin().getConfiguration().get(ConfigKeys.COMPACT_OFFLINE_USER_NODES)) {
+            return false;
+        }
+
+        // users who are online (or are in the process of logging in) are about to have
+        // their cached data calculated, which would just inflate the nodes again
+        return !getPlugin().getBootstrap().isPlayerOnline(this.uniqueId) &&
+                !getPlugin().getUserManager().getHouseKeeper().isRecentlyUsed(this.uniqueId);
+    }
+
     public ApiUser getApiProxy() {
         return this.apiProxy;
     }
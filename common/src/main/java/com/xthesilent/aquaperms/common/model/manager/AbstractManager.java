@@ -30,6 +30,7 @@ import com.xthesilent.aquaperms.common.cache.LoadingMap;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * An abstract manager class
@@ -40,7 +41,13 @@ import java.util.Map;
  */
 public abstract class AbstractManager<I, C, T extends C> implements Manager<I, C, T> {
 
-    private final LoadingMap<I, T> objects = LoadingMap.of(this);
+    private final LoadingMap<I, T> objects = LoadingMap.of(this::create);
+    private final AtomicInteger version = new AtomicInteger();
+
+    private T create(I id) {
+        this.version.incrementAndGet();
+        return apply(id);
+    }
 
     @Override
     public Map<I, T> getAll() {
@@ -49,7 +56,13 @@ public abstract class AbstractManager<I, C, T extends C> implements Manager<I, C
 
     @Override
     public T getOrMake(I id) {
-        return this.objects.get(sanitizeIdentifier(id));
+        int version = this.version.get();
+        T object = this.objects.get(sanitizeIdentifier(id));
+        if (this.version.get() != version) {
+            // bump again now the new object is visible in the map
+            this.version.incrementAndGet();
+        }
+        return object;
     }
 
     @Override
@@ -65,7 +78,11 @@ public abstract class AbstractManager<I, C, T extends C> implements Manager<I, C
     @Override
     public void unload(I id) {
         if (id != null) {
-            this.objects.remove(sanitizeIdentifier(id));
+            T object = this.objects.remove(sanitizeIdentifier(id));
+            if (object != null) {
+                this.version.incrementAndGet();
+                onUnload(object);
+            }
         }
     }
 
@@ -76,8 +93,22 @@ public abstract class AbstractManager<I, C, T extends C> implements Manager<I, C
                 .forEach(this::unload);
     }
 
+    @Override
+    public int getVersion() {
+        return this.version.get();
+    }
+
     protected I sanitizeIdentifier(I i) {
         return i;
     }
 
+    /**
+     * Called after an object has been unloaded from this manager.
+     *
+     * @param object the object
+     */
+    protected void onUnload(T object) {
+
+    }
+
 }
@@ -86,4 +86,12 @@ public interface Manager<I, C, T extends C> extends Function<I, T> {
      */
     void retainAll(Collection<I> ids);
 
+    /**
+     * Gets a counter which changes whenever an object is loaded into,
+     * or unloaded from this manager.
+     *
+     * @return the current version
+     */
+    int getVersion();
+
 }
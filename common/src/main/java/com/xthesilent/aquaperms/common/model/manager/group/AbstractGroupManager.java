@@ -25,6 +25,7 @@
 
 package com.xthesilent.aquaperms.common.model.manager.group;
 
+import com.xthesilent.aquaperms.common.inheritance.InheritanceDependencyIndex;
 import com.xthesilent.aquaperms.common.model.Group;
 import com.xthesilent.aquaperms.common.model.manager.AbstractManager;
 
@@ -65,6 +66,14 @@ public abstract class AbstractGroupManager<T extends Group> extends AbstractMana
         return s.toLowerCase(Locale.ROOT);
     }
 
+    @Override
+    protected void onUnload(T group) {
+        InheritanceDependencyIndex index = group.getPlugin().getInheritanceDependencyIndex();
+        if (index != null) {
+            index.remove(group);
+        }
+    }
+
     @Override
     public void invalidateAllGroupCaches() {
         getAll().values().forEach(g -> g.getCachedData().invalidate());
@@ -25,8 +25,10 @@
 
 package com.xthesilent.aquaperms.common.model.manager.user;
 
+import com.google.common.collect.Iterables;
 import com.xthesilent.aquaperms.common.config.ConfigKeys;
 import com.xthesilent.aquaperms.common.context.ImmutableContextSetImpl;
+import com.xthesilent.aquaperms.common.inheritance.InheritanceDependencyIndex;
 import com.xthesilent.aquaperms.common.model.User;
 import com.xthesilent.aquaperms.common.model.manager.AbstractManager;
 import com.xthesilent.aquaperms.common.model.manager.group.GroupManager;
@@ -46,6 +48,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
 
 public abstract class AbstractUserManager<T extends User> extends AbstractManager<UUID, User, T> implements UserManager<T> {
 
@@ -67,6 +70,14 @@ public abstract class AbstractUserManager<T extends User> extends AbstractManage
         return user;
     }
 
+    @Override
+    protected void onUnload(T user) {
+        InheritanceDependencyIndex index = this.plugin.getInheritanceDependencyIndex();
+        if (index != null) {
+            index.remove(user);
+        }
+    }
+
     @Override
     public T getByUsername(String name) {
         for (T user : getAll().values()) {
@@ -165,8 +176,11 @@ public abstract class AbstractUserManager<T extends User> extends AbstractManage
         Set<UUID> ids = new HashSet<>(getAll().keySet());
         ids.addAll(this.plugin.getBootstrap().getOnlinePlayers());
 
-        return ids.stream()
-                .map(id -> this.plugin.getStorage().loadUser(id, null))
+        // load users in batches - each batch is loaded using a single storage query,
+        // and the batches themselves are loaded in parallel
+        int batchSize = this.plugin.getConfiguration().get(ConfigKeys.USER_LOAD_BATCH_SIZE);
+        return StreamSupport.stream(Iterables.partition(ids, batchSize).spliterator(), false)
+                .map(batch -> this.plugin.getStorage().loadUsers(new HashSet<>(batch)))
                 .collect(CompletableFutures.collector());
     }
 
@@ -62,6 +62,11 @@ public class UserHousekeeper implements Runnable {
         this.recentlyUsedApi.add(uuid);
     }
 
+    // if the user has recently logged in / out
+    public boolean isRecentlyUsed(UUID uuid) {
+        return this.recentlyUsed.contains(uuid);
+    }
+
     public void clearApiUsage(UUID uuid) {
         this.recentlyUsedApi.remove(uuid);
     }
@@ -143,6 +143,10 @@ public interface NodeMap {
 
     Difference<Node> removeIf(ContextSet contextSet, Predicate<? super Node> predicate);
 
+    default Difference<Node> removeExpired() {
+        return removeIf(Node::hasExpired);
+    }
+
     Difference<Node> removeThenAdd(Node nodeToRemove, Node nodeToAdd);
 
     Difference<Node> clear();
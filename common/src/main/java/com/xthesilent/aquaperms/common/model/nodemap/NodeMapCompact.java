@@ -0,0 +1,282 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package com.xthesilent.aquaperms.common.model.nodemap;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.xthesilent.aquaperms.common.context.ImmutableContextSetImpl;
+import com.xthesilent.aquaperms.common.model.InheritanceOrigin;
+import com.xthesilent.aquaperms.common.node.AbstractNode;
+import com.xthesilent.aquaperms.common.node.factory.NodeBuilders;
+import com.aquasplashmc.api.context.ContextSet;
+import com.aquasplashmc.api.context.ImmutableContextSet;
+import com.aquasplashmc.api.node.Node;
+import com.aquasplashmc.api.node.NodeBuilder;
+import com.aquasplashmc.api.node.metadata.NodeMetadataKey;
+import com.aquasplashmc.api.node.metadata.types.InheritanceOriginMetadata;
+import com.aquasplashmc.api.node.types.InheritanceNode;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.Consumer;
+
+/**
+ * A compact, read-only copy of the contents of a {@link NodeMapMutable}.
+ *
+ * <p>Used to hold the nodes of users which have only been loaded for inspection
+ * (by commands, the web editor, the API, etc), so that loading a large number of
+ * users doesn't keep a full set of node objects and skip lists around for each one.</p>
+ *
+ * <p>Nodes are held in parallel arrays, grouped by context, with interned keys and
+ * context sets. Node objects are only created when they are read.</p>
+ */
+final class NodeMapCompact {
+
+    /**
+     * Pool of node keys, shared by all compact maps
+     */
+    private static final Interner<String> KEY_INTERNER = Interners.newWeakInterner();
+
+    /**
+     * Creates a compact copy of the given map.
+     *
+     * @param map the map, as held by a {@link NodeMapMutable}
+     * @param origin the inheritance origin attached to every node in the map
+     * @return the compact copy, or null if the map contains nodes which can't be held compactly
+     */
+    static @Nullable NodeMapCompact create(SortedMap<ImmutableContextSet, SortedSet<Node>> map, InheritanceOrigin origin) {
+        int size = 0;
+        for (SortedSet<Node> nodes : map.values()) {
+            size += nodes.size();
+        }
+
+        ImmutableContextSet[] contexts = new ImmutableContextSet[map.size()];
+        int[] contextEnds = new int[map.size()];
+        String[] keys = new String[size];
+        BitSet values = new BitSet(size);
+        long[] expiry = null;
+        long earliestExpiry = 0;
+        Map<NodeMetadataKey<?>, Object>[] metadata = null;
+
+        int contextIndex = 0;
+        int i = 0;
+        for (Map.Entry<ImmutableContextSet, SortedSet<Node>> e : map.entrySet()) {
+            contexts[contextIndex] = ImmutableContextSetImpl.intern(e.getKey());
+
+            for (Node node : e.getValue()) {
+                if (!(node instanceof AbstractNode) || !node.getMetadata(InheritanceOriginMetadata.KEY).filter(origin::equals).isPresent()) {
+                    return null;
+                }
+
+                keys[i] = KEY_INTERNER.intern(node.getKey());
+                values.set(i, node.getValue());
+
+                if (node.hasExpiry()) {
+                    if (expiry == null) {
+                        expiry = new long[size];
+                    }
+                    long expireAt = node.getExpiry().getEpochSecond();
+                    expiry[i] = expireAt;
+                    if (earliestExpiry == 0 || expireAt < earliestExpiry) {
+                        earliestExpiry = expireAt;
+                    }
+                }
+
+                Map<NodeMetadataKey<?>, Object> nodeMetadata = ((AbstractNode<?, ?>) node).getMetadataMap();
+                if (nodeMetadata.size() > 1) {
+                    if (metadata == null) {
+                        //noinspection unchecked
+                        metadata = new Map[size];
+                    }
+                    Map<NodeMetadataKey<?>, Object> extra = new HashMap<>(nodeMetadata);
+                    extra.remove(InheritanceOriginMetadata.KEY);
+                    metadata[i] = extra;
+                }
+
+                i++;
+            }
+
+            contextEnds[contextIndex++] = i;
+        }
+
+        return new NodeMapCompact(origin, contexts, contextEnds, keys, values, expiry, earliestExpiry, metadata);
+    }
+
+    private final InheritanceOrigin origin;
+
+    /** The distinct contexts, in map order */
+    private final ImmutableContextSet[] contexts;
+
+    /** The (exclusive) index of the last node in each context */
+    private final int[] contextEnds;
+
+    private final String[] keys;
+    private final BitSet values;
+
+    /** The expiry time of each node, or null if no nodes expire */
+    private final long[] expiry;
+    private final long earliestExpiry;
+
+    /** Metadata attached to each node other than the inheritance origin, or null if there is none */
+    private final Map<NodeMetadataKey<?>, Object>[] metadata;
+
+    private NodeMapCompact(InheritanceOrigin origin, ImmutableContextSet[] contexts, int[] contextEnds, String[] keys, BitSet values, long[] expiry, long earliestExpiry, Map<NodeMetadataKey<?>, Object>[] metadata) {
+        this.origin = origin;
+        this.contexts = contexts;
+        this.contextEnds = contextEnds;
+        this.keys = keys;
+        this.values = values;
+        this.expiry = expiry;
+        this.earliestExpiry = earliestExpiry;
+        this.metadata = metadata;
+    }
+
+    int size() {
+        return this.keys.length;
+    }
+
+    boolean isEmpty() {
+        return this.keys.length == 0;
+    }
+
+    /**
+     * Gets if any of the nodes may have expired by the given time.
+     *
+     * @param nowEpochSeconds the current time
+     * @return true if nodes may have expired
+     */
+    boolean mayHaveExpired(long nowEpochSeconds) {
+        return this.earliestExpiry != 0 && this.earliestExpiry <= nowEpochSeconds;
+    }
+
+    private Node node(int i, ImmutableContextSet context) {
+        NodeBuilder<?, ?> builder = NodeBuilders.determineMostApplicable(this.keys[i])
+                .value(this.values.get(i))
+                .expiry(this.expiry == null ? 0L : this.expiry[i])
+                .context(context)
+                .withMetadata(InheritanceOriginMetadata.KEY, this.origin);
+
+        if (this.metadata != null && this.metadata[i] != null) {
+            for (Map.Entry<NodeMetadataKey<?>, Object> e : this.metadata[i].entrySet()) {
+                //noinspection unchecked
+                builder.withMetadata((NodeMetadataKey<Object>) e.getKey(), e.getValue());
+            }
+        }
+
+        return builder.build();
+    }
+
+    private void forEachInContext(int contextIndex, Consumer<? super Node> consumer) {
+        ImmutableContextSet context = this.contexts[contextIndex];
+        int start = contextIndex == 0 ? 0 : this.contextEnds[contextIndex - 1];
+        for (int i = start; i < this.contextEnds[contextIndex]; i++) {
+            consumer.accept(node(i, context));
+        }
+    }
+
+    void forEach(Consumer<? super Node> consumer) {
+        for (int c = 0; c < this.contexts.length; c++) {
+            forEachInContext(c, consumer);
+        }
+    }
+
+    void forEachInheritanceNode(Consumer<? super InheritanceNode> consumer) {
+        forEach(node -> {
+            if (node instanceof InheritanceNode && node.getValue()) {
+                consumer.accept((InheritanceNode) node);
+            }
+        });
+    }
+
+    Map<ImmutableContextSet, Collection<Node>> asMap() {
+        Map<ImmutableContextSet, Collection<Node>> map = new LinkedHashMap<>();
+        for (int c = 0; c < this.contexts.length; c++) {
+            List<Node> nodes = new ArrayList<>();
+            forEachInContext(c, nodes::add);
+            map.put(this.contexts[c], nodes);
+        }
+        return map;
+    }
+
+    Map<ImmutableContextSet, Collection<InheritanceNode>> inheritanceAsMap() {
+        Map<ImmutableContextSet, Collection<InheritanceNode>> map = new LinkedHashMap<>();
+        for (int c = 0; c < this.contexts.length; c++) {
+            ImmutableContextSet context = this.contexts[c];
+            forEachInContext(c, node -> {
+                if (node instanceof InheritanceNode) {
+                    Collection<InheritanceNode> nodes = map.computeIfAbsent(context, k -> new ArrayList<>());
+                    if (node.getValue()) {
+                        nodes.add((InheritanceNode) node);
+                    }
+                }
+            });
+        }
+        return map;
+    }
+
+    Collection<Node> nodesInContext(ContextSet contextSet) {
+        int c = indexOf(contextSet);
+        if (c == -1) {
+            return Collections.emptySet();
+        }
+        List<Node> nodes = new ArrayList<>();
+        forEachInContext(c, nodes::add);
+        return nodes;
+    }
+
+    Collection<InheritanceNode> inheritanceNodesInContext(ContextSet contextSet) {
+        int c = indexOf(contextSet);
+        if (c == -1) {
+            return Collections.emptySet();
+        }
+        List<InheritanceNode> nodes = new ArrayList<>();
+        forEachInContext(c, node -> {
+            if (node instanceof InheritanceNode && node.getValue()) {
+                nodes.add((InheritanceNode) node);
+            }
+        });
+        return nodes;
+    }
+
+    private int indexOf(ContextSet contextSet) {
+        ImmutableContextSet context = contextSet.immutableCopy();
+        for (int c = 0; c < this.contexts.length; c++) {
+            if (this.contexts[c].equals(context)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+}
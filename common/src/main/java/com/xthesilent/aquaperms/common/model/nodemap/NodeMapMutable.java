@@ -25,11 +25,13 @@
 
 package com.xthesilent.aquaperms.common.model.nodemap;
 
+import com.google.common.collect.ImmutableCollection;
 import com.xthesilent.aquaperms.common.config.ConfigKeys;
 import com.xthesilent.aquaperms.common.context.comparator.ContextSetComparator;
 import com.xthesilent.aquaperms.common.model.InheritanceOrigin;
 import com.xthesilent.aquaperms.common.model.PermissionHolder;
 import com.xthesilent.aquaperms.common.node.comparator.NodeComparator;
+import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.xthesilent.aquaperms.common.util.Difference;
 import com.xthesilent.aquaperms.common.util.Difference.ChangeType;
 import com.aquasplashmc.api.context.ContextSatisfyMode;
@@ -40,8 +42,12 @@ import com.aquasplashmc.api.node.Node;
 import com.aquasplashmc.api.node.NodeEqualityPredicate;
 import com.aquasplashmc.api.node.metadata.types.InheritanceOriginMetadata;
 import com.aquasplashmc.api.node.types.InheritanceNode;
+import com.aquasplashmc.api.node.types.WeightNode;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Optional;
 import java.util.SortedMap;
 import java.util.SortedSet;
@@ -49,6 +55,7 @@ import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -60,7 +67,7 @@ public class NodeMapMutable extends NodeMapBase {
     private static final Function<ImmutableContextSet, SortedSet<Node>> VALUE_SET_SUPPLIER = k -> new ConcurrentSkipListSet<>(NodeComparator.reverse());
     private static final Function<ImmutableContextSet, SortedSet<InheritanceNode>> INHERITANCE_VALUE_SET_SUPPLIER = k -> new ConcurrentSkipListSet<>(NodeComparator.reverse());
 
-    // Creates the Map instances used by this.map and this.inheritanceMap
+    // Creates the Map instances used by the map and inheritanceMap of a State
     private static <N extends Node> SortedMap<ImmutableContextSet, SortedSet<N>> createMap() {
         return new ConcurrentSkipListMap<>(ContextSetComparator.reverse());
     }
@@ -72,13 +79,15 @@ public class NodeMapMutable extends NodeMapBase {
      *
      * We use our own "multimap"-like implementation here because guava's is not thread safe.
      *
-     * The map fields aren't final because they are replaced when large updates (e.g. clear)
+     * The maps are held in a State which is replaced when large updates (e.g. clear)
      * are performed. We do this so there's no risk that the read methods will see an inconsistent
      * state in the middle of an update from the DB. (see below comment about locking - we don't
      * lock for reads!)
+     *
+     * The compact copy of the nodes is published in the same State as the maps, so a reader
+     * always observes either the compact copy or the maps it was inflated into/created from.
      */
-    private SortedMap<ImmutableContextSet, SortedSet<Node>> map = createMap();
-    private SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap = createMap();
+    private volatile State state = State.inflated(createMap(), createMap());
 
     /**
      * This lock is used whilst performing mutations, but *not* reads.
@@ -99,12 +108,181 @@ public class NodeMapMutable extends NodeMapBase {
 
     @Override
     protected SortedMap<ImmutableContextSet, SortedSet<Node>> map() {
-        return this.map;
+        return inflate().map;
     }
 
     @Override
     protected SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap() {
-        return this.inheritanceMap;
+        return inflate().inheritanceMap;
+    }
+
+    /**
+     * Gets if the nodes are currently held in compact form.
+     *
+     * @return true if compact
+     */
+    public boolean isCompact() {
+        return this.state.compact != null;
+    }
+
+    /**
+     * Replaces the contents of the map with compact copy of the nodes in the given set.
+     *
+     * <p>Behaves in the same way as {@link #setContent(Iterable)}, except the nodes are
+     * held in compact form until the map is next mutated or queried with query options.</p>
+     *
+     * <p>The new content is built before it is published, so concurrent readers observe
+     * either the previous content or all of the new content.</p>
+     *
+     * @param set the nodes
+     * @return the changes
+     */
+    public Difference<Node> setContentCompact(Iterable<? extends Node> set) {
+        this.lock.lock();
+        try {
+            NodeMapMutable staged = new NodeMapMutable(this.holder, this.inheritanceOrigin.getDataType());
+            Difference<Node> added = staged.addAll(set);
+
+            Difference<Node> result = new Difference<>();
+            recordRemovals(this.state, result);
+            result.mergeFrom(added);
+
+            NodeMapCompact compact = NodeMapCompact.create(staged.state.map, this.inheritanceOrigin);
+            this.state = compact != null ? State.compact(compact) : staged.state;
+
+            // the content is being replaced wholesale - always treat as an inheritance change
+            this.holder.incrementInheritanceVersion();
+            return result;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Inflates the compact copy of the nodes (if there is one) back into the maps.
+     *
+     * @return the current, inflated state
+     */
+    private State inflate() {
+        State state = this.state;
+        if (state.compact == null) {
+            return state;
+        }
+
+        this.lock.lock();
+        try {
+            state = this.state;
+            NodeMapCompact compact = state.compact;
+            if (compact == null) {
+                return state;
+            }
+
+            SortedMap<ImmutableContextSet, SortedSet<Node>> map = createMap();
+            SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap = createMap();
+            compact.forEach(node -> {
+                ImmutableContextSet context = node.getContexts();
+                map.computeIfAbsent(context, VALUE_SET_SUPPLIER).add(node);
+                if (node instanceof InheritanceNode) {
+                    SortedSet<InheritanceNode> inhNodes = inheritanceMap.computeIfAbsent(context, INHERITANCE_VALUE_SET_SUPPLIER);
+                    if (node.getValue()) {
+                        inhNodes.add((InheritanceNode) node);
+                    }
+                }
+            });
+
+            // the content hasn't changed, so there's no need to increment the inheritance version
+            state = State.inflated(map, inheritanceMap);
+            this.state = state;
+            return state;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        NodeMapCompact compact = this.state.compact;
+        return compact != null ? compact.isEmpty() : super.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        NodeMapCompact compact = this.state.compact;
+        return compact != null ? compact.size() : super.size();
+    }
+
+    @Override
+    public Map<ImmutableContextSet, Collection<Node>> asMap() {
+        NodeMapCompact compact = this.state.compact;
+        return compact != null ? compact.asMap() : super.asMap();
+    }
+
+    @Override
+    public Map<ImmutableContextSet, Collection<InheritanceNode>> inheritanceAsMap() {
+        NodeMapCompact compact = this.state.compact;
+        return compact != null ? compact.inheritanceAsMap() : super.inheritanceAsMap();
+    }
+
+    @Override
+    public void forEach(Consumer<? super Node> consumer) {
+        NodeMapCompact compact = this.state.compact;
+        if (compact != null) {
+            compact.forEach(consumer);
+        } else {
+            super.forEach(consumer);
+        }
+    }
+
+    @Override
+    public void copyTo(Collection<? super Node> collection) {
+        NodeMapCompact compact = this.state.compact;
+        if (compact != null) {
+            compact.forEach(collection::add);
+        } else {
+            super.copyTo(collection);
+        }
+    }
+
+    @Override
+    public void copyTo(ImmutableCollection.Builder<? super Node> collection) {
+        NodeMapCompact compact = this.state.compact;
+        if (compact != null) {
+            compact.forEach(collection::add);
+        } else {
+            super.copyTo(collection);
+        }
+    }
+
+    @Override
+    public void copyInheritanceNodesTo(Collection<? super InheritanceNode> collection) {
+        NodeMapCompact compact = this.state.compact;
+        if (compact != null) {
+            compact.forEachInheritanceNode(collection::add);
+        } else {
+            super.copyInheritanceNodesTo(collection);
+        }
+    }
+
+    @Override
+    public void copyInheritanceNodesTo(ImmutableCollection.Builder<? super InheritanceNode> collection) {
+        NodeMapCompact compact = this.state.compact;
+        if (compact != null) {
+            compact.forEachInheritanceNode(collection::add);
+        } else {
+            super.copyInheritanceNodesTo(collection);
+        }
+    }
+
+    @Override
+    public Collection<Node> nodesInContext(ContextSet context) {
+        NodeMapCompact compact = this.state.compact;
+        return compact != null ? compact.nodesInContext(context) : super.nodesInContext(context);
+    }
+
+    @Override
+    public Collection<InheritanceNode> inheritanceNodesInContext(ContextSet context) {
+        NodeMapCompact compact = this.state.compact;
+        return compact != null ? compact.inheritanceNodesInContext(context) : super.inheritanceNodesInContext(context);
     }
 
     @Override
@@ -130,7 +308,8 @@ public class NodeMapMutable extends NodeMapBase {
 
         this.lock.lock();
         try {
-            SortedSet<Node> nodes = this.map.computeIfAbsent(context, VALUE_SET_SUPPLIER);
+            State state = inflate();
+            SortedSet<Node> nodes = state.map.computeIfAbsent(context, VALUE_SET_SUPPLIER);
 
             // add the new node to the set - if it was already there, return
             if (!nodes.add(node)) {
@@ -145,7 +324,7 @@ public class NodeMapMutable extends NodeMapBase {
 
             // update the inheritanceMap too if necessary
             if (node instanceof InheritanceNode) {
-                SortedSet<InheritanceNode> inhNodes = this.inheritanceMap.computeIfAbsent(context, INHERITANCE_VALUE_SET_SUPPLIER);
+                SortedSet<InheritanceNode> inhNodes = state.inheritanceMap.computeIfAbsent(context, INHERITANCE_VALUE_SET_SUPPLIER);
                 // remove existing..
                 inhNodes.removeIf(el -> node.equals(el, NodeEqualityPredicate.IGNORE_EXPIRY_TIME_AND_VALUE));
                 // .. & add
@@ -154,13 +333,30 @@ public class NodeMapMutable extends NodeMapBase {
                 }
             }
 
+            if (affectsInheritance(node)) {
+                this.holder.incrementInheritanceVersion();
+            }
+
         } finally {
             this.lock.unlock();
         }
 
+        if (node.hasExpiry()) {
+            scheduleExpiry(node.getExpiry());
+        }
+
         return result;
     }
 
+    // record the expiry time of a temporary node in the plugins index, so the holder is audited once it has expired
+    private void scheduleExpiry(Instant expiry) {
+        AquaPermsPlugin plugin = this.holder.getPlugin();
+        TemporaryNodeExpiryIndex index = plugin == null ? null : plugin.getTemporaryNodeExpiryIndex();
+        if (index != null) {
+            index.schedule(this.holder.getIdentifier(), expiry.getEpochSecond());
+        }
+    }
+
     @Override
     public Difference<Node> remove(Node node) {
         ImmutableContextSet context = node.getContexts();
@@ -168,7 +364,8 @@ public class NodeMapMutable extends NodeMapBase {
 
         this.lock.lock();
         try {
-            SortedSet<Node> nodes = this.map.get(context);
+            State state = inflate();
+            SortedSet<Node> nodes = state.map.get(context);
             if (nodes == null) {
                 return result;
             }
@@ -178,12 +375,16 @@ public class NodeMapMutable extends NodeMapBase {
 
             // update inheritance map too
             if (node instanceof InheritanceNode) {
-                SortedSet<InheritanceNode> inhNodes = this.inheritanceMap.get(context);
+                SortedSet<InheritanceNode> inhNodes = state.inheritanceMap.get(context);
                 if (inhNodes != null) {
                     inhNodes.removeIf(el -> node.equals(el, NodeEqualityPredicate.IGNORE_EXPIRY_TIME_AND_VALUE));
                 }
             }
 
+            if (affectsInheritance(node) && !result.isEmpty()) {
+                this.holder.incrementInheritanceVersion();
+            }
+
         } finally {
             this.lock.unlock();
         }
@@ -191,6 +392,11 @@ public class NodeMapMutable extends NodeMapBase {
         return result;
     }
 
+    // if a change to the node could affect the way the holders inheritance is resolved
+    private static boolean affectsInheritance(Node node) {
+        return node instanceof InheritanceNode || node instanceof WeightNode;
+    }
+
     private static void removeMatching(Iterator<Node> it, Node node, Difference<Node> result) {
         while (it.hasNext()) {
             Node el = it.next();
@@ -218,7 +424,8 @@ public class NodeMapMutable extends NodeMapBase {
 
         this.lock.lock();
         try {
-            SortedSet<Node> nodes = this.map.get(context);
+            State state = inflate();
+            SortedSet<Node> nodes = state.map.get(context);
             if (nodes == null) {
                 return result;
             }
@@ -230,11 +437,15 @@ public class NodeMapMutable extends NodeMapBase {
 
                 // update inheritance map too if necessary
                 if (node instanceof InheritanceNode && node.getValue()) {
-                    SortedSet<InheritanceNode> inhNodes = this.inheritanceMap.get(context);
+                    SortedSet<InheritanceNode> inhNodes = state.inheritanceMap.get(context);
                     if (inhNodes != null) {
                         inhNodes.remove(node);
                     }
                 }
+
+                if (affectsInheritance(node)) {
+                    this.holder.incrementInheritanceVersion();
+                }
             }
 
         } finally {
@@ -250,7 +461,8 @@ public class NodeMapMutable extends NodeMapBase {
 
         this.lock.lock();
         try {
-            for (SortedSet<Node> nodes : this.map.values()) {
+            State state = inflate();
+            for (SortedSet<Node> nodes : state.map.values()) {
                 removeMatching(nodes.iterator(), predicate, result);
             }
         } finally {
@@ -267,7 +479,8 @@ public class NodeMapMutable extends NodeMapBase {
 
         this.lock.lock();
         try {
-            SortedSet<Node> nodes = this.map.get(context);
+            State state = inflate();
+            SortedSet<Node> nodes = state.map.get(context);
             if (nodes == null) {
                 return result;
             }
@@ -290,15 +503,28 @@ public class NodeMapMutable extends NodeMapBase {
 
                 // update inheritance map too if necessary
                 if (node instanceof InheritanceNode && node.getValue()) {
-                    SortedSet<InheritanceNode> inhNodes = this.inheritanceMap.get(node.getContexts());
+                    SortedSet<InheritanceNode> inhNodes = this.state.inheritanceMap.get(node.getContexts());
                     if (inhNodes != null) {
                         inhNodes.remove(node);
                     }
                 }
+
+                if (affectsInheritance(node)) {
+                    this.holder.incrementInheritanceVersion();
+                }
             }
         }
     }
 
+    @Override
+    public Difference<Node> removeExpired() {
+        NodeMapCompact compact = this.state.compact;
+        if (compact != null && !compact.mayHaveExpired(Instant.now().getEpochSecond())) {
+            return new Difference<>();
+        }
+        return super.removeExpired();
+    }
+
     @Override
     public Difference<Node> removeThenAdd(Node nodeToRemove, Node nodeToAdd) {
         if (nodeToAdd.equals(nodeToRemove)) {
@@ -320,14 +546,14 @@ public class NodeMapMutable extends NodeMapBase {
         this.lock.lock();
         try {
             // log removals
-            for (SortedSet<Node> nodes : this.map.values()) {
-                result.recordChanges(ChangeType.REMOVE, nodes);
-            }
+            recordRemovals(this.state, result);
 
             // replace the map - this means any client reading async won't be affected
             // by any race conditions between this call to clear and any subsequent call to setContent
-            this.map = createMap();
-            this.inheritanceMap = createMap();
+            this.state = State.inflated(createMap(), createMap());
+
+            // the content is being replaced wholesale - always treat as an inheritance change
+            this.holder.incrementInheritanceVersion();
         } finally {
             this.lock.unlock();
         }
@@ -335,6 +561,16 @@ public class NodeMapMutable extends NodeMapBase {
         return result;
     }
 
+    private static void recordRemovals(State state, Difference<Node> result) {
+        if (state.compact != null) {
+            state.compact.forEach(node -> result.recordChange(ChangeType.REMOVE, node));
+        } else {
+            for (SortedSet<Node> nodes : state.map.values()) {
+                result.recordChanges(ChangeType.REMOVE, nodes);
+            }
+        }
+    }
+
     @Override
     public Difference<Node> clear(ContextSet contextSet) {
         ImmutableContextSet context = contextSet.immutableCopy();
@@ -342,10 +578,12 @@ public class NodeMapMutable extends NodeMapBase {
 
         this.lock.lock();
         try {
-            SortedSet<Node> removed = this.map.remove(context);
+            State state = inflate();
+            SortedSet<Node> removed = state.map.remove(context);
             if (removed != null) {
                 result.recordChanges(ChangeType.REMOVE, removed);
-                this.inheritanceMap.remove(context);
+                state.inheritanceMap.remove(context);
+                this.holder.incrementInheritanceVersion();
             }
         } finally {
             this.lock.unlock();
@@ -433,4 +671,38 @@ public class NodeMapMutable extends NodeMapBase {
         return result;
     }
 
+    /**
+     * Holds the backing maps, or the compact copy of the nodes. Replaced (never modified) when
+     * the maps are swapped or the nodes are compacted/inflated.
+     */
+    private static final class State {
+        static State inflated(SortedMap<ImmutableContextSet, SortedSet<Node>> map, SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap) {
+            return new State(map, inheritanceMap, null);
+        }
+
+        static State compact(NodeMapCompact compact) {
+            return new State(null, null, compact);
+        }
+
+        // null if compact
+        final SortedMap<ImmutableContextSet, SortedSet<Node>> map;
+        final SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap;
+
+        /**
+         * A compact copy of the nodes, used instead of the maps above if the content was set
+         * using {@link NodeMapMutable#setContentCompact(Iterable)}.
+         *
+         * Reads which don't need to filter by query options are served directly from the compact
+         * copy. Anything else (mutations, and queries which are likely to be repeated, e.g. when
+         * calculating cached data) inflates the compact copy back into the maps first.
+         */
+        final NodeMapCompact compact;
+
+        private State(SortedMap<ImmutableContextSet, SortedSet<Node>> map, SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap, NodeMapCompact compact) {
+            this.map = map;
+            this.inheritanceMap = inheritanceMap;
+            this.compact = compact;
+        }
+    }
+
 }
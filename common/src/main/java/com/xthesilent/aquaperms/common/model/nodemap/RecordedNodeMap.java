@@ -74,6 +74,15 @@ public class RecordedNodeMap implements NodeMap {
         }
     }
 
+    public Difference<Node> copyChanges() {
+        this.lock.lock();
+        try {
+            return new Difference<Node>().mergeFrom(this.changes);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
     public Difference<Node> exportChanges(Predicate<Difference<Node>> onlyIf) {
         this.lock.lock();
         try {
@@ -131,6 +140,11 @@ public class RecordedNodeMap implements NodeMap {
         return record(this.delegate.removeIf(contextSet, predicate));
     }
 
+    @Override
+    public Difference<Node> removeExpired() {
+        return record(this.delegate.removeExpired());
+    }
+
     @Override
     public Difference<Node> removeThenAdd(Node nodeToRemove, Node nodeToAdd) {
         return record(this.delegate.removeThenAdd(nodeToRemove, nodeToAdd));
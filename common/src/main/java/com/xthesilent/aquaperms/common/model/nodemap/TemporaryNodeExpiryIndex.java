@@ -0,0 +1,173 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.model.nodemap;
+
+import com.xthesilent.aquaperms.common.model.PermissionHolder;
+import com.xthesilent.aquaperms.common.model.PermissionHolderIdentifier;
+import com.aquasplashmc.api.model.data.DataType;
+import com.aquasplashmc.api.node.Node;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * An index of when the temporary nodes held by each holder next expire.
+ *
+ * <p>Used by the expiry task to audit only those holders which have a temporary node
+ * expiring, instead of every loaded holder.</p>
+ *
+ * <p>Entries are kept in a min-heap ordered by expiry time, with at most one live entry
+ * per holder - for the earliest expiry scheduled against it. Holders are indexed by
+ * their identifier rather than by reference, so that users which are unloaded and later
+ * reloaded don't leave behind duplicate entries.</p>
+ *
+ * <p>Removing a node does not remove its entry. Instead, entries are allowed to go stale:
+ * when a holder becomes due it is audited, and then {@link #reschedule(PermissionHolder) rescheduled}
+ * according to the temporary nodes it still holds.</p>
+ *
+ * <p>The index is expected to hold tens of thousands of entries on servers which hand out
+ * temporary ranks. A heap keeps scheduling at O(log n) and makes polling proportional to
+ * the number of due entries only. A hierarchical timer wheel would make scheduling O(1),
+ * but expiry times range from seconds to months ahead, so it would need several levels and
+ * cascading between them - and scheduling is already cheap, as each holder only has one
+ * live entry.</p>
+ */
+public class TemporaryNodeExpiryIndex {
+
+    /** The entries, ordered by expiry time */
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+    /** The expiry time of the live entry for each holder */
+    private final Map<PermissionHolderIdentifier, Long> scheduled = new HashMap<>();
+
+    /**
+     * Records that the given holder holds a node which expires at the given time.
+     *
+     * @param holder the holder
+     * @param expireAt the time the node expires, in epoch seconds
+     */
+    public synchronized void schedule(PermissionHolderIdentifier holder, long expireAt) {
+        Long existing = this.scheduled.get(holder);
+        if (existing != null && existing <= expireAt) {
+            // the holder will already be audited at or before this time
+            return;
+        }
+
+        this.scheduled.put(holder, expireAt);
+        this.queue.add(new Entry(expireAt, holder));
+    }
+
+    /**
+     * Records the earliest expiry time of the temporary nodes currently held by the
+     * given holder.
+     *
+     * <p>Should be called after a holder returned by {@link #pollDue(long)} has been audited.</p>
+     *
+     * @param holder the holder
+     */
+    public void reschedule(PermissionHolder holder) {
+        long earliest = Math.min(earliestExpiry(holder.getData(DataType.NORMAL)), earliestExpiry(holder.getData(DataType.TRANSIENT)));
+        if (earliest != Long.MAX_VALUE) {
+            schedule(holder.getIdentifier(), earliest);
+        }
+    }
+
+    private static long earliestExpiry(NodeMap map) {
+        long earliest = Long.MAX_VALUE;
+        for (Node node : map.asList()) {
+            Instant expiry = node.getExpiry();
+            if (expiry != null && expiry.getEpochSecond() < earliest) {
+                earliest = expiry.getEpochSecond();
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * Removes and returns the holders which hold a node that has expired before the
+     * given time.
+     *
+     * <p>Returned holders are no longer indexed, and should be
+     * {@link #reschedule(PermissionHolder) rescheduled} once they have been audited.</p>
+     *
+     * @param nowEpochSeconds the current time, in epoch seconds
+     * @return the identifiers of the due holders
+     */
+    public synchronized List<PermissionHolderIdentifier> pollDue(long nowEpochSeconds) {
+        List<PermissionHolderIdentifier> due = new ArrayList<>();
+
+        Entry entry;
+        // strictly less than, so that a node is always considered expired by Node#hasExpired
+        // by the time its entry is polled
+        while ((entry = this.queue.peek()) != null && entry.expireAt < nowEpochSeconds) {
+            this.queue.poll();
+
+            // skip stale entries - the holder has since been scheduled for an earlier time
+            if (this.scheduled.remove(entry.holder, entry.expireAt)) {
+                due.add(entry.holder);
+            }
+        }
+
+        return due;
+    }
+
+    /**
+     * Gets statistics about this index, for use in health checks.
+     *
+     * @return the statistics
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("scheduledHolders", this.scheduled.size());
+        map.put("entries", this.queue.size());
+        Entry next = this.queue.peek();
+        if (next != null) {
+            map.put("nextExpiry", next.expireAt);
+        }
+        return map;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final long expireAt;
+        private final PermissionHolderIdentifier holder;
+
+        Entry(long expireAt, PermissionHolderIdentifier holder) {
+            this.expireAt = expireAt;
+            this.holder = holder;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare(this.expireAt, other.expireAt);
+        }
+    }
+
+}
@@ -61,7 +61,8 @@ public abstract class AbstractNode<N extends ScopedNode<N, B>, B extends NodeBui
     protected final ImmutableContextSet contexts;
     protected final Map<NodeMetadataKey<?>, Object> metadata;
 
-    private final List<String> resolvedShorthand;
+    // lazily expanded, most nodes are never checked for shorthand
+    private List<String> resolvedShorthand = null;
 
     // this class is immutable, so we can cache the hashcode calculation
     private final int hashCode;
@@ -73,8 +74,6 @@ public abstract class AbstractNode<N extends ScopedNode<N, B>, B extends NodeBui
         this.contexts = contexts;
         this.metadata = ImmutableMap.copyOf(metadata);
 
-        this.resolvedShorthand = this instanceof PermissionNode ? ImmutableList.copyOf(ShorthandParser.expandShorthand(this.key)) : ImmutableList.of();
-
         this.hashCode = calculateHashCode();
     }
 
@@ -126,9 +125,24 @@ public abstract class AbstractNode<N extends ScopedNode<N, B>, B extends NodeBui
         return Duration.between(now, expiry);
     }
 
+    /**
+     * Gets all of the metadata attached to the node.
+     *
+     * @return the metadata
+     */
+    public Map<NodeMetadataKey<?>, Object> getMetadataMap() {
+        return this.metadata;
+    }
+
     @Override
     public @NonNull Collection<String> resolveShorthand() {
-        return this.resolvedShorthand;
+        List<String> shorthand = this.resolvedShorthand;
+        if (shorthand == null) {
+            // racy, but the list is immutable so the worst case is it gets expanded more than once
+            shorthand = this instanceof PermissionNode ? ImmutableList.copyOf(ShorthandParser.expandShorthand(this.key)) : ImmutableList.of();
+            this.resolvedShorthand = shorthand;
+        }
+        return shorthand;
     }
 
     @Override
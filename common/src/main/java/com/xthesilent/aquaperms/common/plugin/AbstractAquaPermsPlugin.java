@@ -29,6 +29,7 @@ import com.xthesilent.aquaperms.common.actionlog.LogDispatcher;
 import com.xthesilent.aquaperms.common.api.ApiRegistrationUtil;
 import com.xthesilent.aquaperms.common.api.AquaPermsApiProvider;
 import com.xthesilent.aquaperms.common.calculator.CalculatorFactory;
+import com.xthesilent.aquaperms.common.calculator.PermissionLookupCacheProvider;
 import com.xthesilent.aquaperms.common.config.ConfigKeys;
 import com.xthesilent.aquaperms.common.config.AquaPermsConfiguration;
 import com.xthesilent.aquaperms.common.config.generic.adapter.ConfigurationAdapter;
@@ -41,16 +42,17 @@ import com.xthesilent.aquaperms.common.dependencies.DependencyManager;
 import com.xthesilent.aquaperms.common.dependencies.DependencyManagerImpl;
 import com.xthesilent.aquaperms.common.event.AbstractEventBus;
 import com.xthesilent.aquaperms.common.event.EventDispatcher;
-import com.xthesilent.aquaperms.common.event.gen.GeneratedEventClass;
 import com.xthesilent.aquaperms.common.extension.SimpleExtensionManager;
 import com.xthesilent.aquaperms.common.http.BytebinClient;
 import com.xthesilent.aquaperms.common.http.BytesocksClient;
+import com.xthesilent.aquaperms.common.inheritance.InheritanceDependencyIndex;
 import com.xthesilent.aquaperms.common.inheritance.InheritanceGraphFactory;
 import com.xthesilent.aquaperms.common.locale.Message;
 import com.xthesilent.aquaperms.common.locale.TranslationManager;
 import com.xthesilent.aquaperms.common.locale.TranslationRepository;
 import com.xthesilent.aquaperms.common.messaging.InternalMessagingService;
 import com.xthesilent.aquaperms.common.messaging.MessagingFactory;
+import com.xthesilent.aquaperms.common.model.nodemap.TemporaryNodeExpiryIndex;
 import com.xthesilent.aquaperms.common.plugin.logging.PluginLogger;
 import com.xthesilent.aquaperms.common.plugin.util.HealthCheckResult;
 import com.xthesilent.aquaperms.common.storage.Storage;
@@ -108,7 +110,10 @@ public abstract class AbstractAquaPermsPlugin implements AquaPermsPlugin {
     private InternalMessagingService messagingService = null;
     private SyncTask.Buffer syncTaskBuffer;
     private InheritanceGraphFactory inheritanceGraphFactory;
+    private InheritanceDependencyIndex inheritanceDependencyIndex;
+    private TemporaryNodeExpiryIndex temporaryNodeExpiryIndex;
     private CalculatorFactory calculatorFactory;
+    private PermissionLookupCacheProvider permissionLookupCacheProvider;
     private AquaPermsApiProvider apiProvider;
     private EventDispatcher eventDispatcher;
     private SimpleExtensionManager extensionManager;
@@ -210,6 +215,9 @@ public abstract class AbstractAquaPermsPlugin implements AquaPermsPlugin {
         // load internal managers
         getLogger().info("Loading internal permission managers...");
         this.inheritanceGraphFactory = new InheritanceGraphFactory(this);
+        this.inheritanceDependencyIndex = new InheritanceDependencyIndex(this);
+        this.temporaryNodeExpiryIndex = new TemporaryNodeExpiryIndex();
+        this.permissionLookupCacheProvider = PermissionLookupCacheProvider.fromConfiguration(getConfiguration());
 
         // setup user/group/track manager
         setupManagers();
@@ -228,7 +236,6 @@ public abstract class AbstractAquaPermsPlugin implements AquaPermsPlugin {
         this.apiProvider = new AquaPermsApiProvider(this);
         this.apiProvider.ensureApiWasLoadedByPlugin();
         this.eventDispatcher = new EventDispatcher(provideEventBus(this.apiProvider));
-        getBootstrap().getScheduler().executeAsync(GeneratedEventClass::preGenerate);
         ApiRegistrationUtil.registerProvider(this.apiProvider);
         registerApiOnPlatform(this.apiProvider);
 
@@ -335,7 +342,6 @@ public abstract class AbstractAquaPermsPlugin implements AquaPermsPlugin {
                 Dependency.CAFFEINE,
                 Dependency.OKIO,
                 Dependency.OKHTTP,
-                Dependency.BYTEBUDDY,
                 Dependency.EVENT
         );
     }
@@ -418,6 +424,15 @@ public abstract class AbstractAquaPermsPlugin implements AquaPermsPlugin {
         if (meta.sizeBytes() != null) {
             map.put("storageSizeBytes", meta.sizeBytes());
         }
+        map.put("permissionLookupCache", this.permissionLookupCacheProvider.getStatistics());
+        map.put("inheritanceDependencyIndex", this.inheritanceDependencyIndex.getStatistics());
+        map.put("temporaryNodeExpiryIndex", this.temporaryNodeExpiryIndex.getStatistics());
+        map.put("permissionRegistry", this.permissionRegistry.getStatistics());
+        map.put("actionLogQueue", this.storage.getActionLogQueue().getStatistics());
+        map.put("holderSaves", this.storage.getHolderSaves().getStatistics());
+        if (getCommandManager() != null) {
+            map.put("commands", getCommandManager().getStatistics());
+        }
 
         return HealthCheckResult.healthy(map);
     }
@@ -548,11 +563,26 @@ public abstract class AbstractAquaPermsPlugin implements AquaPermsPlugin {
         return this.inheritanceGraphFactory;
     }
 
+    @Override
+    public InheritanceDependencyIndex getInheritanceDependencyIndex() {
+        return this.inheritanceDependencyIndex;
+    }
+
+    @Override
+    public TemporaryNodeExpiryIndex getTemporaryNodeExpiryIndex() {
+        return this.temporaryNodeExpiryIndex;
+    }
+
     @Override
     public CalculatorFactory getCalculatorFactory() {
         return this.calculatorFactory;
     }
 
+    @Override
+    public PermissionLookupCacheProvider getPermissionLookupCacheProvider() {
+        return this.permissionLookupCacheProvider;
+    }
+
     @Override
     public AquaPermsApiProvider getApiProvider() {
         return this.apiProvider;
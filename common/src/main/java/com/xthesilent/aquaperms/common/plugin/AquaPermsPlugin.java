@@ -28,6 +28,7 @@ package com.xthesilent.aquaperms.common.plugin;
 import com.xthesilent.aquaperms.common.actionlog.LogDispatcher;
 import com.xthesilent.aquaperms.common.api.AquaPermsApiProvider;
 import com.xthesilent.aquaperms.common.calculator.CalculatorFactory;
+import com.xthesilent.aquaperms.common.calculator.PermissionLookupCacheProvider;
 import com.xthesilent.aquaperms.common.command.CommandManager;
 import com.xthesilent.aquaperms.common.command.abstraction.Command;
 import com.xthesilent.aquaperms.common.config.AquaPermsConfiguration;
@@ -37,6 +38,7 @@ import com.xthesilent.aquaperms.common.event.EventDispatcher;
 import com.xthesilent.aquaperms.common.extension.SimpleExtensionManager;
 import com.xthesilent.aquaperms.common.http.BytebinClient;
 import com.xthesilent.aquaperms.common.http.BytesocksClient;
+import com.xthesilent.aquaperms.common.inheritance.InheritanceDependencyIndex;
 import com.xthesilent.aquaperms.common.inheritance.InheritanceGraphFactory;
 import com.xthesilent.aquaperms.common.locale.TranslationManager;
 import com.xthesilent.aquaperms.common.locale.TranslationRepository;
@@ -47,6 +49,7 @@ import com.xthesilent.aquaperms.common.model.User;
 import com.xthesilent.aquaperms.common.model.manager.group.GroupManager;
 import com.xthesilent.aquaperms.common.model.manager.track.TrackManager;
 import com.xthesilent.aquaperms.common.model.manager.user.UserManager;
+import com.xthesilent.aquaperms.common.model.nodemap.TemporaryNodeExpiryIndex;
 import com.xthesilent.aquaperms.common.plugin.bootstrap.AquaPermsBootstrap;
 import com.xthesilent.aquaperms.common.plugin.logging.PluginLogger;
 import com.xthesilent.aquaperms.common.plugin.util.AbstractConnectionListener;
@@ -208,6 +211,20 @@ public interface AquaPermsPlugin {
      */
     InheritanceGraphFactory getInheritanceGraphFactory();
 
+    /**
+     * Gets the index used to selectively invalidate holders affected by group changes
+     *
+     * @return the inheritance dependency index
+     */
+    InheritanceDependencyIndex getInheritanceDependencyIndex();
+
+    /**
+     * Gets the index used to find holders with temporary nodes which have expired
+     *
+     * @return the temporary node expiry index
+     */
+    TemporaryNodeExpiryIndex getTemporaryNodeExpiryIndex();
+
     /**
      * Gets the class responsible for constructing PermissionCalculators on this platform.
      *
@@ -215,6 +232,13 @@ public interface AquaPermsPlugin {
      */
     CalculatorFactory getCalculatorFactory();
 
+    /**
+     * Gets the provider of permission lookup caches
+     *
+     * @return the permission lookup cache provider
+     */
+    PermissionLookupCacheProvider getPermissionLookupCacheProvider();
+
     /**
      * Gets the verbose debug handler instance.
      *
@@ -27,7 +27,10 @@ package com.xthesilent.aquaperms.common.query;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.xthesilent.aquaperms.common.context.ImmutableContextSetImpl;
+import com.xthesilent.aquaperms.common.inheritance.InheritanceGraph;
 import com.aquasplashmc.api.context.ContextSatisfyMode;
 import com.aquasplashmc.api.context.ContextSet;
 import com.aquasplashmc.api.context.ImmutableContextSet;
@@ -47,6 +50,49 @@ public class QueryOptionsImpl implements QueryOptions {
     public static final QueryOptions DEFAULT_CONTEXTUAL = new QueryOptionsImpl(QueryMode.CONTEXTUAL, ImmutableContextSetImpl.EMPTY, FlagUtils.ALL_FLAGS, null);
     public static final QueryOptions DEFAULT_NON_CONTEXTUAL = new QueryOptionsImpl(QueryMode.NON_CONTEXTUAL, null, FlagUtils.ALL_FLAGS, null);
 
+    /**
+     * Pool of canonical instances. Entries are weakly referenced, and are removed once
+     * nothing else is using them.
+     */
+    private static final Interner<QueryOptionsImpl> INTERNER = Interners.newWeakInterner();
+
+    static {
+        intern(DEFAULT_CONTEXTUAL);
+        intern(DEFAULT_NON_CONTEXTUAL);
+    }
+
+    /**
+     * Returns a canonical instance equal to the given query options.
+     *
+     * <p>The context set of the returned instance is also interned. Interned options
+     * are only ever equal to each other if they are the same instance, so comparisons
+     * between them (e.g. when used as cache keys) are cheap.</p>
+     *
+     * @param queryOptions the query options
+     * @return the canonical instance
+     */
+    public static QueryOptions intern(QueryOptions queryOptions) {
+        if (!(queryOptions instanceof QueryOptionsImpl)) {
+            return queryOptions;
+        }
+
+        QueryOptionsImpl impl = (QueryOptionsImpl) queryOptions;
+        if (impl.interned) {
+            return impl;
+        }
+
+        if (impl.context != null) {
+            ImmutableContextSet context = ImmutableContextSetImpl.intern(impl.context);
+            if (context != impl.context) {
+                impl = new QueryOptionsImpl(impl.mode, context, impl.flags, impl.options);
+            }
+        }
+
+        QueryOptionsImpl canonical = INTERNER.intern(impl);
+        canonical.interned = true;
+        return canonical;
+    }
+
     // state
     private final QueryMode mode;
     private final ImmutableContextSet context;
@@ -58,6 +104,12 @@ public class QueryOptionsImpl implements QueryOptions {
     private Set<Flag> flagsSet = null;
     private final ContextSatisfyMode contextSatisfyMode;
 
+    /** If this instance is the canonical instance in the intern pool */
+    private volatile boolean interned = false;
+
+    /** The inheritance graph for these options, only ever set on interned instances */
+    private volatile InheritanceGraph inheritanceGraph = null;
+
     QueryOptionsImpl(QueryMode mode, @Nullable ImmutableContextSet context, byte flags, @Nullable Map<OptionKey<?>, Object> options) {
         this.mode = mode;
         this.context = context;
@@ -127,6 +179,37 @@ public class QueryOptionsImpl implements QueryOptions {
         }
     }
 
+    /**
+     * Gets if this instance is the canonical instance in the intern pool.
+     *
+     * @return if this instance is interned
+     */
+    public boolean isInterned() {
+        return this.interned;
+    }
+
+    /**
+     * Gets the inheritance graph attached to these options.
+     *
+     * @return the graph, or null
+     */
+    public @Nullable InheritanceGraph getInheritanceGraph() {
+        return this.inheritanceGraph;
+    }
+
+    /**
+     * Attaches an inheritance graph to these options, so it lives for as long as the
+     * options do. Only possible for interned instances.
+     *
+     * @param inheritanceGraph the graph
+     */
+    public void setInheritanceGraph(InheritanceGraph inheritanceGraph) {
+        if (!this.interned) {
+            throw new IllegalStateException("Not interned");
+        }
+        this.inheritanceGraph = inheritanceGraph;
+    }
+
     @Override
     public @NonNull Builder toBuilder() {
         return new QueryOptionsBuilderImpl(this.mode, this.context, this.flags, this.options);
@@ -142,6 +225,7 @@ public class QueryOptionsImpl implements QueryOptions {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         QueryOptionsImpl that = (QueryOptionsImpl) o;
+        if (this.interned && that.interned) return false;
         return this.flags == that.flags &&
                 this.mode == that.mode &&
                 Objects.equals(this.context, that.context) &&
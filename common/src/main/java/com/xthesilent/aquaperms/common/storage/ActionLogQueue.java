@@ -0,0 +1,198 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.storage;
+
+import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
+import com.xthesilent.aquaperms.common.plugin.scheduler.SchedulerTask;
+import com.xthesilent.aquaperms.common.storage.implementation.StorageImplementation;
+import com.aquasplashmc.api.actionlog.Action;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A write-behind queue of action log entries waiting to be saved to storage.
+ *
+ * <p>Entries are saved in batches, either as soon as enough entries have been queued
+ * to fill a batch, or when the flush interval next elapses.</p>
+ */
+public class ActionLogQueue {
+    private final AquaPermsPlugin plugin;
+    private final StorageImplementation implementation;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+
+    private final Queue<PendingAction> queue = new ConcurrentLinkedQueue<>();
+    /** The number of entries in the queue, tracked separately as the queue size is O(n) */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /** Lock to ensure batches are saved in order, by one thread at a time */
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private SchedulerTask flushTask;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public ActionLogQueue(AquaPermsPlugin plugin, StorageImplementation implementation, int batchSize, long flushIntervalMillis) {
+        this.plugin = plugin;
+        this.implementation = implementation;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * Starts periodically flushing the queue.
+     */
+    public void start() {
+        this.flushTask = this.plugin.getBootstrap().getScheduler().asyncRepeating(this::flush, this.flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops periodically flushing the queue, and saves any remaining entries.
+     */
+    public void shutdown() {
+        if (this.flushTask != null) {
+            this.flushTask.cancel();
+        }
+
+        flush();
+
+        int remaining = this.queued.get();
+        if (remaining != 0) {
+            this.plugin.getLogger().warn(remaining + " action log entries could not be saved before shutdown");
+        }
+    }
+
+    /**
+     * Adds an entry to the queue.
+     *
+     * @param entry the entry
+     * @return a future which completes when the entry has been saved
+     */
+    public CompletableFuture<Void> enqueue(Action entry) {
+        PendingAction pending = new PendingAction(entry);
+        this.queue.add(pending);
+
+        // flush straight away if there's a full batch waiting
+        if (this.queued.incrementAndGet() >= this.batchSize && this.flushRequested.compareAndSet(false, true)) {
+            this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
+                this.flushRequested.set(false);
+                flush();
+            });
+        }
+
+        return pending.future;
+    }
+
+    /**
+     * Saves all queued entries to storage.
+     *
+     * <p>If a batch fails to save, the entries in it are discarded and flushing stops
+     * until the next attempt, leaving later entries in the queue.</p>
+     */
+    public void flush() {
+        this.flushLock.lock();
+        try {
+            List<PendingAction> batch;
+            while (!(batch = pollBatch()).isEmpty()) {
+                if (!save(batch)) {
+                    break;
+                }
+            }
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    private List<PendingAction> pollBatch() {
+        List<PendingAction> batch = new ArrayList<>(Math.min(this.batchSize, Math.max(this.queued.get(), 0)));
+        for (PendingAction pending; batch.size() < this.batchSize && (pending = this.queue.poll()) != null; ) {
+            batch.add(pending);
+        }
+        this.queued.addAndGet(-batch.size());
+        return batch;
+    }
+
+    private boolean save(List<PendingAction> batch) {
+        List<Action> entries = new ArrayList<>(batch.size());
+        for (PendingAction pending : batch) {
+            entries.add(pending.entry);
+        }
+
+        try {
+            this.implementation.logActions(entries);
+        } catch (Exception e) {
+            this.plugin.getLogger().warn("Error whilst saving " + entries.size() + " action log entries", e);
+            this.failed.add(entries.size());
+            for (PendingAction pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+            return false;
+        }
+
+        this.written.add(entries.size());
+        this.batches.increment();
+        for (PendingAction pending : batch) {
+            pending.future.complete(null);
+        }
+        return true;
+    }
+
+    /**
+     * Gets statistics about the queue, for use in health checks.
+     *
+     * @return the statistics
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("queued", this.queued.get());
+        map.put("written", this.written.sum());
+        map.put("failed", this.failed.sum());
+        map.put("batches", this.batches.sum());
+        return map;
+    }
+
+    private static final class PendingAction {
+        private final Action entry;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        PendingAction(Action entry) {
+            this.entry = entry;
+        }
+    }
+}
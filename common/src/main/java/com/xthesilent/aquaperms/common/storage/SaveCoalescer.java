@@ -0,0 +1,209 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.storage;
+
+import com.xthesilent.aquaperms.common.util.Throwing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces save requests for the same key into a single write.
+ *
+ * <p>For each key, at most one write is waiting to run at any time. Requests made
+ * whilst a write is waiting join it, and receive the same result. Requests made whilst
+ * a write is already running schedule a single further write, to run once it has
+ * finished - so a write always starts after the most recent request for its key.</p>
+ *
+ * <p>Writes for different keys run in parallel, up to a fixed limit. Any further writes
+ * are queued until a running write finishes.</p>
+ *
+ * @param <K> the key type
+ */
+public class SaveCoalescer<K> {
+    private final Executor executor;
+    private final int maxParallelism;
+
+    private final Map<K, Slot> slots = new ConcurrentHashMap<>();
+    private final Queue<Slot> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public SaveCoalescer(Executor executor, int maxParallelism) {
+        this.executor = executor;
+        this.maxParallelism = Math.max(1, maxParallelism);
+    }
+
+    /**
+     * Requests a save for the given key.
+     *
+     * @param key the key
+     * @param save the function which performs the save
+     * @return a future which completes with the result of the write
+     */
+    public CompletableFuture<Void> submit(K key, Throwing.Runnable save) {
+        this.requests.increment();
+
+        while (true) {
+            Slot slot = this.slots.computeIfAbsent(key, Slot::new);
+            boolean schedule;
+            CompletableFuture<Void> future;
+
+            synchronized (slot) {
+                if (slot.removed) {
+                    // lost a race with the slot being removed, try again
+                    continue;
+                }
+
+                if (slot.pending == null) {
+                    slot.pending = new CompletableFuture<>();
+                } else {
+                    this.coalesced.increment();
+                }
+                slot.pendingSave = save;
+                future = slot.pending;
+
+                schedule = !slot.active;
+                slot.active = true;
+            }
+
+            if (schedule) {
+                this.ready.add(slot);
+                drain();
+            }
+            return future;
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            int current = this.running.get();
+            if (current >= this.maxParallelism) {
+                return;
+            }
+            if (!this.running.compareAndSet(current, current + 1)) {
+                continue;
+            }
+
+            Slot slot = this.ready.poll();
+            if (slot == null) {
+                this.running.decrementAndGet();
+
+                // a slot may have been added after we polled, but before we released our permit
+                if (this.ready.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+
+            try {
+                this.executor.execute(() -> run(slot));
+            } catch (RuntimeException e) {
+                this.running.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    private void run(Slot slot) {
+        CompletableFuture<Void> future;
+        Throwing.Runnable save;
+        synchronized (slot) {
+            future = slot.pending;
+            save = slot.pendingSave;
+            slot.pending = null;
+            slot.pendingSave = null;
+        }
+
+        try {
+            this.writes.increment();
+            save.run();
+            future.complete(null);
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+
+        boolean again;
+        synchronized (slot) {
+            // if another request came in whilst we were writing, go again
+            again = slot.pending != null;
+            if (!again) {
+                slot.active = false;
+                slot.removed = true;
+                this.slots.remove(slot.key, slot);
+            }
+        }
+
+        this.running.decrementAndGet();
+        if (again) {
+            this.ready.add(slot);
+        }
+        drain();
+    }
+
+    /**
+     * Gets statistics about the coalescer, for use in health checks.
+     *
+     * @return the statistics
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("requests", this.requests.sum());
+        map.put("writes", this.writes.sum());
+        map.put("coalesced", this.coalesced.sum());
+        map.put("active", this.slots.size());
+        map.put("running", this.running.get());
+        return map;
+    }
+
+    private final class Slot {
+        private final K key;
+
+        /** The future for the write waiting to run, or null if no write is waiting */
+        private CompletableFuture<Void> pending;
+        private Throwing.Runnable pendingSave;
+
+        /** If a write for this slot is queued or running */
+        private boolean active;
+
+        /** If the slot has been removed from the map, and should no longer be used */
+        private boolean removed;
+
+        Slot(K key) {
+            this.key = key;
+        }
+    }
+}
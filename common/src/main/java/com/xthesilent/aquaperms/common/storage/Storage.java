@@ -26,9 +26,14 @@
 package com.xthesilent.aquaperms.common.storage;
 
 import com.google.common.collect.ImmutableList;
+import com.xthesilent.aquaperms.common.actionlog.ActionFilterImpl;
 import com.xthesilent.aquaperms.common.actionlog.Log;
+import com.xthesilent.aquaperms.common.actionlog.LogPage;
+import com.xthesilent.aquaperms.common.actionlog.PageParameters;
 import com.xthesilent.aquaperms.common.bulkupdate.BulkUpdate;
+import com.xthesilent.aquaperms.common.config.ConfigKeys;
 import com.xthesilent.aquaperms.common.model.Group;
+import com.xthesilent.aquaperms.common.model.PermissionHolderIdentifier;
 import com.xthesilent.aquaperms.common.model.Track;
 import com.xthesilent.aquaperms.common.model.User;
 import com.xthesilent.aquaperms.common.node.matcher.ConstraintNodeMatcher;
@@ -42,6 +47,7 @@ import com.aquasplashmc.api.event.cause.CreationCause;
 import com.aquasplashmc.api.event.cause.DeletionCause;
 import com.aquasplashmc.api.model.PlayerSaveResult;
 import com.aquasplashmc.api.node.Node;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -61,16 +67,36 @@ import java.util.concurrent.CompletionException;
 public class Storage {
     private final AquaPermsPlugin plugin;
     private final StorageImplementation implementation;
+    private final ActionLogQueue actionLogQueue;
+    private final SaveCoalescer<PermissionHolderIdentifier> holderSaves;
 
     public Storage(AquaPermsPlugin plugin, StorageImplementation implementation) {
         this.plugin = plugin;
         this.implementation = implementation;
+        this.actionLogQueue = new ActionLogQueue(
+                plugin,
+                implementation,
+                plugin.getConfiguration().get(ConfigKeys.ACTION_LOG_BATCH_SIZE),
+                plugin.getConfiguration().get(ConfigKeys.ACTION_LOG_FLUSH_INTERVAL)
+        );
+        this.holderSaves = new SaveCoalescer<>(
+                plugin.getBootstrap().getScheduler().async(),
+                plugin.getConfiguration().get(ConfigKeys.HOLDER_SAVE_PARALLELISM)
+        );
     }
 
     public StorageImplementation getImplementation() {
         return this.implementation;
     }
 
+    public ActionLogQueue getActionLogQueue() {
+        return this.actionLogQueue;
+    }
+
+    public SaveCoalescer<PermissionHolderIdentifier> getHolderSaves() {
+        return this.holderSaves;
+    }
+
     public Collection<StorageImplementation> getImplementations() {
         if (this.implementation instanceof SplitStorage) {
             return ((SplitStorage) this.implementation).getImplementations().values();
@@ -115,9 +141,11 @@ public class Storage {
         } catch (Exception e) {
             this.plugin.getLogger().severe("Failed to init storage implementation", e);
         }
+        this.actionLogQueue.start();
     }
 
     public void shutdown() {
+        this.actionLogQueue.shutdown();
         try {
             this.implementation.shutdown();
         } catch (Exception e) {
@@ -130,11 +158,21 @@ public class Storage {
     }
 
     public CompletableFuture<Void> logAction(Action entry) {
-        return future(() -> this.implementation.logAction(entry));
+        return this.actionLogQueue.enqueue(entry);
     }
 
     public CompletableFuture<Log> getLog() {
-        return future(this.implementation::getLog);
+        return future(() -> {
+            this.actionLogQueue.flush();
+            return this.implementation.getLog();
+        });
+    }
+
+    public CompletableFuture<LogPage> queryActions(ActionFilterImpl filter, @Nullable PageParameters page) {
+        return future(() -> {
+            this.actionLogQueue.flush();
+            return this.implementation.queryActions(filter, page);
+        });
     }
 
     public CompletableFuture<Void> applyBulkUpdate(BulkUpdate bulkUpdate) {
@@ -162,7 +200,7 @@ public class Storage {
     }
 
     public CompletableFuture<Void> saveUser(User user) {
-        return future(() -> this.implementation.saveUser(user));
+        return this.holderSaves.submit(user.getIdentifier(), () -> this.implementation.saveUser(user));
     }
 
     public CompletableFuture<Set<UUID>> getUniqueUsers() {
@@ -205,7 +243,7 @@ public class Storage {
     }
 
     public CompletableFuture<Void> saveGroup(Group group) {
-        return future(() -> this.implementation.saveGroup(group));
+        return this.holderSaves.submit(group.getIdentifier(), () -> this.implementation.saveGroup(group));
     }
 
     public CompletableFuture<Void> deleteGroup(Group group, DeletionCause cause) {
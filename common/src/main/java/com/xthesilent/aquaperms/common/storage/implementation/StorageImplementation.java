@@ -25,7 +25,10 @@
 
 package com.xthesilent.aquaperms.common.storage.implementation;
 
+import com.xthesilent.aquaperms.common.actionlog.ActionFilterImpl;
 import com.xthesilent.aquaperms.common.actionlog.Log;
+import com.xthesilent.aquaperms.common.actionlog.LogPage;
+import com.xthesilent.aquaperms.common.actionlog.PageParameters;
 import com.xthesilent.aquaperms.common.bulkupdate.BulkUpdate;
 import com.xthesilent.aquaperms.common.model.Group;
 import com.xthesilent.aquaperms.common.model.Track;
@@ -58,8 +61,16 @@ public interface StorageImplementation {
 
     void logAction(Action entry) throws Exception;
 
+    default void logActions(List<Action> entries) throws Exception {
+        for (Action entry : entries) {
+            logAction(entry);
+        }
+    }
+
     Log getLog() throws Exception;
 
+    LogPage queryActions(ActionFilterImpl filter, @Nullable PageParameters page) throws Exception;
+
     void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception;
 
     User loadUser(UUID uniqueId, String username) throws Exception;
@@ -26,7 +26,10 @@
 package com.xthesilent.aquaperms.common.storage.implementation.file;
 
 import com.google.common.collect.Iterables;
+import com.xthesilent.aquaperms.common.actionlog.ActionFilterImpl;
 import com.xthesilent.aquaperms.common.actionlog.Log;
+import com.xthesilent.aquaperms.common.actionlog.LogPage;
+import com.xthesilent.aquaperms.common.actionlog.PageParameters;
 import com.xthesilent.aquaperms.common.bulkupdate.BulkUpdate;
 import com.xthesilent.aquaperms.common.context.ImmutableContextSetImpl;
 import com.xthesilent.aquaperms.common.context.serializer.ContextSetConfigurateSerializer;
@@ -59,6 +62,7 @@ import com.aquasplashmc.api.node.types.InheritanceNode;
 import com.aquasplashmc.api.node.types.MetaNode;
 import ninja.leaping.configurate.ConfigurationNode;
 import ninja.leaping.configurate.Types;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -67,6 +71,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -167,11 +172,21 @@ public abstract class AbstractConfigurateStorage implements StorageImplementatio
         this.actionLogger.logAction(entry);
     }
 
+    @Override
+    public void logActions(List<Action> entries) {
+        this.actionLogger.logActions(entries);
+    }
+
     @Override
     public Log getLog() throws IOException {
         return this.actionLogger.getLog();
     }
 
+    @Override
+    public LogPage queryActions(ActionFilterImpl filter, @Nullable PageParameters page) throws IOException {
+        return this.actionLogger.queryActions(filter, page);
+    }
+
     @Override
     public User loadUser(UUID uniqueId, String username) throws IOException {
         User user = this.plugin.getUserManager().getOrMake(uniqueId, username);
@@ -206,7 +221,7 @@ public abstract class AbstractConfigurateStorage implements StorageImplementatio
 
     @Override
     public Map<UUID, User> loadUsers(Set<UUID> uniqueIds) throws Exception {
-        // add multithreading here?
+        // batches are already loaded in parallel by the user manager
         Map<UUID, User> map = new HashMap<>();
         for (UUID uniqueId : uniqueIds) {
             map.put(uniqueId, loadUser(uniqueId, null));
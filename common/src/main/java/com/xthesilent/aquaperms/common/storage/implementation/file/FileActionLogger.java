@@ -28,12 +28,17 @@ package com.xthesilent.aquaperms.common.storage.implementation.file;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.stream.JsonReader;
+import com.xthesilent.aquaperms.common.actionlog.ActionFilterImpl;
 import com.xthesilent.aquaperms.common.actionlog.ActionJsonSerializer;
 import com.xthesilent.aquaperms.common.actionlog.Log;
+import com.xthesilent.aquaperms.common.actionlog.LogPage;
+import com.xthesilent.aquaperms.common.actionlog.LoggedAction;
+import com.xthesilent.aquaperms.common.actionlog.PageParameters;
 import com.xthesilent.aquaperms.common.cache.BufferedRequest;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.xthesilent.aquaperms.common.util.gson.GsonProvider;
 import com.aquasplashmc.api.actionlog.Action;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -42,6 +47,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -105,6 +111,11 @@ public class FileActionLogger {
         this.saveBuffer.request();
     }
 
+    public void logActions(List<Action> entries) {
+        this.entryQueue.addAll(entries);
+        this.saveBuffer.request();
+    }
+
     public void flush() {
         this.writeLock.lock();
         try {
@@ -131,10 +142,7 @@ public class FileActionLogger {
     }
 
     public Log getLog() throws IOException {
-        // if there is log content waiting to be written, flush immediately before trying to read
-        if (this.saveBuffer.isEnqueued()) {
-            this.saveBuffer.requestDirectly();
-        }
+        flushPending();
 
         if (!Files.exists(this.contentFile)) {
             return Log.empty();
@@ -157,6 +165,42 @@ public class FileActionLogger {
         return log.build();
     }
 
+    public LogPage queryActions(ActionFilterImpl filter, @Nullable PageParameters page) throws IOException {
+        flushPending();
+
+        if (!Files.exists(this.contentFile)) {
+            return LogPage.of(Collections.emptyList(), page);
+        }
+
+        // only the actions which match the filter are kept, the rest are discarded as the file is read
+        List<LoggedAction> matching = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(this.contentFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    LoggedAction action = ActionJsonSerializer.deserialize(GsonProvider.parser().parse(line));
+                    if (filter.test(action)) {
+                        matching.add(action);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        // the file is append-only, so is almost always already in order
+        Collections.sort(matching);
+        return LogPage.of(matching, page);
+    }
+
+    private void flushPending() {
+        // if there is log content waiting to be written, flush immediately before trying to read
+        if (this.saveBuffer.isEnqueued()) {
+            this.saveBuffer.requestDirectly();
+        }
+    }
+
     private final class SaveBuffer extends BufferedRequest<Void> {
         public SaveBuffer(AquaPermsPlugin plugin) {
             super(2, TimeUnit.SECONDS, plugin.getBootstrap().getScheduler());
@@ -31,13 +31,19 @@ import com.mongodb.MongoClientOptions;
 import com.mongodb.MongoClientURI;
 import com.mongodb.MongoCredential;
 import com.mongodb.ServerAddress;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.xthesilent.aquaperms.common.actionlog.ActionFilterImpl;
 import com.xthesilent.aquaperms.common.actionlog.Log;
+import com.xthesilent.aquaperms.common.actionlog.LogPage;
 import com.xthesilent.aquaperms.common.actionlog.LoggedAction;
+import com.xthesilent.aquaperms.common.actionlog.PageParameters;
 import com.xthesilent.aquaperms.common.bulkupdate.BulkUpdate;
 import com.xthesilent.aquaperms.common.context.MutableContextSetImpl;
 import com.xthesilent.aquaperms.common.model.Group;
@@ -64,6 +70,8 @@ import com.aquasplashmc.api.node.Node;
 import com.aquasplashmc.api.node.NodeBuilder;
 import org.bson.Document;
 import org.bson.UuidRepresentation;
+import org.bson.conversions.Bson;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -76,6 +84,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class MongoStorage implements StorageImplementation {
@@ -134,6 +143,13 @@ public class MongoStorage implements StorageImplementation {
         }
         
         this.database = this.mongoClient.getDatabase(this.configuration.getDatabase());
+
+        // indexes used by action log queries - creating an index which already exists is a no-op
+        MongoCollection<Document> actions = this.database.getCollection(this.prefix + "action");
+        actions.createIndex(Indexes.ascending("timestamp"));
+        actions.createIndex(Indexes.ascending("source.uniqueId", "timestamp"));
+        actions.createIndex(Indexes.ascending("target.type", "target.uniqueId", "timestamp"));
+        actions.createIndex(Indexes.ascending("target.type", "target.name", "timestamp"));
     }
 
     @Override
@@ -168,7 +184,21 @@ public class MongoStorage implements StorageImplementation {
     @Override
     public void logAction(Action entry) {
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
+        c.insertOne(actionToDoc(entry));
+    }
+
+    @Override
+    public void logActions(List<Action> entries) {
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
+
+        List<Document> docs = new ArrayList<>(entries.size());
+        for (Action entry : entries) {
+            docs.add(actionToDoc(entry));
+        }
+        c.insertMany(docs);
+    }
 
+    private static Document actionToDoc(Action entry) {
         Document doc = new Document()
                 .append("timestamp", entry.getTimestamp().getEpochSecond())
                 .append("source", new Document()
@@ -186,8 +216,7 @@ public class MongoStorage implements StorageImplementation {
 
         doc.append("target", target);
         doc.append("description", entry.getDescription());
-
-        c.insertOne(doc);
+        return doc;
     }
 
     @Override
@@ -196,51 +225,36 @@ public class MongoStorage implements StorageImplementation {
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
         try (MongoCursor<Document> cursor = c.find().iterator()) {
             while (cursor.hasNext()) {
-                Document d = cursor.next();
+                log.add(actionFromDoc(cursor.next()));
+            }
+        }
+        return log.build();
+    }
 
-                if (d.containsKey("source")) {
-                    // new format
-                    Document source = d.get("source", Document.class);
-                    Document target = d.get("target", Document.class);
+    @Override
+    public LogPage queryActions(ActionFilterImpl filter, @Nullable PageParameters page) {
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
+        Bson query = actionFilterToBson(filter);
 
-                    UUID targetUniqueId = null;
-                    if (target.containsKey("uniqueId")) {
-                        targetUniqueId = target.get("uniqueId", UUID.class);
-                    }
+        FindIterable<Document> results = c.find(query).sort(Sorts.ascending("timestamp", "_id"));
 
-                    LoggedAction e = LoggedAction.build()
-                            .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
-                            .source(source.get("uniqueId", UUID.class))
-                            .sourceName(source.getString("name"))
-                            .targetType(LoggedAction.parseType(target.getString("type")))
-                            .target(targetUniqueId)
-                            .targetName(target.getString("name"))
-                            .description(d.getString("description"))
-                            .build();
-
-                    log.add(e);
-                } else {
-                    // old format
-                    UUID actedUuid = null;
-                    if (d.containsKey("acted")) {
-                        actedUuid = d.get("acted", UUID.class);
-                    }
+        int total = 0;
+        if (page != null) {
+            total = (int) c.countDocuments(query);
+            results = results.skip(page.getOffset(total)).limit(page.getPageSize());
+        }
 
-                    LoggedAction e = LoggedAction.build()
-                            .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
-                            .source(d.get("actor", UUID.class))
-                            .sourceName(d.getString("actorName"))
-                            .targetType(LoggedAction.parseTypeCharacter(d.getString("type").charAt(0)))
-                            .target(actedUuid)
-                            .targetName(d.getString("actedName"))
-                            .description(d.getString("action"))
-                            .build();
-
-                    log.add(e);
-                }
+        List<LoggedAction> content = new ArrayList<>();
+        try (MongoCursor<Document> cursor = results.iterator()) {
+            while (cursor.hasNext()) {
+                content.add(actionFromDoc(cursor.next()));
             }
         }
-        return log.build();
+
+        if (page == null) {
+            return LogPage.of(content, null);
+        }
+        return new LogPage(content, page.getPageNumber(total), page.getPageSize(), total);
     }
 
     @Override
@@ -295,43 +309,56 @@ public class MongoStorage implements StorageImplementation {
         User user = this.plugin.getUserManager().getOrMake(uniqueId, username);
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
         try (MongoCursor<Document> cursor = c.find(new Document("_id", user.getUniqueId())).iterator()) {
-            if (cursor.hasNext()) {
-                // User exists, let's load.
-                Document d = cursor.next();
-                String name = d.getString("name");
-
-                user.getPrimaryGroup().setStoredValue(d.getString("primaryGroup"));
-                user.setUsername(name, true);
-
-                user.loadNodesFromStorage(nodesFromDoc(d));
-                this.plugin.getUserManager().giveDefaultIfNeeded(user);
-
-
-                boolean updatedUsername = user.getUsername().isPresent() && (name == null || !user.getUsername().get().equalsIgnoreCase(name));
-                if (updatedUsername | user.auditTemporaryNodes()) {
-                    c.replaceOne(new Document("_id", user.getUniqueId()), userToDoc(user));
-                }
-            } else {
-                if (this.plugin.getUserManager().isNonDefaultUser(user)) {
-                    user.loadNodesFromStorage(Collections.emptyList());
-                    user.getPrimaryGroup().setStoredValue(null);
-                    this.plugin.getUserManager().giveDefaultIfNeeded(user);
-                }
-            }
+            loadUserFromDoc(c, user, cursor.hasNext() ? cursor.next() : null);
         }
         return user;
     }
 
     @Override
     public Map<UUID, User> loadUsers(Set<UUID> uniqueIds) throws Exception {
-        // make this a bulk search?
+        Map<UUID, Document> documents = new HashMap<>();
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
+        try (MongoCursor<Document> cursor = c.find(Filters.in("_id", uniqueIds)).iterator()) {
+            while (cursor.hasNext()) {
+                Document d = cursor.next();
+                documents.put(getDocumentId(d), d);
+            }
+        }
+
         Map<UUID, User> map = new HashMap<>();
         for (UUID uniqueId : uniqueIds) {
-            map.put(uniqueId, loadUser(uniqueId, null));
+            User user = this.plugin.getUserManager().getOrMake(uniqueId, null);
+            loadUserFromDoc(c, user, documents.get(uniqueId));
+            map.put(uniqueId, user);
         }
         return map;
     }
 
+    private void loadUserFromDoc(MongoCollection<Document> c, User user, Document d) {
+        if (d != null) {
+            // User exists, let's load.
+            String name = d.getString("name");
+
+            user.getPrimaryGroup().setStoredValue(d.getString("primaryGroup"));
+            user.setUsername(name, true);
+
+            user.loadNodesFromStorage(nodesFromDoc(d));
+            this.plugin.getUserManager().giveDefaultIfNeeded(user);
+
+
+            boolean updatedUsername = user.getUsername().isPresent() && (name == null || !user.getUsername().get().equalsIgnoreCase(name));
+            if (updatedUsername | user.auditTemporaryNodes()) {
+                c.replaceOne(new Document("_id", user.getUniqueId()), userToDoc(user));
+            }
+        } else {
+            if (this.plugin.getUserManager().isNonDefaultUser(user)) {
+                user.loadNodesFromStorage(Collections.emptyList());
+                user.getPrimaryGroup().setStoredValue(null);
+                this.plugin.getUserManager().giveDefaultIfNeeded(user);
+            }
+        }
+    }
+
     @Override
     public void saveUser(User user) {
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
@@ -683,6 +710,83 @@ public class MongoStorage implements StorageImplementation {
         return builder.build();
     }
 
+    private static LoggedAction actionFromDoc(Document d) {
+        if (d.containsKey("source")) {
+            // new format
+            Document source = d.get("source", Document.class);
+            Document target = d.get("target", Document.class);
+
+            UUID targetUniqueId = null;
+            if (target.containsKey("uniqueId")) {
+                targetUniqueId = target.get("uniqueId", UUID.class);
+            }
+
+            return LoggedAction.build()
+                    .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
+                    .source(source.get("uniqueId", UUID.class))
+                    .sourceName(source.getString("name"))
+                    .targetType(LoggedAction.parseType(target.getString("type")))
+                    .target(targetUniqueId)
+                    .targetName(target.getString("name"))
+                    .description(d.getString("description"))
+                    .build();
+        } else {
+            // old format
+            UUID actedUuid = null;
+            if (d.containsKey("acted")) {
+                actedUuid = d.get("acted", UUID.class);
+            }
+
+            return LoggedAction.build()
+                    .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
+                    .source(d.get("actor", UUID.class))
+                    .sourceName(d.getString("actorName"))
+                    .targetType(LoggedAction.parseTypeCharacter(d.getString("type").charAt(0)))
+                    .target(actedUuid)
+                    .targetName(d.getString("actedName"))
+                    .description(d.getString("action"))
+                    .build();
+        }
+    }
+
+    private static Bson actionFilterToBson(ActionFilterImpl filter) {
+        // each constraint matches both the new and the old document format
+        List<Bson> constraints = new ArrayList<>();
+        if (filter.getSource() != null) {
+            constraints.add(Filters.or(Filters.eq("source.uniqueId", filter.getSource()), Filters.eq("actor", filter.getSource())));
+        }
+        if (filter.getTargetType() != null) {
+            constraints.add(Filters.or(
+                    Filters.eq("target.type", filter.getTargetType().name()),
+                    Filters.eq("type", Character.toString(LoggedAction.getTypeCharacter(filter.getTargetType())))
+            ));
+        }
+        if (filter.getTarget() != null) {
+            constraints.add(Filters.or(Filters.eq("target.uniqueId", filter.getTarget()), Filters.eq("acted", filter.getTarget())));
+        }
+        if (filter.getTargetName() != null) {
+            constraints.add(Filters.or(Filters.eq("target.name", filter.getTargetName()), Filters.eq("actedName", filter.getTargetName())));
+        }
+        if (filter.getAfter() != Long.MIN_VALUE) {
+            constraints.add(Filters.gte("timestamp", filter.getAfter()));
+        }
+        if (filter.getBefore() != Long.MAX_VALUE) {
+            constraints.add(Filters.lt("timestamp", filter.getBefore()));
+        }
+        if (filter.getSearch() != null) {
+            Pattern pattern = Pattern.compile(Pattern.quote(filter.getSearch()), Pattern.CASE_INSENSITIVE);
+            constraints.add(Filters.or(
+                    Filters.regex("source.name", pattern),
+                    Filters.regex("target.name", pattern),
+                    Filters.regex("description", pattern),
+                    Filters.regex("actorName", pattern),
+                    Filters.regex("actedName", pattern),
+                    Filters.regex("action", pattern)
+            ));
+        }
+        return constraints.isEmpty() ? new Document() : Filters.and(constraints);
+    }
+
     private static List<Document> contextSetToDocs(ContextSet contextSet) {
         List<Document> contexts = new ArrayList<>(contextSet.size());
         for (Context e : contextSet) {
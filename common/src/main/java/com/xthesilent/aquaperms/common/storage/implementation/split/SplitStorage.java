@@ -26,7 +26,10 @@
 package com.xthesilent.aquaperms.common.storage.implementation.split;
 
 import com.google.common.collect.ImmutableMap;
+import com.xthesilent.aquaperms.common.actionlog.ActionFilterImpl;
 import com.xthesilent.aquaperms.common.actionlog.Log;
+import com.xthesilent.aquaperms.common.actionlog.LogPage;
+import com.xthesilent.aquaperms.common.actionlog.PageParameters;
 import com.xthesilent.aquaperms.common.bulkupdate.BulkUpdate;
 import com.xthesilent.aquaperms.common.model.Group;
 import com.xthesilent.aquaperms.common.model.Track;
@@ -40,6 +43,7 @@ import com.xthesilent.aquaperms.common.storage.misc.NodeEntry;
 import com.aquasplashmc.api.actionlog.Action;
 import com.aquasplashmc.api.model.PlayerSaveResult;
 import com.aquasplashmc.api.node.Node;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.List;
 import java.util.Map;
@@ -117,11 +121,21 @@ public class SplitStorage implements StorageImplementation {
         implFor(SplitStorageType.LOG).logAction(entry);
     }
 
+    @Override
+    public void logActions(List<Action> entries) throws Exception {
+        implFor(SplitStorageType.LOG).logActions(entries);
+    }
+
     @Override
     public Log getLog() throws Exception {
         return implFor(SplitStorageType.LOG).getLog();
     }
 
+    @Override
+    public LogPage queryActions(ActionFilterImpl filter, @Nullable PageParameters page) throws Exception {
+        return implFor(SplitStorageType.LOG).queryActions(filter, page);
+    }
+
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception {
         StorageType userType = this.types.get(SplitStorageType.USER);
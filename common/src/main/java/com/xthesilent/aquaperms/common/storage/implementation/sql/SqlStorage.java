@@ -28,8 +28,11 @@ package com.xthesilent.aquaperms.common.storage.implementation.sql;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.gson.reflect.TypeToken;
+import com.xthesilent.aquaperms.common.actionlog.ActionFilterImpl;
 import com.xthesilent.aquaperms.common.actionlog.Log;
+import com.xthesilent.aquaperms.common.actionlog.LogPage;
 import com.xthesilent.aquaperms.common.actionlog.LoggedAction;
+import com.xthesilent.aquaperms.common.actionlog.PageParameters;
 import com.xthesilent.aquaperms.common.bulkupdate.BulkUpdate;
 import com.xthesilent.aquaperms.common.bulkupdate.BulkUpdateStatistics;
 import com.xthesilent.aquaperms.common.bulkupdate.PreparedStatementBuilder;
@@ -54,6 +57,7 @@ import com.aquasplashmc.api.context.DefaultContextKeys;
 import com.aquasplashmc.api.context.MutableContextSet;
 import com.aquasplashmc.api.model.PlayerSaveResult;
 import com.aquasplashmc.api.node.Node;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -127,6 +131,16 @@ public class SqlStorage implements StorageImplementation {
 
     private static final String ACTION_INSERT = "INSERT INTO '{prefix}actions' (time, actor_uuid, actor_name, type, acted_uuid, acted_name, action) VALUES(?, ?, ?, ?, ?, ?, ?)";
     private static final String ACTION_SELECT_ALL = "SELECT * FROM '{prefix}actions'";
+    private static final String ACTION_COUNT = "SELECT COUNT(*) FROM '{prefix}actions'";
+
+    // indexes on the actions table, used by action log queries. (name suffix -> columns)
+    private static final Map<String, String> ACTION_INDEXES = ImmutableMap.of(
+            "actions_time", "time",
+            "actions_actor_uuid", "actor_uuid, time",
+            "actions_acted_uuid", "type, acted_uuid, time",
+            "actions_acted_name", "type, acted_name, time"
+    );
+    private static final char LIKE_ESCAPE = '!';
 
     private final AquaPermsPlugin plugin;
 
@@ -168,6 +182,12 @@ public class SqlStorage implements StorageImplementation {
 
         if (!tableExists) {
             applySchema();
+        } else {
+            try {
+                applyActionIndexes();
+            } catch (SQLException e) {
+                this.plugin.getLogger().warn("Unable to create indexes on the actions table", e);
+            }
         }
     }
 
@@ -217,6 +237,39 @@ public class SqlStorage implements StorageImplementation {
         }
     }
 
+    private void applyActionIndexes() throws SQLException {
+        try (Connection c = this.connectionFactory.getConnection()) {
+            String table = this.statementProcessor.apply("{prefix}actions");
+
+            Set<String> existing = new HashSet<>();
+            try (ResultSet rs = c.getMetaData().getIndexInfo(c.getCatalog(), null, table, false, true)) {
+                while (rs.next()) {
+                    String name = rs.getString("INDEX_NAME");
+                    if (name != null) {
+                        existing.add(name.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+
+            try (Statement s = c.createStatement()) {
+                int missing = 0;
+                for (Map.Entry<String, String> index : ACTION_INDEXES.entrySet()) {
+                    String name = this.statementProcessor.apply("{prefix}" + index.getKey());
+                    if (!existing.contains(name.toLowerCase(Locale.ROOT))) {
+                        s.addBatch(this.statementProcessor.apply("CREATE INDEX '{prefix}" + index.getKey() + "' ON '{prefix}actions' (" + index.getValue() + ")"));
+                        missing++;
+                    }
+                }
+                if (missing != 0) {
+                    // this blocks startup, and can take a while if the existing log is large
+                    this.plugin.getLogger().info("Creating " + missing + " missing index(es) on the actions table - this may take some time for large action logs...");
+                    s.executeBatch();
+                    this.plugin.getLogger().info("Finished creating indexes on the actions table.");
+                }
+            }
+        }
+    }
+
     @Override
     public void shutdown() {
         try {
@@ -241,6 +294,19 @@ public class SqlStorage implements StorageImplementation {
         }
     }
 
+    @Override
+    public void logActions(List<Action> entries) throws SQLException {
+        try (Connection c = this.connectionFactory.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(ACTION_INSERT))) {
+                for (Action entry : entries) {
+                    writeAction(entry, ps);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+    }
+
     @Override
     public Log getLog() throws SQLException {
         final Log.Builder log = Log.builder();
@@ -256,6 +322,45 @@ public class SqlStorage implements StorageImplementation {
         return log.build();
     }
 
+    @Override
+    public LogPage queryActions(ActionFilterImpl filter, @Nullable PageParameters page) throws SQLException {
+        PreparedStatementBuilder select = new PreparedStatementBuilder().append(ACTION_SELECT_ALL);
+        appendActionConstraints(select, filter);
+        select.append(" ORDER BY time, id");
+
+        List<LoggedAction> content = new ArrayList<>();
+        try (Connection c = this.connectionFactory.getConnection()) {
+            int total = 0;
+            if (page != null) {
+                PreparedStatementBuilder count = new PreparedStatementBuilder().append(ACTION_COUNT);
+                appendActionConstraints(count, filter);
+
+                try (PreparedStatement ps = count.build(c, this.statementProcessor)) {
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            total = rs.getInt(1);
+                        }
+                    }
+                }
+
+                select.append(" LIMIT ").variable(page.getPageSize()).append(" OFFSET ").variable(page.getOffset(total));
+            }
+
+            try (PreparedStatement ps = select.build(c, this.statementProcessor)) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        content.add(readAction(rs));
+                    }
+                }
+            }
+
+            if (page == null) {
+                return LogPage.of(content, null);
+            }
+            return new LogPage(content, page.getPageNumber(total), page.getPageSize(), total);
+        }
+    }
+
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws SQLException {
         BulkUpdateStatistics stats = bulkUpdate.getStatistics();
@@ -344,7 +449,7 @@ public class SqlStorage implements StorageImplementation {
         for (UUID uniqueId : uniqueIds) {
             SqlPlayerData playerData = playerDataMap.get(uniqueId);
             List<Node> nodes = nodesMap.get(uniqueId);
-            users.put(uniqueId, createUser(uniqueId, null, playerData, nodes, false));
+            users.put(uniqueId, createUser(uniqueId, null, playerData, nodes, true));
         }
         return users;
     }
@@ -743,6 +848,55 @@ public class SqlStorage implements StorageImplementation {
         ps.setString(7, action.getDescription());
     }
 
+    private static void appendActionConstraints(PreparedStatementBuilder builder, ActionFilterImpl filter) {
+        String separator = " WHERE ";
+        if (filter.getSource() != null) {
+            builder.append(separator).append("actor_uuid=").variable(filter.getSource().toString());
+            separator = " AND ";
+        }
+        if (filter.getTargetType() != null) {
+            builder.append(separator).append("type=").variable(Character.toString(LoggedAction.getTypeCharacter(filter.getTargetType())));
+            separator = " AND ";
+        }
+        if (filter.getTarget() != null) {
+            builder.append(separator).append("acted_uuid=").variable(filter.getTarget().toString());
+            separator = " AND ";
+        }
+        if (filter.getTargetName() != null) {
+            builder.append(separator).append("acted_name=").variable(filter.getTargetName());
+            separator = " AND ";
+        }
+        if (filter.getAfter() != Long.MIN_VALUE) {
+            builder.append(separator).append("time>=").variable(filter.getAfter());
+            separator = " AND ";
+        }
+        if (filter.getBefore() != Long.MAX_VALUE) {
+            builder.append(separator).append("time<").variable(filter.getBefore());
+            separator = " AND ";
+        }
+        if (filter.getSearch() != null) {
+            String pattern = "%" + escapeLike(filter.getSearch()) + "%";
+            String escape = Character.toString(LIKE_ESCAPE);
+            builder.append(separator).append('(')
+                    .append("LOWER(actor_name) LIKE ").variable(pattern).append(" ESCAPE ").variable(escape)
+                    .append(" OR LOWER(acted_name) LIKE ").variable(pattern).append(" ESCAPE ").variable(escape)
+                    .append(" OR LOWER(action) LIKE ").variable(pattern).append(" ESCAPE ").variable(escape)
+                    .append(')');
+        }
+    }
+
+    private static String escapeLike(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                sb.append(LIKE_ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
     private static LoggedAction readAction(ResultSet rs) throws SQLException {
         final String actedUuid = rs.getString("acted_uuid");
         return LoggedAction.build()
@@ -908,7 +1062,7 @@ public class SqlStorage implements StorageImplementation {
                     UUID uuid = UUID.fromString(rs.getString("uuid"));
                     Node node = readNode(rs);
                     if (node != null) {
-                        map.get(uuid).add(readNode(rs));
+                        map.get(uuid).add(node);
                     }
                 }
             }
@@ -26,9 +26,23 @@
 package com.xthesilent.aquaperms.common.tasks;
 
 import com.xthesilent.aquaperms.common.model.Group;
+import com.xthesilent.aquaperms.common.model.PermissionHolder;
+import com.xthesilent.aquaperms.common.model.PermissionHolderIdentifier;
 import com.xthesilent.aquaperms.common.model.User;
+import com.xthesilent.aquaperms.common.model.nodemap.TemporaryNodeExpiryIndex;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
+import com.aquasplashmc.api.model.PermissionHolder.Identifier;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Removes expired temporary nodes from loaded holders.
+ *
+ * <p>Only holders which the {@link TemporaryNodeExpiryIndex} reports as holding an
+ * expired node are audited.</p>
+ */
 public class ExpireTemporaryTask implements Runnable {
     private final AquaPermsPlugin plugin;
 
@@ -38,24 +52,42 @@ public class ExpireTemporaryTask implements Runnable {
 
     @Override
     public void run() {
-        boolean groupChanges = false;
-        for (Group group : this.plugin.getGroupManager().getAll().values()) {
-            if (group.auditTemporaryNodes()) {
-                this.plugin.getStorage().saveGroup(group);
-                groupChanges = true;
-            }
+        TemporaryNodeExpiryIndex index = this.plugin.getTemporaryNodeExpiryIndex();
+        List<PermissionHolderIdentifier> due = index.pollDue(System.currentTimeMillis() / 1000L);
+        if (due.isEmpty()) {
+            return;
         }
 
-        for (User user : this.plugin.getUserManager().getAll().values()) {
-            if (user.auditTemporaryNodes()) {
-                this.plugin.getStorage().saveUser(user);
+        List<String> changedGroups = new ArrayList<>();
+        for (PermissionHolderIdentifier identifier : due) {
+            PermissionHolder holder = getIfLoaded(identifier);
+            if (holder == null) {
+                // the holder has been unloaded - it will be indexed again if it's reloaded
+                continue;
+            }
+
+            if (holder.auditTemporaryNodes()) {
+                if (holder instanceof Group) {
+                    this.plugin.getStorage().saveGroup((Group) holder);
+                    changedGroups.add(((Group) holder).getName());
+                } else {
+                    this.plugin.getStorage().saveUser((User) holder);
+                }
             }
+
+            index.reschedule(holder);
         }
 
-        if (groupChanges) {
-            this.plugin.getGroupManager().invalidateAllGroupCaches();
-            this.plugin.getUserManager().invalidateAllUserCaches();
+        if (!changedGroups.isEmpty()) {
+            this.plugin.getInheritanceDependencyIndex().invalidateDependentCaches(changedGroups);
+        }
+    }
+
+    private PermissionHolder getIfLoaded(PermissionHolderIdentifier identifier) {
+        if (identifier.getType().equals(Identifier.GROUP_TYPE)) {
+            return this.plugin.getGroupManager().getIfLoaded(identifier.getName());
         }
+        return this.plugin.getUserManager().getIfLoaded(UUID.fromString(identifier.getName()));
     }
 
-}
\ No newline at end of file
+}
@@ -25,11 +25,19 @@
 
 package com.xthesilent.aquaperms.common.tasks;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import com.xthesilent.aquaperms.common.cache.BufferedRequest;
+import com.xthesilent.aquaperms.common.model.Group;
 import com.xthesilent.aquaperms.common.model.manager.group.GroupManager;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
 import com.aquasplashmc.api.event.cause.CreationCause;
+import com.aquasplashmc.api.node.Node;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -55,6 +63,9 @@ public class SyncTask implements Runnable {
             return;
         }
 
+        // Record the current state of all groups, so we can work out which have changed
+        Map<String, ImmutableSet<Node>> previousGroups = snapshotGroups();
+
         // Reload all groups
         this.plugin.getStorage().loadAllGroups().join();
         if (!this.plugin.getGroupManager().isLoaded(GroupManager.DEFAULT_GROUP_NAME)) {
@@ -69,13 +80,35 @@ public class SyncTask implements Runnable {
 
         this.plugin.performPlatformDataSync();
 
-        // Just to be sure...
-        this.plugin.getGroupManager().invalidateAllGroupCaches();
-        this.plugin.getUserManager().invalidateAllUserCaches();
+        // Invalidate the caches of holders affected by group changes.
+        // (users which have themselves changed are invalidated as they are reloaded)
+        this.plugin.getInheritanceDependencyIndex().invalidateDependentCaches(findChangedGroups(previousGroups));
 
         this.plugin.getEventDispatcher().dispatchPostSync();
     }
 
+    private Map<String, ImmutableSet<Node>> snapshotGroups() {
+        Map<String, ImmutableSet<Node>> snapshot = new HashMap<>();
+        for (Group group : this.plugin.getGroupManager().getAll().values()) {
+            snapshot.put(group.getName(), group.normalData().asImmutableSet());
+        }
+        return snapshot;
+    }
+
+    private Set<String> findChangedGroups(Map<String, ImmutableSet<Node>> previousGroups) {
+        Map<String, ImmutableSet<Node>> currentGroups = snapshotGroups();
+
+        // groups which have been added or removed have changed too
+        Set<String> changed = new HashSet<>(Sets.symmetricDifference(previousGroups.keySet(), currentGroups.keySet()));
+        for (Map.Entry<String, ImmutableSet<Node>> e : currentGroups.entrySet()) {
+            ImmutableSet<Node> previous = previousGroups.get(e.getKey());
+            if (previous != null && !previous.equals(e.getValue())) {
+                changed.add(e.getKey());
+            }
+        }
+        return changed;
+    }
+
     public static class Buffer extends BufferedRequest<Void> {
         private final AquaPermsPlugin plugin;
 
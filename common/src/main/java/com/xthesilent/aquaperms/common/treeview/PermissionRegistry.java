@@ -25,31 +25,57 @@
 
 package com.xthesilent.aquaperms.common.treeview;
 
-import com.google.common.base.Splitter;
 import com.xthesilent.aquaperms.common.plugin.scheduler.SchedulerAdapter;
 import com.xthesilent.aquaperms.common.plugin.scheduler.SchedulerTask;
 import com.xthesilent.aquaperms.common.util.ImmutableCollectors;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Stores a collection of all permissions known to the platform.
+ *
+ * <p>Permissions offered by permission checks are deduplicated against the recently
+ * offered permissions, then queued and inserted into the tree asynchronously. Both the
+ * queue and the tree are bounded, as some plugins check for "dynamic" permissions which
+ * could otherwise cause them to grow without limit. Permissions which don't fit are
+ * dropped and counted.</p>
  */
 public class PermissionRegistry implements AutoCloseable {
-    private static final Splitter DOT_SPLIT = Splitter.on('.').omitEmptyStrings();
+
+    /** The maximum number of permissions waiting to be inserted into the tree */
+    private static final int MAX_QUEUE_SIZE = 10000;
+    /** The number of recently offered permissions remembered before the set is reset */
+    private static final int MAX_SEEN_SIZE = 100000;
+    /** The maximum number of nodes in the tree */
+    private static final int MAX_TREE_SIZE = 100000;
 
     /** The root node in the tree */
     private final TreeNode rootNode;
     /** A queue of permission strings to be added to the tree */
     private final Queue<String> queue;
+    /** The number of permission strings in the queue */
+    private final AtomicInteger queueSize = new AtomicInteger();
+    /** The permissions which have recently been offered */
+    private final Set<String> seen = ConcurrentHashMap.newKeySet();
+    /** The number of nodes in the tree, excluding the root */
+    private final AtomicInteger treeSize = new AtomicInteger();
     /** The tick task */
     private final SchedulerTask task;
 
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder droppedFromQueue = new LongAdder();
+    private final LongAdder droppedFromTree = new LongAdder();
+
     public PermissionRegistry(SchedulerAdapter scheduler) {
         this.rootNode = new TreeNode();
         this.queue = new ConcurrentLinkedQueue<>();
@@ -70,13 +96,34 @@ public class PermissionRegistry implements AutoCloseable {
         if (permission == null) {
             throw new NullPointerException("permission");
         }
+
+        if (!this.seen.add(permission)) {
+            this.deduplicated.increment();
+            return;
+        }
+
+        if (this.queueSize.incrementAndGet() > MAX_QUEUE_SIZE) {
+            this.queueSize.decrementAndGet();
+            // forget the permission, so it can be offered again once there is space
+            this.seen.remove(permission);
+            this.droppedFromQueue.increment();
+            return;
+        }
+
         this.queue.offer(permission);
     }
 
-    private void tick() {
+    void tick() {
         for (String e; (e = this.queue.poll()) != null; ) {
+            this.queueSize.decrementAndGet();
             insert(e);
         }
+
+        // the set is only used to avoid repeatedly queueing the same permissions,
+        // so it's fine to occasionally start again
+        if (this.seen.size() > MAX_SEEN_SIZE) {
+            this.seen.clear();
+        }
     }
 
     @Override
@@ -95,16 +142,96 @@ public class PermissionRegistry implements AutoCloseable {
     private void doInsert(String permission) {
         permission = permission.toLowerCase(Locale.ROOT);
 
-        // split the permission up into parts
-        Iterable<String> parts = DOT_SPLIT.split(permission);
-
-        // insert the permission into the node structure
+        // insert the permission into the node structure, one part at a time
         TreeNode current = this.rootNode;
-        for (String part : parts) {
-            current = current.tryInsert(part);
-            if (current == null) {
-                return;
+        Segment segment = new Segment(permission);
+
+        int length = permission.length();
+        int start = 0;
+        while (start < length) {
+            int end = permission.indexOf('.', start);
+            if (end == -1) {
+                end = length;
             }
+
+            // skip empty parts
+            if (end != start) {
+                segment.set(start, end);
+
+                // only copy the part to a new string if it isn't already in the tree
+                TreeNode child = current.getChild(segment);
+                if (child == null) {
+                    if (this.treeSize.get() >= MAX_TREE_SIZE) {
+                        this.droppedFromTree.increment();
+                        return;
+                    }
+                    child = current.tryInsert(permission.substring(start, end), this.treeSize);
+                    if (child == null) {
+                        this.droppedFromTree.increment();
+                        return;
+                    }
+                }
+                current = child;
+            }
+
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Gets statistics about the registry, for use in health checks.
+     *
+     * @return the statistics
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("treeSize", this.treeSize.get());
+        map.put("queued", this.queueSize.get());
+        map.put("deduplicated", this.deduplicated.sum());
+        map.put("droppedFromQueue", this.droppedFromQueue.sum());
+        map.put("droppedFromTree", this.droppedFromTree.sum());
+        return map;
+    }
+
+    /**
+     * A view of one part of a permission string, which can be used to look up a
+     * child {@link TreeNode} without copying the part to a new string.
+     *
+     * <p>Has the same hash code as the equivalent string, and is equal to it. Only
+     * intended to be passed to {@link Map#get(Object)}.</p>
+     */
+    private static final class Segment {
+        private final String permission;
+        private int start;
+        private int end;
+        private int hash;
+
+        Segment(String permission) {
+            this.permission = permission;
+        }
+
+        void set(int start, int end) {
+            this.start = start;
+            this.end = end;
+
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + this.permission.charAt(i);
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof String)) return false;
+            String other = (String) o;
+            int length = this.end - this.start;
+            return other.length() == length && this.permission.regionMatches(this.start, other, 0, length);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
         }
     }
 
@@ -31,6 +31,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents one "branch" or "level" of the node tree
@@ -59,7 +60,7 @@ public class TreeNode {
         }
     }
 
-    private Map<String, TreeNode> children = null;
+    private volatile Map<String, TreeNode> children = null;
 
     private final int level;
 
@@ -81,11 +82,39 @@ public class TreeNode {
     }
 
     public @Nullable TreeNode tryInsert(String s) {
+        return tryInsert(s, null);
+    }
+
+    /**
+     * Inserts a child node, if one doesn't already exist and the size limits allow it.
+     *
+     * @param s the child key
+     * @param created a counter incremented if a new child is created, or null
+     * @return the child, or null if it could not be inserted
+     */
+    @Nullable TreeNode tryInsert(String s, @Nullable AtomicInteger created) {
         Map<String, TreeNode> childMap = getChildMap();
         if (!allowInsert(this)) {
             return null;
         }
-        return childMap.computeIfAbsent(s, x -> new TreeNode(this));
+        return childMap.computeIfAbsent(s, x -> {
+            if (created != null) {
+                created.incrementAndGet();
+            }
+            return new TreeNode(this);
+        });
+    }
+
+    /**
+     * Gets an existing child node, using a key which can be compared to the child
+     * keys without first being copied to a string.
+     *
+     * @param key the key
+     * @return the child, or null
+     */
+    @Nullable TreeNode getChild(Object key) {
+        Map<String, TreeNode> children = this.children;
+        return children == null ? null : children.get(key);
     }
 
     public Optional<Map<String, TreeNode>> getChildren() {
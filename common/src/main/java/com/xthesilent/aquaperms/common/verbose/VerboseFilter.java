@@ -25,11 +25,11 @@
 
 package com.xthesilent.aquaperms.common.verbose;
 
-import com.xthesilent.aquaperms.common.verbose.event.VerboseEvent;
 import com.xthesilent.aquaperms.common.verbose.expression.BooleanExpressionCompiler;
 import com.xthesilent.aquaperms.common.verbose.expression.BooleanExpressionCompiler.AST;
 import com.xthesilent.aquaperms.common.verbose.expression.BooleanExpressionCompiler.LexerException;
 import com.xthesilent.aquaperms.common.verbose.expression.BooleanExpressionCompiler.ParserException;
+import com.xthesilent.aquaperms.common.verbose.expression.BooleanExpressionCompiler.VariableEvaluator;
 
 /**
  * Represents a verbose filter expression.
@@ -68,7 +68,7 @@ public final class VerboseFilter {
      * @param data the check data
      * @return if the check data passes the filter
      */
-    public boolean evaluate(VerboseEvent data) {
+    public boolean evaluate(VariableEvaluator data) {
         try {
             return this.ast.eval(data);
         } catch (Exception e) {
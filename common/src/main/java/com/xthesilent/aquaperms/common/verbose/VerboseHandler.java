@@ -27,6 +27,8 @@ package com.xthesilent.aquaperms.common.verbose;
 
 import com.xthesilent.aquaperms.common.cacheddata.result.StringResult;
 import com.xthesilent.aquaperms.common.cacheddata.result.TristateResult;
+import com.xthesilent.aquaperms.common.config.ConfigKeys;
+import com.xthesilent.aquaperms.common.config.AquaPermsConfiguration;
 import com.xthesilent.aquaperms.common.plugin.scheduler.SchedulerAdapter;
 import com.xthesilent.aquaperms.common.plugin.scheduler.SchedulerTask;
 import com.xthesilent.aquaperms.common.sender.Sender;
@@ -34,40 +36,69 @@ import com.xthesilent.aquaperms.common.verbose.event.CheckOrigin;
 import com.xthesilent.aquaperms.common.verbose.event.MetaCheckEvent;
 import com.xthesilent.aquaperms.common.verbose.event.PermissionCheckEvent;
 import com.xthesilent.aquaperms.common.verbose.event.VerboseEvent;
+import com.xthesilent.aquaperms.common.verbose.expression.BooleanExpressionCompiler.VariableEvaluator;
 import com.aquasplashmc.api.query.QueryOptions;
 
 import java.util.Map;
 import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Accepts {@link VerboseEvent}s and passes them onto registered {@link VerboseListener}s.
  */
 public class VerboseHandler implements AutoCloseable {
 
+    /** The maximum number of events which can be waiting to be flushed to listeners */
+    private static final int QUEUE_CAPACITY = 10000;
+    private static final VerboseListener[] NO_LISTENERS = new VerboseListener[0];
+
     /** A map of currently registered listeners */
     private final Map<UUID, VerboseListener> listeners;
-    /** A queue of verbose events to be handled */
-    private final Queue<VerboseEvent> queue;
-    /** If there are any listeners registered */
-    private boolean listening = false;
+    /** A snapshot of the registered listeners, iterated on each check */
+    private volatile VerboseListener[] activeListeners = NO_LISTENERS;
+    /** A bounded queue of verbose events to be handled */
+    private final Queue<QueuedEvent> queue;
     /** The tick task */
     private final SchedulerTask task;
+    /** Reusable per-thread state used to evaluate filters before an event is created */
+    private final ThreadLocal<CheckProbe> probes = ThreadLocal.withInitial(CheckProbe::new);
+
+    /** Only every nth event which passes a filter is recorded */
+    private volatile int sampleInterval = 1;
+    /** If stack traces should be captured for recorded events */
+    private volatile boolean captureStackTraces = true;
+    /** The maximum number of stack frames kept for each recorded event */
+    private volatile int maxStackDepth = 64;
+    /** The number of events which have passed a filter, used for sampling */
+    private final AtomicLong sampleCounter = new AtomicLong();
 
     public VerboseHandler(SchedulerAdapter scheduler) {
         this.listeners = new ConcurrentHashMap<>();
-        this.queue = new ConcurrentLinkedQueue<>();
+        this.queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
         this.task = scheduler.asyncRepeating(this::tick, 100, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Applies the sampling and stack trace settings from the configuration.
+     *
+     * @param configuration the configuration
+     */
+    public void applySettings(AquaPermsConfiguration configuration) {
+        this.sampleInterval = configuration.get(ConfigKeys.VERBOSE_SAMPLE_INTERVAL);
+        this.captureStackTraces = configuration.get(ConfigKeys.VERBOSE_CAPTURE_STACK_TRACES);
+        this.maxStackDepth = configuration.get(ConfigKeys.VERBOSE_MAX_STACK_DEPTH);
+    }
+
     /**
      * Offers permission check data to the handler, to be eventually passed onto listeners.
      *
      * <p>The check data is added to a queue to be processed later, to avoid blocking
-     * the main thread each time a permission check is made.</p>
+     * the main thread each time a permission check is made. No event is created for
+     * the check unless it passes the filter of at least one listener and is sampled.</p>
      *
      * @param origin the origin of the check
      * @param checkTarget the target of the permission check
@@ -77,16 +108,17 @@ public class VerboseHandler implements AutoCloseable {
      */
     public void offerPermissionCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, String permission, TristateResult result) {
         // don't bother even processing the check if there are no listeners registered
-        if (!this.listening) {
+        VerboseListener[] listeners = this.activeListeners;
+        if (listeners.length == 0) {
             return;
         }
 
-        long time = System.currentTimeMillis();
-        Throwable trace = new Throwable();
-        String thread = Thread.currentThread().getName();
-
-        // add the check data to a queue to be processed later.
-        this.queue.offer(new PermissionCheckEvent(origin, checkTarget, checkQueryOptions, time, trace, thread, permission, result));
+        CheckProbe probe = this.probes.get();
+        probe.permissionCheck(checkTarget, permission, result);
+        VerboseListener[] matched = match(probe, listeners);
+        if (matched != null) {
+            enqueue(new PermissionCheckEvent(origin, checkTarget, checkQueryOptions, permission, result), matched);
+        }
     }
 
     /**
@@ -103,16 +135,72 @@ public class VerboseHandler implements AutoCloseable {
      */
     public void offerMetaCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, String key, StringResult<?> result) {
         // don't bother even processing the check if there are no listeners registered
-        if (!this.listening) {
+        VerboseListener[] listeners = this.activeListeners;
+        if (listeners.length == 0) {
             return;
         }
 
-        long time = System.currentTimeMillis();
-        Throwable trace = new Throwable();
-        String thread = Thread.currentThread().getName();
+        CheckProbe probe = this.probes.get();
+        probe.metaCheck(checkTarget, key, result);
+        VerboseListener[] matched = match(probe, listeners);
+        if (matched != null) {
+            enqueue(new MetaCheckEvent(origin, checkTarget, checkQueryOptions, key, result), matched);
+        }
+    }
+
+    /**
+     * Evaluates the filter of each listener (once) against the check, and applies sampling.
+     *
+     * @param probe the check
+     * @param listeners the listeners
+     * @return the listeners which an event for the check should be passed to, or null if
+     *         the check shouldn't be recorded
+     */
+    private VerboseListener[] match(CheckProbe probe, VerboseListener[] listeners) {
+        boolean[] results = probe.results(listeners.length);
+        int matchCount = 0;
+        for (int i = 0; i < listeners.length; i++) {
+            results[i] = listeners[i].getFilter().evaluate(probe);
+            if (results[i]) {
+                matchCount++;
+            }
+        }
+        probe.clear();
+
+        if (matchCount == 0) {
+            for (VerboseListener listener : listeners) {
+                listener.recordUnmatchedEvent();
+            }
+            return null;
+        }
+
+        int sampleInterval = this.sampleInterval;
+        boolean sampled = sampleInterval <= 1 || this.sampleCounter.getAndIncrement() % sampleInterval == 0;
+
+        VerboseListener[] matched = sampled ? new VerboseListener[matchCount] : null;
+        int j = 0;
+        for (int i = 0; i < listeners.length; i++) {
+            if (!results[i]) {
+                listeners[i].recordUnmatchedEvent();
+            } else if (sampled) {
+                matched[j++] = listeners[i];
+            } else {
+                listeners[i].recordDiscardedEvent();
+            }
+        }
+        return matched;
+    }
+
+    private void enqueue(VerboseEvent event, VerboseListener[] matched) {
+        event.captureCheckContext(this.captureStackTraces ? this.maxStackDepth : 0);
 
         // add the check data to a queue to be processed later.
-        this.queue.offer(new MetaCheckEvent(origin, checkTarget, checkQueryOptions, time, trace, thread, key, result));
+        // if the queue is full, the flush task has fallen behind, so the event is dropped
+        if (!this.queue.offer(new QueuedEvent(event, matched))) {
+            for (VerboseListener listener : matched) {
+                listener.recordDiscardedEvent();
+            }
+        }
     }
 
     /**
@@ -127,7 +215,7 @@ public class VerboseHandler implements AutoCloseable {
         flush();
 
         this.listeners.put(sender.getUniqueId(), new VerboseListener(sender, filter, notify));
-        this.listening = true;
+        updateActiveListeners();
     }
 
     /**
@@ -140,7 +228,9 @@ public class VerboseHandler implements AutoCloseable {
         // immediately flush, so the listener gets all current data
         flush();
 
-        return this.listeners.remove(sender.getUniqueId());
+        VerboseListener listener = this.listeners.remove(sender.getUniqueId());
+        updateActiveListeners();
+        return listener;
     }
 
     private void tick() {
@@ -151,16 +241,21 @@ public class VerboseHandler implements AutoCloseable {
         flush();
 
         // update listening state
-        this.listening = !this.listeners.isEmpty();
+        updateActiveListeners();
+    }
+
+    private synchronized void updateActiveListeners() {
+        this.activeListeners = this.listeners.values().toArray(NO_LISTENERS);
     }
 
     /**
      * Flushes the pending events to listeners.
      */
     public synchronized void flush() {
-        for (VerboseEvent e; (e = this.queue.poll()) != null; ) {
-            for (VerboseListener listener : this.listeners.values()) {
-                listener.acceptEvent(e);
+        for (QueuedEvent e; (e = this.queue.poll()) != null; ) {
+            e.event.trimCheckTrace();
+            for (VerboseListener listener : e.listeners) {
+                listener.acceptEvent(e.event);
             }
         }
     }
@@ -170,4 +265,65 @@ public class VerboseHandler implements AutoCloseable {
         this.task.cancel();
     }
 
+    /**
+     * An event waiting to be flushed, along with the listeners whose filter it passed.
+     */
+    private static final class QueuedEvent {
+        private final VerboseEvent event;
+        private final VerboseListener[] listeners;
+
+        QueuedEvent(VerboseEvent event, VerboseListener[] listeners) {
+            this.event = event;
+            this.listeners = listeners;
+        }
+    }
+
+    /**
+     * The properties of a check, held while filters are evaluated against it.
+     */
+    private static final class CheckProbe implements VariableEvaluator {
+        private VerboseCheckTarget checkTarget;
+        private String permission;
+        private TristateResult permissionResult;
+        private String metaKey;
+        private StringResult<?> metaResult;
+        private boolean[] results = new boolean[0];
+
+        void permissionCheck(VerboseCheckTarget checkTarget, String permission, TristateResult result) {
+            this.checkTarget = checkTarget;
+            this.permission = permission;
+            this.permissionResult = result;
+        }
+
+        void metaCheck(VerboseCheckTarget checkTarget, String key, StringResult<?> result) {
+            this.checkTarget = checkTarget;
+            this.metaKey = key;
+            this.metaResult = result;
+        }
+
+        void clear() {
+            this.checkTarget = null;
+            this.permission = null;
+            this.permissionResult = null;
+            this.metaKey = null;
+            this.metaResult = null;
+        }
+
+        boolean[] results(int size) {
+            if (this.results.length < size) {
+                this.results = new boolean[size];
+            }
+            return this.results;
+        }
+
+        @Override
+        public boolean eval(String variable) {
+            if (this.permission != null) {
+                return PermissionCheckEvent.eval(this.checkTarget, this.permission, this.permissionResult, variable);
+            } else {
+                return MetaCheckEvent.eval(this.checkTarget, this.metaKey, this.metaResult, variable);
+            }
+        }
+    }
+
 }
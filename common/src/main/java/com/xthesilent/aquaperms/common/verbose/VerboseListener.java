@@ -125,18 +125,14 @@ public class VerboseListener {
     /**
      * Accepts and processes verbose events.
      *
+     * <p>The handler has already evaluated the event against this listener's
+     * filter - only events which passed it are accepted.</p>
+     *
      * @param event the event to process
      */
     public void acceptEvent(VerboseEvent event) {
-        // increment handled counter
+        // increment handled and matched counters
         this.counter.incrementAndGet();
-
-        // check if the data passes our filter
-        if (!this.filter.evaluate(event)) {
-            return;
-        }
-
-        // increment the matched filter
         this.matchedCounter.incrementAndGet();
 
         // record the check, if we have space for it
@@ -150,6 +146,23 @@ public class VerboseListener {
         }
     }
 
+    /**
+     * Records an event which didn't pass this listener's filter.
+     */
+    public void recordUnmatchedEvent() {
+        this.counter.incrementAndGet();
+    }
+
+    /**
+     * Records an event which passed this listener's filter, but was discarded by the
+     * handler before it could be processed (due to sampling, or a full queue).
+     */
+    public void recordDiscardedEvent() {
+        this.counter.incrementAndGet();
+        // counted as matched, so the results are marked as truncated
+        this.matchedCounter.incrementAndGet();
+    }
+
     private void sendNotification(VerboseEvent event) {
         // form a text component from the check trace
         Component component;
@@ -284,6 +297,10 @@ public class VerboseListener {
         return bytebin.postContent(bytesOut.toByteArray(), AbstractHttpClient.JSON_TYPE).key();
     }
 
+    public VerboseFilter getFilter() {
+        return this.filter;
+    }
+
     public Sender getNotifiedSender() {
         return this.notifiedSender;
     }
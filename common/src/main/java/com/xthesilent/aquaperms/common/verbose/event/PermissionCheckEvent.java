@@ -46,8 +46,8 @@ public class PermissionCheckEvent extends VerboseEvent {
      */
     private final TristateResult result;
 
-    public PermissionCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, String checkThread, String permission, TristateResult result) {
-        super(origin, checkTarget, checkQueryOptions, checkTime, checkTrace, checkThread);
+    public PermissionCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, String permission, TristateResult result) {
+        super(origin, checkTarget, checkQueryOptions);
         this.permission = permission;
         this.result = result;
     }
@@ -104,10 +104,24 @@ public class PermissionCheckEvent extends VerboseEvent {
 
     @Override
     public boolean eval(String variable) {
+        return eval(getCheckTarget(), this.permission, this.result, variable);
+    }
+
+    /**
+     * Evaluates a filter variable against the properties of a permission check,
+     * without creating an event.
+     *
+     * @param checkTarget the target of the check
+     * @param permission the permission which was checked for
+     * @param result the result of the check
+     * @param variable the variable
+     * @return the result
+     */
+    public static boolean eval(VerboseCheckTarget checkTarget, String permission, TristateResult result, String variable) {
         return variable.equals("permission") ||
-                getCheckTarget().describe().equalsIgnoreCase(variable) ||
-                getPermission().toLowerCase(Locale.ROOT).startsWith(variable.toLowerCase(Locale.ROOT)) ||
-                getResult().result().name().equalsIgnoreCase(variable);
+                checkTarget.describe().equalsIgnoreCase(variable) ||
+                permission.toLowerCase(Locale.ROOT).startsWith(variable.toLowerCase(Locale.ROOT)) ||
+                result.result().name().equalsIgnoreCase(variable);
     }
 
 }
@@ -36,14 +36,21 @@ import com.aquasplashmc.api.context.Context;
 import com.aquasplashmc.api.query.QueryMode;
 import com.aquasplashmc.api.query.QueryOptions;
 
+import java.util.Arrays;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.UUID;
 
 /**
  * Represents a verbose event.
+ *
+ * <p>Events are created without any information about the context of the check
+ * (time, stack trace and thread), so they can be evaluated against filters cheaply.
+ * The context is only recorded using {@link #captureCheckContext(int)} once the
+ * event is known to be needed.</p>
  */
 public abstract class VerboseEvent implements VariableEvaluator {
+    private static final StackTraceElement[] EMPTY_TRACE = new StackTraceElement[0];
 
     /**
      * The origin of the check
@@ -63,25 +70,63 @@ public abstract class VerboseEvent implements VariableEvaluator {
     /**
      * The time when the check took place
      */
-    private final long checkTime;
+    private long checkTime;
+
+    /**
+     * The throwable created when the check took place, or null if no trace was captured
+     * (or it has already been trimmed)
+     */
+    private Throwable checkTrace;
 
     /**
-     * The throwable created when the check took place
+     * The maximum number of stack frames to keep from {@link #checkTrace}
      */
-    private final Throwable checkTrace;
+    private int maxTraceDepth;
+
+    /**
+     * The trimmed stack trace of the check
+     */
+    private StackTraceElement[] trimmedCheckTrace = EMPTY_TRACE;
 
     /**
      * The name of the thread where the check took place
      */
-    private final String checkThread;
+    private String checkThread;
 
-    protected VerboseEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, String checkThread) {
+    protected VerboseEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions) {
         this.origin = origin;
         this.checkTarget = checkTarget;
         this.checkQueryOptions = checkQueryOptions;
-        this.checkTime = checkTime;
-        this.checkTrace = checkTrace;
-        this.checkThread = checkThread;
+    }
+
+    /**
+     * Records the time, thread and (optionally) stack trace of the check.
+     *
+     * <p>Must be called on the thread which performed the check.</p>
+     *
+     * <p>The stack trace is only resolved (and trimmed to the given depth) when
+     * {@link #trimCheckTrace()} is called, so the cost isn't paid on the checking thread.</p>
+     *
+     * @param maxTraceDepth the maximum number of stack frames to keep, or 0 to not capture a trace
+     */
+    public void captureCheckContext(int maxTraceDepth) {
+        this.checkTime = System.currentTimeMillis();
+        this.checkTrace = maxTraceDepth > 0 ? new Throwable() : null;
+        this.maxTraceDepth = maxTraceDepth;
+        this.checkThread = Thread.currentThread().getName();
+    }
+
+    /**
+     * Resolves the captured stack trace, keeping only the configured number of frames,
+     * and releases the throwable used to capture it.
+     */
+    public void trimCheckTrace() {
+        Throwable checkTrace = this.checkTrace;
+        if (checkTrace != null) {
+            StackTraceElement[] trace = checkTrace.getStackTrace();
+            this.trimmedCheckTrace = trace.length > this.maxTraceDepth ? Arrays.copyOf(trace, this.maxTraceDepth) : trace;
+            this.checkTrace = null;
+        }
     }
 
     public CheckOrigin getOrigin() {
@@ -103,7 +148,8 @@ public abstract class VerboseEvent implements VariableEvaluator {
     }
 
     public StackTraceElement[] getCheckTrace() {
-        return this.checkTrace.getStackTrace();
+        trimCheckTrace();
+        return this.trimmedCheckTrace;
     }
 
     public String getCheckThread() {
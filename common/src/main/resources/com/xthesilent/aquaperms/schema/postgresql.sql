@@ -45,6 +45,10 @@ CREATE TABLE "{prefix}actions" (
   "acted_name" VARCHAR(36)              NOT NULL,
   "action"     VARCHAR(300)             NOT NULL
 );
+CREATE INDEX "{prefix}actions_time" ON "{prefix}actions" ("time");
+CREATE INDEX "{prefix}actions_actor_uuid" ON "{prefix}actions" ("actor_uuid", "time");
+CREATE INDEX "{prefix}actions_acted_uuid" ON "{prefix}actions" ("type", "acted_uuid", "time");
+CREATE INDEX "{prefix}actions_acted_name" ON "{prefix}actions" ("type", "acted_name", "time");
 
 CREATE TABLE "{prefix}tracks" (
   "name"   VARCHAR(36) PRIMARY KEY NOT NULL,
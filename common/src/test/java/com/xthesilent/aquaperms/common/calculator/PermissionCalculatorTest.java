@@ -50,10 +50,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -106,12 +109,64 @@ public class PermissionCalculatorTest {
     public void setupMocks() {
         lenient().when(this.plugin.getVerboseHandler()).thenReturn(mock(VerboseHandler.class));
         lenient().when(this.plugin.getPermissionRegistry()).thenReturn(mock(PermissionRegistry.class));
+        lenient().when(this.plugin.getPermissionLookupCacheProvider()).thenReturn(PermissionLookupCacheProvider.unbounded());
     }
 
     private PermissionCalculator createCalculator(PermissionProcessor... processors) {
         return new PermissionCalculator(this.plugin, MOCK_METADATA, ImmutableList.copyOf(processors));
     }
 
+    @ParameterizedTest
+    @ValueSource(longs = {-1, 1024 * 1024})
+    public void testBoundedLookupCache(long memoryBudgetBytes) {
+        PermissionLookupCacheProvider provider = new PermissionLookupCacheProvider(2, memoryBudgetBytes);
+        lenient().when(this.plugin.getPermissionLookupCacheProvider()).thenReturn(provider);
+
+        PermissionCalculator calculator = createCalculator(new DirectProcessor());
+        calculator.setSourcePermissions(EXAMPLE_PERMISSIONS);
+
+        assertEquals(Tristate.TRUE, calculator.checkPermission("test.node1", CheckOrigin.INTERNAL).result());
+        assertEquals(Tristate.FALSE, calculator.checkPermission("test.node2", CheckOrigin.INTERNAL).result());
+
+        // the calculator is full, so an entry is evicted to make room
+        assertEquals(Tristate.UNDEFINED, calculator.checkPermission("test.node3", CheckOrigin.INTERNAL).result());
+        assertEquals(3L, provider.getStatistics().get("misses"));
+        assertEquals(1L, provider.getStatistics().get("evictions"));
+
+        // results are still correct, whether or not they are still cached
+        assertEquals(Tristate.TRUE, calculator.checkPermission("test.node1", CheckOrigin.INTERNAL).result());
+        assertEquals(Tristate.FALSE, calculator.checkPermission("test.node2", CheckOrigin.INTERNAL).result());
+
+        // after invalidation, results are calculated again
+        long misses = (long) provider.getStatistics().get("misses");
+        calculator.invalidateCache();
+        assertEquals(Tristate.UNDEFINED, calculator.checkPermission("test.node3", CheckOrigin.INTERNAL).result());
+        assertEquals(misses + 1, provider.getStatistics().get("misses"));
+    }
+
+    @Test
+    public void testSourcePermissionsChanged() {
+        Map<String, Node> source = new ConcurrentHashMap<>(EXAMPLE_PERMISSIONS);
+        PermissionCalculator calculator = createCalculator(new DirectProcessor(), new WildcardProcessor());
+        calculator.setSourcePermissions(source);
+
+        assertEquals(Tristate.FALSE, calculator.checkPermission("test.node3", CheckOrigin.INTERNAL).result());
+
+        // adding a wildcard should refresh the wildcard processor
+        source.put("test.*", NodeBuilders.determineMostApplicable("test.*").value(true).build());
+        calculator.sourcePermissionsChanged(Collections.singleton("test.*"));
+        TristateResult result = calculator.checkPermission("test.node3", CheckOrigin.INTERNAL);
+        assertEquals(Tristate.TRUE, result.result());
+        assertSame(WildcardProcessor.class, result.processorClass());
+
+        // direct changes should be picked up too
+        source.put("test.node3", NodeBuilders.determineMostApplicable("test.node3").value(false).build());
+        calculator.sourcePermissionsChanged(Collections.singleton("test.node3"));
+        result = calculator.checkPermission("test.node3", CheckOrigin.INTERNAL);
+        assertEquals(Tristate.FALSE, result.result());
+        assertSame(DirectProcessor.class, result.processorClass());
+    }
+
     @ParameterizedTest
     @CsvSource({
             "test, UNDEFINED",
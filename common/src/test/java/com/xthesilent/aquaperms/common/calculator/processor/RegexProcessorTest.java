@@ -0,0 +1,82 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.calculator.processor;
+
+import com.google.common.collect.Maps;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class RegexProcessorTest {
+
+    private static RegexProcessor.CombinedPattern compile(String... patterns) {
+        List<Map.Entry<Pattern, Object>> entries = new ArrayList<>();
+        for (String pattern : patterns) {
+            entries.add(Maps.immutableEntry(Pattern.compile(pattern), null));
+        }
+        return RegexProcessor.CombinedPattern.compile(entries);
+    }
+
+    private static int firstMatchInOrder(String input, String... patterns) {
+        for (int i = 0; i < patterns.length; i++) {
+            if (Pattern.compile(patterns[i]).matcher(input).matches()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void testFirstMatchWins() {
+        String[] patterns = {"test\\..*", "test\\.one", "(a)(b)?c", "a(b)?", "ab.*", "x|test\\.two"};
+        RegexProcessor.CombinedPattern combined = compile(patterns);
+        assertNotNull(combined);
+
+        String[] inputs = {"test.one", "test.two", "test", "ac", "abc", "a", "ab", "abd", "x", "y", ""};
+        for (String input : inputs) {
+            assertEquals(firstMatchInOrder(input, patterns), combined.firstMatch(input), input);
+        }
+
+        assertEquals(0, combined.firstMatch("test.one"));
+        assertEquals(3, combined.firstMatch("ab"));
+        assertEquals(4, combined.firstMatch("abd"));
+        assertEquals(5, combined.firstMatch("x"));
+    }
+
+    @Test
+    public void testUncombinable() {
+        assertNull(compile("test.*"));
+        assertNull(compile("(a)\\1", "b"));
+    }
+
+}
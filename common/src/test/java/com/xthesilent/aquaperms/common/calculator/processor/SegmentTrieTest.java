@@ -0,0 +1,78 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.calculator.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SegmentTrieTest {
+
+    private static final SegmentTrie<String> TRIE = SegmentTrie.<String>builder()
+            .put("one", "one")
+            .put("one.two.three", "one.two.three")
+            .put("four.five", "four.five")
+            .put("a..b", "a..b")
+            .build();
+
+    @ParameterizedTest
+    @CsvSource({
+            "one.test, one",
+            "one.two, one",
+            "one.two.test, one",
+            "one.two.three.test, one.two.three",
+            "one.two.three.four.five, one.two.three",
+            "four.five.six, four.five",
+            "a..b.c, a..b",
+    })
+    public void testDeepestParent(String permission, String expected) {
+        assertEquals(expected, TRIE.findDeepestParent(permission));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "one",
+            "onetwo.three",
+            "four.five",
+            "four.test",
+            "four",
+            "a.b.c",
+            "test",
+    })
+    public void testNoParent(String permission) {
+        assertNull(TRIE.findDeepestParent(permission));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertNull(SegmentTrie.empty().findDeepestParent("one.two"));
+        assertNull(SegmentTrie.builder().build().findDeepestParent("one.two"));
+    }
+
+}
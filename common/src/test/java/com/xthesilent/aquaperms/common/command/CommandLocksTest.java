@@ -0,0 +1,93 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.command;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CommandLocksTest {
+
+    private static boolean isExclusive(String command) {
+        CommandLocks locks = new CommandLocks();
+
+        // hold a shared lock on another thread - an exclusive lock can't be acquired alongside it
+        Lock shared = locks.getLock(ImmutableList.of("info"));
+        CompletableFuture<Void> held = new CompletableFuture<>();
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        CompletableFuture.runAsync(() -> {
+            shared.lock();
+            try {
+                held.complete(null);
+                release.join();
+            } finally {
+                shared.unlock();
+            }
+        });
+        held.join();
+
+        Lock lock = locks.getLock(Arrays.asList(command.split(" ")));
+        try {
+            boolean acquired = lock.tryLock();
+            if (acquired) {
+                lock.unlock();
+            }
+            return !acquired;
+        } finally {
+            release.complete(null);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "user Luck permission set test, false",
+            "group admin parent add default, false",
+            "group admin info, false",
+            "track staff append admin, false",
+            "search test, false",
+            "export backup, false",
+            "group admin clone admin2, true",
+            "group admin rename admin2, true",
+            "group admin rename admin2 --update-parent-lists, true",
+            "deletegroup admin --update-parent-lists, true",
+            "deletegroup admin, true",
+            "creategroup admin, true",
+            "translations install, true",
+            "import backup.json.gz, true",
+            "bulkupdate all delete, true",
+            "migration groupmanager, true"
+    })
+    public void testExclusive(String command, boolean exclusive) {
+        assertEquals(exclusive, isExclusive(command), command);
+    }
+
+}
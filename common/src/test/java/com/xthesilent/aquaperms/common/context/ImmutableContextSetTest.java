@@ -38,6 +38,9 @@ import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ImmutableContextSetTest {
@@ -170,4 +173,22 @@ public class ImmutableContextSetTest {
         );
     }
 
+    @Test
+    public void testIntern() {
+        ImmutableContextSet a = new ImmutableContextSetImpl.BuilderImpl().add("server", "test").add("world", "world").build();
+        ImmutableContextSet b = new ImmutableContextSetImpl.BuilderImpl().add("world", "world").add("server", "test").build();
+        ImmutableContextSet c = new ImmutableContextSetImpl.BuilderImpl().add("server", "test").build();
+        assertNotSame(a, b);
+
+        ImmutableContextSet internedA = ImmutableContextSetImpl.intern(a);
+        ImmutableContextSet internedB = ImmutableContextSetImpl.intern(b);
+        ImmutableContextSet internedC = ImmutableContextSetImpl.intern(c);
+        assertSame(internedA, internedB);
+        assertSame(internedA, ImmutableContextSetImpl.intern(internedA));
+        assertEquals(a, internedB);
+        assertNotEquals(internedA, internedC);
+
+        assertSame(ImmutableContextSetImpl.EMPTY, ImmutableContextSetImpl.intern(new ImmutableContextSetImpl.BuilderImpl().build()));
+    }
+
 }
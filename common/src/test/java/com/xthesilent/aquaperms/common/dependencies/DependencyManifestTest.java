@@ -0,0 +1,106 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.dependencies;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.xthesilent.aquaperms.common.dependencies.relocation.Relocation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DependencyManifestTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRemapSurvivesReload() throws IOException {
+        Path file = Files.write(this.directory.resolve("test-remapped.jar"), "remapped".getBytes(StandardCharsets.UTF_8));
+        String relocations = DependencyManifest.hashRelocations(Dependency.CAFFEINE, ImmutableList.of(Relocation.of("caffeine", "com{}github{}benmanes{}caffeine")));
+
+        DependencyManifest manifest = new DependencyManifest(this.directory);
+        assertFalse(manifest.verifyRemap(file, relocations));
+        manifest.recordRemap(file, relocations);
+        manifest.save();
+
+        DependencyManifest reloaded = new DependencyManifest(this.directory);
+        reloaded.load();
+        assertTrue(reloaded.hasEntry(file, relocations));
+        assertTrue(reloaded.verifyRemap(file, relocations));
+        assertFalse(reloaded.verifyRemap(file, DependencyManifest.hashRelocations(Dependency.CAFFEINE, ImmutableList.of())));
+
+        Files.write(file, "corrupted!".getBytes(StandardCharsets.UTF_8));
+        assertFalse(reloaded.verifyRemap(file, relocations));
+    }
+
+    @Test
+    public void testDownloadChecksum() throws IOException {
+        Path file = Files.write(this.directory.resolve("caffeine.jar"), "not caffeine".getBytes(StandardCharsets.UTF_8));
+
+        DependencyManifest manifest = new DependencyManifest(this.directory);
+        assertFalse(manifest.verifyDownload(Dependency.CAFFEINE, file));
+        assertFalse(manifest.verifyDownload(Dependency.CAFFEINE, this.directory.resolve("missing.jar")));
+    }
+
+    @Test
+    public void testHashRelocationsIgnoresOrder() {
+        Relocation a = Relocation.of("a", "com{}a");
+        Relocation b = Relocation.of("b", "com{}b");
+
+        assertEquals(
+                DependencyManifest.hashRelocations(Dependency.CAFFEINE, ImmutableList.of(a, b)),
+                DependencyManifest.hashRelocations(Dependency.CAFFEINE, ImmutableList.of(b, a))
+        );
+        assertNotEquals(
+                DependencyManifest.hashRelocations(Dependency.CAFFEINE, ImmutableList.of(a, b)),
+                DependencyManifest.hashRelocations(Dependency.ASM, ImmutableList.of(a, b))
+        );
+    }
+
+    @Test
+    public void testPrune() throws IOException {
+        Path keep = Files.write(this.directory.resolve("keep.jar"), new byte[]{1});
+        Path stale = Files.write(this.directory.resolve("stale.jar"), new byte[]{2});
+        Path other = Files.write(this.directory.resolve("notes.txt"), new byte[]{3});
+
+        DependencyManifest manifest = new DependencyManifest(this.directory);
+        assertEquals(1, manifest.prune(ImmutableSet.of("keep.jar")));
+        assertTrue(Files.exists(keep));
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(other));
+    }
+
+}
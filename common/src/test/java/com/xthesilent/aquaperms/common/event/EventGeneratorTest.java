@@ -25,7 +25,9 @@
 
 package com.xthesilent.aquaperms.common.event;
 
+import com.google.common.collect.ImmutableSet;
 import com.xthesilent.aquaperms.common.event.gen.GeneratedEventClass;
+import com.xthesilent.aquaperms.common.event.processor.GenerateEvents;
 import com.aquasplashmc.api.AquaPerms;
 import com.aquasplashmc.api.event.AquaPermsEvent;
 import com.aquasplashmc.api.event.player.PlayerDataSaveEvent;
@@ -36,11 +38,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -52,7 +56,16 @@ public class EventGeneratorTest {
 
     @Test
     public void testGenerateAll() {
-        GeneratedEventClass.preGenerate();
+        GenerateEvents annotation = EventDispatcher.class.getAnnotation(GenerateEvents.class);
+        assertNotNull(annotation);
+
+        Set<Class<?>> declared = ImmutableSet.copyOf(annotation.value());
+        assertEquals(annotation.value().length, declared.size());
+        assertEquals(declared, ImmutableSet.copyOf(EventDispatcher.getKnownEventTypes()));
+
+        for (Class<? extends AquaPermsEvent> eventType : EventDispatcher.getKnownEventTypes()) {
+            assertNotNull(GeneratedEventClass.generate(eventType));
+        }
     }
 
     @Test
@@ -0,0 +1,148 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.messaging;
+
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import com.xthesilent.aquaperms.common.actionlog.LoggedAction;
+import com.xthesilent.aquaperms.common.messaging.message.ActionLogMessageImpl;
+import com.xthesilent.aquaperms.common.messaging.message.CustomMessageImpl;
+import com.xthesilent.aquaperms.common.messaging.message.UserUpdateMessageImpl;
+import com.xthesilent.aquaperms.common.node.types.Permission;
+import com.aquasplashmc.api.actionlog.Action;
+import com.aquasplashmc.api.node.Node;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinaryMessageCodecTest {
+
+    private static BinaryMessageCodec.Reader read(byte[] buf) {
+        assertTrue(BinaryMessageCodec.isBinaryFrame(buf));
+        BinaryMessageCodec.Reader reader = BinaryMessageCodec.readFrame(buf);
+        assertNotNull(reader);
+        return reader;
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, 127, 128, 300, Integer.MAX_VALUE, -1, Long.MAX_VALUE, Long.MIN_VALUE})
+    public void testVarInts(long value) {
+        UUID id = UUID.randomUUID();
+        byte[] buf = BinaryMessageCodec.newFrame(0, id)
+                .writeVarInt((int) value)
+                .writeVarLong(value)
+                .toByteArray();
+
+        BinaryMessageCodec.Reader reader = read(buf);
+        assertEquals(id, reader.getId());
+        assertEquals((int) value, reader.readVarInt());
+        assertEquals(value, reader.readVarLong());
+    }
+
+    @Test
+    public void testLegacyFramesAreNotBinary() {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeUTF(new CustomMessageImpl(UUID.randomUUID(), "test", "hello").asEncodedString());
+        assertFalse(BinaryMessageCodec.isBinaryFrame(out.toByteArray()));
+
+        byte[] plain = new UserUpdateMessageImpl(UUID.randomUUID(), UUID.randomUUID()).asEncodedString().getBytes(StandardCharsets.UTF_8);
+        assertFalse(BinaryMessageCodec.isBinaryFrame(plain));
+    }
+
+    @Test
+    public void testUnknownVersion() {
+        byte[] buf = new CustomMessageImpl(UUID.randomUUID(), "test", "hello").asEncodedBytes();
+        buf[2] = (byte) (BinaryMessageCodec.FORMAT_VERSION + 1);
+        assertNull(BinaryMessageCodec.readFrame(buf));
+    }
+
+    @Test
+    public void testInvalidStringLength() {
+        byte[] buf = BinaryMessageCodec.newFrame(0, UUID.randomUUID())
+                .writeVarInt(Integer.MAX_VALUE)
+                .toByteArray();
+        assertThrows(IllegalStateException.class, () -> read(buf).readString());
+
+        byte[] negative = BinaryMessageCodec.newFrame(0, UUID.randomUUID())
+                .writeVarInt(-1)
+                .toByteArray();
+        assertThrows(IllegalStateException.class, () -> read(negative).readString());
+    }
+
+    @Test
+    public void testCustomMessage() {
+        CustomMessageImpl message = new CustomMessageImpl(UUID.randomUUID(), "aquaperms:test", "héllo wörld");
+        BinaryMessageCodec.Reader reader = read(message.asEncodedBytes());
+        assertEquals(CustomMessageImpl.BINARY_TYPE, reader.getType());
+
+        CustomMessageImpl decoded = CustomMessageImpl.decode(reader);
+        assertEquals(message.getId(), decoded.getId());
+        assertEquals(message.getChannelId(), decoded.getChannelId());
+        assertEquals(message.getPayload(), decoded.getPayload());
+    }
+
+    @Test
+    public void testActionLogMessage() {
+        LoggedAction action = LoggedAction.build()
+                .timestamp(Instant.ofEpochSecond(1700000000L))
+                .source(UUID.randomUUID())
+                .sourceName("Console@global")
+                .targetType(Action.Target.Type.GROUP)
+                .targetName("admin")
+                .description("permission set test.node true")
+                .build();
+
+        ActionLogMessageImpl message = new ActionLogMessageImpl(UUID.randomUUID(), action);
+        ActionLogMessageImpl decoded = ActionLogMessageImpl.decode(read(message.asEncodedBytes()));
+        assertEquals(action, decoded.getAction());
+        assertTrue(message.asEncodedBytes().length < message.asEncodedString().length());
+    }
+
+    @Test
+    public void testNode() {
+        Node node = Permission.builder()
+                .permission("test.node")
+                .value(false)
+                .expiry(1700000000L)
+                .withContext("server", "survival")
+                .withContext("world", "nether")
+                .build();
+
+        byte[] buf = BinaryMessageCodec.newFrame(0, UUID.randomUUID()).writeNode(node).toByteArray();
+        assertEquals(node, read(buf).readNode());
+    }
+}
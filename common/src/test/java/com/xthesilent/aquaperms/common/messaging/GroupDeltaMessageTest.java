@@ -0,0 +1,114 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.messaging;
+
+import com.google.gson.JsonObject;
+import com.xthesilent.aquaperms.common.messaging.message.GroupDeltaMessageImpl;
+import com.xthesilent.aquaperms.common.model.HolderType;
+import com.xthesilent.aquaperms.common.model.PermissionHolder;
+import com.xthesilent.aquaperms.common.model.PermissionHolderIdentifier;
+import com.xthesilent.aquaperms.common.model.nodemap.NodeMapMutable;
+import com.xthesilent.aquaperms.common.model.nodemap.RecordedNodeMap;
+import com.xthesilent.aquaperms.common.node.types.Permission;
+import com.xthesilent.aquaperms.common.node.types.Prefix;
+import com.xthesilent.aquaperms.common.util.Difference;
+import com.xthesilent.aquaperms.common.util.gson.GsonProvider;
+import com.aquasplashmc.api.model.data.DataType;
+import com.aquasplashmc.api.node.Node;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class GroupDeltaMessageTest {
+
+    @Mock private PermissionHolder mockHolder;
+
+    private NodeMapMutable createMap() {
+        when(this.mockHolder.getIdentifier()).thenReturn(new PermissionHolderIdentifier(HolderType.GROUP, "test"));
+
+        NodeMapMutable map = new NodeMapMutable(this.mockHolder, DataType.NORMAL);
+        map.add(Permission.builder().permission("test.one").build());
+        map.add(Permission.builder().permission("test.two").withContext("server", "survival").build());
+        map.add(Prefix.builder("[Old]", 10).build());
+        return map;
+    }
+
+    @Test
+    public void testApplyDelta() {
+        RecordedNodeMap sender = new RecordedNodeMap(createMap());
+        NodeMapMutable receiver = createMap();
+        int initialHash = GroupDeltaMessageImpl.hashNodes(receiver);
+
+        sender.add(Permission.builder().permission("test.three").build());
+        sender.add(Permission.builder().permission("test.one").value(false).build());
+        sender.removeIf(n -> n.getKey().startsWith("prefix."));
+        sender.add(Prefix.builder("[New]", 10).build());
+
+        Difference<Node> changes = sender.copyChanges();
+        assertFalse(sender.copyChanges().isEmpty());
+
+        int hashAfter = GroupDeltaMessageImpl.hashNodes(sender);
+        int hashBefore = GroupDeltaMessageImpl.hashBefore(hashAfter, changes);
+        assertEquals(initialHash, hashBefore);
+        assertNotEquals(hashBefore, hashAfter);
+
+        UUID id = UUID.randomUUID();
+        String encoded = new GroupDeltaMessageImpl(id, UUID.randomUUID(), 1, "test", changes, hashBefore, hashAfter).asEncodedString();
+        JsonObject json = GsonProvider.normal().fromJson(encoded, JsonObject.class);
+        assertEquals(GroupDeltaMessageImpl.TYPE, json.get("type").getAsString());
+
+        GroupDeltaMessageImpl decoded = GroupDeltaMessageImpl.decode(json.get("content"), id);
+        assertTrue(decoded.isReadable());
+        assertEquals("test", decoded.getGroupName());
+        assertEquals(hashBefore, decoded.getHashBefore());
+
+        receiver.applyChanges(decoded.getChanges());
+        assertEquals(decoded.getHashAfter(), GroupDeltaMessageImpl.hashNodes(receiver));
+        assertEquals(sender.asSet(), receiver.asSet());
+    }
+
+    @Test
+    public void testUnknownFormat() {
+        JsonObject content = new JsonObject();
+        content.addProperty("version", GroupDeltaMessageImpl.FORMAT_VERSION + 1);
+        content.addProperty("source", UUID.randomUUID().toString());
+        content.addProperty("sequence", 5L);
+
+        GroupDeltaMessageImpl decoded = GroupDeltaMessageImpl.decode(content, UUID.randomUUID());
+        assertFalse(decoded.isReadable());
+        assertEquals(5L, decoded.getSequence());
+    }
+}
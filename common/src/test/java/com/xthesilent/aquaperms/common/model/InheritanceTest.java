@@ -28,28 +28,55 @@ package com.xthesilent.aquaperms.common.model;
 import com.xthesilent.aquaperms.common.config.ConfigKeys;
 import com.xthesilent.aquaperms.common.config.AquaPermsConfiguration;
 import com.xthesilent.aquaperms.common.event.EventDispatcher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.xthesilent.aquaperms.common.cacheddata.type.LayeredPermissionMap;
+import com.xthesilent.aquaperms.common.cacheddata.type.PermissionCache;
+import com.xthesilent.aquaperms.common.context.ImmutableContextSetImpl;
+import com.xthesilent.aquaperms.common.calculator.CalculatorFactory;
+import com.xthesilent.aquaperms.common.calculator.PermissionCalculator;
+import com.xthesilent.aquaperms.common.context.manager.ContextManager;
 import com.xthesilent.aquaperms.common.graph.TraversalAlgorithm;
+import com.xthesilent.aquaperms.common.inheritance.InheritanceDependencyIndex;
+import com.xthesilent.aquaperms.common.inheritance.InheritanceGraph;
 import com.xthesilent.aquaperms.common.inheritance.InheritanceGraphFactory;
 import com.xthesilent.aquaperms.common.model.manager.group.GroupManager;
 import com.xthesilent.aquaperms.common.model.manager.group.StandardGroupManager;
+import com.xthesilent.aquaperms.common.model.manager.user.UserManager;
 import com.xthesilent.aquaperms.common.node.types.Inheritance;
+import com.xthesilent.aquaperms.common.node.types.Permission;
 import com.xthesilent.aquaperms.common.node.types.Weight;
 import com.xthesilent.aquaperms.common.plugin.AquaPermsPlugin;
+import com.xthesilent.aquaperms.common.query.QueryOptionsBuilderImpl;
 import com.xthesilent.aquaperms.common.query.QueryOptionsImpl;
 import com.aquasplashmc.api.context.ContextSatisfyMode;
+import com.aquasplashmc.api.model.data.DataType;
+import com.aquasplashmc.api.node.Node;
+import com.aquasplashmc.api.query.QueryMode;
+import com.aquasplashmc.api.query.QueryOptions;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -126,6 +153,204 @@ public class InheritanceTest {
         assertEquals(expectedList, groups);
     }
 
+    @Test
+    public void testCachedSuccessorsInvalidated() {
+        Group member = this.groupManager.getOrMake("member");
+        Group low = createGroup("low", 1, member);
+        Group high = createGroup("high", 2, member);
+
+        Group test = this.groupManager.getOrMake("test");
+        test.normalData().add(Inheritance.builder().group(low.getName()).build());
+        test.normalData().add(Inheritance.builder().group(high.getName()).build());
+
+        InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        assertEquals(Arrays.asList(high, low), ImmutableList.copyOf(graph.successors(test)));
+
+        // changing the weight of a successor should re-sort
+        low.setNode(DataType.NORMAL, Weight.builder().weight(3).build(), false);
+        assertEquals(Arrays.asList(low, high), ImmutableList.copyOf(graph.successors(test)));
+
+        // changing the holders own inheritance should re-resolve
+        test.normalData().remove(Inheritance.builder().group(high.getName()).build());
+        assertEquals(Collections.singletonList(low), ImmutableList.copyOf(graph.successors(test)));
+
+        // loading a group which was previously missing should re-resolve
+        test.normalData().add(Inheritance.builder().group("late").build());
+        assertEquals(Collections.singletonList(low), ImmutableList.copyOf(graph.successors(test)));
+        Group late = createGroup("late", 10, member);
+        assertEquals(Arrays.asList(late, low), ImmutableList.copyOf(graph.successors(test)));
+    }
+
+    @Test
+    public void testAttachedGraphInvalidated() {
+        Group member = this.groupManager.getOrMake("member");
+        Group low = createGroup("low", 1, member);
+        Group high = createGroup("high", 2, member);
+
+        Group test = this.groupManager.getOrMake("test");
+        test.normalData().add(Inheritance.builder().group(low.getName()).build());
+        test.normalData().add(Inheritance.builder().group(high.getName()).build());
+
+        QueryOptions queryOptions = QueryOptionsImpl.intern(new QueryOptionsBuilderImpl(QueryMode.CONTEXTUAL)
+                .context(ImmutableContextSetImpl.of("server", "test"))
+                .build());
+
+        // the graph should be attached to the interned options & shared by equal options
+        InheritanceGraphFactory factory = this.plugin.getInheritanceGraphFactory();
+        InheritanceGraph graph = factory.getGraph(queryOptions);
+        assertSame(graph, ((QueryOptionsImpl) queryOptions).getInheritanceGraph());
+        assertSame(graph, factory.getGraph(QueryOptionsImpl.intern(queryOptions.toBuilder().build())));
+        assertEquals(Arrays.asList(high, low), ImmutableList.copyOf(graph.successors(test)));
+
+        // changing a group should re-resolve
+        low.setNode(DataType.NORMAL, Weight.builder().weight(3).build(), false);
+        assertEquals(Arrays.asList(low, high), ImmutableList.copyOf(graph.successors(test)));
+
+        // unloading a group should re-resolve
+        this.groupManager.unload("high");
+        assertEquals(Collections.singletonList(low), ImmutableList.copyOf(graph.successors(test)));
+
+        // loading a group should re-resolve
+        Group late = createGroup("late", 10, member);
+        test.normalData().add(Inheritance.builder().group(late.getName()).build());
+        assertEquals(Arrays.asList(late, low), ImmutableList.copyOf(graph.successors(test)));
+
+        // graphs attached by another factory shouldn't be used
+        InheritanceGraph otherGraph = new InheritanceGraphFactory(this.plugin).getGraph(queryOptions);
+        assertNotSame(graph, otherGraph);
+        assertSame(otherGraph, ((QueryOptionsImpl) queryOptions).getInheritanceGraph());
+        assertNotSame(otherGraph, factory.getGraph(queryOptions));
+    }
+
+    @Test
+    public void testDependencyIndex() {
+        //noinspection unchecked
+        UserManager<User> userManager = mock(UserManager.class);
+        //noinspection unchecked,rawtypes
+        lenient().when(this.plugin.getUserManager()).thenReturn((UserManager) userManager);
+
+        InheritanceDependencyIndex index = new InheritanceDependencyIndex(this.plugin);
+        when(this.plugin.getInheritanceDependencyIndex()).thenReturn(index);
+
+        Group member = this.groupManager.getOrMake("member");
+        Group helper = createGroup("helper", 10, member);
+        Group mod = createGroup("mod", 11, helper);
+        Group vip = createGroup("vip", 5, member);
+        Group other = this.groupManager.getOrMake("other");
+
+        assertEquals(ImmutableSet.of(mod), index.findDependents(Collections.singleton("helper")));
+        assertEquals(ImmutableSet.of(helper, mod, vip), index.findDependents(Collections.singleton("member")));
+        assertEquals(ImmutableSet.of(), index.findDependents(Collections.singleton("other")));
+
+        // changes to inheritance should be picked up
+        other.normalData().add(Inheritance.builder().group(vip.getName()).build());
+        assertEquals(ImmutableSet.of(helper, mod, vip, other), index.findDependents(Collections.singleton("member")));
+
+        // unloaded holders should be removed from the index
+        this.groupManager.unload("vip");
+        assertEquals(ImmutableSet.of(helper, mod), index.findDependents(Collections.singleton("member")));
+        assertEquals(ImmutableSet.of(other), index.findDependents(Collections.singleton("vip")));
+    }
+
+    @Test
+    public void testLayeredPermissions() {
+        when(this.configuration.get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM)).thenReturn(TraversalAlgorithm.DEPTH_FIRST_PRE_ORDER);
+        when(this.configuration.get(ConfigKeys.POST_TRAVERSAL_INHERITANCE_SORT)).thenReturn(false);
+
+        Group member = this.groupManager.getOrMake("member");
+        member.normalData().add(Permission.builder().permission("essentials.home").build());
+        member.normalData().add(Permission.builder().permission("essentials.(warp|spawn)").build());
+        Group vip = createGroup("vip", 5, member);
+        vip.normalData().add(Permission.builder().permission("essentials.warp").value(false).build());
+        vip.normalData().add(Permission.builder().permission("essentials.fly").build());
+
+        Group test = this.groupManager.getOrMake("test");
+        test.normalData().add(Inheritance.builder().group(vip.getName()).build());
+        test.normalData().add(Permission.builder().permission("essentials.home").value(false).build());
+        test.normalData().add(Permission.builder().permission("essentials.(fly|spawn)").value(false).build());
+
+        Map<String, ?> expected = test.exportPermissions(HashMap::new, QueryOptionsImpl.DEFAULT_CONTEXTUAL, true, true);
+        Map<String, ?> layered = test.exportSourcePermissions(QueryOptionsImpl.DEFAULT_CONTEXTUAL, true);
+        assertInstanceOf(LayeredPermissionMap.class, layered);
+        assertEquals(expected, new HashMap<>(layered));
+        assertEquals(expected.size(), layered.size());
+
+        // the layer should be shared between holders with the same tree
+        Group other = this.groupManager.getOrMake("other");
+        other.normalData().add(Inheritance.builder().group(vip.getName()).build());
+        LayeredPermissionMap otherLayered = (LayeredPermissionMap) other.exportSourcePermissions(QueryOptionsImpl.DEFAULT_CONTEXTUAL, true);
+        assertSame(((LayeredPermissionMap) layered).getLayer(), otherLayered.getLayer());
+
+        // changes shouldn't leak into the shared layer
+        otherLayered.remove("essentials.fly");
+        otherLayered.put("essentials.test", otherLayered.get("essentials.home"));
+        assertEquals(null, otherLayered.get("essentials.fly"));
+        assertEquals(expected.get("essentials.fly"), layered.get("essentials.fly"));
+        assertEquals(null, layered.get("essentials.test"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testPermissionChangesApplied(boolean applyShorthand) {
+        when(this.configuration.get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM)).thenReturn(TraversalAlgorithm.DEPTH_FIRST_PRE_ORDER);
+        when(this.configuration.get(ConfigKeys.POST_TRAVERSAL_INHERITANCE_SORT)).thenReturn(false);
+        when(this.configuration.get(ConfigKeys.APPLYING_SHORTHAND)).thenReturn(applyShorthand);
+        lenient().when(this.configuration.get(ConfigKeys.GROUP_NAME_REWRITES)).thenReturn(Collections.emptyMap());
+
+        //noinspection rawtypes
+        ContextManager contextManager = mock(ContextManager.class);
+        lenient().when(this.plugin.getContextManager()).thenReturn(contextManager);
+        lenient().when(contextManager.getStaticQueryOptions()).thenReturn(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+
+        CalculatorFactory calculatorFactory = mock(CalculatorFactory.class);
+        when(this.plugin.getCalculatorFactory()).thenReturn(calculatorFactory);
+        when(calculatorFactory.build(any(), any())).thenAnswer(invocation -> mock(PermissionCalculator.class));
+
+        Group member = this.groupManager.getOrMake("member");
+        member.setNode(DataType.NORMAL, Permission.builder().permission("essentials.home").build(), false);
+        member.setNode(DataType.NORMAL, Permission.builder().permission("essentials.(warp|spawn)").build(), false);
+        Group test = createGroup("test", 5, member);
+
+        QueryOptions queryOptions = QueryOptionsImpl.DEFAULT_CONTEXTUAL;
+        PermissionCache cache = test.getCachedData().getPermissionData(queryOptions);
+        assertPatchedCacheMatchesFresh(test, cache, queryOptions, applyShorthand);
+
+        // override inherited permissions, including some resolved from shorthand
+        Node negated = Permission.builder().permission("essentials.home").value(false).build();
+        Node negatedShorthand = Permission.builder().permission("essentials.(spawn|fly)").value(false).build();
+        test.setNode(DataType.NORMAL, negated, false);
+        assertPatchedCacheMatchesFresh(test, cache, queryOptions, applyShorthand);
+        test.setNode(DataType.NORMAL, negatedShorthand, false);
+        assertPatchedCacheMatchesFresh(test, cache, queryOptions, applyShorthand);
+
+        // add a temporary permission, then make it permanent
+        Node temporary = Permission.builder().permission("essentials.tp").expiry(1, TimeUnit.HOURS).build();
+        Node permanent = Permission.builder().permission("essentials.tp").build();
+        test.setNode(DataType.NORMAL, temporary, false);
+        assertPatchedCacheMatchesFresh(test, cache, queryOptions, applyShorthand);
+        test.setNode(DataType.NORMAL, permanent, false);
+        assertPatchedCacheMatchesFresh(test, cache, queryOptions, applyShorthand);
+
+        // remove the overrides, so the inherited permissions apply again
+        test.unsetNode(DataType.NORMAL, negated);
+        assertPatchedCacheMatchesFresh(test, cache, queryOptions, applyShorthand);
+        test.unsetNode(DataType.NORMAL, negatedShorthand);
+        assertPatchedCacheMatchesFresh(test, cache, queryOptions, applyShorthand);
+        test.unsetNode(DataType.NORMAL, permanent);
+        assertPatchedCacheMatchesFresh(test, cache, queryOptions, applyShorthand);
+    }
+
+    private static void assertPatchedCacheMatchesFresh(Group group, PermissionCache cache, QueryOptions queryOptions, boolean applyShorthand) {
+        // the existing cache should have been updated in place, not replaced
+        assertSame(cache, group.getCachedData().getPermissionData(queryOptions));
+
+        Map<String, Node> fresh = group.exportPermissions(HashMap::new, queryOptions, true, applyShorthand);
+        assertEquals(Maps.transformValues(fresh, Node::getValue), new HashMap<>(cache.getPermissionMap()));
+        for (Map.Entry<String, Node> entry : fresh.entrySet()) {
+            assertEquals(entry.getValue(), group.resolveExportedPermission(entry.getKey(), queryOptions, applyShorthand));
+        }
+    }
+
     private Group createGroup(String name, int weight, Group parent) {
         Group group = this.groupManager.getOrMake(name);
         group.normalData().add(Inheritance.builder().group(parent.getName()).build());
@@ -57,8 +57,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -324,5 +328,78 @@ public class NodeMapTest {
         assertEquals(expectedInheritance, inheritanceOutput.size());
     }
 
+    @Test
+    public void testCompactContent() {
+        List<Node> nodes = ImmutableList.of(
+                makeNode("test1"),
+                makeNode("test2").toBuilder().value(false).withContext("server", "test").build(),
+                makeNode("test3").toBuilder().expiry(Duration.ofHours(1)).build(),
+                makeNode("group.test1"),
+                makeNode("group.test2").toBuilder().value(false).withContext("world", "test").build(),
+                makeNode("prefix.100.test").toBuilder().withContext("server", "test").build()
+        );
+
+        NodeMapMutable expected = new NodeMapMutable(this.mockHolder, DataType.NORMAL);
+        expected.setContent(nodes);
+
+        NodeMapMutable map = new NodeMapMutable(this.mockHolder, DataType.NORMAL);
+        Difference<Node> result = map.setContentCompact(nodes);
+        assertTrue(map.isCompact());
+        assertEquals(ImmutableSet.copyOf(nodes), result.getAdded());
+
+        // reads should match the uncompacted map, in the same order
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.asList(), map.asList());
+        assertEquals(expected.inheritanceAsList(), map.inheritanceAsList());
+        assertEquals(expected.asMap(), map.asMap());
+        assertEquals(expected.inheritanceAsMap(), map.inheritanceAsMap());
+        assertEquals(expected.nodesInContext(ImmutableContextSetImpl.of("server", "test")), map.nodesInContext(ImmutableContextSetImpl.of("server", "test")));
+        assertEquals(ORIGIN, map.asList().get(0).metadata(InheritanceOriginMetadata.KEY).getOrigin());
+        assertTrue(map.removeExpired().isEmpty());
+        assertTrue(map.isCompact());
+
+        // mutations should inflate the map first
+        Difference<Node> removed = map.remove(makeNode("test1"));
+        assertFalse(map.isCompact());
+        assertEquals(ImmutableSet.of(makeNode("test1")), removed.getRemoved());
+        assertEquals(expected.size() - 1, map.size());
+    }
+
+    @Test
+    public void testCompactContentConcurrentReads() throws InterruptedException {
+        List<Node> nodes = ImmutableList.of(
+                makeNode("test1"),
+                makeNode("test2").toBuilder().withContext("server", "test").build(),
+                makeNode("group.test1")
+        );
+
+        NodeMapMutable map = new NodeMapMutable(this.mockHolder, DataType.NORMAL);
+        map.setContent(nodes);
+
+        // readers should always see all of the nodes, whilst the map is repeatedly compacted & inflated
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger failures = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                if (map.size() != 3 || map.asList().size() != 3 || map.inheritanceAsList().size() != 1) {
+                    failures.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+
+        try {
+            for (int i = 0; i < 5000; i++) {
+                map.setContentCompact(nodes);
+                map.add(nodes.get(0));
+            }
+        } finally {
+            running.set(false);
+            reader.join();
+        }
+
+        assertEquals(0, failures.get());
+        assertEquals(ImmutableSet.copyOf(nodes), ImmutableSet.copyOf(map.asList()));
+    }
 
 }
@@ -0,0 +1,66 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.model.nodemap;
+
+import com.google.common.collect.ImmutableList;
+import com.xthesilent.aquaperms.common.model.HolderType;
+import com.xthesilent.aquaperms.common.model.PermissionHolderIdentifier;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TemporaryNodeExpiryIndexTest {
+
+    private static final PermissionHolderIdentifier ADMIN = new PermissionHolderIdentifier(HolderType.GROUP, "admin");
+    private static final PermissionHolderIdentifier MOD = new PermissionHolderIdentifier(HolderType.GROUP, "mod");
+
+    @Test
+    public void testPollsOnlyDueHoldersInOrder() {
+        TemporaryNodeExpiryIndex index = new TemporaryNodeExpiryIndex();
+        index.schedule(MOD, 200);
+        index.schedule(ADMIN, 100);
+
+        assertTrue(index.pollDue(100).isEmpty());
+        assertEquals(ImmutableList.of(ADMIN), index.pollDue(101));
+        assertEquals(ImmutableList.of(MOD), index.pollDue(1000));
+        assertTrue(index.pollDue(1000).isEmpty());
+    }
+
+    @Test
+    public void testKeepsEarliestEntryPerHolder() {
+        TemporaryNodeExpiryIndex index = new TemporaryNodeExpiryIndex();
+        index.schedule(ADMIN, 300);
+        index.schedule(ADMIN, 400);
+        index.schedule(ADMIN, 100);
+
+        // the entries for 300 and 400 are superseded, so the holder is only returned once
+        assertEquals(ImmutableList.of(ADMIN), index.pollDue(1000));
+        assertTrue(index.pollDue(1000).isEmpty());
+        assertEquals(0, index.getStatistics().get("entries"));
+    }
+
+}
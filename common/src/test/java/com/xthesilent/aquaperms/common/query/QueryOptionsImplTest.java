@@ -0,0 +1,98 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+
+package com.xthesilent.aquaperms.common.query;
+
+import com.xthesilent.aquaperms.common.context.ImmutableContextSetImpl;
+import com.aquasplashmc.api.context.ImmutableContextSet;
+import com.aquasplashmc.api.query.Flag;
+import com.aquasplashmc.api.query.QueryMode;
+import com.aquasplashmc.api.query.QueryOptions;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QueryOptionsImplTest {
+
+    private static QueryOptions create(String server) {
+        ImmutableContextSet context = new ImmutableContextSetImpl.BuilderImpl().add("server", server).add("world", "world").build();
+        return new QueryOptionsBuilderImpl(QueryMode.CONTEXTUAL).context(context).flag(Flag.RESOLVE_INHERITANCE, false).build();
+    }
+
+    @Test
+    public void testIntern() {
+        QueryOptions a = create("test");
+        QueryOptions b = create("test");
+        assertNotSame(a, b);
+        assertFalse(((QueryOptionsImpl) a).isInterned());
+
+        QueryOptions internedA = QueryOptionsImpl.intern(a);
+        QueryOptions internedB = QueryOptionsImpl.intern(b);
+        assertSame(internedA, internedB);
+        assertSame(internedA, QueryOptionsImpl.intern(internedA));
+        assertTrue(((QueryOptionsImpl) internedA).isInterned());
+
+        // the context set should be interned too
+        assertSame(ImmutableContextSetImpl.intern(a.context()), internedA.context());
+
+        assertSame(QueryOptionsImpl.DEFAULT_CONTEXTUAL, QueryOptionsImpl.intern(new QueryOptionsBuilderImpl(QueryMode.CONTEXTUAL).build()));
+        assertSame(QueryOptionsImpl.DEFAULT_NON_CONTEXTUAL, QueryOptionsImpl.intern(new QueryOptionsBuilderImpl(QueryMode.NON_CONTEXTUAL).build()));
+    }
+
+    @Test
+    public void testInternedEquality() {
+        QueryOptions a = create("test");
+        QueryOptions c = create("other");
+
+        QueryOptions internedA = QueryOptionsImpl.intern(a);
+        QueryOptions internedC = QueryOptionsImpl.intern(c);
+
+        // two different interned instances are never equal
+        assertNotEquals(internedA, internedC);
+        assertNotEquals(internedC, internedA);
+        assertEquals(internedA, internedA);
+
+        // but interned and non interned instances are still compared by value
+        assertEquals(a, internedA);
+        assertEquals(internedA, a);
+        assertEquals(internedA, create("test"));
+        assertEquals(internedA.hashCode(), a.hashCode());
+        assertNotEquals(internedA, create("other"));
+    }
+
+    @Test
+    public void testInheritanceGraphOnlyAttachedWhenInterned() {
+        QueryOptionsImpl notInterned = (QueryOptionsImpl) create("test");
+        assertThrows(IllegalStateException.class, () -> notInterned.setInheritanceGraph(null));
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SaveCoalescerTest {
+
+    /** An executor which only runs tasks when asked to */
+    private static final class ManualExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            this.tasks.add(command);
+        }
+
+        boolean runNext() {
+            Runnable task = this.tasks.poll();
+            if (task == null) {
+                return false;
+            }
+            task.run();
+            return true;
+        }
+    }
+
+    @Test
+    public void testRequestsWaitingAreCoalesced() {
+        ManualExecutor executor = new ManualExecutor();
+        SaveCoalescer<String> coalescer = new SaveCoalescer<>(executor, 4);
+        AtomicInteger writes = new AtomicInteger();
+
+        CompletableFuture<Void> first = coalescer.submit("a", writes::incrementAndGet);
+        CompletableFuture<Void> second = coalescer.submit("a", writes::incrementAndGet);
+        assertSame(first, second);
+
+        assertTrue(executor.runNext());
+        assertFalse(executor.runNext());
+        assertEquals(1, writes.get());
+        assertTrue(first.isDone());
+    }
+
+    @Test
+    public void testRequestWhilstRunningWritesAgain() {
+        ManualExecutor executor = new ManualExecutor();
+        SaveCoalescer<String> coalescer = new SaveCoalescer<>(executor, 4);
+        AtomicInteger writes = new AtomicInteger();
+        CompletableFuture<?>[] duringWrite = new CompletableFuture<?>[1];
+
+        CompletableFuture<Void> first = coalescer.submit("a", () -> {
+            writes.incrementAndGet();
+            duringWrite[0] = coalescer.submit("a", writes::incrementAndGet);
+        });
+
+        assertTrue(executor.runNext());
+        assertTrue(first.isDone());
+        assertNotSame(first, duringWrite[0]);
+        assertFalse(duringWrite[0].isDone());
+
+        assertTrue(executor.runNext());
+        assertEquals(2, writes.get());
+        assertTrue(duringWrite[0].isDone());
+    }
+
+    @Test
+    public void testParallelismIsBounded() {
+        ManualExecutor executor = new ManualExecutor();
+        SaveCoalescer<String> coalescer = new SaveCoalescer<>(executor, 1);
+
+        CompletableFuture<Void> a = coalescer.submit("a", () -> {});
+        CompletableFuture<Void> b = coalescer.submit("b", () -> {});
+        assertEquals(1, executor.tasks.size());
+
+        assertTrue(executor.runNext());
+        assertTrue(a.isDone());
+        assertFalse(b.isDone());
+
+        assertTrue(executor.runNext());
+        assertTrue(b.isDone());
+    }
+
+    @Test
+    public void testFailureIsShared() {
+        ManualExecutor executor = new ManualExecutor();
+        SaveCoalescer<String> coalescer = new SaveCoalescer<>(executor, 1);
+
+        CompletableFuture<Void> first = coalescer.submit("a", () -> {
+            throw new IllegalStateException("test");
+        });
+        CompletableFuture<Void> second = coalescer.submit("a", () -> {
+            throw new IllegalStateException("test");
+        });
+
+        assertTrue(executor.runNext());
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+    }
+}
@@ -26,8 +26,11 @@
 package com.xthesilent.aquaperms.common.storage;
 
 import com.google.common.collect.ImmutableSet;
+import com.xthesilent.aquaperms.common.actionlog.ActionFilterImpl;
 import com.xthesilent.aquaperms.common.actionlog.Log;
+import com.xthesilent.aquaperms.common.actionlog.LogPage;
 import com.xthesilent.aquaperms.common.actionlog.LoggedAction;
+import com.xthesilent.aquaperms.common.actionlog.PageParameters;
 import com.xthesilent.aquaperms.common.config.ConfigKeys;
 import com.xthesilent.aquaperms.common.config.AquaPermsConfiguration;
 import com.xthesilent.aquaperms.common.event.EventDispatcher;
@@ -63,6 +66,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -128,6 +134,65 @@ public class SqlStorageTest {
         assertEquals(action, log.getContent().first());
     }
 
+    @Test
+    public void testActionLogBatch() throws Exception {
+        List<Action> actions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            actions.add(LoggedAction.build()
+                    .timestamp(Instant.ofEpochSecond(1000 + i))
+                    .source(UUID.randomUUID())
+                    .sourceName("Test Source")
+                    .targetType(Action.Target.Type.GROUP)
+                    .targetName("group_" + i)
+                    .description("action " + i)
+                    .build());
+        }
+
+        this.storage.logActions(actions);
+
+        Log log = this.storage.getLog();
+        assertEquals(10, log.getContent().size());
+        assertEquals(actions, new ArrayList<>(log.getContent()));
+    }
+
+    @Test
+    public void testActionLogQuery() throws Exception {
+        UUID source = UUID.randomUUID();
+        UUID target = UUID.randomUUID();
+
+        for (int i = 0; i < 25; i++) {
+            this.storage.logAction(LoggedAction.build()
+                    .timestamp(Instant.ofEpochSecond(1000 + i))
+                    .source(source)
+                    .sourceName("Test Source")
+                    .targetType(i % 5 == 0 ? Action.Target.Type.USER : Action.Target.Type.GROUP)
+                    .target(i % 5 == 0 ? target : null)
+                    .targetName(i % 5 == 0 ? "Test Target" : "group_" + i)
+                    .description("action " + i)
+                    .build());
+        }
+
+        LogPage userHistory = this.storage.queryActions(ActionFilterImpl.user(target), null);
+        assertEquals(5, userHistory.getTotalEntries());
+        assertEquals(5, userHistory.getContent().size());
+
+        LogPage lastPage = this.storage.queryActions(ActionFilterImpl.source(source), PageParameters.lastPage(10));
+        assertEquals(25, lastPage.getTotalEntries());
+        assertEquals(3, lastPage.getPageNumber());
+        assertEquals(5, lastPage.getContent().size());
+        assertEquals(21, lastPage.getEntries().get(0).position());
+        assertEquals("action 20", lastPage.getContent().get(0).getDescription());
+
+        LogPage search = this.storage.queryActions(ActionFilterImpl.search("GROUP_1"), new PageParameters(10, 1));
+        assertEquals(9, search.getTotalEntries()); // group_1, and group_11 to group_19 excluding group_15
+
+        LogPage range = this.storage.queryActions(ActionFilterImpl.builder()
+                .after(Instant.ofEpochSecond(1010))
+                .before(Instant.ofEpochSecond(1015))
+                .build(), null);
+        assertEquals(5, range.getTotalEntries());
+    }
+
     @Test
     public void testSavePlayerData() throws Exception {
         UUID uniqueId = UUID.randomUUID();
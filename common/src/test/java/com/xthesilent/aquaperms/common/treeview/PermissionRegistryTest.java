@@ -0,0 +1,75 @@
+/*
+ * This file is part of AquaPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) AquasplashMC (XTHESilent) <xthesilent@aquasplashmc.com>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package com.xthesilent.aquaperms.common.treeview;
+
+import com.google.common.collect.ImmutableList;
+import com.xthesilent.aquaperms.common.plugin.scheduler.SchedulerAdapter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class PermissionRegistryTest {
+
+    @Test
+    public void testInsert() {
+        PermissionRegistry registry = new PermissionRegistry(mock(SchedulerAdapter.class));
+        registry.insert("a.b.c");
+        registry.insert("A.B.d");
+        registry.insert("a..b.c.");
+        registry.insert("x");
+
+        assertEquals(ImmutableList.of("x", "a", "a.b", "a.b.c", "a.b.d"), registry.rootAsList());
+        assertEquals(5, registry.getStatistics().get("treeSize"));
+    }
+
+    @Test
+    public void testOfferDeduplicates() {
+        PermissionRegistry registry = new PermissionRegistry(mock(SchedulerAdapter.class));
+        registry.offer("a.b");
+        registry.offer("a.b");
+        registry.offer("a.c");
+
+        assertEquals(2, registry.getStatistics().get("queued"));
+        assertEquals(1L, registry.getStatistics().get("deduplicated"));
+
+        registry.tick();
+        assertEquals(0, registry.getStatistics().get("queued"));
+        assertEquals(ImmutableList.of("a", "a.b", "a.c"), registry.rootAsList());
+    }
+
+    @Test
+    public void testQueueIsBounded() {
+        PermissionRegistry registry = new PermissionRegistry(mock(SchedulerAdapter.class));
+        for (int i = 0; i < 10010; i++) {
+            registry.offer("dynamic." + i);
+        }
+
+        assertEquals(10000, registry.getStatistics().get("queued"));
+        assertEquals(10L, registry.getStatistics().get("droppedFromQueue"));
+    }
+
+}
@@ -69,9 +69,6 @@ public class VerboseFilterTest {
                 CheckOrigin.INTERNAL,
                 VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, "Player1"),
                 QueryOptionsImpl.DEFAULT_CONTEXTUAL,
-                System.currentTimeMillis(),
-                new Throwable(),
-                "test",
                 "aquaperms.user.parent.info",
                 TristateResult.forMonitoredResult(Tristate.TRUE)
         );
@@ -80,9 +77,6 @@ public class VerboseFilterTest {
                 CheckOrigin.INTERNAL,
                 VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, "aaaaaaa"),
                 QueryOptionsImpl.DEFAULT_CONTEXTUAL,
-                System.currentTimeMillis(),
-                new Throwable(),
-                "test",
                 "aaaaaaaaa",
                 TristateResult.forMonitoredResult(Tristate.FALSE)
         );
@@ -112,9 +106,6 @@ public class VerboseFilterTest {
                 CheckOrigin.INTERNAL,
                 VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, "Player1"),
                 QueryOptionsImpl.DEFAULT_CONTEXTUAL,
-                System.currentTimeMillis(),
-                new Throwable(),
-                "test",
                 "nametags.nametag",
                 StringResult.of("ADMIN")
         );
@@ -123,9 +114,6 @@ public class VerboseFilterTest {
                 CheckOrigin.INTERNAL,
                 VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, "aaaaaaa"),
                 QueryOptionsImpl.DEFAULT_CONTEXTUAL,
-                System.currentTimeMillis(),
-                new Throwable(),
-                "test",
                 "aaaaaaaaa",
                 StringResult.of("aaaaaa")
         );
@@ -27,9 +27,9 @@ package com.xthesilent.aquaperms.forge.context;
 
 import com.xthesilent.aquaperms.common.config.ConfigKeys;
 import com.xthesilent.aquaperms.common.context.ImmutableContextSetImpl;
+import com.xthesilent.aquaperms.common.context.calculator.SignalledContextCalculator;
 import com.xthesilent.aquaperms.forge.LPForgePlugin;
 import com.aquasplashmc.api.context.Context;
-import com.aquasplashmc.api.context.ContextCalculator;
 import com.aquasplashmc.api.context.ContextConsumer;
 import com.aquasplashmc.api.context.ContextSet;
 import com.aquasplashmc.api.context.DefaultContextKeys;
@@ -47,7 +47,7 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.Set;
 
-public class ForgePlayerCalculator implements ContextCalculator<ServerPlayer> {
+public class ForgePlayerCalculator implements SignalledContextCalculator<ServerPlayer> {
     /**
      * GameType.NOT_SET(-1, "") was removed in 1.17
      */
@@ -141,7 +141,16 @@ public class ForgePlayerCalculator implements ContextCalculator<ServerPlayer> {
             return;
         }
 
-        this.plugin.getContextManager().signalContextUpdate((ServerPlayer) event.getEntity());
+        ServerPlayer player = (ServerPlayer) event.getEntity();
+        this.plugin.getContextManager().signalContextUpdate(player);
+
+        // the event is fired before the gamemode is actually changed, so signal
+        // again once it has been, as the contexts are cached until the next signal
+        this.plugin.getBootstrap().getScheduler().sync().execute(() -> {
+            if (this.plugin.getBootstrap().isPlayerOnline(player.getUUID())) {
+                this.plugin.getContextManager().signalContextUpdate(player);
+            }
+        });
     }
 
 }